@@ -22,10 +22,19 @@
 package com.kingsrook.qbits.workflows;
 
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import com.kingsrook.qbits.workflows.metrics.InMemoryWorkflowMetrics;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsInterface;
+import com.kingsrook.qbits.workflows.tracing.SegmentStoreWorkflowRunLogTracer;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogBufferOverflowPolicy;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogRetentionPolicy;
 import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogTracer;
 import com.kingsrook.qbits.workflows.tracing.WorkflowTracerInterface;
+import com.kingsrook.qbits.workflows.tracing.WorkflowTracerSamplingPolicy;
 import com.kingsrook.qqq.api.model.metadata.ApiInstanceMetaData;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.instances.QInstanceValidator;
@@ -34,8 +43,10 @@ import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
 import com.kingsrook.qqq.backend.core.model.metadata.qbits.QBitConfig;
 import com.kingsrook.qqq.backend.core.model.metadata.qbits.QBitMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.scheduleing.QScheduleMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.utils.ClassPathUtils;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
 
 
 /*******************************************************************************
@@ -55,6 +66,43 @@ public class WorkflowsQBitConfig implements QBitConfig
 
    private boolean includeRecordWorkflows = true;
 
+   private int recordWorkflowMaxParallelism = 1;
+
+   private int     workflowEngineMaxThreads    = 4;
+   private int     workflowEngineMaxQueuedRuns = 1000;
+   private boolean workflowEngineBlockWhenFull = false;
+
+   private QCodeReference workflowMetricsCodeReference = new QCodeReference(InMemoryWorkflowMetrics.class);
+   private boolean        workflowMetricsJmxEnabled    = false;
+
+   private int                                workflowRunLogBufferCapacity            = 10_000;
+   private int                                workflowRunLogBufferBatchSize           = 500;
+   private long                               workflowRunLogBufferFlushIntervalMillis = 1000;
+   private WorkflowRunLogBufferOverflowPolicy workflowRunLogBufferOverflowPolicy      = WorkflowRunLogBufferOverflowPolicy.BLOCK;
+   private String                             workflowRunLogBufferSpillFile;
+
+   private QCodeReference                             workflowTracerSamplingDelegateCodeReference  = new QCodeReference(WorkflowRunLogTracer.class);
+   private WorkflowTracerSamplingPolicy               defaultWorkflowTracerSamplingPolicy          = new WorkflowTracerSamplingPolicy();
+   private Map<Integer, WorkflowTracerSamplingPolicy> workflowTracerSamplingPoliciesByWorkflowId   = new HashMap<>();
+   private Map<String, WorkflowTracerSamplingPolicy>  workflowTracerSamplingPoliciesByWorkflowType = new HashMap<>();
+
+   private String  workflowRunLogSegmentStoreDirectory;
+   private long    workflowRunLogSegmentMaxBytes      = 64 * 1024 * 1024;
+   private Integer workflowRunLogSegmentRetentionDays = 30;
+
+   private WorkflowRunLogRetentionPolicy               defaultWorkflowRunLogRetentionPolicy        = new WorkflowRunLogRetentionPolicy();
+   private Map<Integer, WorkflowRunLogRetentionPolicy> workflowRunLogRetentionPoliciesByWorkflowId = new HashMap<>();
+   private int                                         workflowRunLogPurgeChunkSize                = 1000;
+   private long                                        workflowRunLogPurgeThrottleMillis           = 100;
+   private Integer                                     workflowRunLogPurgeFullScanIntervalDays     = 7;
+   private QScheduleMetaData                           workflowRunLogPurgeSchedule;
+
+   private QCodeReference workflowRunStatsDelegateCodeReference = new QCodeReference(WorkflowRunLogTracer.class);
+   private long           workflowRunStatsFlushIntervalMillis   = 60_000;
+
+   private boolean workflowStepStatsEnabled             = false;
+   private long    workflowStepStatsFlushIntervalMillis = 60_000;
+
 
 
    /*******************************************************************************
@@ -68,6 +116,22 @@ public class WorkflowsQBitConfig implements QBitConfig
 
 
 
+   /***************************************************************************
+    * get the config of the workflows qbit in a QInstance - or, if there isn't
+    * one (e.g., the registry was set up without the qbit), a default config.
+    ***************************************************************************/
+   public static WorkflowsQBitConfig of(QInstance qInstance)
+   {
+      return (CollectionUtils.nonNullMap(qInstance.getQBits()).values().stream()
+         .map(QBitMetaData::getConfig)
+         .filter(WorkflowsQBitConfig.class::isInstance)
+         .map(WorkflowsQBitConfig.class::cast)
+         .findFirst()
+         .orElseGet(WorkflowsQBitConfig::new));
+   }
+
+
+
    /***************************************************************************
     *
     ***************************************************************************/
@@ -96,6 +160,121 @@ public class WorkflowsQBitConfig implements QBitConfig
          qInstanceValidator.validateSimpleCodeReference("Workflows qbit config workflowTracerCodeReference", workflowTracerCodeReference, WorkflowTracerInterface.class);
          errors.addAll(qInstanceValidator.getErrors());
       }
+
+      if(recordWorkflowMaxParallelism < 1)
+      {
+         errors.add("Workflows QBit is configured with a recordWorkflowMaxParallelism less than 1.");
+      }
+
+      if(workflowEngineMaxThreads < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowEngineMaxThreads less than 1.");
+      }
+
+      if(workflowEngineMaxQueuedRuns < 0)
+      {
+         errors.add("Workflows QBit is configured with a negative workflowEngineMaxQueuedRuns.");
+      }
+
+      if(workflowMetricsCodeReference != null)
+      {
+         QInstanceValidator qInstanceValidator = new QInstanceValidator();
+         qInstanceValidator.validateSimpleCodeReference("Workflows qbit config workflowMetricsCodeReference", workflowMetricsCodeReference, WorkflowMetricsInterface.class);
+         errors.addAll(qInstanceValidator.getErrors());
+      }
+
+      if(workflowRunLogBufferCapacity < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogBufferCapacity less than 1.");
+      }
+
+      if(workflowRunLogBufferBatchSize < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogBufferBatchSize less than 1.");
+      }
+
+      if(workflowRunLogBufferFlushIntervalMillis < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogBufferFlushIntervalMillis less than 1.");
+      }
+
+      if(workflowRunLogBufferOverflowPolicy == null)
+      {
+         errors.add("Workflows QBit is configured without a workflowRunLogBufferOverflowPolicy.");
+      }
+
+      if(WorkflowRunLogBufferOverflowPolicy.SPILL_TO_FILE.equals(workflowRunLogBufferOverflowPolicy) && workflowRunLogBufferSpillFile == null)
+      {
+         errors.add("Workflows QBit is configured with the SPILL_TO_FILE workflowRunLogBufferOverflowPolicy, but without a workflowRunLogBufferSpillFile.");
+      }
+
+      if(workflowTracerSamplingDelegateCodeReference != null)
+      {
+         QInstanceValidator qInstanceValidator = new QInstanceValidator();
+         qInstanceValidator.validateSimpleCodeReference("Workflows qbit config workflowTracerSamplingDelegateCodeReference", workflowTracerSamplingDelegateCodeReference, WorkflowTracerInterface.class);
+         errors.addAll(qInstanceValidator.getErrors());
+      }
+
+      if(defaultWorkflowTracerSamplingPolicy != null)
+      {
+         defaultWorkflowTracerSamplingPolicy.validate("Workflows QBit defaultWorkflowTracerSamplingPolicy", errors);
+      }
+      CollectionUtils.nonNullMap(workflowTracerSamplingPoliciesByWorkflowId).forEach((workflowId, policy) -> policy.validate("Workflows QBit workflowTracerSamplingPolicy for workflowId " + workflowId, errors));
+      CollectionUtils.nonNullMap(workflowTracerSamplingPoliciesByWorkflowType).forEach((workflowTypeName, policy) -> policy.validate("Workflows QBit workflowTracerSamplingPolicy for workflow type " + workflowTypeName, errors));
+
+      if(workflowRunLogSegmentMaxBytes < 1 || workflowRunLogSegmentMaxBytes > Integer.MAX_VALUE)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogSegmentMaxBytes that is not between 1 and " + Integer.MAX_VALUE + ".");
+      }
+
+      if(workflowRunLogSegmentRetentionDays != null && workflowRunLogSegmentRetentionDays < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogSegmentRetentionDays less than 1.");
+      }
+
+      if(workflowRunLogSegmentStoreDirectory == null && Stream.of(workflowTracerCodeReference, workflowTracerSamplingDelegateCodeReference, workflowRunStatsDelegateCodeReference)
+         .anyMatch(codeReference -> codeReference != null && SegmentStoreWorkflowRunLogTracer.class.getName().equals(codeReference.getName())))
+      {
+         errors.add("Workflows QBit is configured to use the SegmentStoreWorkflowRunLogTracer, but without a workflowRunLogSegmentStoreDirectory.");
+      }
+
+      if(defaultWorkflowRunLogRetentionPolicy != null)
+      {
+         defaultWorkflowRunLogRetentionPolicy.validate("Workflows QBit defaultWorkflowRunLogRetentionPolicy", errors);
+      }
+      CollectionUtils.nonNullMap(workflowRunLogRetentionPoliciesByWorkflowId).forEach((workflowId, policy) -> policy.validate("Workflows QBit workflowRunLogRetentionPolicy for workflowId " + workflowId, errors));
+
+      if(workflowRunLogPurgeChunkSize < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogPurgeChunkSize less than 1.");
+      }
+
+      if(workflowRunLogPurgeThrottleMillis < 0)
+      {
+         errors.add("Workflows QBit is configured with a negative workflowRunLogPurgeThrottleMillis.");
+      }
+
+      if(workflowRunLogPurgeFullScanIntervalDays != null && workflowRunLogPurgeFullScanIntervalDays < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunLogPurgeFullScanIntervalDays less than 1.");
+      }
+
+      if(workflowRunStatsDelegateCodeReference != null)
+      {
+         QInstanceValidator qInstanceValidator = new QInstanceValidator();
+         qInstanceValidator.validateSimpleCodeReference("Workflows qbit config workflowRunStatsDelegateCodeReference", workflowRunStatsDelegateCodeReference, WorkflowTracerInterface.class);
+         errors.addAll(qInstanceValidator.getErrors());
+      }
+
+      if(workflowRunStatsFlushIntervalMillis < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowRunStatsFlushIntervalMillis less than 1.");
+      }
+
+      if(workflowStepStatsFlushIntervalMillis < 1)
+      {
+         errors.add("Workflows QBit is configured with a workflowStepStatsFlushIntervalMillis less than 1.");
+      }
    }
 
 
@@ -306,4 +485,1120 @@ public class WorkflowsQBitConfig implements QBitConfig
       return (this);
    }
 
+
+
+   /*******************************************************************************
+    * Getter for recordWorkflowMaxParallelism
+    * @see #withRecordWorkflowMaxParallelism(int)
+    *******************************************************************************/
+   public int getRecordWorkflowMaxParallelism()
+   {
+      return (this.recordWorkflowMaxParallelism);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for recordWorkflowMaxParallelism
+    * @see #withRecordWorkflowMaxParallelism(int)
+    *******************************************************************************/
+   public void setRecordWorkflowMaxParallelism(int recordWorkflowMaxParallelism)
+   {
+      this.recordWorkflowMaxParallelism = recordWorkflowMaxParallelism;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for recordWorkflowMaxParallelism
+    *
+    * @param recordWorkflowMaxParallelism
+    * Default for the maximum number of threads that the RunRecordWorkflow process
+    * uses to run the records in each page through a workflow at the same time
+    * (each in its own transaction).  Useful for workflows that spend most of their
+    * time waiting on the backend (e.g., for joins & DML).  Default value is 1 (run
+    * each page on the process's own thread).  Can be overridden per run of the
+    * process, via its maxParallelism input.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withRecordWorkflowMaxParallelism(int recordWorkflowMaxParallelism)
+   {
+      this.recordWorkflowMaxParallelism = recordWorkflowMaxParallelism;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowEngineMaxThreads
+    * @see #withWorkflowEngineMaxThreads(int)
+    *******************************************************************************/
+   public int getWorkflowEngineMaxThreads()
+   {
+      return (this.workflowEngineMaxThreads);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowEngineMaxThreads
+    * @see #withWorkflowEngineMaxThreads(int)
+    *******************************************************************************/
+   public void setWorkflowEngineMaxThreads(int workflowEngineMaxThreads)
+   {
+      this.workflowEngineMaxThreads = workflowEngineMaxThreads;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowEngineMaxThreads
+    *
+    * @param workflowEngineMaxThreads
+    * The number of worker threads that the WorkflowEngine (for asynchronous
+    * workflow submissions) runs workflows on.  Default value is 4.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowEngineMaxThreads(int workflowEngineMaxThreads)
+   {
+      this.workflowEngineMaxThreads = workflowEngineMaxThreads;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowEngineMaxQueuedRuns
+    * @see #withWorkflowEngineMaxQueuedRuns(int)
+    *******************************************************************************/
+   public int getWorkflowEngineMaxQueuedRuns()
+   {
+      return (this.workflowEngineMaxQueuedRuns);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowEngineMaxQueuedRuns
+    * @see #withWorkflowEngineMaxQueuedRuns(int)
+    *******************************************************************************/
+   public void setWorkflowEngineMaxQueuedRuns(int workflowEngineMaxQueuedRuns)
+   {
+      this.workflowEngineMaxQueuedRuns = workflowEngineMaxQueuedRuns;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowEngineMaxQueuedRuns
+    *
+    * @param workflowEngineMaxQueuedRuns
+    * The number of submissions to the WorkflowEngine that may wait for a worker
+    * thread, once all are busy.  Past this, submissions are rejected or block -
+    * see withWorkflowEngineBlockWhenFull.  Default value is 1000.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowEngineMaxQueuedRuns(int workflowEngineMaxQueuedRuns)
+   {
+      this.workflowEngineMaxQueuedRuns = workflowEngineMaxQueuedRuns;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowEngineBlockWhenFull
+    * @see #withWorkflowEngineBlockWhenFull(boolean)
+    *******************************************************************************/
+   public boolean getWorkflowEngineBlockWhenFull()
+   {
+      return (this.workflowEngineBlockWhenFull);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowEngineBlockWhenFull
+    * @see #withWorkflowEngineBlockWhenFull(boolean)
+    *******************************************************************************/
+   public void setWorkflowEngineBlockWhenFull(boolean workflowEngineBlockWhenFull)
+   {
+      this.workflowEngineBlockWhenFull = workflowEngineBlockWhenFull;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowEngineBlockWhenFull
+    *
+    * @param workflowEngineBlockWhenFull
+    * Control what the WorkflowEngine does with a submission when its queue is
+    * full:  if true, the submitting thread blocks until there is room; if false,
+    * the submission is rejected (its future fails).  Default value is false.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowEngineBlockWhenFull(boolean workflowEngineBlockWhenFull)
+   {
+      this.workflowEngineBlockWhenFull = workflowEngineBlockWhenFull;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowMetricsCodeReference
+    * @see #withWorkflowMetricsCodeReference(QCodeReference)
+    *******************************************************************************/
+   public QCodeReference getWorkflowMetricsCodeReference()
+   {
+      return (this.workflowMetricsCodeReference);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowMetricsCodeReference
+    * @see #withWorkflowMetricsCodeReference(QCodeReference)
+    *******************************************************************************/
+   public void setWorkflowMetricsCodeReference(QCodeReference workflowMetricsCodeReference)
+   {
+      this.workflowMetricsCodeReference = workflowMetricsCodeReference;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowMetricsCodeReference
+    *
+    * @param workflowMetricsCodeReference
+    * Reference to the WorkflowMetricsInterface implementation that the
+    * WorkflowExecutor records run & step latencies and counts to.  Default value
+    * is InMemoryWorkflowMetrics.  If null, no metrics are recorded.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowMetricsCodeReference(QCodeReference workflowMetricsCodeReference)
+   {
+      this.workflowMetricsCodeReference = workflowMetricsCodeReference;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowMetricsJmxEnabled
+    * @see #withWorkflowMetricsJmxEnabled(boolean)
+    *******************************************************************************/
+   public boolean getWorkflowMetricsJmxEnabled()
+   {
+      return (this.workflowMetricsJmxEnabled);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowMetricsJmxEnabled
+    * @see #withWorkflowMetricsJmxEnabled(boolean)
+    *******************************************************************************/
+   public void setWorkflowMetricsJmxEnabled(boolean workflowMetricsJmxEnabled)
+   {
+      this.workflowMetricsJmxEnabled = workflowMetricsJmxEnabled;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowMetricsJmxEnabled
+    *
+    * @param workflowMetricsJmxEnabled
+    * Whether to register the workflow metrics in the platform MBean server (see
+    * WorkflowMetricsJmxBinding).  Default value is false.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowMetricsJmxEnabled(boolean workflowMetricsJmxEnabled)
+   {
+      this.workflowMetricsJmxEnabled = workflowMetricsJmxEnabled;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogBufferCapacity
+    * @see #withWorkflowRunLogBufferCapacity(int)
+    *******************************************************************************/
+   public int getWorkflowRunLogBufferCapacity()
+   {
+      return (this.workflowRunLogBufferCapacity);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogBufferCapacity
+    * @see #withWorkflowRunLogBufferCapacity(int)
+    *******************************************************************************/
+   public void setWorkflowRunLogBufferCapacity(int workflowRunLogBufferCapacity)
+   {
+      this.workflowRunLogBufferCapacity = workflowRunLogBufferCapacity;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogBufferCapacity
+    *
+    * @param workflowRunLogBufferCapacity
+    * Maximum number of finished run logs that the WorkflowRunLogBuffer (used by
+    * the BufferedWorkflowRunLogTracer) holds waiting to be inserted, before its
+    * overflow policy applies.  Default value is 10,000.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogBufferCapacity(int workflowRunLogBufferCapacity)
+   {
+      this.workflowRunLogBufferCapacity = workflowRunLogBufferCapacity;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogBufferBatchSize
+    * @see #withWorkflowRunLogBufferBatchSize(int)
+    *******************************************************************************/
+   public int getWorkflowRunLogBufferBatchSize()
+   {
+      return (this.workflowRunLogBufferBatchSize);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogBufferBatchSize
+    * @see #withWorkflowRunLogBufferBatchSize(int)
+    *******************************************************************************/
+   public void setWorkflowRunLogBufferBatchSize(int workflowRunLogBufferBatchSize)
+   {
+      this.workflowRunLogBufferBatchSize = workflowRunLogBufferBatchSize;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogBufferBatchSize
+    *
+    * @param workflowRunLogBufferBatchSize
+    * Maximum number of run logs that the WorkflowRunLogBuffer inserts at once.  A
+    * full batch being queued also wakes its flusher.  Default value is 500.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogBufferBatchSize(int workflowRunLogBufferBatchSize)
+   {
+      this.workflowRunLogBufferBatchSize = workflowRunLogBufferBatchSize;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogBufferFlushIntervalMillis
+    * @see #withWorkflowRunLogBufferFlushIntervalMillis(long)
+    *******************************************************************************/
+   public long getWorkflowRunLogBufferFlushIntervalMillis()
+   {
+      return (this.workflowRunLogBufferFlushIntervalMillis);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogBufferFlushIntervalMillis
+    * @see #withWorkflowRunLogBufferFlushIntervalMillis(long)
+    *******************************************************************************/
+   public void setWorkflowRunLogBufferFlushIntervalMillis(long workflowRunLogBufferFlushIntervalMillis)
+   {
+      this.workflowRunLogBufferFlushIntervalMillis = workflowRunLogBufferFlushIntervalMillis;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogBufferFlushIntervalMillis
+    *
+    * @param workflowRunLogBufferFlushIntervalMillis
+    * Longest time (in milliseconds) that the WorkflowRunLogBuffer's flusher waits
+    * for a full batch, before inserting whatever is queued.  Default value is
+    * 1000.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogBufferFlushIntervalMillis(long workflowRunLogBufferFlushIntervalMillis)
+   {
+      this.workflowRunLogBufferFlushIntervalMillis = workflowRunLogBufferFlushIntervalMillis;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogBufferOverflowPolicy
+    * @see #withWorkflowRunLogBufferOverflowPolicy(WorkflowRunLogBufferOverflowPolicy)
+    *******************************************************************************/
+   public WorkflowRunLogBufferOverflowPolicy getWorkflowRunLogBufferOverflowPolicy()
+   {
+      return (this.workflowRunLogBufferOverflowPolicy);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogBufferOverflowPolicy
+    * @see #withWorkflowRunLogBufferOverflowPolicy(WorkflowRunLogBufferOverflowPolicy)
+    *******************************************************************************/
+   public void setWorkflowRunLogBufferOverflowPolicy(WorkflowRunLogBufferOverflowPolicy workflowRunLogBufferOverflowPolicy)
+   {
+      this.workflowRunLogBufferOverflowPolicy = workflowRunLogBufferOverflowPolicy;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogBufferOverflowPolicy
+    *
+    * @param workflowRunLogBufferOverflowPolicy
+    * What the WorkflowRunLogBuffer does with a run log when its queue is full
+    * (block the finishing workflow, drop the oldest queued run log, or spill to a
+    * local file).  Default value is BLOCK.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogBufferOverflowPolicy(WorkflowRunLogBufferOverflowPolicy workflowRunLogBufferOverflowPolicy)
+   {
+      this.workflowRunLogBufferOverflowPolicy = workflowRunLogBufferOverflowPolicy;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogBufferSpillFile
+    * @see #withWorkflowRunLogBufferSpillFile(String)
+    *******************************************************************************/
+   public String getWorkflowRunLogBufferSpillFile()
+   {
+      return (this.workflowRunLogBufferSpillFile);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogBufferSpillFile
+    * @see #withWorkflowRunLogBufferSpillFile(String)
+    *******************************************************************************/
+   public void setWorkflowRunLogBufferSpillFile(String workflowRunLogBufferSpillFile)
+   {
+      this.workflowRunLogBufferSpillFile = workflowRunLogBufferSpillFile;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogBufferSpillFile
+    *
+    * @param workflowRunLogBufferSpillFile
+    * Path of the file that the WorkflowRunLogBuffer spills run logs to - required
+    * under the SPILL_TO_FILE overflow policy.  Must be unique to each process
+    * running on a host (as each replays, and deletes, the whole file).  Default
+    * value is null.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogBufferSpillFile(String workflowRunLogBufferSpillFile)
+   {
+      this.workflowRunLogBufferSpillFile = workflowRunLogBufferSpillFile;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowTracerSamplingDelegateCodeReference
+    * @see #withWorkflowTracerSamplingDelegateCodeReference(QCodeReference)
+    *******************************************************************************/
+   public QCodeReference getWorkflowTracerSamplingDelegateCodeReference()
+   {
+      return (this.workflowTracerSamplingDelegateCodeReference);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowTracerSamplingDelegateCodeReference
+    * @see #withWorkflowTracerSamplingDelegateCodeReference(QCodeReference)
+    *******************************************************************************/
+   public void setWorkflowTracerSamplingDelegateCodeReference(QCodeReference workflowTracerSamplingDelegateCodeReference)
+   {
+      this.workflowTracerSamplingDelegateCodeReference = workflowTracerSamplingDelegateCodeReference;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowTracerSamplingDelegateCodeReference
+    *
+    * @param workflowTracerSamplingDelegateCodeReference
+    * Reference to the tracer that the SamplingWorkflowTracer passes the run logs
+    * that it keeps on to.  Default value is WorkflowRunLogTracer.  If null, no
+    * run logs are kept.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowTracerSamplingDelegateCodeReference(QCodeReference workflowTracerSamplingDelegateCodeReference)
+   {
+      this.workflowTracerSamplingDelegateCodeReference = workflowTracerSamplingDelegateCodeReference;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for defaultWorkflowTracerSamplingPolicy
+    * @see #withDefaultWorkflowTracerSamplingPolicy(WorkflowTracerSamplingPolicy)
+    *******************************************************************************/
+   public WorkflowTracerSamplingPolicy getDefaultWorkflowTracerSamplingPolicy()
+   {
+      return (this.defaultWorkflowTracerSamplingPolicy);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for defaultWorkflowTracerSamplingPolicy
+    * @see #withDefaultWorkflowTracerSamplingPolicy(WorkflowTracerSamplingPolicy)
+    *******************************************************************************/
+   public void setDefaultWorkflowTracerSamplingPolicy(WorkflowTracerSamplingPolicy defaultWorkflowTracerSamplingPolicy)
+   {
+      this.defaultWorkflowTracerSamplingPolicy = defaultWorkflowTracerSamplingPolicy;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for defaultWorkflowTracerSamplingPolicy
+    *
+    * @param defaultWorkflowTracerSamplingPolicy
+    * Policy for which run logs the SamplingWorkflowTracer keeps, for workflows
+    * that don't have a policy by id or type.  Default value is a policy that
+    * keeps all run logs.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withDefaultWorkflowTracerSamplingPolicy(WorkflowTracerSamplingPolicy defaultWorkflowTracerSamplingPolicy)
+   {
+      this.defaultWorkflowTracerSamplingPolicy = defaultWorkflowTracerSamplingPolicy;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowTracerSamplingPoliciesByWorkflowId
+    * @see #withWorkflowTracerSamplingPoliciesByWorkflowId(Map)
+    *******************************************************************************/
+   public Map<Integer, WorkflowTracerSamplingPolicy> getWorkflowTracerSamplingPoliciesByWorkflowId()
+   {
+      return (this.workflowTracerSamplingPoliciesByWorkflowId);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowTracerSamplingPoliciesByWorkflowId
+    * @see #withWorkflowTracerSamplingPoliciesByWorkflowId(Map)
+    *******************************************************************************/
+   public void setWorkflowTracerSamplingPoliciesByWorkflowId(Map<Integer, WorkflowTracerSamplingPolicy> workflowTracerSamplingPoliciesByWorkflowId)
+   {
+      this.workflowTracerSamplingPoliciesByWorkflowId = workflowTracerSamplingPoliciesByWorkflowId;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowTracerSamplingPoliciesByWorkflowId
+    *
+    * @param workflowTracerSamplingPoliciesByWorkflowId
+    * Policies for which run logs the SamplingWorkflowTracer keeps, for specific
+    * workflows (keyed by workflow id).  These take precedence over policies by
+    * workflow type.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowTracerSamplingPoliciesByWorkflowId(Map<Integer, WorkflowTracerSamplingPolicy> workflowTracerSamplingPoliciesByWorkflowId)
+   {
+      this.workflowTracerSamplingPoliciesByWorkflowId = workflowTracerSamplingPoliciesByWorkflowId;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowTracerSamplingPoliciesByWorkflowType
+    * @see #withWorkflowTracerSamplingPoliciesByWorkflowType(Map)
+    *******************************************************************************/
+   public Map<String, WorkflowTracerSamplingPolicy> getWorkflowTracerSamplingPoliciesByWorkflowType()
+   {
+      return (this.workflowTracerSamplingPoliciesByWorkflowType);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowTracerSamplingPoliciesByWorkflowType
+    * @see #withWorkflowTracerSamplingPoliciesByWorkflowType(Map)
+    *******************************************************************************/
+   public void setWorkflowTracerSamplingPoliciesByWorkflowType(Map<String, WorkflowTracerSamplingPolicy> workflowTracerSamplingPoliciesByWorkflowType)
+   {
+      this.workflowTracerSamplingPoliciesByWorkflowType = workflowTracerSamplingPoliciesByWorkflowType;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowTracerSamplingPoliciesByWorkflowType
+    *
+    * @param workflowTracerSamplingPoliciesByWorkflowType
+    * Policies for which run logs the SamplingWorkflowTracer keeps, for workflows
+    * of specific types (keyed by workflow type name).
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowTracerSamplingPoliciesByWorkflowType(Map<String, WorkflowTracerSamplingPolicy> workflowTracerSamplingPoliciesByWorkflowType)
+   {
+      this.workflowTracerSamplingPoliciesByWorkflowType = workflowTracerSamplingPoliciesByWorkflowType;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogSegmentStoreDirectory
+    * @see #withWorkflowRunLogSegmentStoreDirectory(String)
+    *******************************************************************************/
+   public String getWorkflowRunLogSegmentStoreDirectory()
+   {
+      return (this.workflowRunLogSegmentStoreDirectory);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogSegmentStoreDirectory
+    * @see #withWorkflowRunLogSegmentStoreDirectory(String)
+    *******************************************************************************/
+   public void setWorkflowRunLogSegmentStoreDirectory(String workflowRunLogSegmentStoreDirectory)
+   {
+      this.workflowRunLogSegmentStoreDirectory = workflowRunLogSegmentStoreDirectory;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogSegmentStoreDirectory
+    *
+    * @param workflowRunLogSegmentStoreDirectory
+    * Directory that the SegmentStoreWorkflowRunLogTracer writes run log segment
+    * files in - required to use that tracer.  It is locked while in use, so each
+    * server (process) needs a directory of its own.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogSegmentStoreDirectory(String workflowRunLogSegmentStoreDirectory)
+   {
+      this.workflowRunLogSegmentStoreDirectory = workflowRunLogSegmentStoreDirectory;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogSegmentMaxBytes
+    * @see #withWorkflowRunLogSegmentMaxBytes(long)
+    *******************************************************************************/
+   public long getWorkflowRunLogSegmentMaxBytes()
+   {
+      return (this.workflowRunLogSegmentMaxBytes);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogSegmentMaxBytes
+    * @see #withWorkflowRunLogSegmentMaxBytes(long)
+    *******************************************************************************/
+   public void setWorkflowRunLogSegmentMaxBytes(long workflowRunLogSegmentMaxBytes)
+   {
+      this.workflowRunLogSegmentMaxBytes = workflowRunLogSegmentMaxBytes;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogSegmentMaxBytes
+    *
+    * @param workflowRunLogSegmentMaxBytes
+    * Size (in bytes) at which the SegmentStoreWorkflowRunLogTracer starts a new
+    * run log segment file.  Segments are memory-mapped for reading, so this may
+    * not be more than Integer.MAX_VALUE.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogSegmentMaxBytes(long workflowRunLogSegmentMaxBytes)
+   {
+      this.workflowRunLogSegmentMaxBytes = workflowRunLogSegmentMaxBytes;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogSegmentRetentionDays
+    * @see #withWorkflowRunLogSegmentRetentionDays(Integer)
+    *******************************************************************************/
+   public Integer getWorkflowRunLogSegmentRetentionDays()
+   {
+      return (this.workflowRunLogSegmentRetentionDays);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogSegmentRetentionDays
+    * @see #withWorkflowRunLogSegmentRetentionDays(Integer)
+    *******************************************************************************/
+   public void setWorkflowRunLogSegmentRetentionDays(Integer workflowRunLogSegmentRetentionDays)
+   {
+      this.workflowRunLogSegmentRetentionDays = workflowRunLogSegmentRetentionDays;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogSegmentRetentionDays
+    *
+    * @param workflowRunLogSegmentRetentionDays
+    * Days to keep run log segment files for: when a new segment is started, the
+    * segments whose run logs all started longer ago than this are deleted.
+    * Null to keep them forever.  Default is 30.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogSegmentRetentionDays(Integer workflowRunLogSegmentRetentionDays)
+   {
+      this.workflowRunLogSegmentRetentionDays = workflowRunLogSegmentRetentionDays;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for defaultWorkflowRunLogRetentionPolicy
+    * @see #withDefaultWorkflowRunLogRetentionPolicy(WorkflowRunLogRetentionPolicy)
+    *******************************************************************************/
+   public WorkflowRunLogRetentionPolicy getDefaultWorkflowRunLogRetentionPolicy()
+   {
+      return (this.defaultWorkflowRunLogRetentionPolicy);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for defaultWorkflowRunLogRetentionPolicy
+    * @see #withDefaultWorkflowRunLogRetentionPolicy(WorkflowRunLogRetentionPolicy)
+    *******************************************************************************/
+   public void setDefaultWorkflowRunLogRetentionPolicy(WorkflowRunLogRetentionPolicy defaultWorkflowRunLogRetentionPolicy)
+   {
+      this.defaultWorkflowRunLogRetentionPolicy = defaultWorkflowRunLogRetentionPolicy;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for defaultWorkflowRunLogRetentionPolicy
+    *
+    * @param defaultWorkflowRunLogRetentionPolicy
+    * Policy for how long the PurgeWorkflowRunLogsProcess keeps run logs, for
+    * workflows without a policy of their own.  Default keeps all run logs
+    * forever.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withDefaultWorkflowRunLogRetentionPolicy(WorkflowRunLogRetentionPolicy defaultWorkflowRunLogRetentionPolicy)
+   {
+      this.defaultWorkflowRunLogRetentionPolicy = defaultWorkflowRunLogRetentionPolicy;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogRetentionPoliciesByWorkflowId
+    * @see #withWorkflowRunLogRetentionPoliciesByWorkflowId(Map)
+    *******************************************************************************/
+   public Map<Integer, WorkflowRunLogRetentionPolicy> getWorkflowRunLogRetentionPoliciesByWorkflowId()
+   {
+      return (this.workflowRunLogRetentionPoliciesByWorkflowId);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogRetentionPoliciesByWorkflowId
+    * @see #withWorkflowRunLogRetentionPoliciesByWorkflowId(Map)
+    *******************************************************************************/
+   public void setWorkflowRunLogRetentionPoliciesByWorkflowId(Map<Integer, WorkflowRunLogRetentionPolicy> workflowRunLogRetentionPoliciesByWorkflowId)
+   {
+      this.workflowRunLogRetentionPoliciesByWorkflowId = workflowRunLogRetentionPoliciesByWorkflowId;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogRetentionPoliciesByWorkflowId
+    *
+    * @param workflowRunLogRetentionPoliciesByWorkflowId
+    * Policies for how long the PurgeWorkflowRunLogsProcess keeps run logs, for
+    * specific workflows (keyed by workflow id).
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogRetentionPoliciesByWorkflowId(Map<Integer, WorkflowRunLogRetentionPolicy> workflowRunLogRetentionPoliciesByWorkflowId)
+   {
+      this.workflowRunLogRetentionPoliciesByWorkflowId = workflowRunLogRetentionPoliciesByWorkflowId;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogPurgeChunkSize
+    * @see #withWorkflowRunLogPurgeChunkSize(int)
+    *******************************************************************************/
+   public int getWorkflowRunLogPurgeChunkSize()
+   {
+      return (this.workflowRunLogPurgeChunkSize);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogPurgeChunkSize
+    * @see #withWorkflowRunLogPurgeChunkSize(int)
+    *******************************************************************************/
+   public void setWorkflowRunLogPurgeChunkSize(int workflowRunLogPurgeChunkSize)
+   {
+      this.workflowRunLogPurgeChunkSize = workflowRunLogPurgeChunkSize;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogPurgeChunkSize
+    *
+    * @param workflowRunLogPurgeChunkSize
+    * Number of run logs the PurgeWorkflowRunLogsProcess deletes at a time (each
+    * chunk in its own transaction).  Default value is 1000.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogPurgeChunkSize(int workflowRunLogPurgeChunkSize)
+   {
+      this.workflowRunLogPurgeChunkSize = workflowRunLogPurgeChunkSize;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogPurgeThrottleMillis
+    * @see #withWorkflowRunLogPurgeThrottleMillis(long)
+    *******************************************************************************/
+   public long getWorkflowRunLogPurgeThrottleMillis()
+   {
+      return (this.workflowRunLogPurgeThrottleMillis);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogPurgeThrottleMillis
+    * @see #withWorkflowRunLogPurgeThrottleMillis(long)
+    *******************************************************************************/
+   public void setWorkflowRunLogPurgeThrottleMillis(long workflowRunLogPurgeThrottleMillis)
+   {
+      this.workflowRunLogPurgeThrottleMillis = workflowRunLogPurgeThrottleMillis;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogPurgeThrottleMillis
+    *
+    * @param workflowRunLogPurgeThrottleMillis
+    * Milliseconds the PurgeWorkflowRunLogsProcess sleeps between chunks of
+    * deletes, to limit its load on the database.  Default value is 100.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogPurgeThrottleMillis(long workflowRunLogPurgeThrottleMillis)
+   {
+      this.workflowRunLogPurgeThrottleMillis = workflowRunLogPurgeThrottleMillis;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogPurgeFullScanIntervalDays
+    * @see #withWorkflowRunLogPurgeFullScanIntervalDays(Integer)
+    *******************************************************************************/
+   public Integer getWorkflowRunLogPurgeFullScanIntervalDays()
+   {
+      return (this.workflowRunLogPurgeFullScanIntervalDays);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogPurgeFullScanIntervalDays
+    * @see #withWorkflowRunLogPurgeFullScanIntervalDays(Integer)
+    *******************************************************************************/
+   public void setWorkflowRunLogPurgeFullScanIntervalDays(Integer workflowRunLogPurgeFullScanIntervalDays)
+   {
+      this.workflowRunLogPurgeFullScanIntervalDays = workflowRunLogPurgeFullScanIntervalDays;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogPurgeFullScanIntervalDays
+    *
+    * @param workflowRunLogPurgeFullScanIntervalDays
+    * How often the PurgeWorkflowRunLogsProcess purges each retention rule from
+    * the start of the table, rather than from its checkpoint - to catch run logs
+    * inserted after the checkpoint passed their startTimestamp (e.g., replayed
+    * from a spill file, or from a run that was still going).  Default value is
+    * 7.  null means never (except when the workflows a rule covers change).
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogPurgeFullScanIntervalDays(Integer workflowRunLogPurgeFullScanIntervalDays)
+   {
+      this.workflowRunLogPurgeFullScanIntervalDays = workflowRunLogPurgeFullScanIntervalDays;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunLogPurgeSchedule
+    * @see #withWorkflowRunLogPurgeSchedule(QScheduleMetaData)
+    *******************************************************************************/
+   public QScheduleMetaData getWorkflowRunLogPurgeSchedule()
+   {
+      return (this.workflowRunLogPurgeSchedule);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLogPurgeSchedule
+    * @see #withWorkflowRunLogPurgeSchedule(QScheduleMetaData)
+    *******************************************************************************/
+   public void setWorkflowRunLogPurgeSchedule(QScheduleMetaData workflowRunLogPurgeSchedule)
+   {
+      this.workflowRunLogPurgeSchedule = workflowRunLogPurgeSchedule;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLogPurgeSchedule
+    *
+    * @param workflowRunLogPurgeSchedule
+    * Schedule to run the PurgeWorkflowRunLogsProcess on.  Default value is null -
+    * meaning it is not scheduled.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunLogPurgeSchedule(QScheduleMetaData workflowRunLogPurgeSchedule)
+   {
+      this.workflowRunLogPurgeSchedule = workflowRunLogPurgeSchedule;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunStatsDelegateCodeReference
+    * @see #withWorkflowRunStatsDelegateCodeReference(QCodeReference)
+    *******************************************************************************/
+   public QCodeReference getWorkflowRunStatsDelegateCodeReference()
+   {
+      return (this.workflowRunStatsDelegateCodeReference);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunStatsDelegateCodeReference
+    * @see #withWorkflowRunStatsDelegateCodeReference(QCodeReference)
+    *******************************************************************************/
+   public void setWorkflowRunStatsDelegateCodeReference(QCodeReference workflowRunStatsDelegateCodeReference)
+   {
+      this.workflowRunStatsDelegateCodeReference = workflowRunStatsDelegateCodeReference;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunStatsDelegateCodeReference
+    *
+    * @param workflowRunStatsDelegateCodeReference
+    * Reference to the tracer that the WorkflowRunStatsTracer passes run logs on
+    * to, after adding them to the workflowRunStats rollups.  Default value is
+    * WorkflowRunLogTracer.  If null, run logs are only rolled up.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunStatsDelegateCodeReference(QCodeReference workflowRunStatsDelegateCodeReference)
+   {
+      this.workflowRunStatsDelegateCodeReference = workflowRunStatsDelegateCodeReference;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowRunStatsFlushIntervalMillis
+    * @see #withWorkflowRunStatsFlushIntervalMillis(long)
+    *******************************************************************************/
+   public long getWorkflowRunStatsFlushIntervalMillis()
+   {
+      return (this.workflowRunStatsFlushIntervalMillis);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunStatsFlushIntervalMillis
+    * @see #withWorkflowRunStatsFlushIntervalMillis(long)
+    *******************************************************************************/
+   public void setWorkflowRunStatsFlushIntervalMillis(long workflowRunStatsFlushIntervalMillis)
+   {
+      this.workflowRunStatsFlushIntervalMillis = workflowRunStatsFlushIntervalMillis;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunStatsFlushIntervalMillis
+    *
+    * @param workflowRunStatsFlushIntervalMillis
+    * How often the WorkflowRunStatsAggregator upserts what it has recorded into
+    * the workflowRunStats table.  Default value is 60000 (1 minute).
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowRunStatsFlushIntervalMillis(long workflowRunStatsFlushIntervalMillis)
+   {
+      this.workflowRunStatsFlushIntervalMillis = workflowRunStatsFlushIntervalMillis;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowStepStatsEnabled
+    * @see #withWorkflowStepStatsEnabled(boolean)
+    *******************************************************************************/
+   public boolean getWorkflowStepStatsEnabled()
+   {
+      return (this.workflowStepStatsEnabled);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowStepStatsEnabled
+    * @see #withWorkflowStepStatsEnabled(boolean)
+    *******************************************************************************/
+   public void setWorkflowStepStatsEnabled(boolean workflowStepStatsEnabled)
+   {
+      this.workflowStepStatsEnabled = workflowStepStatsEnabled;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowStepStatsEnabled
+    *
+    * @param workflowStepStatsEnabled
+    * Whether the WorkflowExecutor counts how often each step of each revision is
+    * visited, and which outbound links are followed, into the workflowStepStats
+    * table (via the WorkflowStepStatsAggregator).  Default value is false.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowStepStatsEnabled(boolean workflowStepStatsEnabled)
+   {
+      this.workflowStepStatsEnabled = workflowStepStatsEnabled;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for workflowStepStatsFlushIntervalMillis
+    * @see #withWorkflowStepStatsFlushIntervalMillis(long)
+    *******************************************************************************/
+   public long getWorkflowStepStatsFlushIntervalMillis()
+   {
+      return (this.workflowStepStatsFlushIntervalMillis);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowStepStatsFlushIntervalMillis
+    * @see #withWorkflowStepStatsFlushIntervalMillis(long)
+    *******************************************************************************/
+   public void setWorkflowStepStatsFlushIntervalMillis(long workflowStepStatsFlushIntervalMillis)
+   {
+      this.workflowStepStatsFlushIntervalMillis = workflowStepStatsFlushIntervalMillis;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowStepStatsFlushIntervalMillis
+    *
+    * @param workflowStepStatsFlushIntervalMillis
+    * How often the WorkflowStepStatsAggregator adds what it has counted to the
+    * workflowStepStats table.  Default value is 60000 (1 minute).
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowsQBitConfig withWorkflowStepStatsFlushIntervalMillis(long workflowStepStatsFlushIntervalMillis)
+   {
+      this.workflowStepStatsFlushIntervalMillis = workflowStepStatsFlushIntervalMillis;
+      return (this);
+   }
+
 }
@@ -30,12 +30,15 @@ import com.kingsrook.qbits.workflows.model.WorkflowLink;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
 import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
 import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qbits.workflows.model.WorkflowRunStats;
 import com.kingsrook.qbits.workflows.model.WorkflowStep;
+import com.kingsrook.qbits.workflows.model.WorkflowStepStats;
 import com.kingsrook.qbits.workflows.model.WorkflowTestAssertion;
 import com.kingsrook.qbits.workflows.model.WorkflowTestOutput;
 import com.kingsrook.qbits.workflows.model.WorkflowTestRun;
 import com.kingsrook.qbits.workflows.model.WorkflowTestRunScenario;
 import com.kingsrook.qbits.workflows.model.WorkflowTestScenario;
+import com.kingsrook.qbits.workflows.processes.PurgeWorkflowRunLogsProcess;
 import com.kingsrook.qbits.workflows.processes.StoreNewWorkflowRevisionProcess;
 import com.kingsrook.qbits.workflows.triggers.TableTriggerCustomizerForWorkflows;
 import com.kingsrook.qbits.workflows.triggers.WorkflowCustomTableTriggerRecordAutomationHandler;
@@ -121,6 +124,12 @@ public class WorkflowsQBitProducer implements QBitMetaDataProducer<WorkflowsQBit
             .getFieldList();
          storeProcessFieldList.removeIf(f -> f.getName().equals("apiVersion") || f.getName().equals("apiName"));
       }
+
+      if(workflowsQBitConfig.getWorkflowRunLogPurgeSchedule() != null)
+      {
+         QProcessMetaData purgeProcess = metaDataProducerMultiOutput.get(QProcessMetaData.class, PurgeWorkflowRunLogsProcess.NAME);
+         purgeProcess.setSchedule(workflowsQBitConfig.getWorkflowRunLogPurgeSchedule());
+      }
    }
 
 
@@ -138,6 +147,9 @@ public class WorkflowsQBitProducer implements QBitMetaDataProducer<WorkflowsQBit
          .withTable(WorkflowRunLog.TABLE_NAME)
          .withTable(WorkflowRunLogStep.TABLE_NAME)
 
+         .withTable(WorkflowRunStats.TABLE_NAME)
+         .withTable(WorkflowStepStats.TABLE_NAME)
+
          .withTable(WorkflowTestScenario.TABLE_NAME)
          .withTable(WorkflowTestAssertion.TABLE_NAME)
          .withTable(WorkflowTestRun.TABLE_NAME)
@@ -26,12 +26,28 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import com.kingsrook.qbits.workflows.execution.StatefulWorkflowCodeInterface;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
+import com.kingsrook.qbits.workflows.execution.WorkflowEngine;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutionPlanCache;
+import com.kingsrook.qbits.workflows.execution.WorkflowStepExecutorInterface;
+import com.kingsrook.qbits.workflows.execution.WorkflowTypeExecutorInterface;
+import com.kingsrook.qbits.workflows.execution.WorkflowTypeTesterInterface;
+import com.kingsrook.qbits.workflows.implementations.WorkflowApiFieldMappingCache;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsInterface;
+import com.kingsrook.qbits.workflows.metrics.WorkflowStepStatsAggregator;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogBuffer;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogSegmentStore;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunStatsAggregator;
+import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.instances.QHelpContentPlugin;
 import com.kingsrook.qqq.backend.core.instances.QInstanceValidator;
 import com.kingsrook.qqq.backend.core.logging.QLogger;
 import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.QSupplementalInstanceMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
 import com.kingsrook.qqq.backend.core.model.metadata.help.QHelpContent;
@@ -53,6 +69,25 @@ public class WorkflowsRegistry implements QSupplementalInstanceMetaData, QHelpCo
    private Map<String, WorkflowType>     workflowTypes;
    private Map<String, WorkflowStepType> workflowStepTypes;
 
+   private final WorkflowExecutionPlanCache   executionPlanCache   = new WorkflowExecutionPlanCache();
+   private final WorkflowCache                workflowCache        = new WorkflowCache();
+   private final WorkflowApiFieldMappingCache apiFieldMappingCache = new WorkflowApiFieldMappingCache();
+
+   private WorkflowEngine workflowEngine;
+
+   private volatile WorkflowMetricsInterface    workflowMetrics;
+   private volatile WorkflowRunLogBuffer        workflowRunLogBuffer;
+   private volatile WorkflowRunLogSegmentStore  workflowRunLogSegmentStore;
+   private volatile WorkflowRunStatsAggregator  workflowRunStatsAggregator;
+   private volatile WorkflowStepStatsAggregator workflowStepStatsAggregator;
+
+   ////////////////////////////////////////////////////////////////////////////////////
+   // shared (stateless) instances of the code for each type, keyed by the type name //
+   ////////////////////////////////////////////////////////////////////////////////////
+   private final Map<String, WorkflowStepExecutorInterface> workflowStepExecutors = new ConcurrentHashMap<>();
+   private final Map<String, WorkflowTypeExecutorInterface> workflowTypeExecutors = new ConcurrentHashMap<>();
+   private final Map<String, WorkflowTypeTesterInterface>   workflowTypeTesters   = new ConcurrentHashMap<>();
+
 
 
    /*******************************************************************************
@@ -134,6 +169,209 @@ public class WorkflowsRegistry implements QSupplementalInstanceMetaData, QHelpCo
 
 
 
+   /***************************************************************************
+    * get the cache of compiled workflow revisions used by the executor for
+    * this instance.
+    ***************************************************************************/
+   public WorkflowExecutionPlanCache getExecutionPlanCache()
+   {
+      return (executionPlanCache);
+   }
+
+
+
+   /***************************************************************************
+    * get the cache of workflow (header) records shared by the executor and
+    * process steps for this instance.
+    ***************************************************************************/
+   public WorkflowCache getWorkflowCache()
+   {
+      return (workflowCache);
+   }
+
+
+
+   /***************************************************************************
+    * get the cache of api field mappings (for workflow revisions with an api
+    * name & version) for this instance.
+    ***************************************************************************/
+   public WorkflowApiFieldMappingCache getApiFieldMappingCache()
+   {
+      return (apiFieldMappingCache);
+   }
+
+
+
+   /***************************************************************************
+    * get the engine for running workflows asynchronously in this instance, if
+    * one has been created - see WorkflowEngine.of.
+    ***************************************************************************/
+   public WorkflowEngine getWorkflowEngine()
+   {
+      return (workflowEngine);
+   }
+
+
+
+   /***************************************************************************
+    * set the engine - any different one that it replaces is shut down.
+    ***************************************************************************/
+   public void setWorkflowEngine(WorkflowEngine workflowEngine)
+   {
+      WorkflowEngine replaced = this.workflowEngine;
+      this.workflowEngine = workflowEngine;
+      if(replaced != null && replaced != workflowEngine)
+      {
+         replaced.shutdown();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the registry that workflow metrics are recorded to in this instance,
+    * if one has been created - see WorkflowMetricsInterface.of.
+    ***************************************************************************/
+   public WorkflowMetricsInterface getWorkflowMetrics()
+   {
+      return (workflowMetrics);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void setWorkflowMetrics(WorkflowMetricsInterface workflowMetrics)
+   {
+      this.workflowMetrics = workflowMetrics;
+   }
+
+
+
+   /***************************************************************************
+    * get the buffer that BufferedWorkflowRunLogTracer queues run logs in, for
+    * this instance, if one has been created - see WorkflowRunLogBuffer.of.
+    ***************************************************************************/
+   public WorkflowRunLogBuffer getWorkflowRunLogBuffer()
+   {
+      return (workflowRunLogBuffer);
+   }
+
+
+
+   /***************************************************************************
+    * set the buffer - any different one that it replaces is shut down.
+    ***************************************************************************/
+   public void setWorkflowRunLogBuffer(WorkflowRunLogBuffer workflowRunLogBuffer)
+   {
+      WorkflowRunLogBuffer replaced = this.workflowRunLogBuffer;
+      this.workflowRunLogBuffer = workflowRunLogBuffer;
+      if(replaced != null && replaced != workflowRunLogBuffer)
+      {
+         replaced.shutdown();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the store that SegmentStoreWorkflowRunLogTracer writes run logs to,
+    * for this instance, if one has been created - see
+    * WorkflowRunLogSegmentStore.of.
+    ***************************************************************************/
+   public WorkflowRunLogSegmentStore getWorkflowRunLogSegmentStore()
+   {
+      return (workflowRunLogSegmentStore);
+   }
+
+
+
+   /***************************************************************************
+    * set the store - any different one that it replaces is closed.
+    ***************************************************************************/
+   public void setWorkflowRunLogSegmentStore(WorkflowRunLogSegmentStore workflowRunLogSegmentStore)
+   {
+      WorkflowRunLogSegmentStore replaced = this.workflowRunLogSegmentStore;
+      this.workflowRunLogSegmentStore = workflowRunLogSegmentStore;
+      if(replaced != null && replaced != workflowRunLogSegmentStore)
+      {
+         replaced.close();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the aggregator that WorkflowRunStatsTracer records runs in, for this
+    * instance, if one has been created - see WorkflowRunStatsAggregator.of.
+    ***************************************************************************/
+   public WorkflowRunStatsAggregator getWorkflowRunStatsAggregator()
+   {
+      return (workflowRunStatsAggregator);
+   }
+
+
+
+   /***************************************************************************
+    * set the aggregator - any different one that it replaces is shut down.
+    ***************************************************************************/
+   public void setWorkflowRunStatsAggregator(WorkflowRunStatsAggregator workflowRunStatsAggregator)
+   {
+      WorkflowRunStatsAggregator replaced = this.workflowRunStatsAggregator;
+      this.workflowRunStatsAggregator = workflowRunStatsAggregator;
+      if(replaced != null && replaced != workflowRunStatsAggregator)
+      {
+         replaced.shutdown();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the aggregator that the WorkflowExecutor counts step visits in, for
+    * this instance, if one has been created - see
+    * WorkflowStepStatsAggregator.of.
+    ***************************************************************************/
+   public WorkflowStepStatsAggregator getWorkflowStepStatsAggregator()
+   {
+      return (workflowStepStatsAggregator);
+   }
+
+
+
+   /***************************************************************************
+    * set the aggregator - any different one that it replaces is shut down.
+    ***************************************************************************/
+   public void setWorkflowStepStatsAggregator(WorkflowStepStatsAggregator workflowStepStatsAggregator)
+   {
+      WorkflowStepStatsAggregator replaced = this.workflowStepStatsAggregator;
+      this.workflowStepStatsAggregator = workflowStepStatsAggregator;
+      if(replaced != null && replaced != workflowStepStatsAggregator)
+      {
+         replaced.shutdown();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * shut down the engine, buffer, and aggregators (flushing what they hold),
+    * and close the segment store, that have been created in this registry.
+    * An application that replaces its QInstance should call this on the old
+    * instance's registry, so their threads and shutdown hooks are released.
+    ***************************************************************************/
+   public void shutdown()
+   {
+      setWorkflowEngine(null);
+      setWorkflowRunLogBuffer(null);
+      setWorkflowRunStatsAggregator(null);
+      setWorkflowStepStatsAggregator(null);
+      setWorkflowRunLogSegmentStore(null);
+   }
+
+
+
    /***************************************************************************
     **
     ***************************************************************************/
@@ -145,6 +383,8 @@ public class WorkflowsRegistry implements QSupplementalInstanceMetaData, QHelpCo
       }
 
       workflowTypes.put(workflowType.getName(), workflowType);
+      workflowTypeExecutors.remove(workflowType.getName());
+      workflowTypeTesters.remove(workflowType.getName());
    }
 
 
@@ -160,6 +400,12 @@ public class WorkflowsRegistry implements QSupplementalInstanceMetaData, QHelpCo
       }
 
       workflowStepTypes.put(workflowStepType.getName(), workflowStepType);
+      workflowStepExecutors.remove(workflowStepType.getName());
+
+      //////////////////////////////////////////////////////////////////////
+      // compiled plans hold resolved step types - so they must be redone //
+      //////////////////////////////////////////////////////////////////////
+      executionPlanCache.clear();
    }
 
 
@@ -172,6 +418,96 @@ public class WorkflowsRegistry implements QSupplementalInstanceMetaData, QHelpCo
    {
       workflowTypes.values().forEach(wt -> wt.enrich(qInstance));
       workflowStepTypes.values().forEach(wst -> wst.enrich(qInstance));
+
+      ////////////////////////////////////////////////////////////////////////////////
+      // resolve the shared executor & tester instances up front.  any failures are //
+      // left for validation to report (or for the first use to throw).             //
+      ////////////////////////////////////////////////////////////////////////////////
+      for(WorkflowType workflowType : workflowTypes.values())
+      {
+         try
+         {
+            getWorkflowTypeExecutor(workflowType);
+            getWorkflowTypeTester(workflowType);
+         }
+         catch(Exception e)
+         {
+            LOG.info("Unable to load code for workflow type during enrichment", e, logPair("name", workflowType.getName()));
+         }
+      }
+
+      for(WorkflowStepType workflowStepType : workflowStepTypes.values())
+      {
+         try
+         {
+            getWorkflowStepExecutor(workflowStepType);
+         }
+         catch(Exception e)
+         {
+            LOG.info("Unable to load code for workflow step type during enrichment", e, logPair("name", workflowStepType.getName()));
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the executor for a workflow step type - a shared instance, unless the
+    * class is a {@link StatefulWorkflowCodeInterface}.
+    ***************************************************************************/
+   public WorkflowStepExecutorInterface getWorkflowStepExecutor(WorkflowStepType workflowStepType)
+   {
+      return (getOrLoadCode(workflowStepExecutors, workflowStepType.getName(), WorkflowStepExecutorInterface.class, workflowStepType.getExecutor()));
+   }
+
+
+
+   /***************************************************************************
+    * get the executor for a workflow type - a shared instance, unless the class
+    * is a {@link StatefulWorkflowCodeInterface}.
+    ***************************************************************************/
+   public WorkflowTypeExecutorInterface getWorkflowTypeExecutor(WorkflowType workflowType)
+   {
+      return (getOrLoadCode(workflowTypeExecutors, workflowType.getName(), WorkflowTypeExecutorInterface.class, workflowType.getExecutor()));
+   }
+
+
+
+   /***************************************************************************
+    * get the tester for a workflow type - a shared instance, unless the class
+    * is a {@link StatefulWorkflowCodeInterface}.
+    ***************************************************************************/
+   public WorkflowTypeTesterInterface getWorkflowTypeTester(WorkflowType workflowType)
+   {
+      return (getOrLoadCode(workflowTypeTesters, workflowType.getName(), WorkflowTypeTesterInterface.class, workflowType.getTester()));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static <T> T getOrLoadCode(Map<String, T> cache, String name, Class<T> expectedClass, QCodeReference codeReference)
+   {
+      if(codeReference == null)
+      {
+         return (null);
+      }
+
+      T instance = cache.get(name);
+      if(instance != null)
+      {
+         return (instance);
+      }
+
+      instance = QCodeLoader.getAdHoc(expectedClass, codeReference);
+      if(instance == null || instance instanceof StatefulWorkflowCodeInterface)
+      {
+         return (instance);
+      }
+
+      T existing = cache.putIfAbsent(name, instance);
+      return (existing == null ? instance : existing);
    }
 
 
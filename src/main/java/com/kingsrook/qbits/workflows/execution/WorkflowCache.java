@@ -0,0 +1,280 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.model.Workflow;
+import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+
+
+/*******************************************************************************
+ * bounded, time-limited cache of {@link Workflow} entities, keyed by id.
+ *
+ * One of these lives in the {@link WorkflowsRegistry} of each QInstance, and is
+ * shared by the executor and by the run-record-workflow process steps.  Entries
+ * are invalidated when the workflow table is written to (see
+ * WorkflowTableCustomizer), and when a new revision is stored - and in any case
+ * they expire after ttlMillis, as a safety net for writes that don't go through
+ * this instance (e.g., other servers).
+ *
+ * Callers must treat the returned entities as read-only.
+ *******************************************************************************/
+public class WorkflowCache
+{
+   public static final int  DEFAULT_MAX_ENTRIES = 1000;
+   public static final long DEFAULT_TTL_MILLIS  = 60 * 1000;
+
+   private int  maxEntries = DEFAULT_MAX_ENTRIES;
+   private long ttlMillis  = DEFAULT_TTL_MILLIS;
+
+   //////////////////////////////////////////////////////////////////////////
+   // bumped (under the lock) by every invalidate & clear - so a get whose //
+   // fetch overlapped one doesn't put back what may be a stale workflow   //
+   //////////////////////////////////////////////////////////////////////////
+   private long invalidationGeneration = 0;
+
+   private final Map<Integer, CachedWorkflow> workflows = new LinkedHashMap<>(16, 0.75f, true)
+   {
+      /***************************************************************************
+       ** evict least-recently-used entries past the size bound
+       ***************************************************************************/
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, CachedWorkflow> eldest)
+      {
+         return (size() > maxEntries);
+      }
+   };
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private record CachedWorkflow(Workflow workflow, long expiresAtMillis)
+   {
+   }
+
+
+
+   /*******************************************************************************
+    * get the cache that belongs to a QInstance.
+    *
+    * @param qInstance the instance whose workflows registry holds the cache
+    * @return the cache, or null if the instance doesn't have a workflows registry.
+    *******************************************************************************/
+   public static WorkflowCache of(QInstance qInstance)
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      return (workflowsRegistry == null ? null : workflowsRegistry.getWorkflowCache());
+   }
+
+
+
+   /***************************************************************************
+    * null-safe helper to invalidate a workflow in a QInstance's cache.
+    ***************************************************************************/
+   public static void invalidate(QInstance qInstance, Integer workflowId)
+   {
+      WorkflowCache cache = of(qInstance);
+      if(cache != null)
+      {
+         cache.invalidate(workflowId);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get a workflow by id, through the cache of the QInstance in the current
+    * QContext (or straight from the backend, if there is no cache).
+    *
+    * @return the workflow, or null if not found.
+    ***************************************************************************/
+   public static Workflow getWorkflow(Integer workflowId) throws QException
+   {
+      WorkflowCache cache = of(QContext.getQInstance());
+      if(cache == null)
+      {
+         return (fetchWorkflow(workflowId));
+      }
+      return (cache.get(workflowId));
+   }
+
+
+
+   /***************************************************************************
+    * get a workflow by id - from the cache if present & not expired, else
+    * from the backend (in which case, it is then cached).
+    *
+    * @return the workflow, or null if not found (misses are not cached - nor
+    * is a workflow fetched while an invalidation happened).
+    ***************************************************************************/
+   public Workflow get(Integer workflowId) throws QException
+   {
+      if(workflowId == null)
+      {
+         return (null);
+      }
+
+      long now = System.currentTimeMillis();
+      long generation;
+      synchronized(workflows)
+      {
+         generation = invalidationGeneration;
+         CachedWorkflow cachedWorkflow = workflows.get(workflowId);
+         if(cachedWorkflow != null)
+         {
+            if(cachedWorkflow.expiresAtMillis() > now)
+            {
+               return (cachedWorkflow.workflow());
+            }
+            workflows.remove(workflowId);
+         }
+      }
+
+      Workflow workflow = fetchWorkflow(workflowId);
+      if(workflow != null)
+      {
+         synchronized(workflows)
+         {
+            if(generation == invalidationGeneration)
+            {
+               workflows.put(workflowId, new CachedWorkflow(workflow, now + ttlMillis));
+            }
+         }
+      }
+      return (workflow);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static Workflow fetchWorkflow(Integer workflowId) throws QException
+   {
+      QRecord workflowRecord = new GetAction().executeForRecord(new GetInput(Workflow.TABLE_NAME).withPrimaryKey(workflowId));
+      return (workflowRecord == null ? null : new Workflow(workflowRecord));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void invalidate(Integer workflowId)
+   {
+      if(workflowId != null)
+      {
+         synchronized(workflows)
+         {
+            invalidationGeneration++;
+            workflows.remove(workflowId);
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void clear()
+   {
+      synchronized(workflows)
+      {
+         invalidationGeneration++;
+         workflows.clear();
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for maxEntries
+    *******************************************************************************/
+   public int getMaxEntries()
+   {
+      return (this.maxEntries);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for maxEntries
+    *******************************************************************************/
+   public void setMaxEntries(int maxEntries)
+   {
+      this.maxEntries = maxEntries;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for maxEntries
+    *******************************************************************************/
+   public WorkflowCache withMaxEntries(int maxEntries)
+   {
+      this.maxEntries = maxEntries;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for ttlMillis
+    *******************************************************************************/
+   public long getTtlMillis()
+   {
+      return (this.ttlMillis);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for ttlMillis
+    *******************************************************************************/
+   public void setTtlMillis(long ttlMillis)
+   {
+      this.ttlMillis = ttlMillis;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for ttlMillis
+    *******************************************************************************/
+   public WorkflowCache withTtlMillis(long ttlMillis)
+   {
+      this.ttlMillis = ttlMillis;
+      return (this);
+   }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.tracing.WorkflowTracerInterface;
+import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
+import com.kingsrook.qqq.backend.core.context.CapturedContext;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * service for running workflows asynchronously - e.g., so that a caller on a
+ * request thread doesn't have to wait for a workflow to finish.
+ *
+ * Submitted inputs are run by a {@link WorkflowExecutor} on a pool of up to
+ * maxThreads worker threads (in the submitter's QContext), and their outputs
+ * delivered through a CompletableFuture.  As with WorkflowExecutor.execute,
+ * a workflow that fails still completes its future normally, with the
+ * exception in the output - futures only complete exceptionally if the
+ * submission couldn't be run at all.
+ *
+ * Submissions beyond the threads wait in a queue of up to maxQueuedRuns.  When
+ * that is full, submit either blocks until there is room (if blockWhenFull),
+ * or returns a future that has failed with a QException.
+ *
+ * One of these (configured from the {@link WorkflowsQBitConfig}) is created
+ * on demand in the {@link WorkflowsRegistry} of each QInstance - see
+ * {@link #of(QInstance)}.  Worker threads are only kept while there's work.
+ *******************************************************************************/
+public class WorkflowEngine
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowEngine.class);
+
+   private static final AtomicInteger threadCounter = new AtomicInteger();
+
+   private final ThreadPoolExecutor threadPoolExecutor;
+   private final Semaphore          capacity;
+   private final boolean            blockWhenFull;
+   private final QCodeReference     workflowTracerCodeReference;
+
+   private final AtomicInteger queueDepth     = new AtomicInteger();
+   private final AtomicInteger activeRuns     = new AtomicInteger();
+   private final AtomicLong    completedRuns  = new AtomicLong();
+   private final AtomicLong    rejectedRuns   = new AtomicLong();
+   private final AtomicLong    totalWaitNanos = new AtomicLong();
+   private final AtomicLong    maxWaitNanos   = new AtomicLong();
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowEngine(int maxThreads, int maxQueuedRuns, boolean blockWhenFull, QCodeReference workflowTracerCodeReference)
+   {
+      ThreadFactory threadFactory = runnable ->
+      {
+         Thread thread = new Thread(runnable, "workflow-engine-" + threadCounter.incrementAndGet());
+         thread.setDaemon(true);
+         return (thread);
+      };
+
+      this.threadPoolExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+      this.threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+      this.capacity = new Semaphore(maxThreads + maxQueuedRuns);
+      this.blockWhenFull = blockWhenFull;
+      this.workflowTracerCodeReference = workflowTracerCodeReference;
+   }
+
+
+
+   /***************************************************************************
+    * get the engine for a QInstance - creating it (from the qbit's config, or
+    * its defaults) on first use.
+    ***************************************************************************/
+   public static WorkflowEngine of(QInstance qInstance) throws QException
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      if(workflowsRegistry == null)
+      {
+         throw (new QException("The Workflows QBit has not been set up in this QInstance (it has no WorkflowsRegistry)"));
+      }
+
+      synchronized(workflowsRegistry)
+      {
+         if(workflowsRegistry.getWorkflowEngine() == null)
+         {
+            WorkflowsQBitConfig config = WorkflowsQBitConfig.of(qInstance);
+
+            workflowsRegistry.setWorkflowEngine(new WorkflowEngine(config.getWorkflowEngineMaxThreads(), config.getWorkflowEngineMaxQueuedRuns(), config.getWorkflowEngineBlockWhenFull(), config.getWorkflowTracerCodeReference()));
+         }
+
+         return (workflowsRegistry.getWorkflowEngine());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * submit an input to be run - returning a future for its output.
+    ***************************************************************************/
+   public CompletableFuture<WorkflowOutput> submit(WorkflowInput workflowInput)
+   {
+      if(threadPoolExecutor.isShutdown())
+      {
+         return (CompletableFuture.failedFuture(new QException("Workflow engine has been shut down")));
+      }
+
+      if(blockWhenFull)
+      {
+         try
+         {
+            capacity.acquire();
+         }
+         catch(InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            return (CompletableFuture.failedFuture(new QException("Interrupted waiting for room in the workflow engine queue", e)));
+         }
+      }
+      else if(!capacity.tryAcquire())
+      {
+         rejectedRuns.incrementAndGet();
+         LOG.info("Rejecting workflow submission - queue is full", logPair("workflowId", workflowInput.getWorkflowId()), logPair("queueDepth", queueDepth.get()));
+         return (CompletableFuture.failedFuture(new QException("Workflow engine queue is full")));
+      }
+
+      CompletableFuture<WorkflowOutput> future          = new CompletableFuture<>();
+      CapturedContext                   capturedContext = QContext.capture();
+      long                              submittedNanos  = System.nanoTime();
+
+      queueDepth.incrementAndGet();
+      try
+      {
+         threadPoolExecutor.execute(() -> run(workflowInput, future, capturedContext, submittedNanos));
+      }
+      catch(RejectedExecutionException e)
+      {
+         queueDepth.decrementAndGet();
+         capacity.release();
+         future.completeExceptionally(new QException("Workflow engine could not accept the submission", e));
+      }
+
+      return (future);
+   }
+
+
+
+   /***************************************************************************
+    * run a submission on a worker thread.  The counters are all updated before
+    * the future is completed, so they're current for anything waiting on it.
+    ***************************************************************************/
+   private void run(WorkflowInput workflowInput, CompletableFuture<WorkflowOutput> future, CapturedContext capturedContext, long submittedNanos)
+   {
+      queueDepth.decrementAndGet();
+      activeRuns.incrementAndGet();
+
+      long waitNanos = System.nanoTime() - submittedNanos;
+      totalWaitNanos.addAndGet(waitNanos);
+      maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+      WorkflowOutput workflowOutput = new WorkflowOutput();
+      Throwable      failure        = null;
+      try
+      {
+         QContext.init(capturedContext);
+         new WorkflowExecutor()
+            .withWorkflowTracer(getWorkflowTracer())
+            .execute(workflowInput, workflowOutput);
+      }
+      catch(Throwable t)
+      {
+         LOG.warn("Error running workflow in engine", t, logPair("workflowId", workflowInput.getWorkflowId()));
+         failure = t;
+      }
+      finally
+      {
+         QContext.clear();
+         activeRuns.decrementAndGet();
+         completedRuns.incrementAndGet();
+         capacity.release();
+      }
+
+      if(failure != null)
+      {
+         future.completeExceptionally(failure);
+      }
+      else
+      {
+         future.complete(workflowOutput);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private WorkflowTracerInterface getWorkflowTracer()
+   {
+      if(workflowTracerCodeReference == null)
+      {
+         return (null);
+      }
+
+      return (QCodeLoader.getAdHoc(WorkflowTracerInterface.class, workflowTracerCodeReference));
+   }
+
+
+
+   /***************************************************************************
+    * get a snapshot of the engine's queue depth, active runs & wait times.
+    ***************************************************************************/
+   public WorkflowEngineMetrics getMetrics()
+   {
+      long completed = completedRuns.get();
+      return (new WorkflowEngineMetrics(
+         queueDepth.get(),
+         activeRuns.get(),
+         completed,
+         rejectedRuns.get(),
+         completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / completed),
+         TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())));
+   }
+
+
+
+   /***************************************************************************
+    * stop accepting submissions - letting any already submitted finish.
+    ***************************************************************************/
+   public void shutdown()
+   {
+      threadPoolExecutor.shutdown();
+   }
+
+}
@@ -28,6 +28,7 @@ import java.util.Map;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
 import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.tracing.WorkflowTraceDetail;
 import com.kingsrook.qqq.backend.core.actions.QBackendTransaction;
 
 
@@ -44,6 +45,8 @@ public class WorkflowExecutionContext
 
    private boolean isTestRun = false;
 
+   private WorkflowTraceDetail traceDetail = WorkflowTraceDetail.STEPS;
+
 
 
    /*******************************************************************************
@@ -235,4 +238,46 @@ public class WorkflowExecutionContext
       return (this);
    }
 
+
+
+   /*******************************************************************************
+    * Getter for traceDetail
+    * @see #withTraceDetail(WorkflowTraceDetail)
+    *******************************************************************************/
+   public WorkflowTraceDetail getTraceDetail()
+   {
+      return (this.traceDetail);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for traceDetail
+    * @see #withTraceDetail(WorkflowTraceDetail)
+    *******************************************************************************/
+   public void setTraceDetail(WorkflowTraceDetail traceDetail)
+   {
+      this.traceDetail = traceDetail;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for traceDetail
+    *
+    * @param traceDetail
+    * How much detail the run's tracer needs (set by the executor).  Step
+    * executors can check this to skip work that's only for the run log (e.g.,
+    * building messages) - though returning messages via
+    * WorkflowStepOutput.withLazyMessage does that for them.  Default value is
+    * STEPS.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowExecutionContext withTraceDetail(WorkflowTraceDetail traceDetail)
+   {
+      this.traceDetail = traceDetail;
+      return (this);
+   }
+
 }
@@ -0,0 +1,532 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.definition.OutboundLinkMode;
+import com.kingsrook.qbits.workflows.definition.WorkflowStepType;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.model.WorkflowLink;
+import com.kingsrook.qbits.workflows.model.WorkflowRevision;
+import com.kingsrook.qbits.workflows.model.WorkflowStep;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ * Immutable, pre-compiled form of a {@link WorkflowRevision}, as used by the
+ * {@link WorkflowExecutor}.
+ *
+ * Steps are addressed by an int index (rather than by stepNo), with their step
+ * types, executors and input values resolved up front, and their outbound links
+ * resolved to the indexes of the steps they point at (and, for non-container
+ * steps, indexed for dispatch by step output - see {@link WorkflowLinkDispatchTable}).  For container steps, the targets of
+ * the "push" and "pop" links are also pre-computed.
+ *
+ * If a link (or the revision's startStepNo) refers to a stepNo that doesn't
+ * exist in the revision, a placeholder index is allocated for it, whose step is
+ * null - so that the executor can report the missing stepNo if (and only if)
+ * it is actually reached.
+ *
+ * Each step also has a "height" - the length of the longest path from it to
+ * the end of the workflow - which orders steps for set-oriented execution
+ * (see {@link WorkflowExecutor#executeSet}).
+ *
+ * Since revisions are not changed once stored, plans are cached by revision
+ * id - see {@link WorkflowExecutionPlanCache}.
+ *******************************************************************************/
+public class WorkflowExecutionPlan
+{
+   public static final int NO_STEP = -1;
+
+   private static final int UNCOMPUTED_HEIGHT  = -1;
+   private static final int IN_PROGRESS_HEIGHT = -2;
+
+   private final WorkflowRevision workflowRevision;
+   private final int              startStepIndex;
+
+   private final int[]                           stepNos;
+   private final WorkflowStep[]                  steps;
+   private final WorkflowStepType[]              stepTypes;
+   private final WorkflowStepExecutorInterface[] stepExecutors;
+   private final WorkflowStepInputValues[]       stepInputValues;
+
+   private final WorkflowLink[][]            outboundLinks;
+   private final int[][]                     outboundLinkTargets;
+   private final WorkflowLinkDispatchTable[] linkDispatchTables;
+
+   private final int[] containerPushTargets;
+   private final int[] containerPopTargets;
+
+   private final int[] stepHeights;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   private WorkflowExecutionPlan(WorkflowRevision workflowRevision, int startStepIndex, int[] stepNos, WorkflowStep[] steps, WorkflowStepType[] stepTypes, WorkflowStepExecutorInterface[] stepExecutors, WorkflowStepInputValues[] stepInputValues, WorkflowLink[][] outboundLinks, int[][] outboundLinkTargets, WorkflowLinkDispatchTable[] linkDispatchTables, int[] containerPushTargets, int[] containerPopTargets, int[] stepHeights)
+   {
+      this.workflowRevision = workflowRevision;
+      this.startStepIndex = startStepIndex;
+      this.stepNos = stepNos;
+      this.steps = steps;
+      this.stepTypes = stepTypes;
+      this.stepExecutors = stepExecutors;
+      this.stepInputValues = stepInputValues;
+      this.outboundLinks = outboundLinks;
+      this.outboundLinkTargets = outboundLinkTargets;
+      this.linkDispatchTables = linkDispatchTables;
+      this.containerPushTargets = containerPushTargets;
+      this.containerPopTargets = containerPopTargets;
+      this.stepHeights = stepHeights;
+   }
+
+
+
+   /***************************************************************************
+    * build a plan for a workflow revision - which must have its steps & links
+    * populated.  Step types are looked up in the registry of the QInstance in
+    * the current QContext.
+    ***************************************************************************/
+   public static WorkflowExecutionPlan compile(WorkflowRevision workflowRevision)
+   {
+      WorkflowsRegistry registry = WorkflowsRegistry.of(QContext.getQInstance());
+
+      ///////////////////////////////////////////////////////////////////////////////
+      // assign an index to each step (a repeated stepNo replaces the earlier one) //
+      ///////////////////////////////////////////////////////////////////////////////
+      Map<Integer, Integer> indexByStepNo = new HashMap<>();
+      List<Integer>         stepNoList    = new ArrayList<>();
+      List<WorkflowStep>    stepList      = new ArrayList<>();
+      for(WorkflowStep workflowStep : CollectionUtils.nonNullList(workflowRevision.getSteps()))
+      {
+         Integer existingIndex = indexByStepNo.get(workflowStep.getStepNo());
+         if(existingIndex != null)
+         {
+            stepList.set(existingIndex, workflowStep);
+         }
+         else
+         {
+            indexByStepNo.put(workflowStep.getStepNo(), stepList.size());
+            stepNoList.add(workflowStep.getStepNo());
+            stepList.add(workflowStep);
+         }
+      }
+      int realStepCount = stepList.size();
+
+      /////////////////////////////////////////////////////////
+      // group links by the index of the step they come from //
+      /////////////////////////////////////////////////////////
+      List<List<WorkflowLink>> linksByStepIndex = new ArrayList<>();
+      for(int i = 0; i < realStepCount; i++)
+      {
+         linksByStepIndex.add(new ArrayList<>());
+      }
+
+      for(WorkflowLink workflowLink : CollectionUtils.nonNullList(workflowRevision.getLinks()))
+      {
+         Integer fromIndex = indexByStepNo.get(workflowLink.getFromStepNo());
+         if(fromIndex != null)
+         {
+            linksByStepIndex.get(fromIndex).add(workflowLink);
+         }
+      }
+
+      /////////////////////////////////////////////////////////////////////////////////
+      // resolve link targets to indexes - allocating placeholders for missing steps //
+      /////////////////////////////////////////////////////////////////////////////////
+      int              startStepIndex      = resolveStepIndex(workflowRevision.getStartStepNo(), indexByStepNo, stepNoList, stepList);
+      int[][]          outboundLinkTargets = new int[realStepCount][];
+      WorkflowLink[][] outboundLinks       = new WorkflowLink[realStepCount][];
+      for(int i = 0; i < realStepCount; i++)
+      {
+         List<WorkflowLink> links = linksByStepIndex.get(i);
+         outboundLinks[i] = links.toArray(new WorkflowLink[0]);
+         outboundLinkTargets[i] = new int[links.size()];
+         for(int j = 0; j < links.size(); j++)
+         {
+            outboundLinkTargets[i][j] = resolveStepIndex(links.get(j).getToStepNo(), indexByStepNo, stepNoList, stepList);
+         }
+      }
+
+      ////////////////////////////////////////////////////////////////////////////////
+      // resolve step types, executors & input values, and container push/pop links //
+      ////////////////////////////////////////////////////////////////////////////////
+      int                             stepCount            = stepList.size();
+      WorkflowStepType[]              stepTypes            = new WorkflowStepType[stepCount];
+      WorkflowStepExecutorInterface[] stepExecutors        = new WorkflowStepExecutorInterface[stepCount];
+      WorkflowStepInputValues[]       stepInputValues      = new WorkflowStepInputValues[stepCount];
+      int[]                           containerPushTargets = new int[stepCount];
+      int[]                           containerPopTargets  = new int[stepCount];
+      WorkflowLinkDispatchTable[]     linkDispatchTables   = new WorkflowLinkDispatchTable[stepCount];
+      for(int i = 0; i < stepCount; i++)
+      {
+         containerPushTargets[i] = NO_STEP;
+         containerPopTargets[i] = NO_STEP;
+
+         WorkflowStep step = stepList.get(i);
+         if(step == null)
+         {
+            continue;
+         }
+
+         WorkflowStepType workflowStepType = registry.getWorkflowStepType(step.getWorkflowStepTypeName());
+         stepTypes[i] = workflowStepType;
+         if(workflowStepType == null)
+         {
+            continue;
+         }
+
+         if(OutboundLinkMode.CONTAINER.equals(workflowStepType.getOutboundLinkMode()))
+         {
+            containerPushTargets[i] = findFirstLinkTarget(outboundLinks[i], outboundLinkTargets[i], "push");
+            containerPopTargets[i] = findFirstLinkTarget(outboundLinks[i], outboundLinkTargets[i], "pop");
+         }
+         else
+         {
+            /////////////////////////////////////////////////////////////////////
+            // plans are shared by all runs - so only keep shared executors; a //
+            // stateful one is gotten from the registry for each use (see      //
+            // getStepExecutor)                                                //
+            /////////////////////////////////////////////////////////////////////
+            WorkflowStepExecutorInterface stepExecutor = registry.getWorkflowStepExecutor(workflowStepType);
+            if(!(stepExecutor instanceof StatefulWorkflowCodeInterface))
+            {
+               stepExecutors[i] = stepExecutor;
+            }
+            stepInputValues[i] = parseInputValues(step);
+            linkDispatchTables[i] = new WorkflowLinkDispatchTable(stepNoList.get(i), outboundLinks[i], outboundLinkTargets[i]);
+         }
+      }
+
+      /////////////////////////////////////////////////////////////////
+      // compute step heights, walking the graph from the start step //
+      /////////////////////////////////////////////////////////////////
+      int[] stepHeights = new int[stepCount];
+      Arrays.fill(stepHeights, UNCOMPUTED_HEIGHT);
+      computeStepHeight(startStepIndex, null, stepTypes, outboundLinkTargets, containerPushTargets, containerPopTargets, stepHeights);
+
+      int[] stepNos = stepNoList.stream().mapToInt(Integer::intValue).toArray();
+      return (new WorkflowExecutionPlan(workflowRevision, startStepIndex, stepNos, stepList.toArray(new WorkflowStep[0]), stepTypes, stepExecutors, stepInputValues, outboundLinks, outboundLinkTargets, linkDispatchTables, containerPushTargets, containerPopTargets, stepHeights));
+   }
+
+
+
+   /***************************************************************************
+    * compute (memoized) the height of a step - 1 more than the highest step
+    * that can follow it.  The steps that can follow are the targets of its
+    * links - or, for a container step, its first step (whose continuation, for
+    * when the container's contents are finished, is the container's pop target)
+    * - plus the step that the executor would pop out to, from the current
+    * continuation.  Unreachable steps are left with a height of 0, as are
+    * steps found in a cycle (which a well-formed workflow won't have).
+    ***************************************************************************/
+   private static int computeStepHeight(int stepIndex, Continuation continuation, WorkflowStepType[] stepTypes, int[][] outboundLinkTargets, int[] containerPushTargets, int[] containerPopTargets, int[] stepHeights)
+   {
+      if(stepIndex == NO_STEP)
+      {
+         return (0);
+      }
+
+      if(stepHeights[stepIndex] != UNCOMPUTED_HEIGHT)
+      {
+         return (Math.max(stepHeights[stepIndex], 0));
+      }
+
+      stepHeights[stepIndex] = IN_PROGRESS_HEIGHT;
+
+      int              maxFollowingHeight = 0;
+      WorkflowStepType workflowStepType   = stepTypes[stepIndex];
+      if(workflowStepType == null || OutboundLinkMode.ZERO.equals(workflowStepType.getOutboundLinkMode()))
+      {
+         ////////////////////////////////////////////////////////////////////
+         // nothing follows a missing step (an error), or a zero-mode step //
+         ////////////////////////////////////////////////////////////////////
+         maxFollowingHeight = 0;
+      }
+      else if(OutboundLinkMode.CONTAINER.equals(workflowStepType.getOutboundLinkMode()))
+      {
+         int          popTarget         = containerPopTargets[stepIndex];
+         Continuation innerContinuation = popTarget == NO_STEP ? continuation : new Continuation(popTarget, continuation);
+         if(containerPushTargets[stepIndex] != NO_STEP)
+         {
+            maxFollowingHeight = computeStepHeight(containerPushTargets[stepIndex], innerContinuation, stepTypes, outboundLinkTargets, containerPushTargets, containerPopTargets, stepHeights);
+         }
+         else if(innerContinuation != null)
+         {
+            maxFollowingHeight = computeStepHeight(innerContinuation.stepIndex(), innerContinuation.outer(), stepTypes, outboundLinkTargets, containerPushTargets, containerPopTargets, stepHeights);
+         }
+      }
+      else
+      {
+         int[] targets = stepIndex < outboundLinkTargets.length ? outboundLinkTargets[stepIndex] : new int[0];
+         for(int target : targets)
+         {
+            maxFollowingHeight = Math.max(maxFollowingHeight, computeStepHeight(target, continuation, stepTypes, outboundLinkTargets, containerPushTargets, containerPopTargets, stepHeights));
+         }
+
+         if(continuation != null)
+         {
+            maxFollowingHeight = Math.max(maxFollowingHeight, computeStepHeight(continuation.stepIndex(), continuation.outer(), stepTypes, outboundLinkTargets, containerPushTargets, containerPopTargets, stepHeights));
+         }
+      }
+
+      stepHeights[stepIndex] = maxFollowingHeight + 1;
+      return (stepHeights[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * where the executor goes when it runs out of links inside a container - the
+    * container's pop target - and where it goes after that (outer containers).
+    ***************************************************************************/
+   private record Continuation(int stepIndex, Continuation outer)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * get the index for a stepNo - allocating a placeholder (null step) index
+    * if the stepNo isn't in the revision.
+    ***************************************************************************/
+   private static int resolveStepIndex(Integer stepNo, Map<Integer, Integer> indexByStepNo, List<Integer> stepNoList, List<WorkflowStep> stepList)
+   {
+      if(stepNo == null)
+      {
+         return (NO_STEP);
+      }
+
+      Integer index = indexByStepNo.get(stepNo);
+      if(index == null)
+      {
+         index = stepList.size();
+         indexByStepNo.put(stepNo, index);
+         stepNoList.add(stepNo);
+         stepList.add(null);
+      }
+      return (index);
+   }
+
+
+
+   /***************************************************************************
+    * parse a step's input values - or, if they can't be parsed, return null,
+    * so that the error is raised if (and only if) the step is actually run.
+    ***************************************************************************/
+   private static WorkflowStepInputValues parseInputValues(WorkflowStep step)
+   {
+      try
+      {
+         return (WorkflowStepInputValues.of(step));
+      }
+      catch(Exception e)
+      {
+         return (null);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * find the target of the first link that either has no condition, or has
+    * the given condition - matching how links are evaluated at runtime.
+    ***************************************************************************/
+   private static int findFirstLinkTarget(WorkflowLink[] links, int[] targets, String conditionValue)
+   {
+      for(int i = 0; i < links.length; i++)
+      {
+         if(links[i].getConditionValue() == null || conditionValue.equals(links[i].getConditionValue()))
+         {
+            return (targets[i]);
+         }
+      }
+      return (NO_STEP);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for workflowRevision
+    *******************************************************************************/
+   public WorkflowRevision getWorkflowRevision()
+   {
+      return (this.workflowRevision);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for startStepIndex
+    *******************************************************************************/
+   public int getStartStepIndex()
+   {
+      return (this.startStepIndex);
+   }
+
+
+
+   /***************************************************************************
+    * get the number of step indexes in the plan (including placeholders for
+    * stepNos that aren't in the revision).
+    ***************************************************************************/
+   public int getStepCount()
+   {
+      return (stepNos.length);
+   }
+
+
+
+   /***************************************************************************
+    * get the stepNo at an index
+    ***************************************************************************/
+   public int getStepNo(int stepIndex)
+   {
+      return (stepNos[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the step at an index - null if the index is a placeholder for a
+    * stepNo that isn't in the revision.
+    ***************************************************************************/
+   public WorkflowStep getStep(int stepIndex)
+   {
+      return (steps[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the step type for the step at an index - null if not found in registry
+    ***************************************************************************/
+   public WorkflowStepType getStepType(int stepIndex)
+   {
+      return (stepTypes[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the executor for the step at an index - null for container steps.
+    * Shared executors are resolved when the plan is compiled; for a
+    * {@link StatefulWorkflowCodeInterface} executor, a new instance is gotten
+    * from the registry on each call.
+    ***************************************************************************/
+   public WorkflowStepExecutorInterface getStepExecutor(int stepIndex)
+   {
+      WorkflowStepExecutorInterface stepExecutor = stepExecutors[stepIndex];
+      if(stepExecutor == null && stepTypes[stepIndex] != null && !OutboundLinkMode.CONTAINER.equals(stepTypes[stepIndex].getOutboundLinkMode()))
+      {
+         WorkflowsRegistry registry = WorkflowsRegistry.of(QContext.getQInstance());
+         stepExecutor = registry == null ? null : registry.getWorkflowStepExecutor(stepTypes[stepIndex]);
+      }
+      return (stepExecutor);
+   }
+
+
+
+   /***************************************************************************
+    * get the parsed input values for the step at an index - null for container
+    * steps, or if the step's inputValuesJson couldn't be parsed.
+    ***************************************************************************/
+   public WorkflowStepInputValues getStepInputValues(int stepIndex)
+   {
+      return (stepInputValues[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the outbound links from the step at an index, in stored order.
+    ***************************************************************************/
+   public WorkflowLink[] getOutboundLinks(int stepIndex)
+   {
+      return (outboundLinks[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the step indexes that the outbound links from the step at an index
+    * point at (parallel to getOutboundLinks).
+    ***************************************************************************/
+   public int[] getOutboundLinkTargets(int stepIndex)
+   {
+      return (outboundLinkTargets[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the dispatch table for picking the next step after the (non-container)
+    * step at an index, based on its output.
+    ***************************************************************************/
+   public WorkflowLinkDispatchTable getLinkDispatchTable(int stepIndex)
+   {
+      return (linkDispatchTables[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * for a container step, get the index of the first step inside it (or
+    * NO_STEP if it's empty).
+    ***************************************************************************/
+   public int getContainerPushTarget(int stepIndex)
+   {
+      return (containerPushTargets[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * for a container step, get the index of the step that comes after it, once
+    * its contents are finished (or NO_STEP if there isn't one).
+    ***************************************************************************/
+   public int getContainerPopTarget(int stepIndex)
+   {
+      return (containerPopTargets[stepIndex]);
+   }
+
+
+
+   /***************************************************************************
+    * get the height of the step at an index - the length of the longest path
+    * from it to the end of the workflow.  Any step that can follow a step has
+    * a lower height than it does.
+    ***************************************************************************/
+   public int getStepHeight(int stepIndex)
+   {
+      return (Math.max(stepHeights[stepIndex], 0));
+   }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+
+
+/*******************************************************************************
+ * cache of {@link WorkflowExecutionPlan} objects, keyed by workflow revision id.
+ *
+ * One of these lives in the {@link WorkflowsRegistry} of each QInstance - so
+ * plans are shared by all executions against that instance.  Entries are
+ * evicted when a new revision is stored, or when steps or links are written
+ * for a revision.
+ *******************************************************************************/
+public class WorkflowExecutionPlanCache
+{
+   private final Map<Integer, WorkflowExecutionPlan> plans = new ConcurrentHashMap<>();
+
+
+
+   /*******************************************************************************
+    * get the cache that belongs to a QInstance.
+    *
+    * @param qInstance the instance whose workflows registry holds the cache
+    * @return the cache, or null if the instance doesn't have a workflows registry.
+    *******************************************************************************/
+   public static WorkflowExecutionPlanCache of(QInstance qInstance)
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      return (workflowsRegistry == null ? null : workflowsRegistry.getExecutionPlanCache());
+   }
+
+
+
+   /***************************************************************************
+    * null-safe helper to evict a revision's plan from a QInstance's cache.
+    ***************************************************************************/
+   public static void evict(QInstance qInstance, Integer workflowRevisionId)
+   {
+      WorkflowExecutionPlanCache cache = of(qInstance);
+      if(cache != null)
+      {
+         cache.evict(workflowRevisionId);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the cached plan for a revision id - or null if not cached.
+    ***************************************************************************/
+   public WorkflowExecutionPlan get(Integer workflowRevisionId)
+   {
+      if(workflowRevisionId == null)
+      {
+         return (null);
+      }
+      return (plans.get(workflowRevisionId));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void put(Integer workflowRevisionId, WorkflowExecutionPlan workflowExecutionPlan)
+   {
+      if(workflowRevisionId != null && workflowExecutionPlan != null)
+      {
+         plans.put(workflowRevisionId, workflowExecutionPlan);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void evict(Integer workflowRevisionId)
+   {
+      if(workflowRevisionId != null)
+      {
+         plans.remove(workflowRevisionId);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void clear()
+   {
+      plans.clear();
+   }
+
+}
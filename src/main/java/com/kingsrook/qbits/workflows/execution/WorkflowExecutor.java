@@ -23,28 +23,35 @@ package com.kingsrook.qbits.workflows.execution;
 
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Stack;
 import com.google.gson.reflect.TypeToken;
 import com.kingsrook.qbits.workflows.definition.OutboundLinkMode;
 import com.kingsrook.qbits.workflows.definition.WorkflowStepType;
 import com.kingsrook.qbits.workflows.definition.WorkflowType;
 import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.metrics.NoopWorkflowMetrics;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsInterface;
+import com.kingsrook.qbits.workflows.metrics.WorkflowStepStatsAggregator;
+import com.kingsrook.qbits.workflows.metrics.WorkflowStepStatsCounters;
 import com.kingsrook.qbits.workflows.model.Workflow;
-import com.kingsrook.qbits.workflows.model.WorkflowLink;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
 import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
 import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
 import com.kingsrook.qbits.workflows.model.WorkflowStep;
+import com.kingsrook.qbits.workflows.tracing.WorkflowTraceDetail;
 import com.kingsrook.qbits.workflows.tracing.WorkflowTracerInterface;
 import com.kingsrook.qqq.backend.core.actions.AbstractQActionBiConsumer;
-import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
+import com.kingsrook.qqq.backend.core.actions.QBackendTransaction;
 import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
@@ -52,11 +59,9 @@ import com.kingsrook.qqq.backend.core.logging.QLogger;
 import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetInput;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
-import com.kingsrook.qqq.backend.core.utils.JsonUtils;
-import com.kingsrook.qqq.backend.core.utils.ListingHash;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
-import org.json.JSONObject;
+import org.apache.commons.lang3.SerializationUtils;
 import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
 
 
@@ -70,15 +75,978 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
    private WorkflowTracerInterface workflowTracer;
    private WorkflowRunLog          inputWorkflowRunLog;
 
-   private Stack<Integer> containerStack = new Stack<>();
+   /////////////////////////////////////////////////////////////////////
+   // stack of container step indexes, as a primitive (unboxed) array //
+   /////////////////////////////////////////////////////////////////////
+   private int[] containerStack     = new int[8];
+   private int   containerStackSize = 0;
+
+   //////////////////////////////////////////////////////////////////////////
+   // for computing step timestamps (only done if run log steps are built) //
+   // from System.nanoTime, relative to the run's start                    //
+   //////////////////////////////////////////////////////////////////////////
+   private boolean timingSteps;
+   private Instant traceStartInstant;
+   private long    traceStartNanos;
+
+   /////////////////////////////////////////////////////////////////////////
+   // while runs share a transaction that may yet be rolled back (and the //
+   // runs re-run), their metrics & step stats are held back in here (one //
+   // per run, in order) - else null, and they're recorded directly       //
+   /////////////////////////////////////////////////////////////////////////
+   private List<DeferredRunStats> deferredRunStats;
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void execute(WorkflowInput workflowInput, WorkflowOutput workflowOutput) throws QException
+   {
+      execute(workflowInput, workflowOutput, workflowTracer);
+   }
+
+
+
+   /***************************************************************************
+    * execute a batch of inputs for the same workflow - returning an output for
+    * each input (in the same order).
+    *
+    * The inputs are all run against the same (cached) execution plan, in one
+    * shared transaction, with their run logs held back until it commits.  If
+    * any input fails, the shared transaction is rolled back, each input is
+    * restored to its original state, and then they are all re-run individually
+    * (each in its own transaction, as by execute) - so that a failure in one
+    * input never affects the others.  (QBackendTransaction doesn't offer
+    * savepoints, which would otherwise allow rolling back just the failure.)
+    *
+    * Inputs may not supply their own transactions.  If the backend can't roll
+    * back a transaction, or an input's values can't be snapshotted for restoring
+    * (by serialization), the inputs are just run individually.
+    ***************************************************************************/
+   public List<WorkflowOutput> executeBatch(List<WorkflowInput> workflowInputs) throws QException
+   {
+      return (executeInSharedTransaction(workflowInputs, false));
+   }
+
+
+
+   /***************************************************************************
+    * execute a set of inputs for the same workflow together - returning an
+    * output for each input (in the same order).
+    *
+    * Where executeBatch runs the inputs one after another, this flows the whole
+    * set through the workflow's graph together: at each step, all of the runs
+    * that have reached it (in the same container) are executed as a group (see
+    * WorkflowStepExecutorInterface.executeSet), and then split up by the links
+    * their outputs lead to.  Groups are executed highest-first by the plan's
+    * step heights - so, as the graph is acyclic, every run that will reach a
+    * step has done so before it is executed.  Once all runs are finished, the
+    * workflow type's postRunSet is done for them all at once.
+    *
+    * As runs don't share any state, the results are the same as running each
+    * input alone.  The same transaction and failure handling as executeBatch
+    * apply: if anything fails, the inputs are restored and re-run individually
+    * - except if the postRunSet names just some runs as failed (by a
+    * WorkflowSetRunException), in which case only they are re-run
+    * individually, and the rest are re-run as a set.
+    * Workflow types that don't open a transaction (whose openTransaction gives
+    * null) are run as a set too, with no transaction (and are assumed to make
+    * no backend changes before their postRun) - and then if the postRunSet
+    * names some runs as failed, the rest are kept as finished, and only the
+    * failed runs are re-run.  If opening the transaction fails, the inputs are
+    * run individually.  Inputs with different override revisions are run as a
+    * batch.
+    ***************************************************************************/
+   public List<WorkflowOutput> executeSet(List<WorkflowInput> workflowInputs) throws QException
+   {
+      boolean sameRevision = CollectionUtils.nonNullList(workflowInputs).stream()
+         .allMatch(workflowInput -> workflowInput.getOverrideWorkflowRevision() == workflowInputs.get(0).getOverrideWorkflowRevision());
+
+      return (executeInSharedTransaction(workflowInputs, sameRevision));
+   }
+
+
+
+   /***************************************************************************
+    * implementation of executeBatch & executeSet.
+    ***************************************************************************/
+   private List<WorkflowOutput> executeInSharedTransaction(List<WorkflowInput> workflowInputs, boolean asSet) throws QException
+   {
+      if(CollectionUtils.nullSafeIsEmpty(workflowInputs))
+      {
+         return (new ArrayList<>());
+      }
+
+      Integer workflowId = workflowInputs.get(0).getWorkflowId();
+      for(WorkflowInput workflowInput : workflowInputs)
+      {
+         if(!Objects.equals(workflowId, workflowInput.getWorkflowId()))
+         {
+            throw (new QException("All inputs in a workflow batch must be for the same workflow"));
+         }
+
+         if(workflowInput.getTransaction() != null)
+         {
+            throw (new QException("Inputs in a workflow batch may not supply their own transaction"));
+         }
+      }
+
+      List<BatchInputSnapshot> snapshots = workflowInputs.size() == 1 ? null : snapshotBatchInputs(workflowInputs);
+      if(snapshots == null)
+      {
+         return (executeIndividually(workflowInputs));
+      }
+
+      QBackendTransaction transaction;
+      try
+      {
+         transaction = openBatchTransaction(workflowInputs.get(0));
+      }
+      catch(Exception e)
+      {
+         LOG.info("Unable to open transaction for workflow batch - running its inputs individually", e, logPair("workflowId", workflowId));
+         return (executeIndividually(workflowInputs));
+      }
+
+      /////////////////////////////////////////////////////////////////////////////////////
+      // a backend without transaction support (e.g., giving a base QBackendTransaction) //
+      // can't roll back a failed batch - so the inputs would have to be run one by one  //
+      // - but a set whose type doesn't use a transaction (gives null) runs without one  //
+      /////////////////////////////////////////////////////////////////////////////////////
+      boolean runWithoutTx = asSet && transaction == null;
+      if(!runWithoutTx && (transaction == null || transaction.getClass().equals(QBackendTransaction.class)))
+      {
+         closeTransaction(transaction);
+         return (executeIndividually(workflowInputs));
+      }
+
+      /////////////////////////////////////////////////////////////////////////
+      // run all inputs in the shared transaction, deferring their run logs, //
+      // metrics & step stats until it has committed (as they may yet be     //
+      // re-run, if a later input fails - and the re-runs record their own)  //
+      /////////////////////////////////////////////////////////////////////////
+      List<WorkflowOutput> workflowOutputs = new ArrayList<>();
+      List<WorkflowRunLog> deferredRunLogs = new ArrayList<>();
+      boolean              anyFailed       = false;
+
+      WorkflowTracerInterface deferringTracer = workflowTracer == null ? null : new WorkflowTracerInterface()
+      {
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         @Override
+         public Serializable handleWorkflowFinish(WorkflowRunLog workflowRunLog)
+         {
+            deferredRunLogs.add(workflowRunLog);
+            return (null);
+         }
+
+
+
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         @Override
+         public WorkflowTraceDetail getTraceDetail()
+         {
+            return (workflowTracer.getTraceDetail());
+         }
+      };
+
+      List<DeferredRunStats> deferredRunStats = new ArrayList<>();
+      this.deferredRunStats = deferredRunStats;
+
+      try
+      {
+         if(asSet)
+         {
+            workflowOutputs = executeSetInTransaction(workflowInputs, transaction, deferringTracer);
+            anyFailed = workflowOutputs.stream().anyMatch(workflowOutput -> workflowOutput.getException() != null);
+         }
+         else
+         {
+            for(WorkflowInput workflowInput : workflowInputs)
+            {
+               workflowInput.setTransaction(transaction);
+
+               WorkflowOutput workflowOutput = new WorkflowOutput();
+               execute(workflowInput, workflowOutput, deferringTracer);
+               workflowOutputs.add(workflowOutput);
+
+               if(workflowOutput.getException() != null)
+               {
+                  anyFailed = true;
+                  break;
+               }
+            }
+         }
+
+         if(transaction != null)
+         {
+            if(anyFailed)
+            {
+               transaction.rollback();
+            }
+            else
+            {
+               transaction.commit();
+            }
+         }
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Exception completing workflow batch transaction", e, logPair("workflowId", workflowId));
+         anyFailed = true;
+         if(transaction != null)
+         {
+            rollbackQuietly(transaction);
+         }
+      }
+      finally
+      {
+         this.deferredRunStats = null;
+         workflowInputs.forEach(workflowInput -> workflowInput.setTransaction(null));
+         closeTransaction(transaction);
+      }
+
+      if(anyFailed)
+      {
+         List<Boolean> failedFlags    = workflowOutputs.stream().map(workflowOutput -> workflowOutput.getException() instanceof WorkflowSetRunException).toList();
+         boolean       someRunsFailed = asSet && failedFlags.size() == workflowInputs.size() && failedFlags.contains(true) && failedFlags.contains(false);
+         if(someRunsFailed && transaction == null)
+         {
+            LOG.info("Failure in some runs of workflow set without a transaction - re-running them individually", logPair("workflowId", workflowId), logPair("batchSize", workflowInputs.size()), logPair("failedCount", failedFlags.stream().filter(f -> f).count()));
+            return (executeKeepingFinished(workflowInputs, snapshots, workflowOutputs, deferredRunStats, failedFlags));
+         }
+
+         for(int i = 0; i < workflowInputs.size(); i++)
+         {
+            snapshots.get(i).restore(workflowInputs.get(i));
+         }
+
+         ///////////////////////////////////////////////////////////////////////
+         // if a set failed for only some of its runs (per a postRunSet's     //
+         // WorkflowSetRunException), re-run just those individually, and the //
+         // rest again as a set - else, re-run them all individually          //
+         ///////////////////////////////////////////////////////////////////////
+         if(someRunsFailed)
+         {
+            LOG.info("Failure in some runs of workflow set - re-running them individually", logPair("workflowId", workflowId), logPair("batchSize", workflowInputs.size()), logPair("failedCount", failedFlags.stream().filter(f -> f).count()));
+            return (executeSplittingFailures(workflowInputs, failedFlags));
+         }
+
+         LOG.info("Failure in workflow batch - re-running its inputs individually", logPair("workflowId", workflowId), logPair("batchSize", workflowInputs.size()));
+         return (executeIndividually(workflowInputs));
+      }
+
+      deferredRunStats.forEach(DeferredRunStats::record);
+      for(WorkflowRunLog workflowRunLog : deferredRunLogs)
+      {
+         traceWorkflowFinish(workflowTracer, workflowRunLog);
+      }
+
+      return (workflowOutputs);
+   }
+
+
+
+   /***************************************************************************
+    * re-run a set whose postRunSet failed for some of its runs: the failed
+    * runs individually (so each gets its own error, & rollback), and the rest
+    * as a set again - returning outputs in the inputs' order.
+    ***************************************************************************/
+   private List<WorkflowOutput> executeSplittingFailures(List<WorkflowInput> workflowInputs, List<Boolean> failedFlags) throws QException
+   {
+      List<WorkflowInput> okInputs     = new ArrayList<>();
+      List<WorkflowInput> failedInputs = new ArrayList<>();
+      for(int i = 0; i < workflowInputs.size(); i++)
+      {
+         (failedFlags.get(i) ? failedInputs : okInputs).add(workflowInputs.get(i));
+      }
+
+      Iterator<WorkflowOutput> okOutputs     = executeInSharedTransaction(okInputs, true).iterator();
+      Iterator<WorkflowOutput> failedOutputs = executeIndividually(failedInputs).iterator();
+
+      List<WorkflowOutput> workflowOutputs = new ArrayList<>();
+      for(Boolean failed : failedFlags)
+      {
+         workflowOutputs.add(failed ? failedOutputs.next() : okOutputs.next());
+      }
+      return (workflowOutputs);
+   }
+
+
+
+   /***************************************************************************
+    * finish a set run without a transaction, whose postRunSet failed for some
+    * of its runs: the rest did store their changes, so they're kept (with
+    * their run logs & stats recorded now), and only the failed runs are
+    * re-run, individually - returning outputs in the inputs' order.
+    ***************************************************************************/
+   private List<WorkflowOutput> executeKeepingFinished(List<WorkflowInput> workflowInputs, List<BatchInputSnapshot> snapshots, List<WorkflowOutput> setOutputs, List<DeferredRunStats> deferredRunStats, List<Boolean> failedFlags) throws QException
+   {
+      List<WorkflowInput> failedInputs = new ArrayList<>();
+      for(int i = 0; i < workflowInputs.size(); i++)
+      {
+         if(failedFlags.get(i))
+         {
+            snapshots.get(i).restore(workflowInputs.get(i));
+            failedInputs.add(workflowInputs.get(i));
+         }
+         else
+         {
+            deferredRunStats.get(i).record();
+            if(workflowTracer != null)
+            {
+               traceWorkflowFinish(workflowTracer, setOutputs.get(i).getWorkflowRunLog());
+            }
+         }
+      }
+
+      Iterator<WorkflowOutput> failedOutputs = executeIndividually(failedInputs).iterator();
+
+      List<WorkflowOutput> workflowOutputs = new ArrayList<>();
+      for(int i = 0; i < workflowInputs.size(); i++)
+      {
+         workflowOutputs.add(failedFlags.get(i) ? failedOutputs.next() : setOutputs.get(i));
+      }
+      return (workflowOutputs);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private List<WorkflowOutput> executeIndividually(List<WorkflowInput> workflowInputs) throws QException
+   {
+      List<WorkflowOutput> workflowOutputs = new ArrayList<>();
+      for(WorkflowInput workflowInput : workflowInputs)
+      {
+         WorkflowOutput workflowOutput = new WorkflowOutput();
+         execute(workflowInput, workflowOutput, workflowTracer);
+         workflowOutputs.add(workflowOutput);
+      }
+      return (workflowOutputs);
+   }
+
+
+
+   /***************************************************************************
+    * open the transaction for a batch, as the workflow type would for a single
+    * input - null only if the type doesn't use one.  Errors here are thrown
+    * (for the caller to run the inputs individually, raising them per-run).
+    ***************************************************************************/
+   private QBackendTransaction openBatchTransaction(WorkflowInput workflowInput) throws QException
+   {
+      Workflow              workflow          = getWorkflow(workflowInput.getWorkflowId());
+      WorkflowExecutionPlan plan              = getExecutionPlan(workflowInput, workflow.getCurrentWorkflowRevisionId());
+      WorkflowsRegistry     workflowsRegistry = WorkflowsRegistry.of(QContext.getQInstance());
+      WorkflowType          workflowType      = workflowsRegistry.getWorkflowType(workflow.getWorkflowTypeName());
+      if(workflowType == null)
+      {
+         throw new QException("Workflow type not found by name: " + workflow.getWorkflowTypeName());
+      }
+
+      return (workflowsRegistry.getWorkflowTypeExecutor(workflowType).openTransaction(workflow, plan.getWorkflowRevision()));
+   }
+
+
+
+   /***************************************************************************
+    * the parts of a batch input that a run may change - copied by serialization,
+    * so that the input can be restored for re-running.
+    ***************************************************************************/
+   private record BatchInputSnapshot(Map<String, Serializable> values, Map<String, Serializable> contextValues, WorkflowRunLog workflowRunLog)
+   {
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      void restore(WorkflowInput workflowInput)
+      {
+         workflowInput.setValues(values);
+         workflowInput.setWorkflowRunLog(workflowRunLog);
+
+         WorkflowExecutionContext context = workflowInput.getWorkflowExecutionContext();
+         if(context != null)
+         {
+            context.setValues(contextValues);
+            context.setTransaction(null);
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * snapshot the inputs of a batch - or return null if any can't be.
+    ***************************************************************************/
+   private List<BatchInputSnapshot> snapshotBatchInputs(List<WorkflowInput> workflowInputs)
+   {
+      try
+      {
+         List<BatchInputSnapshot> snapshots = new ArrayList<>();
+         for(WorkflowInput workflowInput : workflowInputs)
+         {
+            WorkflowExecutionContext context = workflowInput.getWorkflowExecutionContext();
+            snapshots.add(new BatchInputSnapshot(
+               workflowInput.getValues() == null ? null : SerializationUtils.clone(new LinkedHashMap<>(workflowInput.getValues())),
+               context == null || context.getValues() == null ? null : SerializationUtils.clone(new LinkedHashMap<>(context.getValues())),
+               workflowInput.getWorkflowRunLog() == null ? null : SerializationUtils.clone(workflowInput.getWorkflowRunLog())));
+         }
+         return (snapshots);
+      }
+      catch(Exception e)
+      {
+         LOG.info("Unable to snapshot workflow batch inputs - will run them individually", e);
+         return (null);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void execute(WorkflowInput workflowInput, WorkflowOutput workflowOutput, WorkflowTracerInterface workflowTracer) throws QException
+   {
+      WorkflowExecutionContext context        = initializeContext(workflowInput, workflowOutput);
+      WorkflowRunLog           workflowRunLog = initializeRunLog(workflowInput, workflowOutput);
+      WorkflowTraceDetail traceDetail = getTraceDetail(workflowTracer);
+      context.setTraceDetail(traceDetail);
+      boolean buildRunLogSteps = WorkflowTraceDetail.STEPS.equals(traceDetail);
+      timingSteps = buildRunLogSteps;
+      traceStartInstant = workflowRunLog.getStartTimestamp();
+      traceStartNanos = System.nanoTime();
+      containerStackSize = 0;
+
+      DeferredRunStats         runStats        = newDeferredRunStats();
+      WorkflowMetricsInterface workflowMetrics = runStats != null ? runStats : WorkflowMetricsInterface.of(QContext.getQInstance());
+
+      List<WorkflowRunLogStep> logStepList = workflowRunLog.getSteps();
+
+      WorkflowTypeExecutorInterface workflowTypeExecutor = null;
+      boolean                       weOwnTheTransaction  = false;
+
+      try
+      {
+         ////////////////////////////////////////////////////////////////////////////////
+         // load the workflow, and the (possibly cached) plan for its current revision //
+         ////////////////////////////////////////////////////////////////////////////////
+         Workflow              workflow         = getWorkflow(workflowInput.getWorkflowId());
+         WorkflowExecutionPlan plan             = getExecutionPlan(workflowInput, workflow.getCurrentWorkflowRevisionId());
+         WorkflowRevision      workflowRevision = plan.getWorkflowRevision();
+
+         context.setWorkflow(workflow);
+         context.setWorkflowRevision(workflowRevision);
+         workflowRunLog.setWorkflowRevisionId(workflowRevision.getId());
+
+         WorkflowStepStatsCounters stepStatsCounters = holdBack(runStats, WorkflowStepStatsAggregator.getCounters(QContext.getQInstance(), workflow.getId(), plan), workflow.getId(), plan);
+
+         ////////////////////////////////////////////
+         // load type-executor, and do its pre-run //
+         ////////////////////////////////////////////
+         WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(QContext.getQInstance());
+         WorkflowType      workflowType      = workflowsRegistry.getWorkflowType(workflow.getWorkflowTypeName());
+         if(workflowType == null)
+         {
+            throw new QException("Workflow type not found by name: " + workflow.getWorkflowTypeName());
+         }
+         workflowTypeExecutor = workflowsRegistry.getWorkflowTypeExecutor(workflowType);
+         workflowTypeExecutor.preRun(context, workflow, workflowRevision);
+
+         if(workflowInput.getTransaction() != null)
+         {
+            context.setTransaction(workflowInput.getTransaction());
+         }
+         else
+         {
+            context.setTransaction(workflowTypeExecutor.openTransaction(workflow, workflowRevision));
+            weOwnTheTransaction = true;
+         }
+
+         ///////////////
+         // step loop //
+         ///////////////
+         int stepIndex = plan.getStartStepIndex();
+         int seqNo     = 1;
+         while(stepIndex != WorkflowExecutionPlan.NO_STEP)
+         {
+            WorkflowStep step = plan.getStep(stepIndex);
+            if(step == null)
+            {
+               throw new QException("Step not found by stepNo: " + plan.getStepNo(stepIndex));
+            }
+
+            ////////////////////////////////////////////////////////////////////////////
+            // only build a run log step if it'll be used - else skip the allocation, //
+            // and the stringifying of output data & messages                         //
+            ////////////////////////////////////////////////////////////////////////////
+            WorkflowRunLogStep workflowRunLogStep = null;
+            if(buildRunLogSteps)
+            {
+               workflowRunLogStep = new WorkflowRunLogStep();
+               workflowRunLogStep.setWorkflowStepId(step.getId());
+               workflowRunLogStep.setSeqNo(seqNo);
+               workflowRunLogStep.setStartTimestamp(getTraceTimestamp());
+               logStepList.add(workflowRunLogStep);
+            }
+
+            if(stepStatsCounters != null)
+            {
+               stepStatsCounters.recordVisit(stepIndex);
+            }
+
+            long               stepStartNanos     = System.nanoTime();
+            WorkflowStepOutput workflowStepOutput = executeStep(plan, stepIndex, workflowTypeExecutor, context);
+            recordStepMetrics(workflowMetrics, plan, stepIndex, workflowStepOutput.outputData(), System.nanoTime() - stepStartNanos);
+
+            if(workflowRunLogStep != null)
+            {
+               workflowRunLogStep.setOutputData(ValueUtils.getValueAsString(workflowStepOutput.outputData()));
+               workflowRunLogStep.setMessage(workflowStepOutput.message());
+            }
+
+            int nextStepIndex = getNextStepIndex(workflowStepOutput.outputData(), plan, stepIndex, false);
+            if(stepStatsCounters != null)
+            {
+               stepStatsCounters.recordLink(stepIndex, nextStepIndex);
+            }
+            stepIndex = nextStepIndex;
+
+            if(workflowRunLogStep != null)
+            {
+               finishRunLogStep(workflowRunLogStep);
+            }
+            seqNo++;
+         }
+
+         workflowTypeExecutor.postRun(context);
+
+         if(weOwnTheTransaction && context.getTransaction() != null)
+         {
+            context.getTransaction().commit();
+         }
+
+         workflowRunLog.setHadError(false);
+      }
+      catch(Exception e)
+      {
+         LOG.info("Exception running workflow", e, logPair("workflowId", workflowInput.getWorkflowId()));
+
+         if(workflowTypeExecutor != null)
+         {
+            workflowTypeExecutor.handleException(e, context);
+         }
+
+         if(weOwnTheTransaction && context.getTransaction() != null)
+         {
+            context.getTransaction().rollback();
+         }
+
+         workflowOutput.setException(e);
+         workflowRunLog.setHadError(true);
+
+         ////////////////////////////////////////////////////////////////////////////////////////////////////////
+         // the executor may have set an error message in the run log - but if not, set one from the exception //
+         ////////////////////////////////////////////////////////////////////////////////////////////////////////
+         if(!StringUtils.hasContent(workflowRunLog.getErrorMessage()))
+         {
+            workflowRunLog.setErrorMessage(e.getMessage());
+         }
+      }
+      finally
+      {
+         workflowMetrics.recordRun(workflowInput.getWorkflowId(), System.nanoTime() - traceStartNanos, workflowOutput.getException() != null);
+         storeWorkflowRunLog(workflowTracer, workflowRunLog);
+         if(weOwnTheTransaction)
+         {
+            closeTransaction(context.getTransaction());
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * run a set of inputs through the workflow together (see executeSet), in
+    * a shared transaction (which the caller completes).  If anything fails, the
+    * exception is set in every output - as the caller then re-runs them all.
+    ***************************************************************************/
+   private List<WorkflowOutput> executeSetInTransaction(List<WorkflowInput> workflowInputs, QBackendTransaction transaction, WorkflowTracerInterface workflowTracer)
+   {
+      WorkflowMetricsInterface workflowMetrics = WorkflowMetricsInterface.of(QContext.getQInstance());
+
+      List<WorkflowOutput> workflowOutputs = new ArrayList<>();
+      List<SetMember>      members         = new ArrayList<>();
+      for(WorkflowInput workflowInput : workflowInputs)
+      {
+         WorkflowOutput workflowOutput = new WorkflowOutput();
+         workflowOutputs.add(workflowOutput);
+
+         SetMember member = new SetMember(initializeContext(workflowInput, workflowOutput), initializeRunLog(workflowInput, workflowOutput));
+         member.runStats = newDeferredRunStats();
+         member.workflowMetrics = member.runStats != null ? member.runStats : workflowMetrics;
+         members.add(member);
+      }
+
+      WorkflowTraceDetail traceDetail = getTraceDetail(workflowTracer);
+      members.forEach(member -> member.context.setTraceDetail(traceDetail));
+      boolean buildRunLogSteps = WorkflowTraceDetail.STEPS.equals(traceDetail);
+      timingSteps = buildRunLogSteps;
+      traceStartInstant = members.get(0).workflowRunLog.getStartTimestamp();
+      traceStartNanos = System.nanoTime();
+
+      Integer workflowId = workflowInputs.get(0).getWorkflowId();
+      try
+      {
+         Workflow              workflow         = getWorkflow(workflowId);
+         WorkflowExecutionPlan plan             = getExecutionPlan(workflowInputs.get(0), workflow.getCurrentWorkflowRevisionId());
+         WorkflowRevision      workflowRevision = plan.getWorkflowRevision();
+
+         WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(QContext.getQInstance());
+         WorkflowType      workflowType      = workflowsRegistry.getWorkflowType(workflow.getWorkflowTypeName());
+         if(workflowType == null)
+         {
+            throw new QException("Workflow type not found by name: " + workflow.getWorkflowTypeName());
+         }
+         WorkflowTypeExecutorInterface workflowTypeExecutor = workflowsRegistry.getWorkflowTypeExecutor(workflowType);
+         WorkflowStepStatsCounters     stepStatsCounters    = WorkflowStepStatsAggregator.getCounters(QContext.getQInstance(), workflowId, plan);
+
+         List<WorkflowExecutionContext> contexts = new ArrayList<>();
+         for(SetMember member : members)
+         {
+            member.context.setWorkflow(workflow);
+            member.context.setWorkflowRevision(workflowRevision);
+            member.workflowRunLog.setWorkflowRevisionId(workflowRevision.getId());
+            workflowTypeExecutor.preRun(member.context, workflow, workflowRevision);
+            member.context.setTransaction(transaction);
+            member.stepIndex = plan.getStartStepIndex();
+            member.stepStatsCounters = holdBack(member.runStats, stepStatsCounters, workflowId, plan);
+            contexts.add(member.context);
+         }
+
+         //////////////////////////////////////////////////////////////////////
+         // step loop - executing a group of members that are at a step each //
+         // time, until they've all run out of steps                         //
+         //////////////////////////////////////////////////////////////////////
+         List<SetMember> activeMembers = new ArrayList<>(members);
+         activeMembers.removeIf(member -> member.stepIndex == WorkflowExecutionPlan.NO_STEP);
+         while(!activeMembers.isEmpty())
+         {
+            List<SetMember> group     = takeNextSetGroup(activeMembers, plan);
+            int             stepIndex = group.get(0).stepIndex;
+            WorkflowStep    step      = plan.getStep(stepIndex);
+            if(step == null)
+            {
+               throw new QException("Step not found by stepNo: " + plan.getStepNo(stepIndex));
+            }
+
+            for(SetMember member : group)
+            {
+               if(member.stepStatsCounters != null)
+               {
+                  member.stepStatsCounters.recordVisit(stepIndex);
+               }
+            }
+
+            Instant                  startTimestamp      = getTraceTimestamp();
+            long                     stepStartNanos      = System.nanoTime();
+            List<WorkflowStepOutput> workflowStepOutputs = executeSetStep(plan, stepIndex, workflowTypeExecutor, group.stream().map(member -> member.context).toList());
+            long                     memberStepNanos     = (System.nanoTime() - stepStartNanos) / group.size();
+            for(int i = 0; i < group.size(); i++)
+            {
+               SetMember          member             = group.get(i);
+               WorkflowStepOutput workflowStepOutput = workflowStepOutputs.get(i);
+               recordStepMetrics(member.workflowMetrics, plan, stepIndex, workflowStepOutput.outputData(), memberStepNanos);
+
+               WorkflowRunLogStep workflowRunLogStep = null;
+               if(buildRunLogSteps)
+               {
+                  workflowRunLogStep = new WorkflowRunLogStep();
+                  workflowRunLogStep.setWorkflowStepId(step.getId());
+                  workflowRunLogStep.setSeqNo(member.workflowRunLog.getSteps().size() + 1);
+                  workflowRunLogStep.setStartTimestamp(startTimestamp);
+                  workflowRunLogStep.setOutputData(ValueUtils.getValueAsString(workflowStepOutput.outputData()));
+                  workflowRunLogStep.setMessage(workflowStepOutput.message());
+                  member.workflowRunLog.getSteps().add(workflowRunLogStep);
+               }
+
+               //////////////////////////////////////////////////////////////////////
+               // navigate using the member's own container stack (swapped in, for //
+               // getNextStepIndex, then back out)                                 //
+               //////////////////////////////////////////////////////////////////////
+               containerStack = member.containerStack;
+               containerStackSize = member.containerStackSize;
+               member.stepIndex = getNextStepIndex(workflowStepOutput.outputData(), plan, stepIndex, false);
+               member.containerStack = containerStack;
+               member.containerStackSize = containerStackSize;
+
+               if(member.stepStatsCounters != null)
+               {
+                  member.stepStatsCounters.recordLink(stepIndex, member.stepIndex);
+               }
+
+               if(workflowRunLogStep != null)
+               {
+                  finishRunLogStep(workflowRunLogStep);
+               }
+               if(member.stepIndex != WorkflowExecutionPlan.NO_STEP)
+               {
+                  activeMembers.add(member);
+               }
+            }
+         }
+
+         workflowTypeExecutor.postRunSet(contexts);
+
+         members.forEach(member -> member.workflowRunLog.setHadError(false));
+      }
+      catch(Exception e)
+      {
+         LOG.info("Exception running workflow set", e, logPair("workflowId", workflowId), logPair("setSize", workflowInputs.size()));
+
+         ////////////////////////////////////////////////////////////////////
+         // if the type executor said which runs failed, only they get the //
+         // exception (so the caller can re-run just them individually)    //
+         ////////////////////////////////////////////////////////////////////
+         Map<WorkflowExecutionContext, String> errorsByContext = e instanceof WorkflowSetRunException setRunException ? setRunException.getErrorsByContext() : null;
+         for(int i = 0; i < workflowOutputs.size(); i++)
+         {
+            SetMember member = members.get(i);
+            if(errorsByContext == null || errorsByContext.containsKey(member.context))
+            {
+               workflowOutputs.get(i).setException(e);
+               member.workflowRunLog.setHadError(true);
+               member.workflowRunLog.setErrorMessage(errorsByContext == null ? e.getMessage() : errorsByContext.get(member.context));
+            }
+         }
+      }
+      finally
+      {
+         containerStack = new int[8];
+         containerStackSize = 0;
+
+         ///////////////////////////////////////////////////////////////////////
+         // as with steps, the set's time is shared evenly among its members, //
+         // so metrics reflect the per-run cost of running as a set           //
+         ///////////////////////////////////////////////////////////////////////
+         long memberRunNanos = (System.nanoTime() - traceStartNanos) / members.size();
+         for(int i = 0; i < members.size(); i++)
+         {
+            members.get(i).workflowMetrics.recordRun(workflowId, memberRunNanos, workflowOutputs.get(i).getException() != null);
+            storeWorkflowRunLog(workflowTracer, members.get(i).workflowRunLog);
+         }
+      }
+
+      return (workflowOutputs);
+   }
+
+
+
+   /***************************************************************************
+    * remove & return the next group of set members to execute: those at the
+    * highest step (by the plan's step heights), with the same container stack
+    * as the first member found there.
+    ***************************************************************************/
+   private static List<SetMember> takeNextSetGroup(List<SetMember> activeMembers, WorkflowExecutionPlan plan)
+   {
+      SetMember first = activeMembers.get(0);
+      for(SetMember member : activeMembers)
+      {
+         if(plan.getStepHeight(member.stepIndex) > plan.getStepHeight(first.stepIndex))
+         {
+            first = member;
+         }
+      }
+
+      List<SetMember>     group    = new ArrayList<>();
+      Iterator<SetMember> iterator = activeMembers.iterator();
+      while(iterator.hasNext())
+      {
+         SetMember member = iterator.next();
+         if(member.stepIndex == first.stepIndex && Arrays.equals(member.containerStack, 0, member.containerStackSize, first.containerStack, 0, first.containerStackSize))
+         {
+            group.add(member);
+            iterator.remove();
+         }
+      }
+      return (group);
+   }
+
+
+
+   /***************************************************************************
+    * execute a step for a group of set members - as executeStep does for one.
+    ***************************************************************************/
+   private List<WorkflowStepOutput> executeSetStep(WorkflowExecutionPlan plan, int stepIndex, WorkflowTypeExecutorInterface workflowTypeExecutor, List<WorkflowExecutionContext> contexts) throws QException
+   {
+      WorkflowStep     step             = plan.getStep(stepIndex);
+      WorkflowStepType workflowStepType = plan.getStepType(stepIndex);
+      if(workflowStepType == null)
+      {
+         throw new QException("Workflow step type not found by name: " + step.getWorkflowStepTypeName());
+      }
+
+      if(OutboundLinkMode.CONTAINER.equals(workflowStepType.getOutboundLinkMode()))
+      {
+         return (Collections.nCopies(contexts.size(), new WorkflowStepOutput()));
+      }
+
+      WorkflowStepExecutorInterface workflowStepExecutor = plan.getStepExecutor(stepIndex);
+
+      for(WorkflowExecutionContext context : contexts)
+      {
+         workflowTypeExecutor.preStep(step, context);
+      }
+
+      WorkflowStepInputValues inputValues = plan.getStepInputValues(stepIndex);
+      if(inputValues == null)
+      {
+         inputValues = WorkflowStepInputValues.of(step);
+      }
+
+      List<WorkflowStepOutput> workflowStepOutputs = workflowStepExecutor.executeSet(step, inputValues.forRun(), contexts);
+      if(workflowStepOutputs == null || workflowStepOutputs.size() != contexts.size())
+      {
+         throw (new QException("Workflow step executor for " + step.getWorkflowStepTypeName() + " did not return an output for each member of the set"));
+      }
+
+      List<WorkflowStepOutput> postStepOutputs = new ArrayList<>();
+      for(int i = 0; i < contexts.size(); i++)
+      {
+         postStepOutputs.add(workflowTypeExecutor.postStep(step, contexts.get(i), workflowStepOutputs.get(i)));
+      }
+      return (postStepOutputs);
+   }
 
 
 
    /***************************************************************************
-    **
+    * state of one input's run, within a set being executed together.
     ***************************************************************************/
-   @Override
-   public void execute(WorkflowInput workflowInput, WorkflowOutput workflowOutput) throws QException
+   private static class SetMember
+   {
+      private final WorkflowExecutionContext context;
+      private final WorkflowRunLog           workflowRunLog;
+
+      private int   stepIndex;
+      private int[] containerStack     = new int[0];
+      private int   containerStackSize = 0;
+
+      private DeferredRunStats          runStats;
+      private WorkflowMetricsInterface  workflowMetrics;
+      private WorkflowStepStatsCounters stepStatsCounters;
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      private SetMember(WorkflowExecutionContext context, WorkflowRunLog workflowRunLog)
+      {
+         this.context = context;
+         this.workflowRunLog = workflowRunLog;
+      }
+   }
+
+
+
+   /***************************************************************************
+    * metrics & step stats for a run in a shared transaction - held back until
+    * it has committed (or the run is otherwise kept), and then recorded (or
+    * else, dropped - as the run is re-run, and records its own), so each kept
+    * run is only counted once.
+    ***************************************************************************/
+   private static class DeferredRunStats implements WorkflowMetricsInterface
+   {
+      private final WorkflowMetricsInterface                                  workflowMetrics;
+      private final List<Runnable>                                            metricsCalls      = new ArrayList<>();
+      private final Map<WorkflowStepStatsCounters, WorkflowStepStatsCounters> stepStatsCounters = new IdentityHashMap<>();
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      private DeferredRunStats(WorkflowMetricsInterface workflowMetrics)
+      {
+         this.workflowMetrics = workflowMetrics;
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public void recordRun(Integer workflowId, long durationNanos, boolean hadError)
+      {
+         if(!(workflowMetrics instanceof NoopWorkflowMetrics))
+         {
+            metricsCalls.add(() -> workflowMetrics.recordRun(workflowId, durationNanos, hadError));
+         }
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public void recordStep(String workflowStepTypeName, long durationNanos)
+      {
+         if(!(workflowMetrics instanceof NoopWorkflowMetrics))
+         {
+            metricsCalls.add(() -> workflowMetrics.recordStep(workflowStepTypeName, durationNanos));
+         }
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public void recordBranchOutcome(Integer workflowStepId, String outcome)
+      {
+         if(!(workflowMetrics instanceof NoopWorkflowMetrics))
+         {
+            metricsCalls.add(() -> workflowMetrics.recordBranchOutcome(workflowStepId, outcome));
+         }
+      }
+
+
+
+      /***************************************************************************
+       * get counters to hold back the counts for a plan's (real) counters.
+       ***************************************************************************/
+      private WorkflowStepStatsCounters getStepStatsCounters(WorkflowStepStatsCounters counters, Integer workflowId, WorkflowExecutionPlan plan)
+      {
+         return (stepStatsCounters.computeIfAbsent(counters, c -> new WorkflowStepStatsCounters(workflowId, plan)));
+      }
+
+
+
+      /***************************************************************************
+       * record everything held back, to the real metrics & counters.
+       ***************************************************************************/
+      private void record()
+      {
+         metricsCalls.forEach(Runnable::run);
+         stepStatsCounters.forEach((counters, heldBackCounters) -> heldBackCounters.addTo(counters));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * set up the execution context for an input - using the one in the input,
+    * if given - with the input's values added to it.
+    ***************************************************************************/
+   private static WorkflowExecutionContext initializeContext(WorkflowInput workflowInput, WorkflowOutput workflowOutput)
    {
       /////////////////////////////////////////////////////////////////////////////////////////
       // get values map - initializing it if needed, and wrapping in modifiable ds if needed //
@@ -115,125 +1083,103 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
          context.getValues().putAll(inputValues);
       }
 
-      ///////////////////////////
-      // initialize trace list //
-      ///////////////////////////
-      WorkflowRunLog workflowRunLog = Objects.requireNonNullElseGet(inputWorkflowRunLog, () -> new WorkflowRunLog());
+      return (context);
+   }
+
+
+
+   /***************************************************************************
+    * set up the run log for an input - using the one in the input (else the
+    * executor's inputWorkflowRunLog), if given.
+    ***************************************************************************/
+   private WorkflowRunLog initializeRunLog(WorkflowInput workflowInput, WorkflowOutput workflowOutput)
+   {
+      WorkflowRunLog workflowRunLog = Objects.requireNonNullElseGet(workflowInput.getWorkflowRunLog() != null ? workflowInput.getWorkflowRunLog() : inputWorkflowRunLog, () -> new WorkflowRunLog());
       workflowRunLog.setStartTimestamp(Instant.now());
       workflowRunLog.setWorkflowId(workflowInput.getWorkflowId());
+      workflowRunLog.setSteps(new ArrayList<>());
       workflowOutput.setWorkflowRunLog(workflowRunLog);
+      return (workflowRunLog);
+   }
 
-      List<WorkflowRunLogStep> logStepList = new ArrayList<>();
-      workflowRunLog.setSteps(logStepList);
 
-      WorkflowTypeExecutorInterface workflowTypeExecutor = null;
-      boolean                       weOwnTheTransaction  = false;
 
-      try
+   /***************************************************************************
+    * get the current time for a run-log step - but only if run log steps are
+    * being built (else null, to avoid the clock read & allocation per step).
+    * With no tracer, steps are still built (and timed), as the caller gets the
+    * run log in its output.
+    ***************************************************************************/
+   private Instant getTraceTimestamp()
+   {
+      if(!timingSteps)
       {
-         ////////////////////////////////////////////////////////////
-         // load the workflow (current revision), steps, and links //
-         ////////////////////////////////////////////////////////////
-         Workflow                           workflow         = getWorkflow(workflowInput.getWorkflowId());
-         WorkflowRevision                   workflowRevision = getWorkflowRevision(workflowInput, workflow.getCurrentWorkflowRevisionId());
-         Map<Integer, WorkflowStep>         stepMap          = loadSteps(workflowRevision);
-         ListingHash<Integer, WorkflowLink> linkMap          = loadLinks(workflowRevision);
+         return (null);
+      }
 
-         context.setWorkflow(workflow);
-         context.setWorkflowRevision(workflowRevision);
-         workflowRunLog.setWorkflowRevisionId(workflowRevision.getId());
+      return (traceStartInstant.plusNanos(System.nanoTime() - traceStartNanos));
+   }
 
-         ////////////////////////////////////////////
-         // load type-executor, and do its pre-run //
-         ////////////////////////////////////////////
-         WorkflowType workflowType = WorkflowsRegistry.of(QContext.getQInstance()).getWorkflowType(workflow.getWorkflowTypeName());
-         if(workflowType == null)
-         {
-            throw new QException("Workflow type not found by name: " + workflow.getWorkflowTypeName());
-         }
-         workflowTypeExecutor = QCodeLoader.getAdHoc(WorkflowTypeExecutorInterface.class, workflowType.getExecutor());
-         workflowTypeExecutor.preRun(context, workflow, workflowRevision);
 
-         if(workflowInput.getTransaction() != null)
-         {
-            context.setTransaction(workflowInput.getTransaction());
-         }
-         else
-         {
-            context.setTransaction(workflowTypeExecutor.openTransaction(workflow, workflowRevision));
-            weOwnTheTransaction = true;
-         }
 
-         ///////////////
-         // step loop //
-         ///////////////
-         Integer stepNo = workflowRevision.getStartStepNo();
-         int     seqNo  = 1;
-         while(stepNo != null)
-         {
-            WorkflowStep step = stepMap.get(stepNo);
-            if(step == null)
-            {
-               throw new QException("Step not found by stepNo: " + stepNo);
-            }
+   /***************************************************************************
+    * set a run log step's end timestamp, and its duration (so step times can
+    * be summed by an aggregate query, e.g., for the run log viewer) - if the
+    * step was timed.
+    ***************************************************************************/
+   private void finishRunLogStep(WorkflowRunLogStep workflowRunLogStep)
+   {
+      workflowRunLogStep.setEndTimestamp(getTraceTimestamp());
+      if(workflowRunLogStep.getStartTimestamp() != null && workflowRunLogStep.getEndTimestamp() != null)
+      {
+         workflowRunLogStep.setDurationMillis(Duration.between(workflowRunLogStep.getStartTimestamp(), workflowRunLogStep.getEndTimestamp()).toMillis());
+      }
+   }
 
-            WorkflowRunLogStep workflowRunLogStep = new WorkflowRunLogStep();
-            workflowRunLogStep.setWorkflowStepId(step.getId());
-            workflowRunLogStep.setSeqNo(seqNo);
-            workflowRunLogStep.setStartTimestamp(Instant.now());
-            logStepList.add(workflowRunLogStep);
 
-            WorkflowStepOutput workflowStepOutput = executeStep(step, workflowTypeExecutor, context);
-            workflowRunLogStep.setOutputData(ValueUtils.getValueAsString(workflowStepOutput.outputData()));
-            workflowRunLogStep.setMessage(workflowStepOutput.message());
 
-            stepNo = getNextStepNo(workflowStepOutput.outputData(), step, linkMap, stepMap, false);
+   /***************************************************************************
+    * the detail to build run logs with, for a tracer.  With no tracer, the run
+    * log is only given back to the caller (in the output) - so it gets steps.
+    ***************************************************************************/
+   private static WorkflowTraceDetail getTraceDetail(WorkflowTracerInterface workflowTracer)
+   {
+      if(workflowTracer == null)
+      {
+         return (WorkflowTraceDetail.STEPS);
+      }
 
-            workflowRunLogStep.setEndTimestamp(Instant.now());
-            seqNo++;
-         }
+      return (Objects.requireNonNullElse(workflowTracer.getTraceDetail(), WorkflowTraceDetail.STEPS));
+   }
 
-         workflowTypeExecutor.postRun(context);
 
-         if(weOwnTheTransaction && context.getTransaction() != null)
-         {
-            context.getTransaction().commit();
-         }
 
-         workflowRunLog.setHadError(false);
-      }
-      catch(Exception e)
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static void storeWorkflowRunLog(WorkflowTracerInterface workflowTracer, WorkflowRunLog workflowRunLog)
+   {
+      if(workflowTracer != null)
       {
-         LOG.info("Exception running workflow", e, logPair("workflowId", workflowInput.getWorkflowId()));
-
-         if(workflowTypeExecutor != null)
-         {
-            workflowTypeExecutor.handleException(e, context);
-         }
+         workflowRunLog.setEndTimestamp(Instant.now());
+         traceWorkflowFinish(workflowTracer, workflowRunLog);
+      }
+   }
 
-         if(weOwnTheTransaction && context.getTransaction() != null)
-         {
-            context.getTransaction().rollback();
-         }
 
-         workflowOutput.setException(e);
-         workflowRunLog.setHadError(true);
 
-         ////////////////////////////////////////////////////////////////////////////////////////////////////////
-         // the executor may have set an error message in the run log - but if not, set one from the exception //
-         ////////////////////////////////////////////////////////////////////////////////////////////////////////
-         if(!StringUtils.hasContent(workflowRunLog.getErrorMessage()))
-         {
-            workflowRunLog.setErrorMessage(e.getMessage());
-         }
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static void traceWorkflowFinish(WorkflowTracerInterface workflowTracer, WorkflowRunLog workflowRunLog)
+   {
+      try
+      {
+         workflowTracer.handleWorkflowFinish(workflowRunLog);
       }
-      finally
+      catch(Exception e)
       {
-         storeWorkflowRunLog(workflowRunLog);
-         if(weOwnTheTransaction)
-         {
-            closeTransaction(context);
-         }
+         LOG.warn("Exception running workflow log tracer", e);
       }
    }
 
@@ -242,19 +1188,18 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
    /***************************************************************************
     **
     ***************************************************************************/
-   private void storeWorkflowRunLog(WorkflowRunLog workflowRunLog)
+   private static void closeTransaction(QBackendTransaction transaction)
    {
       try
       {
-         if(workflowTracer != null)
+         if(transaction != null)
          {
-            workflowRunLog.setEndTimestamp(Instant.now());
-            workflowTracer.handleWorkflowFinish(workflowRunLog);
+            transaction.close();
          }
       }
       catch(Exception e)
       {
-         LOG.warn("Exception running workflow log tracer", e);
+         LOG.warn("Exception closing transaction", e);
       }
    }
 
@@ -263,18 +1208,15 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
    /***************************************************************************
     **
     ***************************************************************************/
-   private static void closeTransaction(WorkflowExecutionContext context)
+   private static void rollbackQuietly(QBackendTransaction transaction)
    {
       try
       {
-         if(context.getTransaction() != null)
-         {
-            context.getTransaction().close();
-         }
+         transaction.rollback();
       }
       catch(Exception e)
       {
-         LOG.warn("Exception closing transaction", e);
+         LOG.warn("Exception rolling back transaction", e);
       }
    }
 
@@ -289,6 +1231,9 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
     * - each with a conditionValue that represents the value that the stepOutput
     * of the fromStep itself will be tested for.  e.g., true & false for a boolean
     * conditional.  could be numbers or strings (in future) for a switch.
+    * - the links are indexed by (typed) condition value in the plan's
+    * WorkflowLinkDispatchTable for the step - so any number of them is a
+    * single lookup.
     *
     * Container steps (OutboundLinkMode.CONTAINER):
     * - will have up to 2 outbound links:
@@ -296,15 +1241,16 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
     * inside the container (unless it's empty, then this link doesn't exist).
     * - one with a condition value of "pop" going to the next step
     * after the container (unless the container is at the end of the program.
-    * - the containerStack is used with a recursive call in here for popping.
+    * - the targets of both are pre-computed in the plan.
+    * - the containerStack is used (iteratively) in here for popping.
     *
     * Interrupting / terminating steps (OutboundLinkMode.ZERO):
     * - will probably still have an outbound link (to help draw the graph) - but
-    * this method ignores that link and returns null based on the link mode!
+    * this method ignores that link and returns NO_STEP based on the link mode!
     ***************************************************************************/
-   private Integer getNextStepNo(Serializable stepOutput, WorkflowStep fromStep, ListingHash<Integer, WorkflowLink> linkMap, Map<Integer, WorkflowStep> stepMap, boolean isPop) throws QException
+   private int getNextStepIndex(Serializable stepOutput, WorkflowExecutionPlan plan, int fromStepIndex, boolean isPop)
    {
-      WorkflowStepType fromWorkflowStepType = WorkflowsRegistry.of(QContext.getQInstance()).getWorkflowStepType(fromStep.getWorkflowStepTypeName());
+      WorkflowStepType fromWorkflowStepType = plan.getStepType(fromStepIndex);
       if(OutboundLinkMode.ZERO.equals(fromWorkflowStepType.getOutboundLinkMode()))
       {
          //////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -312,9 +1258,41 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
          // to allow it to distinguish between the code after the `if` closes being inside or outside the `if`.  //
          // SO - the point is - never return a next step for a from-step that is zero outbound-link mode.        //
          //////////////////////////////////////////////////////////////////////////////////////////////////////////
-         return (null);
+         return (WorkflowExecutionPlan.NO_STEP);
+      }
+
+      while(true)
+      {
+         int targetIndex = getLinkedStepIndex(stepOutput, plan, fromStepIndex, isPop);
+         if(targetIndex != WorkflowExecutionPlan.NO_STEP)
+         {
+            return (targetIndex);
+         }
+
+         /////////////////////////////////////////////////////////////////////////
+         // if we didn't find a next-step, but there is something on the stack, //
+         // then look for a pop out of that frame                               //
+         /////////////////////////////////////////////////////////////////////////
+         if(containerStackSize == 0)
+         {
+            return (WorkflowExecutionPlan.NO_STEP);
+         }
+
+         fromStepIndex = containerStack[--containerStackSize];
+         stepOutput = null;
+         isPop = true;
       }
+   }
+
+
 
+   /***************************************************************************
+    * find the step that the links from a step lead to (pushing container steps
+    * onto the stack as they're entered) - or NO_STEP if none do.
+    ***************************************************************************/
+   private int getLinkedStepIndex(Serializable stepOutput, WorkflowExecutionPlan plan, int fromStepIndex, boolean isPop)
+   {
+      WorkflowStepType fromWorkflowStepType = plan.getStepType(fromStepIndex);
       if(OutboundLinkMode.CONTAINER.equals(fromWorkflowStepType.getOutboundLinkMode()))
       {
          ///////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -323,61 +1301,84 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
          ///////////////////////////////////////////////////////////////////////////////////////////////////////
          if(isPop)
          {
-            stepOutput = "pop";
-         }
-         else
-         {
-            stepOutput = "push";
-            containerStack.push(fromStep.getStepNo());
+            return (plan.getContainerPopTarget(fromStepIndex));
          }
-      }
 
-      Integer                       fromStepNo      = fromStep.getStepNo();
-      List<WorkflowLink>            links           = linkMap.get(fromStepNo);
-      Class<? extends Serializable> stepOutputClass = stepOutput == null ? null : stepOutput.getClass();
+         pushContainer(fromStepIndex);
+         return (plan.getContainerPushTarget(fromStepIndex));
+      }
 
       //////////////////////////////////////////////////////////////////////////////////////
-      // look for a link between the fromStepNo matching the stepOutput / condition value //
+      // look up the link matching the stepOutput / condition value (or the unconditional //
+      // link, which means to always be taken) in the step's pre-built dispatch table     //
       //////////////////////////////////////////////////////////////////////////////////////
-      for(WorkflowLink link : CollectionUtils.nonNullList(links))
+      return (plan.getLinkDispatchTable(fromStepIndex).getTarget(stepOutput));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void pushContainer(int stepIndex)
+   {
+      if(containerStackSize == containerStack.length)
       {
-         if(link.getConditionValue() == null)
-         {
-            ///////////////////////////////////////////////////////
-            // a link w/o any condition means to always be taken //
-            ///////////////////////////////////////////////////////
-            return (link.getToStepNo());
-         }
-         else
-         {
-            try
-            {
-               Serializable valueAsType = stepOutputClass == null ? link.getConditionValue() : ValueUtils.getValueAsType(stepOutputClass, link.getConditionValue());
-               if(Objects.equals(valueAsType, stepOutput))
-               {
-                  return link.getToStepNo();
-               }
-            }
-            catch(Exception e)
-            {
-               LOG.debug("Unable to evaluate condition value: " + link.getConditionValue() + " for step: " + fromStepNo, e);
-            }
-         }
+         containerStack = Arrays.copyOf(containerStack, Math.max(8, containerStack.length * 2));
       }
+      containerStack[containerStackSize++] = stepIndex;
+   }
 
-      /////////////////////////////////////////////////////////////////////////
-      // if we didn't find a next-step, but there is something on the stack, //
-      // then look for a pop out of that frame                               //
-      /////////////////////////////////////////////////////////////////////////
-      if(!containerStack.isEmpty())
+
+
+   /***************************************************************************
+    * if runs are in a shared transaction, start holding back the metrics &
+    * step stats of the next one - else null, to record them directly.
+    ***************************************************************************/
+   private DeferredRunStats newDeferredRunStats()
+   {
+      if(deferredRunStats == null)
       {
-         Integer      popStepNo = containerStack.pop();
-         WorkflowStep popStep   = stepMap.get(popStepNo);
+         return (null);
+      }
+
+      DeferredRunStats runStats = new DeferredRunStats(WorkflowMetricsInterface.of(QContext.getQInstance()));
+      deferredRunStats.add(runStats);
+      return (runStats);
+   }
+
 
-         return getNextStepNo(popStepNo, popStep, linkMap, stepMap, true);
+
+   /***************************************************************************
+    * get the step stats counters for a run (null if they're not enabled) -
+    * held back, if the run has deferred stats.
+    ***************************************************************************/
+   private static WorkflowStepStatsCounters holdBack(DeferredRunStats runStats, WorkflowStepStatsCounters stepStatsCounters, Integer workflowId, WorkflowExecutionPlan plan)
+   {
+      if(stepStatsCounters == null || runStats == null)
+      {
+         return (stepStatsCounters);
       }
 
-      return (null);
+      return (runStats.getStepStatsCounters(stepStatsCounters, workflowId, plan));
+   }
+
+
+
+   /***************************************************************************
+    * record metrics for an executed step - its latency, and, for a branching
+    * step, which outcome it had.
+    ***************************************************************************/
+   private static void recordStepMetrics(WorkflowMetricsInterface workflowMetrics, WorkflowExecutionPlan plan, int stepIndex, Serializable outputData, long durationNanos)
+   {
+      WorkflowStep step = plan.getStep(stepIndex);
+      workflowMetrics.recordStep(step.getWorkflowStepTypeName(), durationNanos);
+
+      WorkflowStepType workflowStepType = plan.getStepType(stepIndex);
+      if(workflowStepType != null && OutboundLinkMode.TWO.equals(workflowStepType.getOutboundLinkMode()))
+      {
+         workflowMetrics.recordBranchOutcome(step.getId(), ValueUtils.getValueAsString(outputData));
+      }
    }
 
 
@@ -385,9 +1386,10 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
    /***************************************************************************
     **
     ***************************************************************************/
-   private WorkflowStepOutput executeStep(WorkflowStep step, WorkflowTypeExecutorInterface workflowTypeExecutor, WorkflowExecutionContext context) throws QException
+   private WorkflowStepOutput executeStep(WorkflowExecutionPlan plan, int stepIndex, WorkflowTypeExecutorInterface workflowTypeExecutor, WorkflowExecutionContext context) throws QException
    {
-      WorkflowStepType workflowStepType = WorkflowsRegistry.of(QContext.getQInstance()).getWorkflowStepType(step.getWorkflowStepTypeName());
+      WorkflowStep     step             = plan.getStep(stepIndex);
+      WorkflowStepType workflowStepType = plan.getStepType(stepIndex);
       if(workflowStepType == null)
       {
          throw new QException("Workflow step type not found by name: " + step.getWorkflowStepTypeName());
@@ -398,23 +1400,21 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
          return (new WorkflowStepOutput());
       }
 
-      WorkflowStepExecutorInterface workflowStepExecutor = QCodeLoader.getAdHoc(WorkflowStepExecutorInterface.class, workflowStepType.getExecutor());
+      WorkflowStepExecutorInterface workflowStepExecutor = plan.getStepExecutor(stepIndex);
 
       workflowTypeExecutor.preStep(step, context);
 
-      JSONObject                jsonObject  = JsonUtils.toJSONObject(step.getInputValuesJson());
-      Map<String, Object>       mapValues   = jsonObject.toMap();
-      Map<String, Serializable> inputValues = new LinkedHashMap<>();
-
-      for(Map.Entry<String, Object> entry : mapValues.entrySet())
+      /////////////////////////////////////////////////////////////////////////////////////
+      // input values are parsed when the plan is compiled - if that failed, parse again //
+      // here, to raise the error.                                                       //
+      /////////////////////////////////////////////////////////////////////////////////////
+      WorkflowStepInputValues inputValues = plan.getStepInputValues(stepIndex);
+      if(inputValues == null)
       {
-         if(entry.getValue() instanceof Serializable s)
-         {
-            inputValues.put(entry.getKey(), s);
-         }
+         inputValues = WorkflowStepInputValues.of(step);
       }
 
-      WorkflowStepOutput workflowStepOutput = workflowStepExecutor.execute(step, inputValues, context);
+      WorkflowStepOutput workflowStepOutput = workflowStepExecutor.execute(step, inputValues.forRun(), context);
       workflowStepOutput = workflowTypeExecutor.postStep(step, context, workflowStepOutput);
 
       return workflowStepOutput;
@@ -423,31 +1423,26 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
 
 
    /***************************************************************************
-    **
+    * get the execution plan for the revision being run - either compiled from
+    * the input's override revision, or from the plan cache (compiling and
+    * caching it, if it isn't there yet).
     ***************************************************************************/
-   private Map<Integer, WorkflowStep> loadSteps(WorkflowRevision workflowRevision)
+   private WorkflowExecutionPlan getExecutionPlan(WorkflowInput workflowInput, Integer workflowRevisionId) throws QException
    {
-      Map<Integer, WorkflowStep> steps = new HashMap<>();
-      for(WorkflowStep workflowStep : CollectionUtils.nonNullList(workflowRevision.getSteps()))
+      if(workflowInput.getOverrideWorkflowRevision() != null)
       {
-         steps.put(workflowStep.getStepNo(), workflowStep);
+         return (WorkflowExecutionPlan.compile(new WorkflowRevision(workflowInput.getOverrideWorkflowRevision())));
       }
-      return steps;
-   }
-
 
-
-   /***************************************************************************
-    **
-    ***************************************************************************/
-   private ListingHash<Integer, WorkflowLink> loadLinks(WorkflowRevision workflowRevision)
-   {
-      ListingHash<Integer, WorkflowLink> links = new ListingHash<>();
-      for(WorkflowLink workflowLink : CollectionUtils.nonNullList(workflowRevision.getLinks()))
+      WorkflowExecutionPlanCache planCache = WorkflowExecutionPlanCache.of(QContext.getQInstance());
+      WorkflowExecutionPlan      plan      = planCache.get(workflowRevisionId);
+      if(plan == null)
       {
-         links.add(workflowLink.getFromStepNo(), workflowLink);
+         plan = WorkflowExecutionPlan.compile(getWorkflowRevision(workflowRevisionId));
+         planCache.put(workflowRevisionId, plan);
       }
-      return links;
+
+      return (plan);
    }
 
 
@@ -455,13 +1450,8 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
    /***************************************************************************
     **
     ***************************************************************************/
-   private WorkflowRevision getWorkflowRevision(WorkflowInput workflowInput, Integer workflowRevisionId) throws QException
+   private WorkflowRevision getWorkflowRevision(Integer workflowRevisionId) throws QException
    {
-      if(workflowInput.getOverrideWorkflowRevision() != null)
-      {
-         return new WorkflowRevision(workflowInput.getOverrideWorkflowRevision());
-      }
-
       QRecord workflowRevision = new GetAction().executeForRecord(new GetInput(WorkflowRevision.TABLE_NAME)
          .withIncludeAssociations(true)
          .withPrimaryKey(workflowRevisionId));
@@ -480,12 +1470,12 @@ public class WorkflowExecutor extends AbstractQActionBiConsumer<WorkflowInput, W
     ***************************************************************************/
    private static Workflow getWorkflow(Integer workflowId) throws QException
    {
-      QRecord workflow = new GetAction().executeForRecord(new GetInput(Workflow.TABLE_NAME).withPrimaryKey(workflowId));
+      Workflow workflow = WorkflowCache.getWorkflow(workflowId);
       if(workflow == null)
       {
          throw new QException("Workflow not found by id: " + workflowId);
       }
-      return new Workflow(workflow);
+      return workflow;
    }
 
 
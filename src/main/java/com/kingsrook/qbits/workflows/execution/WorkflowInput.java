@@ -24,6 +24,7 @@ package com.kingsrook.qbits.workflows.execution;
 
 import java.io.Serializable;
 import java.util.Map;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
 import com.kingsrook.qqq.backend.core.actions.QBackendTransaction;
 import com.kingsrook.qqq.backend.core.model.actions.AbstractActionInput;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
@@ -43,6 +44,8 @@ public class WorkflowInput extends AbstractActionInput implements Serializable
 
    private QBackendTransaction transaction;
 
+   private WorkflowRunLog workflowRunLog;
+
 
 
    /*******************************************************************************
@@ -225,4 +228,44 @@ public class WorkflowInput extends AbstractActionInput implements Serializable
    }
 
 
+
+   /*******************************************************************************
+    * Getter for workflowRunLog
+    * @see #withWorkflowRunLog(WorkflowRunLog)
+    *******************************************************************************/
+   public WorkflowRunLog getWorkflowRunLog()
+   {
+      return (this.workflowRunLog);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for workflowRunLog
+    * @see #withWorkflowRunLog(WorkflowRunLog)
+    *******************************************************************************/
+   public void setWorkflowRunLog(WorkflowRunLog workflowRunLog)
+   {
+      this.workflowRunLog = workflowRunLog;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for workflowRunLog
+    *
+    * @param workflowRunLog
+    * Optional run log object (e.g., with input record fields pre-populated) to be
+    * filled in by the executor for this input.  Takes precedence over the
+    * executor's inputWorkflowRunLog - which is useful when running a batch of
+    * inputs through one executor.
+    * @return this
+    *******************************************************************************/
+   public WorkflowInput withWorkflowRunLog(WorkflowRunLog workflowRunLog)
+   {
+      this.workflowRunLog = workflowRunLog;
+      return (this);
+   }
+
+
 }
@@ -0,0 +1,142 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import com.kingsrook.qbits.workflows.model.WorkflowLink;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.utils.ValueUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * pre-indexed form of the outbound links from one step, used to pick the next
+ * step based on the step's output, without looping over (and converting the
+ * condition values of) every link on every run.
+ *
+ * Links are evaluated in their stored order - so only links with a condition
+ * value that come before the first unconditional link can ever be taken; the
+ * first unconditional link (if any) is the fallback target.  For conditional
+ * links, a map from condition value to target is built the first time a step
+ * output of a given class is seen (converting each condition value to that
+ * class, as the executor did per-link before), and then re-used for all later
+ * lookups with that class.
+ *******************************************************************************/
+public class WorkflowLinkDispatchTable
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowLinkDispatchTable.class);
+
+   private final int      stepNo;
+   private final String[] conditionValues;
+   private final int[]    conditionTargets;
+   private final int      unconditionalTarget;
+
+   private final Map<Class<? extends Serializable>, Map<Serializable, Integer>> targetsByOutputClass = new ConcurrentHashMap<>();
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    * @param stepNo the stepNo the links come from (for logging)
+    * @param links the outbound links from the step, in stored order
+    * @param linkTargets the plan's step indexes for each link's toStepNo
+    *******************************************************************************/
+   public WorkflowLinkDispatchTable(int stepNo, WorkflowLink[] links, int[] linkTargets)
+   {
+      this.stepNo = stepNo;
+
+      int firstUnconditional = links.length;
+      for(int i = 0; i < links.length; i++)
+      {
+         if(links[i].getConditionValue() == null)
+         {
+            firstUnconditional = i;
+            break;
+         }
+      }
+
+      this.conditionValues = new String[firstUnconditional];
+      this.conditionTargets = new int[firstUnconditional];
+      for(int i = 0; i < firstUnconditional; i++)
+      {
+         conditionValues[i] = links[i].getConditionValue();
+         conditionTargets[i] = linkTargets[i];
+      }
+
+      this.unconditionalTarget = firstUnconditional < links.length ? linkTargets[firstUnconditional] : WorkflowExecutionPlan.NO_STEP;
+   }
+
+
+
+   /***************************************************************************
+    * get the index of the step to go to after a step with the given output, or
+    * NO_STEP if no link matches.
+    ***************************************************************************/
+   public int getTarget(Serializable stepOutput)
+   {
+      if(stepOutput != null && conditionValues.length > 0)
+      {
+         Integer target = targetsByOutputClass.computeIfAbsent(stepOutput.getClass(), this::buildTargetMap).get(stepOutput);
+         if(target != null)
+         {
+            return (target);
+         }
+      }
+
+      return (unconditionalTarget);
+   }
+
+
+
+   /***************************************************************************
+    * convert each condition value to the output class, mapping it to its
+    * target - keeping the first link for any repeated value.  values that
+    * can't be converted can never match an output of this class, so are left
+    * out.
+    ***************************************************************************/
+   private Map<Serializable, Integer> buildTargetMap(Class<? extends Serializable> outputClass)
+   {
+      Map<Serializable, Integer> targetMap = new HashMap<>();
+      for(int i = 0; i < conditionValues.length; i++)
+      {
+         try
+         {
+            Serializable valueAsType = ValueUtils.getValueAsType(outputClass, conditionValues[i]);
+            if(valueAsType != null)
+            {
+               targetMap.putIfAbsent(valueAsType, conditionTargets[i]);
+            }
+         }
+         catch(Exception e)
+         {
+            LOG.debug("Unable to evaluate condition value", e, logPair("conditionValue", conditionValues[i]), logPair("stepNo", stepNo), logPair("outputClass", outputClass.getName()));
+         }
+      }
+      return (targetMap);
+   }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+
+
+/*******************************************************************************
+ ** exception a workflow type executor's postRunSet may throw, to say which of
+ ** the set's runs failed (e.g., whose records a backend rejected), with an
+ ** error message for each.  WorkflowExecutor then re-runs just those runs
+ ** individually, and the rest again as a set - rather than re-running the whole
+ ** set individually, as it does for other exceptions.
+ *******************************************************************************/
+public class WorkflowSetRunException extends QException
+{
+   private final Map<WorkflowExecutionContext, String> errorsByContext;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowSetRunException(Map<WorkflowExecutionContext, String> errorsByContext)
+   {
+      super(String.join("; ", errorsByContext.values()));
+      this.errorsByContext = new IdentityHashMap<>(errorsByContext);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for errorsByContext
+    *******************************************************************************/
+   public Map<WorkflowExecutionContext, String> getErrorsByContext()
+   {
+      return (this.errorsByContext);
+   }
+
+}
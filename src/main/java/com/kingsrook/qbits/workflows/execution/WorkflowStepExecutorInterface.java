@@ -23,6 +23,8 @@ package com.kingsrook.qbits.workflows.execution;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import com.kingsrook.qbits.workflows.model.WorkflowStep;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
@@ -39,4 +41,23 @@ public interface WorkflowStepExecutorInterface
     ***************************************************************************/
    WorkflowStepOutput execute(WorkflowStep step, Map<String, Serializable> inputValues, WorkflowExecutionContext context) throws QException;
 
+
+
+   /***************************************************************************
+    * execute the step for a set of workflow runs that have all reached it (see
+    * WorkflowExecutor.executeSet) - returning an output for each context, in
+    * the same order.  Steps may override this to do the work that doesn't
+    * depend on the individual run just once for the whole set - but the
+    * results must be the same as calling execute for each context.
+    ***************************************************************************/
+   default List<WorkflowStepOutput> executeSet(WorkflowStep step, Map<String, Serializable> inputValues, List<WorkflowExecutionContext> contexts) throws QException
+   {
+      List<WorkflowStepOutput> outputs = new ArrayList<>();
+      for(WorkflowExecutionContext context : contexts)
+      {
+         outputs.add(execute(step, inputValues, context));
+      }
+      return (outputs);
+   }
+
 }
@@ -0,0 +1,243 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import com.kingsrook.qbits.workflows.model.WorkflowStep;
+import com.kingsrook.qqq.backend.core.utils.JsonUtils;
+import com.kingsrook.qqq.backend.core.utils.StringUtils;
+import org.json.JSONObject;
+
+
+/*******************************************************************************
+ * map of the input values of a {@link WorkflowStep}, parsed once from its
+ * inputValuesJson when a {@link WorkflowExecutionPlan} is compiled, and then
+ * given (via a per-run view - see forRun) to the step's executor on every run.
+ *
+ * Executors can also use it to memoize objects that they derive from the input
+ * values (e.g., a parsed filter) - see getDerivedValue & putDerivedValue.  Such
+ * objects are shared across runs (and threads), so they must not be mutated
+ * once stored.
+ *
+ * An executor may change the map it is given (as it could when each run parsed
+ * its own): the view is copy-on-write, so the change is only seen by that run
+ * (and step), and from then on the view no longer shares derived values (as
+ * they may not match its changed values).
+ *******************************************************************************/
+public class WorkflowStepInputValues extends AbstractMap<String, Serializable>
+{
+   private Map<String, Serializable> values;
+   private Map<String, Object>       derivedValues;
+   private final boolean             isRunView;
+   private boolean                   isCopied = false;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowStepInputValues(Map<String, Serializable> values)
+   {
+      this(Collections.unmodifiableMap(new LinkedHashMap<>(values)), new ConcurrentHashMap<>(), false);
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   private WorkflowStepInputValues(Map<String, Serializable> values, Map<String, Object> derivedValues, boolean isRunView)
+   {
+      this.values = values;
+      this.derivedValues = derivedValues;
+      this.isRunView = isRunView;
+   }
+
+
+
+   /***************************************************************************
+    * get a view of these values for one run of the step - sharing them (and
+    * the derived values), until the run changes it.
+    ***************************************************************************/
+   public WorkflowStepInputValues forRun()
+   {
+      if(isCopied)
+      {
+         return (new WorkflowStepInputValues(Collections.unmodifiableMap(new LinkedHashMap<>(values)), new ConcurrentHashMap<>(), true));
+      }
+      return (new WorkflowStepInputValues(values, derivedValues, true));
+   }
+
+
+
+   /***************************************************************************
+    * before a change, take a private copy of the values (and stop sharing
+    * derived values).  The instance that a plan holds (shared by all runs)
+    * can't be changed - only the views of it given to runs.
+    ***************************************************************************/
+   private void copyOnWrite()
+   {
+      if(!isRunView)
+      {
+         throw (new UnsupportedOperationException("The input values held by a workflow execution plan are read-only - change a view of them from forRun instead."));
+      }
+
+      if(!isCopied)
+      {
+         values = new LinkedHashMap<>(values);
+         derivedValues = null;
+         isCopied = true;
+      }
+   }
+
+
+
+   /***************************************************************************
+    * parse a step's inputValuesJson - keeping only values that are Serializable
+    * (which, coming from json, is all of them).
+    ***************************************************************************/
+   public static WorkflowStepInputValues of(WorkflowStep step)
+   {
+      Map<String, Serializable> inputValues = new LinkedHashMap<>();
+      if(StringUtils.hasContent(step.getInputValuesJson()))
+      {
+         JSONObject jsonObject = JsonUtils.toJSONObject(step.getInputValuesJson());
+         for(Map.Entry<String, Object> entry : jsonObject.toMap().entrySet())
+         {
+            if(entry.getValue() instanceof Serializable s)
+            {
+               inputValues.put(entry.getKey(), s);
+            }
+         }
+      }
+      return (new WorkflowStepInputValues(inputValues));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Set<Entry<String, Serializable>> entrySet()
+   {
+      return (values.entrySet());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable get(Object key)
+   {
+      return (values.get(key));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public boolean containsKey(Object key)
+   {
+      return (values.containsKey(key));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable put(String key, Serializable value)
+   {
+      copyOnWrite();
+      return (values.put(key, value));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable remove(Object key)
+   {
+      copyOnWrite();
+      return (values.remove(key));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void clear()
+   {
+      copyOnWrite();
+      values.clear();
+   }
+
+
+
+   /***************************************************************************
+    * get an object previously derived from these input values, or null.
+    ***************************************************************************/
+   @SuppressWarnings("unchecked")
+   public <T> T getDerivedValue(String key)
+   {
+      return (derivedValues == null ? null : (T) derivedValues.get(key));
+   }
+
+
+
+   /***************************************************************************
+    * store an object derived from these input values, for re-use by later runs.
+    * if another thread stored one first, that one is kept (and returned).  (not
+    * stored, if this view's values were changed).
+    ***************************************************************************/
+   @SuppressWarnings("unchecked")
+   public <T> T putDerivedValue(String key, T value)
+   {
+      if(value == null || derivedValues == null)
+      {
+         return (value);
+      }
+
+      Object existing = derivedValues.putIfAbsent(key, value);
+      return (existing == null ? value : (T) existing);
+   }
+
+}
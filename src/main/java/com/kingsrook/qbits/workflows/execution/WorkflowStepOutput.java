@@ -23,21 +23,36 @@ package com.kingsrook.qbits.workflows.execution;
 
 
 import java.io.Serializable;
+import java.util.function.Supplier;
 
 
 /***************************************************************************
- **
+ ** output from executing a step: the data its outbound links are chosen by,
+ ** and a message for the run log.  A message that's costly to build can be
+ ** given as a supplier instead (see withLazyMessage) - so it is only built if
+ ** a tracer needs run log steps.
  ***************************************************************************/
-public record WorkflowStepOutput(Serializable outputData, String message)
+public record WorkflowStepOutput(Serializable outputData, String message, Supplier<String> messageSupplier)
 {
 
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowStepOutput(Serializable outputData, String message)
+   {
+      this(outputData, message, null);
+   }
+
+
+
    /*******************************************************************************
     ** Constructor
     **
     *******************************************************************************/
    public WorkflowStepOutput(Serializable outputData)
    {
-      this(outputData, null);
+      this(outputData, null, null);
    }
 
 
@@ -48,7 +63,73 @@ public record WorkflowStepOutput(Serializable outputData, String message)
     *******************************************************************************/
    public WorkflowStepOutput()
    {
-      this(null, null);
+      this(null, null, null);
+   }
+
+
+
+   /***************************************************************************
+    * create an output whose message is built (once, if the same output is
+    * shared by several runs) only when it is asked for.
+    ***************************************************************************/
+   public static WorkflowStepOutput withLazyMessage(Serializable outputData, Supplier<String> messageSupplier)
+   {
+      return (new WorkflowStepOutput(outputData, null, new MemoizingSupplier(messageSupplier)));
+   }
+
+
+
+   /***************************************************************************
+    * get the message - building it from the supplier, if there is one.
+    ***************************************************************************/
+   @Override
+   public String message()
+   {
+      if(message == null && messageSupplier != null)
+      {
+         return (messageSupplier.get());
+      }
+      return (message);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static class MemoizingSupplier implements Supplier<String>
+   {
+      private final Supplier<String> supplier;
+
+      private boolean computed = false;
+      private String  value;
+
+
+
+      /*******************************************************************************
+       ** Constructor
+       **
+       *******************************************************************************/
+      private MemoizingSupplier(Supplier<String> supplier)
+      {
+         this.supplier = supplier;
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public synchronized String get()
+      {
+         if(!computed)
+         {
+            value = supplier.get();
+            computed = true;
+         }
+         return (value);
+      }
    }
 
 }
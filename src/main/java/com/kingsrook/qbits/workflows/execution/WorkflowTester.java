@@ -37,6 +37,7 @@ import com.kingsrook.qbits.workflows.model.WorkflowTestRun;
 import com.kingsrook.qbits.workflows.model.WorkflowTestRunScenario;
 import com.kingsrook.qbits.workflows.model.WorkflowTestScenario;
 import com.kingsrook.qbits.workflows.model.WorkflowTestStatus;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogTracer;
 import com.kingsrook.qbits.workflows.tracing.WorkflowTracerInterface;
 import com.kingsrook.qqq.backend.core.actions.AbstractQActionBiConsumer;
 import com.kingsrook.qqq.backend.core.actions.QBackendTransaction;
@@ -160,7 +161,7 @@ public class WorkflowTester extends AbstractQActionBiConsumer<WorkflowTesterInpu
          workflowTestRunScenario.setWorkflowTestScenarioId(workflowTestScenario.getId());
          workflowTestRunScenario.setWorkflowId(workflowTestScenario.getWorkflowId());
 
-         WorkflowTypeTesterInterface workflowTypeTester = QCodeLoader.getAdHoc(WorkflowTypeTesterInterface.class, workflowType.getTester());
+         WorkflowTypeTesterInterface workflowTypeTester = WorkflowsRegistry.of(QContext.getQInstance()).getWorkflowTypeTester(workflowType);
          WorkflowInput               workflowInput      = workflowTypeTester.setupWorkflowInputForTestScenario(workflowRecord, workflowTestScenarioRecord);
 
          WorkflowRunLog workflowRunLog = new WorkflowRunLog()
@@ -305,6 +306,17 @@ public class WorkflowTester extends AbstractQActionBiConsumer<WorkflowTesterInpu
       {
          workflowTracer = QCodeLoader.getAdHoc(WorkflowTracerInterface.class, workflowsQBitConfig.getWorkflowTracerCodeReference());
       }
+
+      //////////////////////////////////////////////////////////////////////////
+      // test run scenarios link to their run logs - so they need a tracer    //
+      // that stores every one in the table right away (not one that samples, //
+      // buffers, or writes to the segment store) - and, as they aren't real  //
+      // runs, they are kept out of the run stats rollups                     //
+      //////////////////////////////////////////////////////////////////////////
+      if(workflowTracer != null && !workflowTracer.storesRunLogsInTable())
+      {
+         workflowTracer = new WorkflowRunLogTracer();
+      }
       return workflowTracer;
    }
 
@@ -22,6 +22,9 @@
 package com.kingsrook.qbits.workflows.execution;
 
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
 import com.kingsrook.qbits.workflows.model.WorkflowStep;
@@ -54,6 +57,38 @@ public interface WorkflowTypeExecutorInterface
 
    }
 
+   /***************************************************************************
+    * post-run for a set of workflow runs, executed together (see
+    * WorkflowExecutor.executeSet) - e.g., to store all of their changes in one
+    * action per table.  By default, does postRun for each context, throwing a
+    * WorkflowSetRunException naming any that failed.
+    *
+    * When the set has no transaction (openTransaction gave null), this must
+    * say which runs failed by a WorkflowSetRunException, as the rest are kept
+    * as finished - any other exception means that no run's changes were
+    * stored, and they are all re-run.
+    ***************************************************************************/
+   default void postRunSet(List<WorkflowExecutionContext> contexts) throws QException
+   {
+      Map<WorkflowExecutionContext, String> errorsByContext = new IdentityHashMap<>();
+      for(WorkflowExecutionContext context : contexts)
+      {
+         try
+         {
+            postRun(context);
+         }
+         catch(Exception e)
+         {
+            errorsByContext.put(context, e.getMessage());
+         }
+      }
+
+      if(!errorsByContext.isEmpty())
+      {
+         throw (new WorkflowSetRunException(errorsByContext));
+      }
+   }
+
 
    /***************************************************************************
     **
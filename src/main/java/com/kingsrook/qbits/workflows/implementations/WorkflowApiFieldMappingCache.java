@@ -0,0 +1,239 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.implementations;
+
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qqq.api.actions.GetTableApiFieldsAction;
+import com.kingsrook.qqq.api.actions.QRecordApiAdapter;
+import com.kingsrook.qqq.api.model.actions.GetTableApiFieldsInput;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import org.json.JSONObject;
+
+
+/*******************************************************************************
+ * cache of the fields of tables in versions of APIs - as used by workflows
+ * whose revisions have an apiName & apiVersion - keyed by api name, version,
+ * and table name.
+ *
+ * One of these lives in the {@link WorkflowsRegistry} of each QInstance, so the
+ * api fields for a table are only looked up once, rather than by every step
+ * execution, step summary, and form adjustment that needs them.  API field
+ * meta-data is part of the QInstance - so entries live as long as it does.
+ *******************************************************************************/
+public class WorkflowApiFieldMappingCache
+{
+   private final Map<GetTableApiFieldsAction.ApiNameVersionAndTableName, ApiFieldMapping> mappings = new ConcurrentHashMap<>();
+
+
+
+   /*******************************************************************************
+    * get the cache that belongs to a QInstance.
+    *
+    * @param qInstance the instance whose workflows registry holds the cache
+    * @return the cache, or null if the instance doesn't have a workflows registry.
+    *******************************************************************************/
+   public static WorkflowApiFieldMappingCache of(QInstance qInstance)
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      return (workflowsRegistry == null ? null : workflowsRegistry.getApiFieldMappingCache());
+   }
+
+
+
+   /***************************************************************************
+    * get the mapping for a table in a version of an api, through the cache of
+    * the QInstance in the current QContext (or built fresh, if there is no
+    * cache).
+    ***************************************************************************/
+   public static ApiFieldMapping getMapping(String apiName, String apiVersion, String tableName) throws QException
+   {
+      GetTableApiFieldsAction.ApiNameVersionAndTableName key   = new GetTableApiFieldsAction.ApiNameVersionAndTableName(apiName, apiVersion, tableName);
+      WorkflowApiFieldMappingCache                       cache = of(QContext.getQInstance());
+      if(cache == null)
+      {
+         return (new ApiFieldMapping(key));
+      }
+      return (cache.get(key));
+   }
+
+
+
+   /***************************************************************************
+    * get the mapping for a table in a version of an api - from the cache if
+    * present, else built (and then cached).
+    ***************************************************************************/
+   public ApiFieldMapping get(GetTableApiFieldsAction.ApiNameVersionAndTableName key) throws QException
+   {
+      ApiFieldMapping mapping = mappings.get(key);
+      if(mapping == null)
+      {
+         mapping = new ApiFieldMapping(key);
+         ApiFieldMapping existing = mappings.putIfAbsent(key, mapping);
+         if(existing != null)
+         {
+            mapping = existing;
+         }
+      }
+      return (mapping);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public void clear()
+   {
+      mappings.clear();
+   }
+
+
+
+   /*******************************************************************************
+    * the fields of one table in one version of an api - both by api field name
+    * (as returned by GetTableApiFieldsAction, e.g., for building possible values
+    * and translating filters), and the names of the table's (backend) fields
+    * that api field names map to (e.g., for setting values in records).
+    *******************************************************************************/
+   public static class ApiFieldMapping
+   {
+      private final GetTableApiFieldsAction.ApiNameVersionAndTableName key;
+
+      private final List<QFieldMetaData>        apiFields;
+      private final Map<String, QFieldMetaData> apiFieldsByName;
+      private final Map<String, QFieldMetaData> tableApiFieldMap;
+
+      private final Map<String, String> fieldNamesByApiFieldName = new ConcurrentHashMap<>();
+
+
+
+      /*******************************************************************************
+       ** Constructor
+       **
+       *******************************************************************************/
+      private ApiFieldMapping(GetTableApiFieldsAction.ApiNameVersionAndTableName key) throws QException
+      {
+         this.key = key;
+
+         this.apiFields = Collections.unmodifiableList(new GetTableApiFieldsAction().execute(new GetTableApiFieldsInput()
+            .withTableName(key.tableName())
+            .withApiName(key.apiName())
+            .withVersion(key.apiVersion())).getFields());
+
+         Map<String, QFieldMetaData> apiFieldsByName = new LinkedHashMap<>();
+         for(QFieldMetaData apiField : apiFields)
+         {
+            apiFieldsByName.putIfAbsent(apiField.getName(), apiField);
+         }
+         this.apiFieldsByName = Collections.unmodifiableMap(apiFieldsByName);
+
+         this.tableApiFieldMap = GetTableApiFieldsAction.getTableApiFieldMap(key);
+      }
+
+
+
+      /***************************************************************************
+       * get the api's fields for the table, in the order the api lists them.
+       ***************************************************************************/
+      public List<QFieldMetaData> getApiFields()
+      {
+         return (apiFields);
+      }
+
+
+
+      /***************************************************************************
+       * get an api field by its name - which may be prefixed by the table name
+       * (as field names from RecordWorkflowFieldNamePossibleValueSource are).
+       ***************************************************************************/
+      public Optional<QFieldMetaData> getApiField(String apiFieldNameMaybeWithTableNamePrefix)
+      {
+         return (Optional.ofNullable(apiFieldsByName.get(stripTableNamePrefix(apiFieldNameMaybeWithTableNamePrefix))));
+      }
+
+
+
+      /***************************************************************************
+       * get the table's api field map, as used by ApiQueryFilterUtils.
+       ***************************************************************************/
+      public Map<String, QFieldMetaData> getTableApiFieldMap()
+      {
+         return (tableApiFieldMap);
+      }
+
+
+
+      /***************************************************************************
+       * get the name of the table field that an api field name (which may be
+       * prefixed by the table name) maps to.  This is resolved the same way as
+       * values from an api request are (by QRecordApiAdapter), the first time
+       * an api field is asked for (using the value given then) - and is then
+       * remembered.
+       ***************************************************************************/
+      public String getFieldName(String apiFieldNameMaybeWithTableNamePrefix, String value) throws QException
+      {
+         String apiFieldName = stripTableNamePrefix(apiFieldNameMaybeWithTableNamePrefix);
+         String fieldName    = fieldNamesByApiFieldName.get(apiFieldName);
+         if(fieldName != null)
+         {
+            return (fieldName);
+         }
+
+         JSONObject apiRecord = new JSONObject();
+         apiRecord.put(apiFieldName, value);
+         QRecord record = QRecordApiAdapter.apiJsonObjectToQRecord(apiRecord, key.tableName(), key.apiName(), key.apiVersion(), false);
+
+         Iterator<String> iterator = record.getValues().keySet().iterator();
+         if(!iterator.hasNext())
+         {
+            throw (new QException("Couldn't find field %s in API: %s Version: %s".formatted(apiFieldName, key.apiName(), key.apiVersion())));
+         }
+
+         fieldName = iterator.next();
+         fieldNamesByApiFieldName.put(apiFieldName, fieldName);
+         return (fieldName);
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      private static String stripTableNamePrefix(String fieldName)
+      {
+         return (fieldName.contains(".") ? fieldName.substring(fieldName.indexOf(".") + 1) : fieldName);
+      }
+   }
+
+}
@@ -0,0 +1,364 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.implementations.recordworkflows;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.CriteriaOption;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.modules.backend.implementations.utils.BackendQueryFilterUtils;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ ** a QQueryFilter compiled for matching records in memory (as done by
+ ** InputRecordFilterStep) - as a tree of predicates, mirroring the filter's
+ ** and/or structure, built once, and then tested against any number of records.
+ **
+ ** The most common criteria - string & integer equals/in, and string
+ ** starts-with/contains/ends-with (case-insensitive or not) - get predicates
+ ** with their values pre-processed (e.g., case-folded into a set, for IN), so
+ ** testing a record is just a field lookup and a compare.  When a record's value
+ ** isn't of the type such a predicate expects (including null), and for all
+ ** other criteria, the criteria is evaluated by BackendQueryFilterUtils, as an
+ ** uncompiled filter would be - so results are always the same as its.
+ **
+ ** Also holds the joins in the filter, and (for an AND filter) predicates for
+ ** its criteria grouped by table - see InputRecordFilterStep.doesRecordMatch.
+ ** Instances are immutable, so can be shared across runs & threads.
+ *******************************************************************************/
+public class CompiledRecordFilter
+{
+   private final QQueryFilter                   filter;
+   private final List<QueryJoin>                joins;
+   private final Predicate<QRecord>             predicate;
+   private final List<List<Predicate<QRecord>>> criteriaPredicatesByLevel;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   private CompiledRecordFilter(QQueryFilter filter, List<QueryJoin> joins, Predicate<QRecord> predicate, List<List<Predicate<QRecord>>> criteriaPredicatesByLevel)
+   {
+      this.filter = filter;
+      this.joins = joins;
+      this.predicate = predicate;
+      this.criteriaPredicatesByLevel = criteriaPredicatesByLevel;
+   }
+
+
+
+   /***************************************************************************
+    * compile a filter, for records from the given table (and its joins).
+    ***************************************************************************/
+   public static CompiledRecordFilter compile(String tableName, QQueryFilter filter)
+   {
+      List<QueryJoin> joins = BackendQueryFilterUtils.identifyJoinsInFilter(tableName, filter);
+
+      //////////////////////////////////////////////////////////////////////////
+      // for an AND filter, group its criteria by table - level 0 for the     //
+      // record's own table, then 1..n for the joins - for pruning.  criteria //
+      // on any other table are just left to the full filter.                 //
+      //////////////////////////////////////////////////////////////////////////
+      List<List<Predicate<QRecord>>> criteriaPredicatesByLevel = new ArrayList<>();
+      for(int i = 0; i <= joins.size(); i++)
+      {
+         criteriaPredicatesByLevel.add(new ArrayList<>());
+      }
+
+      if(isAnd(filter))
+      {
+         for(QFilterCriteria criteria : CollectionUtils.nonNullList(filter.getCriteria()))
+         {
+            int level = getCriteriaLevel(criteria, tableName, joins);
+            if(level >= 0 && criteria.getFieldName() != null)
+            {
+               criteriaPredicatesByLevel.get(level).add(compileCriteria(criteria));
+            }
+         }
+      }
+
+      return (new CompiledRecordFilter(filter, joins, compileFilter(filter), criteriaPredicatesByLevel));
+   }
+
+
+
+   /***************************************************************************
+    * does the record match the (whole) filter.
+    ***************************************************************************/
+   public boolean matches(QRecord record)
+   {
+      return (predicate.test(record));
+   }
+
+
+
+   /***************************************************************************
+    * does the record match the filter's criteria for the table at a level (0
+    * for the filter's table, i + 1 for the i'th join's).  Always true for
+    * filters that aren't ANDs.
+    ***************************************************************************/
+   public boolean matchesCriteriaAtLevel(int level, QRecord record)
+   {
+      for(Predicate<QRecord> criteriaPredicate : criteriaPredicatesByLevel.get(level))
+      {
+         if(!criteriaPredicate.test(record))
+         {
+            return (false);
+         }
+      }
+      return (true);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static boolean isAnd(QQueryFilter filter)
+   {
+      return (filter.getBooleanOperator() == null || QQueryFilter.BooleanOperator.AND.equals(filter.getBooleanOperator()));
+   }
+
+
+
+   /***************************************************************************
+    * compile a (sub-)filter: like BackendQueryFilterUtils, a filter without any
+    * criteria matches everything, criteria without a field name are skipped,
+    * and the criteria & sub-filters are combined by the filter's operator.
+    ***************************************************************************/
+   private static Predicate<QRecord> compileFilter(QQueryFilter filter)
+   {
+      if(filter == null || !filter.hasAnyCriteria())
+      {
+         return (record -> true);
+      }
+
+      List<Predicate<QRecord>> parts = new ArrayList<>();
+      for(QFilterCriteria criteria : CollectionUtils.nonNullList(filter.getCriteria()))
+      {
+         if(criteria.getFieldName() != null)
+         {
+            parts.add(compileCriteria(criteria));
+         }
+      }
+
+      for(QQueryFilter subFilter : CollectionUtils.nonNullList(filter.getSubFilters()))
+      {
+         parts.add(compileFilter(subFilter));
+      }
+
+      if(parts.size() == 1)
+      {
+         return (parts.get(0));
+      }
+
+      if(isAnd(filter))
+      {
+         return (record ->
+         {
+            for(Predicate<QRecord> part : parts)
+            {
+               if(!part.test(record))
+               {
+                  return (false);
+               }
+            }
+            return (true);
+         });
+      }
+
+      return (record ->
+      {
+         for(Predicate<QRecord> part : parts)
+         {
+            if(part.test(record))
+            {
+               return (true);
+            }
+         }
+         return (false);
+      });
+   }
+
+
+
+   /***************************************************************************
+    * compile one criteria - to a specialized predicate if it's one of the
+    * common kinds, else to a call to BackendQueryFilterUtils.
+    ***************************************************************************/
+   private static Predicate<QRecord> compileCriteria(QFilterCriteria criteria)
+   {
+      QQueryFilter       criteriaFilter = new QQueryFilter(criteria);
+      Predicate<QRecord> fallback       = record -> BackendQueryFilterUtils.doesRecordMatch(criteriaFilter, record);
+
+      String             fieldName = criteria.getFieldName();
+      QCriteriaOperator  operator  = criteria.getOperator();
+      List<Serializable> values    = CollectionUtils.nonNullList(criteria.getValues());
+      if(operator == null || criteria.getOtherFieldName() != null || values.isEmpty())
+      {
+         return (fallback);
+      }
+
+      boolean caseInsensitive = criteria.hasOption(CriteriaOption.CASE_INSENSITIVE);
+      boolean allStrings      = values.stream().allMatch(value -> value instanceof String);
+      boolean allIntegers     = values.stream().allMatch(value -> value instanceof Integer);
+
+      switch(operator)
+      {
+         case EQUALS, IN, NOT_EQUALS, NOT_IN ->
+         {
+            boolean negate = operator == QCriteriaOperator.NOT_EQUALS || operator == QCriteriaOperator.NOT_IN;
+            if(allStrings)
+            {
+               Set<String> strings = new HashSet<>();
+               values.forEach(value -> strings.add(caseInsensitive ? fold((String) value) : (String) value));
+               return (record ->
+               {
+                  if(record.getValue(fieldName) instanceof String string)
+                  {
+                     return (strings.contains(caseInsensitive ? fold(string) : string) != negate);
+                  }
+                  return (fallback.test(record));
+               });
+            }
+            else if(allIntegers)
+            {
+               Set<Serializable> integers = new HashSet<>(values);
+               return (record ->
+               {
+                  if(record.getValue(fieldName) instanceof Integer integer)
+                  {
+                     return (integers.contains(integer) != negate);
+                  }
+                  return (fallback.test(record));
+               });
+            }
+         }
+         case STARTS_WITH, CONTAINS, ENDS_WITH, NOT_STARTS_WITH, NOT_CONTAINS, NOT_ENDS_WITH ->
+         {
+            if(allStrings && values.size() == 1)
+            {
+               String  criteriaValue = caseInsensitive ? fold((String) values.get(0)) : (String) values.get(0);
+               boolean negate        = operator == QCriteriaOperator.NOT_STARTS_WITH || operator == QCriteriaOperator.NOT_CONTAINS || operator == QCriteriaOperator.NOT_ENDS_WITH;
+               return (record ->
+               {
+                  if(record.getValue(fieldName) instanceof String string)
+                  {
+                     String  value   = caseInsensitive ? fold(string) : string;
+                     boolean matches = switch(operator)
+                     {
+                        case STARTS_WITH, NOT_STARTS_WITH -> value.startsWith(criteriaValue);
+                        case ENDS_WITH, NOT_ENDS_WITH -> value.endsWith(criteriaValue);
+                        default -> value.contains(criteriaValue);
+                     };
+                     return (matches != negate);
+                  }
+                  return (fallback.test(record));
+               });
+            }
+         }
+         default ->
+         {
+            ///////////////////////////////////////////
+            // other operators use the fallback only //
+            ///////////////////////////////////////////
+         }
+      }
+
+      return (fallback);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static String fold(String value)
+   {
+      return (value.toLowerCase(Locale.ROOT));
+   }
+
+
+
+   /***************************************************************************
+    * get the level of a criteria, by its table: 0 for the filter's table, i + 1
+    * for the i'th join's, or -1 if neither.
+    ***************************************************************************/
+   private static int getCriteriaLevel(QFilterCriteria criteria, String tableName, List<QueryJoin> joins)
+   {
+      String fieldName = criteria.getFieldName();
+      if(fieldName == null || !fieldName.contains("."))
+      {
+         return (0);
+      }
+
+      String criteriaTableName = fieldName.substring(0, fieldName.indexOf('.'));
+      if(criteriaTableName.equals(tableName))
+      {
+         return (0);
+      }
+
+      for(int i = 0; i < joins.size(); i++)
+      {
+         if(criteriaTableName.equals(joins.get(i).getJoinTableOrItsAlias()))
+         {
+            return (i + 1);
+         }
+      }
+
+      return (-1);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for filter
+    *******************************************************************************/
+   public QQueryFilter getFilter()
+   {
+      return (this.filter);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for joins
+    *******************************************************************************/
+   public List<QueryJoin> getJoins()
+   {
+      return (this.joins);
+   }
+
+}
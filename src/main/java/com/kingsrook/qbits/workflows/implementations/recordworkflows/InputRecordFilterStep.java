@@ -24,6 +24,7 @@ package com.kingsrook.qbits.workflows.implementations.recordworkflows;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,13 +33,14 @@ import com.kingsrook.qbits.workflows.definition.OutboundLinkOption;
 import com.kingsrook.qbits.workflows.definition.WorkflowStepType;
 import com.kingsrook.qbits.workflows.execution.WorkflowExecutionContext;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepExecutorInterface;
+import com.kingsrook.qbits.workflows.execution.WorkflowStepInputValues;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepOutput;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepValidatorInterface;
+import com.kingsrook.qbits.workflows.implementations.WorkflowApiFieldMappingCache;
 import com.kingsrook.qbits.workflows.implementations.WorkflowStepUtils;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
 import com.kingsrook.qbits.workflows.model.WorkflowStep;
-import com.kingsrook.qqq.api.actions.GetTableApiFieldsAction;
 import com.kingsrook.qqq.api.utils.ApiQueryFilterUtils;
 import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.context.QContext;
@@ -52,7 +54,6 @@ import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.model.data.QRecordWithJoinedRecords;
 import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
-import com.kingsrook.qqq.backend.core.modules.backend.implementations.utils.BackendQueryFilterUtils;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
 
 
@@ -114,6 +115,71 @@ public class InputRecordFilterStep extends WorkflowStepType implements WorkflowS
          throw (new QException("Missing record input in InputRecordFilterStep"));
       }
 
+      CompiledRecordFilter compiledFilter = getCompiledFilter(inputValues, context);
+      return (new WorkflowStepOutput(doesRecordMatch(record, compiledFilter, context)));
+   }
+
+
+
+   /***************************************************************************
+    * for a set of runs executed together, compile the filter once, and prefetch
+    * the records of its joins for all of the runs, then evaluate each run's
+    * record against it - splitting the set into its "Then" (true) and
+    * "Otherwise" (false) outputs.
+    ***************************************************************************/
+   @Override
+   public List<WorkflowStepOutput> executeSet(WorkflowStep step, Map<String, Serializable> inputValues, List<WorkflowExecutionContext> contexts) throws QException
+   {
+      CompiledRecordFilter compiledFilter = getCompiledFilter(inputValues, contexts.get(0));
+
+      ////////////////////////////////////////////////////////////////////////
+      // load the records of any joins in the filter for all of the runs up //
+      // front - one query per join, rather than one per join per run       //
+      ////////////////////////////////////////////////////////////////////////
+      if(contexts.size() > 1)
+      {
+         List<RecordWorkflowContext> recordWorkflowContexts = contexts.stream().map(context -> (RecordWorkflowContext) context).toList();
+         for(QueryJoin join : compiledFilter.getJoins())
+         {
+            RecordWorkflowContext.prefetchJoinRecords(join, recordWorkflowContexts);
+         }
+      }
+
+      List<WorkflowStepOutput> outputs = new ArrayList<>();
+      for(WorkflowExecutionContext context : contexts)
+      {
+         QRecord record = (QRecord) context.getValues().get("record");
+         if(record == null)
+         {
+            throw (new QException("Missing record input in InputRecordFilterStep"));
+         }
+
+         outputs.add(new WorkflowStepOutput(doesRecordMatch(record, compiledFilter, context)));
+      }
+
+      return (outputs);
+   }
+
+
+
+   /***************************************************************************
+    * get the step's filter, ready for evaluation (e.g., with api field names
+    * translated, and made case-insensitive).  That preparation only depends on
+    * the step and its revision & table - so, when the input values allow it,
+    * the prepared filter is memoized with them, for re-use by later runs.
+    ***************************************************************************/
+   private QQueryFilter getPreparedFilter(Map<String, Serializable> inputValues, WorkflowExecutionContext context) throws QException
+   {
+      String derivedValueKey = "preparedFilter:" + context.getWorkflow().getTableName();
+      if(inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
+      {
+         QQueryFilter preparedFilter = workflowStepInputValues.getDerivedValue(derivedValueKey);
+         if(preparedFilter != null)
+         {
+            return (preparedFilter);
+         }
+      }
+
       QQueryFilter filter = RecordWorkflowUtils.getFilterFromInput(inputValues);
       if(filter == null)
       {
@@ -130,100 +196,155 @@ public class InputRecordFilterStep extends WorkflowStepType implements WorkflowS
       ///////////////////////////////////////////////////////////////////////////////
       filter.applyCriteriaOptionToAllCriteria(CriteriaOption.CASE_INSENSITIVE);
 
-      List<QRecordWithJoinedRecords> recordWithJoins = buildCrossProduct(record, filter, context);
-      return evaluateCrossProduct(recordWithJoins, filter);
+      if(inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
+      {
+         filter = workflowStepInputValues.putDerivedValue(derivedValueKey, filter);
+      }
+
+      return (filter);
    }
 
 
 
    /***************************************************************************
-    *
+    * get the step's prepared filter (see getPreparedFilter), compiled for
+    * matching records in memory - memoized with the input values, like the
+    * prepared filter, so it's compiled only once across runs.
     ***************************************************************************/
-   public List<QRecordWithJoinedRecords> buildCrossProduct(QRecord record, QQueryFilter filter, WorkflowExecutionContext workflowExecutionContext) throws QException
+   private CompiledRecordFilter getCompiledFilter(Map<String, Serializable> inputValues, WorkflowExecutionContext context) throws QException
    {
-      RecordWorkflowContext context = (RecordWorkflowContext) workflowExecutionContext;
-
-      List<QRecordWithJoinedRecords> crossProduct = new ArrayList<>();
-      crossProduct.add(new QRecordWithJoinedRecords(record));
+      String derivedValueKey = "compiledFilter:" + context.getWorkflow().getTableName();
+      if(inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
+      {
+         CompiledRecordFilter compiledFilter = workflowStepInputValues.getDerivedValue(derivedValueKey);
+         if(compiledFilter != null)
+         {
+            return (compiledFilter);
+         }
+      }
 
-      List<QueryJoin> joinsInFilter = BackendQueryFilterUtils.identifyJoinsInFilter(context.getWorkflow().getTableName(), filter);
-      for(QueryJoin join : joinsInFilter)
+      CompiledRecordFilter compiledFilter = CompiledRecordFilter.compile(context.getWorkflow().getTableName(), getPreparedFilter(inputValues, context));
+      if(inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
       {
-         crossProduct = expandCrossProductViaJoin(crossProduct, join, context);
+         compiledFilter = workflowStepInputValues.putDerivedValue(derivedValueKey, compiledFilter);
       }
 
-      return crossProduct;
+      return (compiledFilter);
+   }
+
+
+
+   /***************************************************************************
+    * check if a record matches a filter - see the CompiledRecordFilter overload.
+    ***************************************************************************/
+   public boolean doesRecordMatch(QRecord record, QQueryFilter filter, WorkflowExecutionContext workflowExecutionContext) throws QException
+   {
+      CompiledRecordFilter compiledFilter = CompiledRecordFilter.compile(workflowExecutionContext.getWorkflow().getTableName(), filter);
+      return (doesRecordMatch(record, compiledFilter, workflowExecutionContext));
    }
 
 
 
    /***************************************************************************
+    * check if a record matches a (compiled) filter - which may have criteria on
+    * tables joined to the record's table, in which case it matches if any
+    * combination of the record with one record from each join table does (a
+    * join table with no records is left out of the combinations).
     *
+    * Rather than building all of the combinations up front, they're explored
+    * depth-first, one join table at a time, stopping at the first match.  When
+    * the filter is an AND, its criteria on each table are checked as soon as
+    * that table's record is chosen, so combinations that can't match are
+    * pruned early - and if the record itself fails its table's criteria, the
+    * join tables' records aren't even looked up.
     ***************************************************************************/
-   private static List<QRecordWithJoinedRecords> expandCrossProductViaJoin(List<QRecordWithJoinedRecords> orderWithJoinedRecords, QueryJoin queryJoin, RecordWorkflowContext context) throws QException
+   public boolean doesRecordMatch(QRecord record, CompiledRecordFilter compiledFilter, WorkflowExecutionContext workflowExecutionContext) throws QException
    {
-      String                joinTableName           = queryJoin.getJoinTable();
-      ArrayList<QRecord>    recordsToBeInserted     = context.recordsToInsert.get().computeIfAbsent(joinTableName, k -> new ArrayList<>());
-      List<QRecord>         recordsAlreadyInBackend = context.getJoinRecords(queryJoin);
-      HashSet<Serializable> idsToDelete             = context.primaryKeysToDelete.get().computeIfAbsent(joinTableName, k -> new HashSet<>());
-      String                primaryKeyField         = QContext.getQInstance().getTable(joinTableName).getPrimaryKeyField();
+      RecordWorkflowContext context = (RecordWorkflowContext) workflowExecutionContext;
 
-      //////////////////////////////////////////////////////////////////////////////////////////////////////
-      // add records that already existed to the cross product, filtering out ones that are to be deleted //
-      //////////////////////////////////////////////////////////////////////////////////////////////////////
-      List<QRecord> recordsToCross = new ArrayList<>();
-      for(QRecord record : CollectionUtils.nonNullList(recordsAlreadyInBackend))
+      QRecordWithJoinedRecords recordWithJoinedRecords = new QRecordWithJoinedRecords(record);
+      if(!compiledFilter.matchesCriteriaAtLevel(0, recordWithJoinedRecords))
       {
-         if(!idsToDelete.contains(record.getValue(primaryKeyField)))
-         {
-            recordsToCross.add(record);
-         }
+         return (false);
       }
 
-      ////////////////////////////////////
-      // add any records to be inserted //
-      ////////////////////////////////////
-      CollectionUtils.addAllIfNotNull(recordsToCross, recordsToBeInserted);
-
-      orderWithJoinedRecords = makeCrossProduct(orderWithJoinedRecords, joinTableName, recordsToCross);
-      return orderWithJoinedRecords;
+      List<List<QRecord>> joinRecords = new ArrayList<>(Collections.nCopies(compiledFilter.getJoins().size(), null));
+      return (doesCombinationMatch(recordWithJoinedRecords, 0, joinRecords, compiledFilter, context));
    }
 
 
 
    /***************************************************************************
-    *
+    * depth-first step of doesRecordMatch: try each record of the join at
+    * joinIndex with the combination built so far (loading the join's records
+    * the first time it's reached).
     ***************************************************************************/
-   private static List<QRecordWithJoinedRecords> makeCrossProduct(List<QRecordWithJoinedRecords> orderWithJoinedRecords, String joinTableName, List<QRecord> joinRecodsToCross)
+   private static boolean doesCombinationMatch(QRecordWithJoinedRecords combination, int joinIndex, List<List<QRecord>> joinRecords, CompiledRecordFilter compiledFilter, RecordWorkflowContext context) throws QException
    {
-      if(!joinRecodsToCross.isEmpty())
+      List<QueryJoin> joins = compiledFilter.getJoins();
+      if(joinIndex == joins.size())
       {
-         List<QRecordWithJoinedRecords> newCrossProduct = new ArrayList<>();
-         for(QRecordWithJoinedRecords orderWithJoinedRecord : orderWithJoinedRecords)
+         return (compiledFilter.matches(combination));
+      }
+
+      if(joinRecords.get(joinIndex) == null)
+      {
+         joinRecords.set(joinIndex, getRecordsToCombine(joins.get(joinIndex), context));
+      }
+
+      String joinTableName = joins.get(joinIndex).getJoinTable();
+      if(joinRecords.get(joinIndex).isEmpty())
+      {
+         //////////////////////////////////////////////////////////////////////
+         // no records for this join - so it's left out of the combinations, //
+         // with its criteria checked against the combination without it     //
+         //////////////////////////////////////////////////////////////////////
+         return (compiledFilter.matchesCriteriaAtLevel(joinIndex + 1, combination) && doesCombinationMatch(combination, joinIndex + 1, joinRecords, compiledFilter, context));
+      }
+
+      for(QRecord joinRecord : joinRecords.get(joinIndex))
+      {
+         QRecordWithJoinedRecords nextCombination = combination.buildCrossProduct(joinTableName, List.of(joinRecord)).get(0);
+         if(compiledFilter.matchesCriteriaAtLevel(joinIndex + 1, nextCombination) && doesCombinationMatch(nextCombination, joinIndex + 1, joinRecords, compiledFilter, context))
          {
-            newCrossProduct.addAll(orderWithJoinedRecord.buildCrossProduct(joinTableName, joinRecodsToCross));
+            return (true);
          }
-         orderWithJoinedRecords = newCrossProduct;
       }
-      return orderWithJoinedRecords;
+
+      return (false);
    }
 
 
 
    /***************************************************************************
-    *
+    * get the records of a join table to combine with the record: those already
+    * in the backend (less any to be deleted), plus any to be inserted.
     ***************************************************************************/
-   public WorkflowStepOutput evaluateCrossProduct(List<QRecordWithJoinedRecords> crossProduct, QQueryFilter filter)
+   private static List<QRecord> getRecordsToCombine(QueryJoin queryJoin, RecordWorkflowContext context) throws QException
    {
-      for(QRecordWithJoinedRecords record : crossProduct)
+      String                joinTableName           = queryJoin.getJoinTable();
+      ArrayList<QRecord>    recordsToBeInserted     = context.recordsToInsert.get().computeIfAbsent(joinTableName, k -> new ArrayList<>());
+      List<QRecord>         recordsAlreadyInBackend = context.getJoinRecords(queryJoin);
+      HashSet<Serializable> idsToDelete             = context.primaryKeysToDelete.get().computeIfAbsent(joinTableName, k -> new HashSet<>());
+      String                primaryKeyField         = QContext.getQInstance().getTable(joinTableName).getPrimaryKeyField();
+
+      /////////////////////////////////////////////////////////////////////////////////
+      // add records that already existed, filtering out ones that are to be deleted //
+      /////////////////////////////////////////////////////////////////////////////////
+      List<QRecord> recordsToCombine = new ArrayList<>();
+      for(QRecord record : CollectionUtils.nonNullList(recordsAlreadyInBackend))
       {
-         if(BackendQueryFilterUtils.doesRecordMatch(filter, record))
+         if(!idsToDelete.contains(record.getValue(primaryKeyField)))
          {
-            return new WorkflowStepOutput(true);
+            recordsToCombine.add(record);
          }
       }
 
-      return new WorkflowStepOutput(false);
+      ////////////////////////////////////
+      // add any records to be inserted //
+      ////////////////////////////////////
+      CollectionUtils.addAllIfNotNull(recordsToCombine, recordsToBeInserted);
+      return (recordsToCombine);
    }
 
 
@@ -254,7 +375,7 @@ public class InputRecordFilterStep extends WorkflowStepType implements WorkflowS
             String                      apiName            = workflowRevision.getValueString("apiName");
             String                      apiVersion         = workflowRevision.getValueString("apiVersion");
             String                      tableName          = workflow.getValueString("tableName");
-            Map<String, QFieldMetaData> tableApiFields     = GetTableApiFieldsAction.getTableApiFieldMap(new GetTableApiFieldsAction.ApiNameVersionAndTableName(apiName, apiVersion, tableName));
+            Map<String, QFieldMetaData> tableApiFields     = WorkflowApiFieldMappingCache.getMapping(apiName, apiVersion, tableName).getTableApiFieldMap();
             ArrayList<String>           badRequestMessages = new ArrayList<>();
             ApiQueryFilterUtils.manageCriteriaFields(filter, tableApiFields, badRequestMessages, apiName, apiVersion, new QueryInput(tableName).withFilter(filter));
             errors.addAll(badRequestMessages);
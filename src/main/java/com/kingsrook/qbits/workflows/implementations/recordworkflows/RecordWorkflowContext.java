@@ -28,7 +28,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import com.google.gson.reflect.TypeToken;
 import com.kingsrook.qbits.workflows.execution.ObjectInWorkflowContext;
@@ -43,6 +45,7 @@ import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
 import com.kingsrook.qqq.backend.core.model.metadata.joins.JoinOn;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
 /*******************************************************************************
@@ -63,6 +66,8 @@ public class RecordWorkflowContext extends WorkflowExecutionContext
    ///////////////////////////////////////////////////////////////////////////////////////////
    private final ObjectInWorkflowContext<HashMap<JoinKey, ArrayList<QRecord>>> joinRecords = new ObjectInWorkflowContext<>(this, "joinRecords", new HashMap<>());
 
+   private static final int PREFETCH_CHUNK_SIZE = 500;
+
 
 
    private record JoinKey(String joinName, ArrayList<Serializable> joinValues)
@@ -162,14 +167,141 @@ public class RecordWorkflowContext extends WorkflowExecutionContext
 
 
 
+   /***************************************************************************
+    * load the join records for a set of contexts (e.g., a page of records
+    * being run as a set) up front - with one query per chunk of distinct join
+    * values, rather than one per context (as getJoinRecords does lazily).  The
+    * results are fanned back out to the contexts, so their getJoinRecords
+    * calls don't query.  Contexts that already have the join's records are
+    * skipped.
+    ***************************************************************************/
+   public static void prefetchJoinRecords(QueryJoin queryJoin, List<RecordWorkflowContext> contexts) throws QException
+   {
+      Map<List<String>, List<RecordWorkflowContext>> contextsByJoinValues = new LinkedHashMap<>();
+      Map<List<String>, JoinKey>                     joinKeysByJoinValues = new LinkedHashMap<>();
+      List<String>                                   joinTableFields      = null;
+      for(RecordWorkflowContext context : contexts)
+      {
+         if(context.record.get() == null)
+         {
+            continue;
+         }
+
+         JoinRecordsKeyConstruction result = context.getJoinRecordsKeyConstruction(queryJoin, context.record.get());
+         if(context.joinRecords.get().get(result.key()) != null)
+         {
+            continue;
+         }
+
+         if(result.makeEmpty())
+         {
+            context.joinRecords.get().put(result.key(), new ArrayList<>());
+            continue;
+         }
+
+         joinTableFields = result.joinTableFields();
+         List<String> joinValuesKey = makeJoinValuesKey(result.key().joinValues());
+         contextsByJoinValues.computeIfAbsent(joinValuesKey, k -> new ArrayList<>()).add(context);
+         joinKeysByJoinValues.putIfAbsent(joinValuesKey, result.key());
+      }
+
+      if(contextsByJoinValues.isEmpty())
+      {
+         return;
+      }
+
+      //////////////////////////////////////////////////////////////////////
+      // start every context's records empty, then query by chunk of join //
+      // values, adding each join record to the contexts it matches       //
+      //////////////////////////////////////////////////////////////////////
+      Map<List<String>, ArrayList<QRecord>> recordsByJoinValues = new HashMap<>();
+      for(List<String> joinValuesKey : contextsByJoinValues.keySet())
+      {
+         recordsByJoinValues.put(joinValuesKey, new ArrayList<>());
+      }
+
+      List<List<Serializable>> allJoinValues = joinKeysByJoinValues.values().stream().<List<Serializable>>map(JoinKey::joinValues).toList();
+      for(int start = 0; start < allJoinValues.size(); start += PREFETCH_CHUNK_SIZE)
+      {
+         List<List<Serializable>> chunk = allJoinValues.subList(start, Math.min(start + PREFETCH_CHUNK_SIZE, allJoinValues.size()));
+         for(QRecord joinRecord : QueryAction.execute(queryJoin.getJoinTable(), makePrefetchFilter(joinTableFields, chunk)))
+         {
+            List<Serializable> joinRecordValues = new ArrayList<>();
+            for(String joinTableField : joinTableFields)
+            {
+               joinRecordValues.add(joinRecord.getValue(joinTableField));
+            }
+
+            ArrayList<QRecord> records = recordsByJoinValues.get(makeJoinValuesKey(joinRecordValues));
+            if(records != null)
+            {
+               records.add(joinRecord);
+            }
+         }
+      }
+
+      for(Map.Entry<List<String>, List<RecordWorkflowContext>> entry : contextsByJoinValues.entrySet())
+      {
+         for(RecordWorkflowContext context : entry.getValue())
+         {
+            //////////////////////////////////////////////////////////////
+            // each context gets its own list, as steps may mutate them //
+            //////////////////////////////////////////////////////////////
+            context.joinRecords.get().put(joinKeysByJoinValues.get(entry.getKey()), new ArrayList<>(recordsByJoinValues.get(entry.getKey())));
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * filter for the join records of a chunk of join values: an IN, for
+    * single-field joins, else an OR of each values' EQUALS criteria.
+    ***************************************************************************/
+   private static QQueryFilter makePrefetchFilter(List<String> joinTableFields, List<List<Serializable>> chunk)
+   {
+      if(joinTableFields.size() == 1)
+      {
+         List<Serializable> values = chunk.stream().map(joinValues -> joinValues.get(0)).toList();
+         return (new QQueryFilter(new QFilterCriteria(joinTableFields.get(0), QCriteriaOperator.IN, values)));
+      }
+
+      QQueryFilter filter = new QQueryFilter().withBooleanOperator(QQueryFilter.BooleanOperator.OR);
+      for(List<Serializable> joinValues : chunk)
+      {
+         QQueryFilter subFilter = new QQueryFilter();
+         for(int i = 0; i < joinTableFields.size(); i++)
+         {
+            subFilter.addCriteria(new QFilterCriteria(joinTableFields.get(i), QCriteriaOperator.EQUALS, joinValues.get(i)));
+         }
+         filter.addSubFilter(subFilter);
+      }
+      return (filter);
+   }
+
+
+
+   /***************************************************************************
+    * key for matching join values between main & join records - as strings,
+    * as the two tables' fields may not have the same java types (e.g.,
+    * Integer vs. Long).
+    ***************************************************************************/
+   private static List<String> makeJoinValuesKey(List<Serializable> joinValues)
+   {
+      return (joinValues.stream().map(value -> ValueUtils.getValueAsString(value)).toList());
+   }
+
+
+
    /***************************************************************************
     *
     ***************************************************************************/
    private JoinRecordsKeyConstruction getJoinRecordsKeyConstruction(QueryJoin queryJoin, QRecord mainRecord)
    {
-      ArrayList<Serializable> joinValues    = new ArrayList<>();
-      JoinKey                 key           = new JoinKey(queryJoin.getJoinMetaData().getName(), joinValues);
-      String                  baseTableName = getWorkflow().getTableName();
+      ArrayList<Serializable> joinValues      = new ArrayList<>();
+      JoinKey                 key             = new JoinKey(queryJoin.getJoinMetaData().getName(), joinValues);
+      String                  baseTableName   = getWorkflow().getTableName();
+      List<String>            joinTableFields = new ArrayList<>();
 
       QQueryFilter filter    = new QQueryFilter();
       boolean      makeEmpty = false;
@@ -190,6 +322,7 @@ public class RecordWorkflowContext extends WorkflowExecutionContext
          }
 
          key.joinValues.add(mainTableValue);
+         joinTableFields.add(joinTableField);
 
          if(mainTableValue == null)
          {
@@ -199,7 +332,7 @@ public class RecordWorkflowContext extends WorkflowExecutionContext
 
          filter.addCriteria(new QFilterCriteria(joinTableField, QCriteriaOperator.EQUALS, mainTableValue));
       }
-      JoinRecordsKeyConstruction result = new JoinRecordsKeyConstruction(key, filter, makeEmpty);
+      JoinRecordsKeyConstruction result = new JoinRecordsKeyConstruction(key, filter, makeEmpty, joinTableFields);
       return result;
    }
 
@@ -208,7 +341,7 @@ public class RecordWorkflowContext extends WorkflowExecutionContext
    /***************************************************************************
     *
     ***************************************************************************/
-   private record JoinRecordsKeyConstruction(JoinKey key, QQueryFilter filter, boolean makeEmpty)
+   private record JoinRecordsKeyConstruction(JoinKey key, QQueryFilter filter, boolean makeEmpty, List<String> joinTableFields)
    {
 
    }
@@ -29,9 +29,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
-import com.kingsrook.qqq.api.actions.GetTableApiFieldsAction;
-import com.kingsrook.qqq.api.model.actions.GetTableApiFieldsInput;
-import com.kingsrook.qqq.api.model.actions.GetTableApiFieldsOutput;
+import com.kingsrook.qbits.workflows.implementations.WorkflowApiFieldMappingCache;
 import com.kingsrook.qqq.backend.core.actions.values.QCustomPossibleValueProvider;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
@@ -153,8 +151,7 @@ public class RecordWorkflowFieldNamePossibleValueSource implements QCustomPossib
             return Collections.emptyList();
          }
 
-         GetTableApiFieldsOutput tableApiFieldsOutput = new GetTableApiFieldsAction().execute(new GetTableApiFieldsInput().withApiName(apiName).withVersion(apiVersion).withTableName(tableName));
-         for(QFieldMetaData field : tableApiFieldsOutput.getFields())
+         for(QFieldMetaData field : WorkflowApiFieldMappingCache.getMapping(apiName, apiVersion, tableName).getApiFields())
          {
             rs.add(new QPossibleValue<>(tableName + "." + field.getName(), field.getLabel()));
          }
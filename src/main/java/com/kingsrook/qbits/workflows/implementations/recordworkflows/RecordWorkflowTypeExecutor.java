@@ -26,12 +26,15 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import com.kingsrook.qbits.workflows.execution.WorkflowExecutionContext;
+import com.kingsrook.qbits.workflows.execution.WorkflowSetRunException;
 import com.kingsrook.qbits.workflows.execution.WorkflowTypeExecutorInterface;
 import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
 import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
@@ -70,14 +73,44 @@ public class RecordWorkflowTypeExecutor implements WorkflowTypeExecutorInterface
       }
       else
       {
-         updateRecord(context);
-         deleteRecords(context);
-         insertRecords(context);
+         List<RecordWorkflowContext> contexts = List.of(context);
+         updateRecords(contexts);
+         deleteRecords(contexts);
+         insertRecords(contexts);
       }
    }
 
 
 
+   /***************************************************************************
+    * for a set of runs executed together: update all of their records in one
+    * action per distinct set of field names, then do all deletes, then all
+    * inserts, with one action per table.  If the backend rejects any records,
+    * a WorkflowSetRunException says which runs they came from.  Test runs are
+    * done one by one.
+    ***************************************************************************/
+   @Override
+   public void postRunSet(List<WorkflowExecutionContext> workflowExecutionContexts) throws QException
+   {
+      List<RecordWorkflowContext> contexts = new ArrayList<>();
+      for(WorkflowExecutionContext workflowExecutionContext : workflowExecutionContexts)
+      {
+         contexts.add((RecordWorkflowContext) workflowExecutionContext);
+      }
+
+      if(contexts.isEmpty() || contexts.stream().anyMatch(context -> context.getIsTestRun()))
+      {
+         WorkflowTypeExecutorInterface.super.postRunSet(workflowExecutionContexts);
+         return;
+      }
+
+      updateRecords(contexts);
+      deleteRecords(contexts);
+      insertRecords(contexts);
+   }
+
+
+
    /***************************************************************************
     *
     ***************************************************************************/
@@ -125,48 +158,127 @@ public class RecordWorkflowTypeExecutor implements WorkflowTypeExecutorInterface
 
 
    /***************************************************************************
-    *
+    * delete the records the runs marked for deletion, with one action per
+    * table.  Any records the backend fails to delete are attributed back to
+    * the runs that marked them (see WorkflowSetRunException).
     ***************************************************************************/
-   private void deleteRecords(RecordWorkflowContext context) throws QException
+   private void deleteRecords(List<RecordWorkflowContext> contexts) throws QException
    {
-      for(Map.Entry<String, HashSet<Serializable>> entry : context.primaryKeysToDelete.get().entrySet())
+      Map<String, Map<Serializable, List<RecordWorkflowContext>>> contextsByPrimaryKeyByTable = new LinkedHashMap<>();
+      for(RecordWorkflowContext context : contexts)
+      {
+         for(Map.Entry<String, HashSet<Serializable>> entry : context.primaryKeysToDelete.get().entrySet())
+         {
+            Map<Serializable, List<RecordWorkflowContext>> contextsByPrimaryKey = contextsByPrimaryKeyByTable.computeIfAbsent(entry.getKey(), k -> new LinkedHashMap<>());
+            for(Serializable primaryKey : entry.getValue())
+            {
+               contextsByPrimaryKey.computeIfAbsent(primaryKey, k -> new ArrayList<>()).add(context);
+            }
+         }
+      }
+
+      Map<WorkflowExecutionContext, String> errorsByContext = new IdentityHashMap<>();
+      for(Map.Entry<String, Map<Serializable, List<RecordWorkflowContext>>> entry : contextsByPrimaryKeyByTable.entrySet())
       {
-         String                tableName   = entry.getKey();
-         HashSet<Serializable> primaryKeys = entry.getValue();
+         String                                         tableName            = entry.getKey();
+         Map<Serializable, List<RecordWorkflowContext>> contextsByPrimaryKey = entry.getValue();
+         if(contextsByPrimaryKey.isEmpty())
+         {
+            continue;
+         }
 
          DeleteOutput deleteOutput = new DeleteAction().execute(new DeleteInput(tableName)
-            .withPrimaryKeys(new ArrayList<>(primaryKeys))
-            .withTransaction(context.getTransaction()));
+            .withPrimaryKeys(new ArrayList<>(contextsByPrimaryKey.keySet()))
+            .withTransaction(contexts.get(0).getTransaction()));
 
-         if(CollectionUtils.nullSafeHasContents(deleteOutput.getRecordsWithErrors()))
+         String primaryKeyField = QContext.getQInstance().getTable(tableName).getPrimaryKeyField();
+         for(QRecord recordWithErrors : CollectionUtils.nonNullList(deleteOutput.getRecordsWithErrors()))
          {
-            String errors = getErrorsFromRecords(deleteOutput.getRecordsWithErrors());
-            throw (new QException("Error deleting from " + tableName + " table: " + errors));
+            List<RecordWorkflowContext> recordContexts = contextsByPrimaryKey.get(recordWithErrors.getValue(primaryKeyField));
+            for(RecordWorkflowContext context : recordContexts == null ? contexts : recordContexts)
+            {
+               addError(errorsByContext, context, "Error deleting from " + tableName + " table: " + recordWithErrors.getErrorsAsString());
+            }
          }
       }
+
+      if(!errorsByContext.isEmpty())
+      {
+         throw (new WorkflowSetRunException(errorsByContext));
+      }
    }
 
 
 
    /***************************************************************************
-    *
+    * insert the records the runs queued for insert, with one action per table.
+    * Any records the backend fails to insert are attributed back to the runs
+    * that queued them (see WorkflowSetRunException).
     ***************************************************************************/
-   private void insertRecords(RecordWorkflowContext context) throws QException
+   private void insertRecords(List<RecordWorkflowContext> contexts) throws QException
    {
-      for(Map.Entry<String, ArrayList<QRecord>> entry : context.recordsToInsert.get().entrySet())
+      Map<String, List<QRecord>>               recordsByTable  = new LinkedHashMap<>();
+      Map<String, List<RecordWorkflowContext>> contextsByTable = new LinkedHashMap<>();
+      for(RecordWorkflowContext context : contexts)
+      {
+         for(Map.Entry<String, ArrayList<QRecord>> entry : context.recordsToInsert.get().entrySet())
+         {
+            List<QRecord>               records        = recordsByTable.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+            List<RecordWorkflowContext> recordContexts = contextsByTable.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+            for(QRecord record : entry.getValue())
+            {
+               records.add(record);
+               recordContexts.add(context);
+            }
+         }
+      }
+
+      Map<WorkflowExecutionContext, String> errorsByContext = new IdentityHashMap<>();
+      for(Map.Entry<String, List<QRecord>> entry : recordsByTable.entrySet())
       {
-         String             tableName = entry.getKey();
-         ArrayList<QRecord> records   = entry.getValue();
+         String        tableName = entry.getKey();
+         List<QRecord> records   = entry.getValue();
+         if(records.isEmpty())
+         {
+            continue;
+         }
 
          List<QRecord> insertedRecords = new InsertAction().execute(new InsertInput(tableName)
             .withRecords(records)
-            .withTransaction(context.getTransaction())
+            .withTransaction(contexts.get(0).getTransaction())
          ).getRecords();
 
-         String errors = getErrorsFromRecords(insertedRecords);
-         if(!errors.isEmpty())
+         collectErrors(errorsByContext, insertedRecords, contextsByTable.get(tableName), "Error inserting into " + tableName + " table: ");
+      }
+
+      if(!errorsByContext.isEmpty())
+      {
+         throw (new WorkflowSetRunException(errorsByContext));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * attribute the errors on the output records of an action back to the runs
+    * that gave its input records (in the same order).
+    ***************************************************************************/
+   private static void collectErrors(Map<WorkflowExecutionContext, String> errorsByContext, List<QRecord> outputRecords, List<RecordWorkflowContext> recordContexts, String messagePrefix)
+   {
+      for(int i = 0; i < outputRecords.size(); i++)
+      {
+         QRecord outputRecord = outputRecords.get(i);
+         if(CollectionUtils.nullSafeHasContents(outputRecord.getErrors()))
          {
-            throw (new QException("Error inserting into " + tableName + " table: " + errors));
+            ///////////////////////////////////////////////////////////////////
+            // if the outputs don't line up with the inputs, the error can't //
+            // be attributed - so it goes against all of the action's runs   //
+            ///////////////////////////////////////////////////////////////////
+            List<RecordWorkflowContext> contextsForError = outputRecords.size() == recordContexts.size() ? List.of(recordContexts.get(i)) : recordContexts;
+            for(RecordWorkflowContext context : contextsForError)
+            {
+               addError(errorsByContext, context, messagePrefix + outputRecord.getErrorsAsString());
+            }
          }
       }
    }
@@ -174,37 +286,53 @@ public class RecordWorkflowTypeExecutor implements WorkflowTypeExecutorInterface
 
 
    /***************************************************************************
-    *
+    **
     ***************************************************************************/
-   private static String getErrorsFromRecords(List<QRecord> insertedRecords)
+   private static void addError(Map<WorkflowExecutionContext, String> errorsByContext, RecordWorkflowContext context, String error)
    {
-      String errors = insertedRecords.stream()
-         .filter(r -> CollectionUtils.nullSafeHasContents(r.getErrors()))
-         .map(r -> r.getErrorsAsString())
-         .collect(Collectors.joining("; "));
-      return errors;
+      errorsByContext.merge(context, error, (a, b) -> a + "; " + b);
    }
 
 
 
    /***************************************************************************
-    *
+    * update the runs' records, with one action per distinct set of field
+    * names.  Any records the backend fails to update are attributed back to
+    * their runs (see WorkflowSetRunException).
     ***************************************************************************/
-   private void updateRecord(RecordWorkflowContext context) throws QException
+   private void updateRecords(List<RecordWorkflowContext> contexts) throws QException
    {
-      if(context.doesRecordNeedUpdated.get())
+      //////////////////////////////////////////////////////////////////
+      // group the records that need updated by their set of fields - //
+      // so each group can be stored by one update action             //
+      //////////////////////////////////////////////////////////////////
+      Map<Set<String>, List<QRecord>>               recordsByFieldNames  = new LinkedHashMap<>();
+      Map<Set<String>, List<RecordWorkflowContext>> contextsByFieldNames = new LinkedHashMap<>();
+      for(RecordWorkflowContext context : contexts)
       {
-         QRecord record = context.record.get();
-         UpdateOutput updateOutput = new UpdateAction().execute(new UpdateInput(context.getWorkflow().getTableName())
-            .withRecord(record)
-            .withTransaction(context.getTransaction()));
-
-         QRecord updatedRecord = updateOutput.getRecords().get(0);
-         if(CollectionUtils.nullSafeHasContents(updatedRecord.getErrors()))
+         if(context.doesRecordNeedUpdated.get())
          {
-            throw new QException("Error updating record: " + updatedRecord.getErrorsAsString());
+            QRecord     record     = context.record.get();
+            Set<String> fieldNames = new HashSet<>(record.getValues().keySet());
+            recordsByFieldNames.computeIfAbsent(fieldNames, k -> new ArrayList<>()).add(record);
+            contextsByFieldNames.computeIfAbsent(fieldNames, k -> new ArrayList<>()).add(context);
          }
       }
+
+      Map<WorkflowExecutionContext, String> errorsByContext = new IdentityHashMap<>();
+      for(Map.Entry<Set<String>, List<QRecord>> entry : recordsByFieldNames.entrySet())
+      {
+         UpdateOutput updateOutput = new UpdateAction().execute(new UpdateInput(contexts.get(0).getWorkflow().getTableName())
+            .withRecords(entry.getValue())
+            .withTransaction(contexts.get(0).getTransaction()));
+
+         collectErrors(errorsByContext, updateOutput.getRecords(), contextsByFieldNames.get(entry.getKey()), "Error updating record: ");
+      }
+
+      if(!errorsByContext.isEmpty())
+      {
+         throw (new WorkflowSetRunException(errorsByContext));
+      }
    }
 
 }
@@ -28,13 +28,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
 import com.kingsrook.qbits.workflows.execution.WorkflowInput;
 import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
-import com.kingsrook.qbits.workflows.execution.WorkflowStepOutput;
 import com.kingsrook.qbits.workflows.execution.WorkflowTypeTesterInterface;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
@@ -48,7 +46,6 @@ import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
-import com.kingsrook.qqq.backend.core.model.data.QRecordWithJoinedRecords;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.FieldAndJoinTable;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.Association;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
@@ -209,10 +206,6 @@ public class RecordWorkflowTypeTester implements WorkflowTypeTesterInterface
       //////////////////////////////////////////////////////////////////////////////////////
       // re-use the order filtering logic of InputRecordFilterStep (e.g., building joins) //
       //////////////////////////////////////////////////////////////////////////////////////
-      InputRecordFilterStep          inputRecordFilterStep  = new InputRecordFilterStep();
-      List<QRecordWithJoinedRecords> orderWithJoinedRecords = inputRecordFilterStep.buildCrossProduct(record, filter, context);
-      WorkflowStepOutput             workflowStepOutput     = inputRecordFilterStep.evaluateCrossProduct(orderWithJoinedRecords, filter);
-      return (Objects.equals(workflowStepOutput.outputData(), true));
-
+      return (new InputRecordFilterStep().doesRecordMatch(record, filter, context));
    }
 }
@@ -28,9 +28,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import com.kingsrook.qbits.workflows.execution.WorkflowExecutionContext;
+import com.kingsrook.qbits.workflows.execution.WorkflowStepInputValues;
+import com.kingsrook.qbits.workflows.implementations.WorkflowApiFieldMappingCache;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
-import com.kingsrook.qqq.api.actions.GetTableApiFieldsAction;
 import com.kingsrook.qqq.api.utils.ApiQueryFilterUtils;
 import com.kingsrook.qqq.backend.core.actions.tables.CountAction;
 import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
@@ -83,9 +84,31 @@ public class RecordWorkflowUtils
 
 
    /***************************************************************************
-    **
+    * get the filter from a step's input values.  When the input values are a
+    * WorkflowStepInputValues (as given by the executor), the parsed filter is
+    * memoized there, and a clone of it is returned (so callers may modify it).
     ***************************************************************************/
    public static QQueryFilter getFilterFromInput(Map<String, ?> inputValues) throws QException
+   {
+      if(inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
+      {
+         QQueryFilter filter = workflowStepInputValues.getDerivedValue("queryFilterJson");
+         if(filter == null)
+         {
+            filter = workflowStepInputValues.putDerivedValue("queryFilterJson", parseFilterFromInput(inputValues));
+         }
+         return (filter.clone());
+      }
+
+      return (parseFilterFromInput(inputValues));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static QQueryFilter parseFilterFromInput(Map<String, ?> inputValues) throws QException
    {
       try
       {
@@ -179,7 +202,7 @@ public class RecordWorkflowUtils
    {
       WorkflowRevision            workflowRevision   = context.getWorkflowRevision();
       Workflow                    workflow           = context.getWorkflow();
-      Map<String, QFieldMetaData> tableApiFields     = GetTableApiFieldsAction.getTableApiFieldMap(new GetTableApiFieldsAction.ApiNameVersionAndTableName(workflowRevision.getApiName(), workflowRevision.getApiVersion(), workflow.getTableName()));
+      Map<String, QFieldMetaData> tableApiFields     = WorkflowApiFieldMappingCache.getMapping(workflowRevision.getApiName(), workflowRevision.getApiVersion(), workflow.getTableName()).getTableApiFieldMap();
       List<String>                badRequestMessages = new ArrayList<>();
 
       CountInput countInput = new CountInput(context.getWorkflow().getTableName())
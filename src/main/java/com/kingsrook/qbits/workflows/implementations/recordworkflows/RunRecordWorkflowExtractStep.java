@@ -22,13 +22,11 @@
 package com.kingsrook.qbits.workflows.implementations.recordworkflows;
 
 
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
 import com.kingsrook.qbits.workflows.model.Workflow;
-import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetOutput;
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
 import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.ExtractViaQueryStep;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
@@ -60,13 +58,10 @@ public class RunRecordWorkflowExtractStep extends ExtractViaQueryStep
       runBackendStepInput.addValue(FIELD_SOURCE_TABLE, tableName);
 
       Integer  workflowId = runBackendStepInput.getValueInteger("workflowId");
-      GetInput getInput   = new GetInput();
-      getInput.setTableName(Workflow.TABLE_NAME);
-      getInput.setPrimaryKey(workflowId);
-      GetOutput getOutput = new GetAction().execute(getInput);
-      if(getOutput.getRecord() != null)
+      Workflow workflow   = WorkflowCache.getWorkflow(workflowId);
+      if(workflow != null)
       {
-         runBackendStepOutput.addValue("workflowName", getOutput.getRecord().getValueString("name"));
+         runBackendStepOutput.addValue("workflowName", workflow.getName());
       }
 
       super.preRun(runBackendStepInput, runBackendStepOutput);
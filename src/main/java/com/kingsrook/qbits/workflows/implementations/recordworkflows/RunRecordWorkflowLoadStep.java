@@ -26,6 +26,13 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
 import com.kingsrook.qbits.workflows.execution.WorkflowExecutor;
 import com.kingsrook.qbits.workflows.execution.WorkflowInput;
 import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
@@ -34,7 +41,7 @@ import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
 import com.kingsrook.qbits.workflows.tracing.WorkflowTracerInterface;
 import com.kingsrook.qqq.backend.core.actions.audits.AuditAction;
 import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
-import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
+import com.kingsrook.qqq.backend.core.context.CapturedContext;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.logging.QLogger;
@@ -54,6 +61,8 @@ import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.model.tables.QQQTableTableManager;
 import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.AbstractLoadStep;
+import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.BackendStepPostRunInput;
+import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.BackendStepPostRunOutput;
 import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.ProcessSummaryProviderInterface;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
@@ -68,6 +77,10 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
 {
    private static final QLogger LOG = QLogger.getLogger(RunRecordWorkflowLoadStep.class);
 
+   public static final String FIELD_MAX_PARALLELISM = "maxParallelism";
+
+   private static final int PAGE_SIZE = 100;
+
    private ProcessSummaryLine okLine = new ProcessSummaryLine(Status.OK)
       .withSingularPastMessage("had the workflow ran against it.")
       .withPluralPastMessage("had the workflow ran against them.");
@@ -77,6 +90,8 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
    private List<Serializable> okWorkflowLogIds    = new ArrayList<>();
    private List<Serializable> errorWorkflowLogIds = new ArrayList<>();
 
+   private ExecutorService workerExecutorService;
+
 
 
    /*******************************************************************************
@@ -85,10 +100,12 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
    @Override
    public Integer getOverrideRecordPipeCapacity(RunBackendStepInput runBackendStepInput)
    {
-      //////////////////////////////
-      // todo think about this... //
-      //////////////////////////////
-      return (1);
+      //////////////////////////////////////////////////////////////////////////////
+      // pages are run through the workflow executor as a set - sharing one       //
+      // transaction - so make them big enough for that to pay off (but not more) //
+      // - with a set for each thread, if running in parallel.                    //
+      //////////////////////////////////////////////////////////////////////////////
+      return (PAGE_SIZE * getMaxParallelism(runBackendStepInput));
    }
 
 
@@ -101,44 +118,55 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
    {
       runBackendStepInput.getAsyncJobCallback().updateStatus("Running workflow");
 
-      Integer workflowId = runBackendStepInput.getValueInteger("workflowId");
-      QRecord workflow   = GetAction.execute(Workflow.TABLE_NAME, workflowId);
+      Integer  workflowId = runBackendStepInput.getValueInteger("workflowId");
+      Workflow workflow   = WorkflowCache.getWorkflow(workflowId);
       if(workflow == null)
       {
          throw (new QException("Could not find workflow by id: " + workflowId));
       }
 
-      String         tableName = workflow.getValueString("tableName");
+      String         tableName = workflow.getTableName();
       QTableMetaData table     = QContext.getQInstance().getTable(tableName);
 
-      for(QRecord record : runBackendStepInput.getRecords())
+      //////////////////////////////////////////////////////////////////////
+      // build an input for each record in the page, to run together as   //
+      // a set (sharing one transaction, and one update/insert per table) //
+      //////////////////////////////////////////////////////////////////////
+      List<QRecord>       records        = runBackendStepInput.getRecords();
+      List<WorkflowInput> workflowInputs = new ArrayList<>();
+      for(QRecord record : records)
       {
-         okLine.incrementCountAndAddPrimaryKey(record.getValueInteger(table.getPrimaryKeyField()));
-         runBackendStepInput.getAsyncJobCallback().incrementCurrent();
-
-         WorkflowInput workflowInput = new WorkflowInput();
-         workflowInput.setWorkflowId(workflowId);
-         workflowInput.setValues(Map.of("record", record));
-         workflowInput.setWorkflowExecutionContext(new RecordWorkflowContext());
-
-         WorkflowOutput workflowOutput = new WorkflowOutput();
-
          WorkflowRunLog workflowRunLog = new WorkflowRunLog()
             .withInputRecordQqqTableId(QQQTableTableManager.getQQQTableId(QContext.getQInstance(), tableName))
             .withInputRecordId(record.getValueInteger(table.getPrimaryKeyField()))
             .withInputDataJson("""
                {"tableName":"%s","id", %s}""".formatted(record.getTableName(), record.getValue("id")));
 
-         WorkflowTracerInterface workflowTracer = getWorkflowTracer(runBackendStepInput);
+         WorkflowInput workflowInput = new WorkflowInput();
+         workflowInput.setWorkflowId(workflowId);
+         workflowInput.setValues(Map.of("record", record));
+         workflowInput.setWorkflowExecutionContext(new RecordWorkflowContext());
+         workflowInput.setWorkflowRunLog(workflowRunLog);
+         workflowInputs.add(workflowInput);
+      }
+
+      List<WorkflowOutput> workflowOutputs = executeWorkflowInputs(runBackendStepInput, workflowInputs);
 
-         new WorkflowExecutor()
-            .withInputWorkflowRunLog(workflowRunLog)
-            .withWorkflowTracer(workflowTracer)
-            .execute(workflowInput, workflowOutput);
+      ////////////////////////////////////////////////////////////////////////
+      // outputs are all tallied here, on the process's thread (even if the //
+      // workflows ran in parallel), so the summary lines aren't contended  //
+      ////////////////////////////////////////////////////////////////////////
+      AuditInput auditInput = new AuditInput();
+      for(int i = 0; i < records.size(); i++)
+      {
+         QRecord        record         = records.get(i);
+         WorkflowOutput workflowOutput = workflowOutputs.get(i);
+         WorkflowRunLog workflowRunLog = workflowOutput.getWorkflowRunLog();
 
-         workflowRunLog = workflowOutput.getWorkflowRunLog();
+         okLine.incrementCountAndAddPrimaryKey(record.getValueInteger(table.getPrimaryKeyField()));
+         runBackendStepInput.getAsyncJobCallback().incrementCurrent();
 
-         String auditMessage = "Workflow \"" + workflow.getValueString("name") + "\" (id: " + workflowId + ") was executed against this record";
+         String auditMessage = "Workflow \"" + workflow.getName() + "\" (id: " + workflowId + ") was executed against this record";
 
          //////////////////////////////////////////////////////////
          // add the record to the appropriate processSummaryLine //
@@ -146,23 +174,131 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
          if(workflowRunLog.getId() != null)
          {
             Long id = workflowRunLog.getId();
-            if(id != null)
-            {
-               auditMessage += ", creating Workflow Run Log: " + id;
-               boolean hadError = BooleanUtils.isTrue(workflowRunLog.getHadError());
-               (hadError ? errorWorkflowLogIds : okWorkflowLogIds).add(id);
-            }
+            auditMessage += ", creating Workflow Run Log: " + id;
+            boolean hadError = BooleanUtils.isTrue(workflowRunLog.getHadError());
+            (hadError ? errorWorkflowLogIds : okWorkflowLogIds).add(id);
          }
          else if(workflowOutput.getException() != null)
          {
-            unloggedExceptionLine.incrementCount(runBackendStepInput.getRecords().size());
+            unloggedExceptionLine.incrementCount();
          }
 
-         //////////////////////////////////////////////////////////////
-         // audit that the workflow was executed against the records //
-         //////////////////////////////////////////////////////////////
-         audit(runBackendStepInput, tableName, auditMessage);
+         appendAudit(auditInput, table, record, auditMessage);
       }
+
+      //////////////////////////////////////////////////////////////
+      // audit that the workflow was executed against the records //
+      //////////////////////////////////////////////////////////////
+      audit(auditInput, tableName);
+   }
+
+
+
+   /***************************************************************************
+    * run the inputs for a page through the workflow, as a set.  If the process
+    * allows more than 1 thread, the page is split into a slice per thread, with
+    * each slice run as a set on a worker thread (with the process's QContext,
+    * and its own executor, tracer & transaction).  Outputs are returned in the
+    * same order as the inputs.
+    ***************************************************************************/
+   private List<WorkflowOutput> executeWorkflowInputs(RunBackendStepInput runBackendStepInput, List<WorkflowInput> workflowInputs) throws QException
+   {
+      int threads = Math.min(getMaxParallelism(runBackendStepInput), workflowInputs.size());
+      if(threads <= 1)
+      {
+         return (new WorkflowExecutor()
+            .withWorkflowTracer(getWorkflowTracer(runBackendStepInput))
+            .executeSet(workflowInputs));
+      }
+
+      CapturedContext capturedContext = QContext.capture();
+      ExecutorService executorService = getWorkerExecutorService(runBackendStepInput);
+      try
+      {
+         int                                sliceSize = (workflowInputs.size() + threads - 1) / threads;
+         List<Future<List<WorkflowOutput>>> futures   = new ArrayList<>();
+         for(int start = 0; start < workflowInputs.size(); start += sliceSize)
+         {
+            List<WorkflowInput> slice = workflowInputs.subList(start, Math.min(start + sliceSize, workflowInputs.size()));
+            futures.add(executorService.submit(() ->
+            {
+               QContext.init(capturedContext);
+               try
+               {
+                  return (new WorkflowExecutor()
+                     .withWorkflowTracer(getWorkflowTracer(runBackendStepInput))
+                     .executeSet(slice));
+               }
+               finally
+               {
+                  QContext.clear();
+               }
+            }));
+         }
+
+         List<WorkflowOutput> workflowOutputs = new ArrayList<>();
+         for(Future<List<WorkflowOutput>> future : futures)
+         {
+            workflowOutputs.addAll(future.get());
+         }
+         return (workflowOutputs);
+      }
+      catch(ExecutionException e)
+      {
+         throw (new QException("Error running workflow in parallel", e.getCause()));
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw (new QException("Interrupted running workflow in parallel", e));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the pool of worker threads that pages are run on - built on first use,
+    * sized by the process's max parallelism, and shared by all the pages of
+    * the process run (it is shut down in postRun).  Its threads time out when
+    * idle, so they don't outlive a run that ends without reaching postRun.
+    ***************************************************************************/
+   private ExecutorService getWorkerExecutorService(RunBackendStepInput runBackendStepInput)
+   {
+      if(workerExecutorService == null)
+      {
+         int                threads            = getMaxParallelism(runBackendStepInput);
+         ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+         threadPoolExecutor.allowCoreThreadTimeOut(true);
+         workerExecutorService = threadPoolExecutor;
+      }
+      return (workerExecutorService);
+   }
+
+
+
+   /*******************************************************************************
+    ** shut down the worker threads, now that all pages of the run are done.
+    *******************************************************************************/
+   @Override
+   public void postRun(BackendStepPostRunInput runBackendStepInput, BackendStepPostRunOutput runBackendStepOutput) throws QException
+   {
+      if(workerExecutorService != null)
+      {
+         workerExecutorService.shutdown();
+         workerExecutorService = null;
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the max number of threads to run a page's records on - from the
+    * process input (defaulted from the qbit config) - at least 1.
+    ***************************************************************************/
+   private static int getMaxParallelism(RunBackendStepInput runBackendStepInput)
+   {
+      Integer maxParallelism = runBackendStepInput.getValueInteger(FIELD_MAX_PARALLELISM);
+      return (maxParallelism == null ? 1 : Math.max(1, maxParallelism));
    }
 
 
@@ -184,9 +320,23 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
 
 
    /*******************************************************************************
-    ** for each input record, add an audit stating that the workflow was executed.
+    ** add an audit for a record, stating that the workflow was executed, to an
+    ** input (if the instance has audits).
+    *******************************************************************************/
+   private static void appendAudit(AuditInput auditInput, QTableMetaData table, QRecord record, String auditMessage)
+   {
+      if(QContext.getQInstance().getTable(AuditsMetaDataProvider.TABLE_NAME_AUDIT) != null)
+      {
+         AuditAction.appendToInput(auditInput, table, record, auditMessage);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** store the audits for a page of records.
     *******************************************************************************/
-   private static void audit(RunBackendStepInput runBackendStepInput, String tableName, String auditMessage)
+   private static void audit(AuditInput auditInput, String tableName)
    {
       try
       {
@@ -195,17 +345,11 @@ public class RunRecordWorkflowLoadStep extends AbstractLoadStep implements Proce
             return;
          }
 
-         QTableMetaData table      = QContext.getQInstance().getTable(tableName);
-         AuditInput     auditInput = new AuditInput();
-         for(QRecord record : runBackendStepInput.getRecords())
-         {
-            AuditAction.appendToInput(auditInput, table, record, auditMessage);
-         }
          new AuditAction().execute(auditInput);
       }
       catch(Exception e)
       {
-         LOG.warn("Error recording audits after running record workflow", e, logPair("tableName", tableName), logPair("auditMessage", auditMessage));
+         LOG.warn("Error recording audits after running record workflow", e, logPair("tableName", tableName));
       }
    }
 
@@ -82,7 +82,9 @@ public class RunRecordWorkflowProcessMetaDataProducer extends QBitComponentMetaD
          .withField(new QFieldMetaData("workflowTracerCodeReference", QFieldType.STRING)
             .withDefaultValue(getQBitConfig().getWorkflowTracerCodeReference()))
          .withField(new QFieldMetaData("workflowTracerCodeReference_expectedType", QFieldType.STRING)
-            .withDefaultValue(WorkflowTracerInterface.class.getName()));
+            .withDefaultValue(WorkflowTracerInterface.class.getName()))
+         .withField(new QFieldMetaData(RunRecordWorkflowLoadStep.FIELD_MAX_PARALLELISM, QFieldType.INTEGER)
+            .withDefaultValue(getQBitConfig().getRecordWorkflowMaxParallelism()));
 
       return (processMetaData);
    }
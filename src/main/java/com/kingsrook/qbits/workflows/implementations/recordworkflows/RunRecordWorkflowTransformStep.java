@@ -24,8 +24,8 @@ package com.kingsrook.qbits.workflows.implementations.recordworkflows;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
 import com.kingsrook.qbits.workflows.model.Workflow;
-import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.processes.ProcessSummaryLine;
 import com.kingsrook.qqq.backend.core.model.actions.processes.ProcessSummaryLineInterface;
@@ -33,11 +33,10 @@ import com.kingsrook.qqq.backend.core.model.actions.processes.ProcessSummaryReco
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
 import com.kingsrook.qqq.backend.core.model.actions.processes.Status;
-import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetOutput;
 import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.NoopTransformStep;
 import com.kingsrook.qqq.backend.core.processes.implementations.etl.streamedwithfrontend.StreamedETLWithFrontendProcess;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
+import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
 /*******************************************************************************
@@ -60,13 +59,10 @@ public class RunRecordWorkflowTransformStep extends NoopTransformStep
       try
       {
          Serializable workflowId = runBackendStepOutput.getValue("workflowId");
-         GetInput     getInput   = new GetInput();
-         getInput.setTableName(Workflow.TABLE_NAME);
-         getInput.setPrimaryKey(workflowId);
-         GetOutput getOutput = new GetAction().execute(getInput);
-         if(getOutput.getRecord() != null)
+         Workflow     workflow   = WorkflowCache.getWorkflow(ValueUtils.getValueAsInteger(workflowId));
+         if(workflow != null)
          {
-            processSummary.add(new ProcessSummaryRecordLink(Status.OK, Workflow.TABLE_NAME, workflowId, getOutput.getRecord().getValueString("name"))
+            processSummary.add(new ProcessSummaryRecordLink(Status.OK, Workflow.TABLE_NAME, workflowId, workflow.getName())
                .withLinkPreText(StringUtils.plural(runBackendStepOutput.getRecords(), "It", "They") + " will have the workflow ")
                .withLinkPostText(" ran against " + StringUtils.plural(runBackendStepOutput.getRecords(), "it.", "them.")));
          }
@@ -23,26 +23,24 @@ package com.kingsrook.qbits.workflows.implementations.recordworkflows;
 
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import com.kingsrook.qbits.workflows.definition.OutboundLinkMode;
 import com.kingsrook.qbits.workflows.definition.WorkflowStepType;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
 import com.kingsrook.qbits.workflows.execution.WorkflowExecutionContext;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepExecutorInterface;
+import com.kingsrook.qbits.workflows.execution.WorkflowStepInputValues;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepOutput;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepValidatorInterface;
+import com.kingsrook.qbits.workflows.implementations.WorkflowApiFieldMappingCache;
 import com.kingsrook.qbits.workflows.implementations.WorkflowStepUtils;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowRevision;
 import com.kingsrook.qbits.workflows.model.WorkflowStep;
-import com.kingsrook.qqq.api.actions.GetTableApiFieldsAction;
-import com.kingsrook.qqq.api.actions.QRecordApiAdapter;
-import com.kingsrook.qqq.api.model.actions.GetTableApiFieldsInput;
-import com.kingsrook.qqq.api.model.actions.GetTableApiFieldsOutput;
-import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.actions.values.QValueFormatter;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
@@ -56,7 +54,6 @@ import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 import com.kingsrook.qqq.frontend.materialdashboard.model.metadata.MaterialDashboardFieldMetaData;
-import org.json.JSONObject;
 
 
 /*******************************************************************************
@@ -101,17 +98,12 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
 
 
    /***************************************************************************
-    **
+    * look up an api field (by name, maybe prefixed by table name), in the
+    * revision's api version of the table - through the instance's cache.
     ***************************************************************************/
    public static Optional<QFieldMetaData> getApiField(String fieldNameMaybeWithTableNamePrefix, String tableName, WorkflowRevision workflowRevision) throws QException
    {
-      String fieldName = (fieldNameMaybeWithTableNamePrefix.contains(".") ? fieldNameMaybeWithTableNamePrefix.substring(fieldNameMaybeWithTableNamePrefix.indexOf(".") + 1) : fieldNameMaybeWithTableNamePrefix);
-      GetTableApiFieldsOutput tableApiFieldsOutput = new GetTableApiFieldsAction().execute(new GetTableApiFieldsInput()
-         .withTableName(tableName)
-         .withApiName(workflowRevision.getApiName())
-         .withVersion(workflowRevision.getApiVersion()));
-      Optional<QFieldMetaData> foundField = tableApiFieldsOutput.getFields().stream().filter(f -> fieldName.equals(f.getName())).findFirst();
-      return foundField;
+      return (WorkflowApiFieldMappingCache.getMapping(workflowRevision.getApiName(), workflowRevision.getApiVersion(), tableName).getApiField(fieldNameMaybeWithTableNamePrefix));
    }
 
 
@@ -137,18 +129,20 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
          }
       }
 
-      return getStepSummary(workflowId, fieldName, apiName, apiVersion, value, false);
+      return getStepSummary(workflowId, fieldName, apiName, apiVersion, value, false).summary();
    }
 
 
 
    /***************************************************************************
-    **
+    * build the summary for the step - noting if any part of it couldn't be
+    * rendered (e.g., the field's label), and a fallback was used instead.
     ***************************************************************************/
-   private String getStepSummary(Integer workflowId, String fieldName, String apiName, String apiVersion, String value, boolean isPastTense)
+   private RenderedStepSummary getStepSummary(Integer workflowId, String fieldName, String apiName, String apiVersion, String value, boolean isPastTense)
    {
       String         fieldLabel = null;
       QTableMetaData table      = null;
+      boolean        hadError   = false;
 
       if(StringUtils.hasContent(fieldName))
       {
@@ -156,8 +150,8 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
          {
             if(workflowId != null)
             {
-               QRecord workflowRecord = GetAction.execute(Workflow.TABLE_NAME, workflowId);
-               table = QContext.getQInstance().getTable(workflowRecord.getValueString("tableName"));
+               Workflow workflow = WorkflowCache.getWorkflow(workflowId);
+               table = QContext.getQInstance().getTable(workflow.getTableName());
 
                WorkflowRevision workflowRevision = new WorkflowRevision().withApiName(apiName).withApiVersion(apiVersion);
                if(WorkflowStepUtils.useApi(workflowRevision))
@@ -180,6 +174,7 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
          catch(Exception e)
          {
             fieldLabel = fieldName;
+            hadError = true;
          }
       }
 
@@ -201,17 +196,49 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
                /////////////////////////////
                // leave as original value //
                /////////////////////////////
+               hadError = true;
             }
 
-            return (fieldLabel + " " + verb + " set to '" + displayValue + "'");
+            return (new RenderedStepSummary(fieldLabel + " " + verb + " set to '" + displayValue + "'", hadError));
          }
          else
          {
-            return (fieldLabel + " " + verb + " cleared out");
+            return (new RenderedStepSummary(fieldLabel + " " + verb + " cleared out", hadError));
+         }
+      }
+
+      return (new RenderedStepSummary(null, hadError));
+   }
+
+
+
+   /***************************************************************************
+    * get the (past-tense) summary for runs of the step.  It only depends on the
+    * step's input values and its revision & workflow - which are the same for
+    * every run - so, when the input values allow it, it is rendered once (by
+    * the first run whose summary is read), and memoized with them.  Only a
+    * summary that rendered without error is memoized - a null one, or one
+    * built from a fallback, is rendered again by the next run.
+    ***************************************************************************/
+   private String getPastTenseStepSummary(Map<String, Serializable> inputValues, Integer workflowId, String fieldName, WorkflowRevision workflowRevision, String value)
+   {
+      String derivedValueKey = "pastTenseStepSummary";
+      if(inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
+      {
+         String summary = workflowStepInputValues.getDerivedValue(derivedValueKey);
+         if(summary != null)
+         {
+            return (summary);
          }
       }
 
-      return null;
+      RenderedStepSummary renderedStepSummary = getStepSummary(workflowId, fieldName, workflowRevision.getApiName(), workflowRevision.getApiVersion(), value, true);
+      if(!renderedStepSummary.hadError() && inputValues instanceof WorkflowStepInputValues workflowStepInputValues)
+      {
+         workflowStepInputValues.putDerivedValue(derivedValueKey, renderedStepSummary.summary());
+      }
+
+      return (renderedStepSummary.summary());
    }
 
 
@@ -241,39 +268,64 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
 
       context.doesRecordNeedUpdated.set(true);
 
-      String stepSummary = getStepSummary(context.getWorkflow().getId(), fieldName, context.getWorkflowRevision().getApiName(), context.getWorkflowRevision().getApiVersion(), value, true);
-      return new WorkflowStepOutput(value, stepSummary);
+      //////////////////////////////////////////////////////////////////////////
+      // the summary is only built if it's read (e.g., by a tracer that keeps //
+      // run log steps) - as it may need to look up the workflow's table      //
+      //////////////////////////////////////////////////////////////////////////
+      Integer          workflowId       = context.getWorkflow().getId();
+      WorkflowRevision workflowRevision = context.getWorkflowRevision();
+      return (WorkflowStepOutput.withLazyMessage(value, () -> getPastTenseStepSummary(inputValues, workflowId, fieldName, workflowRevision, value)));
    }
 
 
 
    /***************************************************************************
-    **
+    * for a set of runs executed together, resolve the field (through the API,
+    * if needed) and build the (lazy) step summary once, then set the value in
+    * each run's record.
     ***************************************************************************/
-   private String getActualFieldNameThroughApi(String fieldName, String value, WorkflowExecutionContext context) throws QException
+   @Override
+   public List<WorkflowStepOutput> executeSet(WorkflowStep step, Map<String, Serializable> inputValues, List<WorkflowExecutionContext> contexts) throws QException
    {
-      Workflow         workflow         = context.getWorkflow();
-      WorkflowRevision workflowRevision = context.getWorkflowRevision();
+      WorkflowExecutionContext firstContext = contexts.get(0);
+
+      String fieldName = ValueUtils.getValueAsString(inputValues.get("fieldName"));
+      String value     = ValueUtils.getValueAsString(inputValues.get("value"));
 
-      if(fieldName.contains("."))
+      String recordFieldName = fieldName;
+      if(WorkflowStepUtils.useApi(firstContext.getWorkflowRevision()))
       {
-         /////////////////////////////////////////////////////////////////
-         // field names from the PVS are always qualified by table name //
-         /////////////////////////////////////////////////////////////////
-         fieldName = fieldName.substring(fieldName.indexOf(".") + 1);
+         recordFieldName = getActualFieldNameThroughApi(fieldName, value, firstContext);
       }
 
-      JSONObject apiRecordToUpdate = new JSONObject();
-      apiRecordToUpdate.put(fieldName, value);
-      QRecord recordToUpdate = QRecordApiAdapter.apiJsonObjectToQRecord(apiRecordToUpdate, workflow.getTableName(), workflowRevision.getApiName(), workflowRevision.getApiVersion(), false);
+      Integer            workflowId       = firstContext.getWorkflow().getId();
+      WorkflowRevision   workflowRevision = firstContext.getWorkflowRevision();
+      WorkflowStepOutput output           = WorkflowStepOutput.withLazyMessage(value, () -> getPastTenseStepSummary(inputValues, workflowId, fieldName, workflowRevision, value));
 
-      Iterator<String> iterator = recordToUpdate.getValues().keySet().iterator();
-      if(iterator.hasNext())
+      List<WorkflowStepOutput> outputs = new ArrayList<>();
+      for(WorkflowExecutionContext workflowExecutionContext : contexts)
       {
-         return (iterator.next());
+         RecordWorkflowContext context = (RecordWorkflowContext) workflowExecutionContext;
+         context.record.get().setValue(recordFieldName, value);
+         context.doesRecordNeedUpdated.set(true);
+         outputs.add(output);
       }
 
-      throw (new QException("Couldn't find field %s in API: %s Version: %s".formatted(fieldName, workflowRevision.getApiName(), workflowRevision.getApiVersion())));
+      return (outputs);
+   }
+
+
+
+   /***************************************************************************
+    * get the name of the record's field for an api field name (which, from
+    * the PVS, is always qualified by table name) - through the instance's
+    * cache of api field mappings, so it's only resolved once per api field.
+    ***************************************************************************/
+   private String getActualFieldNameThroughApi(String fieldName, String value, WorkflowExecutionContext context) throws QException
+   {
+      Workflow         workflow         = context.getWorkflow();
+      WorkflowRevision workflowRevision = context.getWorkflowRevision();
+      return (WorkflowApiFieldMappingCache.getMapping(workflowRevision.getApiName(), workflowRevision.getApiVersion(), workflow.getTableName()).getFieldName(fieldName, value));
    }
 
 
@@ -299,4 +351,14 @@ public class UpdateInputRecordFieldStep extends WorkflowStepType implements Work
       }
    }
 
+
+
+   /***************************************************************************
+    * a rendered step summary (which may be null), and whether rendering it
+    * hit an error (in which case, it was built from a fallback).
+    ***************************************************************************/
+   private record RenderedStepSummary(String summary, boolean hadError)
+   {
+   }
+
 }
@@ -0,0 +1,124 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metadata;
+
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.metrics.WorkflowLatencySummary;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsInterface;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsSnapshot;
+import com.kingsrook.qqq.backend.core.actions.dashboard.widgets.AbstractWidgetRenderer;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.widgets.RenderWidgetInput;
+import com.kingsrook.qqq.backend.core.model.actions.widgets.RenderWidgetOutput;
+import com.kingsrook.qqq.backend.core.model.dashboard.widgets.TableData;
+import com.kingsrook.qqq.backend.core.model.dashboard.widgets.WidgetType;
+import com.kingsrook.qqq.backend.core.model.metadata.MetaDataProducerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import com.kingsrook.qqq.backend.core.model.metadata.dashboard.QWidgetMetaData;
+
+
+/*******************************************************************************
+ * Widget showing the workflow executor's metrics (from the instance's
+ * WorkflowMetricsInterface) - a row of latency percentiles per step type,
+ * with run & error counts in its title.  For use on a dashboard.
+ *******************************************************************************/
+public class WorkflowMetricsWidget extends AbstractWidgetRenderer implements MetaDataProducerInterface<QWidgetMetaData>
+{
+   public static final String NAME = "WorkflowMetricsWidget";
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Override
+   public QWidgetMetaData produce(QInstance qInstance) throws QException
+   {
+      QWidgetMetaData widget = new QWidgetMetaData()
+         .withName(NAME)
+         .withLabel("Workflow Step Latency")
+         .withIsCard(true)
+         .withGridColumns(12)
+         .withType(WidgetType.TABLE.getType())
+         .withCodeReference(new QCodeReference(getClass()));
+
+      return (widget);
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Override
+   public RenderWidgetOutput render(RenderWidgetInput input) throws QException
+   {
+      List<TableData.Column> columns = List.of(
+         new TableData.Column("default", "Step Type", "stepType"),
+         new TableData.Column("default", "Count", "count"),
+         new TableData.Column("default", "p50 (ms)", "p50"),
+         new TableData.Column("default", "p95 (ms)", "p95"),
+         new TableData.Column("default", "p99 (ms)", "p99"),
+         new TableData.Column("default", "Max (ms)", "max"));
+
+      List<Map<String, Object>> rows     = new ArrayList<>();
+      WorkflowMetricsSnapshot   snapshot = WorkflowMetricsInterface.of(QContext.getQInstance()).getSnapshot();
+      if(snapshot == null)
+      {
+         return (new RenderWidgetOutput(new TableData("Workflow metrics are not being kept in memory", columns, rows)));
+      }
+
+      for(Map.Entry<String, WorkflowLatencySummary> entry : snapshot.stepTypeLatencies().entrySet())
+      {
+         WorkflowLatencySummary summary = entry.getValue();
+
+         Map<String, Object> row = new LinkedHashMap<>();
+         row.put("stepType", entry.getKey());
+         row.put("count", summary.count());
+         row.put("p50", formatMillis(summary.p50Nanos()));
+         row.put("p95", formatMillis(summary.p95Nanos()));
+         row.put("p99", formatMillis(summary.p99Nanos()));
+         row.put("max", formatMillis(summary.maxNanos()));
+         rows.add(row);
+      }
+
+      String title = String.format("%,d runs, %,d errors, %,d steps executed", snapshot.runCount(), snapshot.errorCount(), snapshot.stepsExecutedCount());
+      return (new RenderWidgetOutput(new TableData(title, columns, rows)));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static String formatMillis(long nanos)
+   {
+      return (String.format("%.3f", nanos / 1_000_000.0));
+   }
+
+}
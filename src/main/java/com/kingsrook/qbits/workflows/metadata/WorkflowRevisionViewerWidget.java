@@ -22,13 +22,24 @@
 package com.kingsrook.qbits.workflows.metadata;
 
 
+import java.util.HashMap;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.model.WorkflowStepStats;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
 import com.kingsrook.qqq.backend.core.model.actions.widgets.RenderWidgetInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
 /*******************************************************************************
- ** widget for viewing the workflow on the workflow revision table.
+ ** widget for viewing the workflow on the workflow revision table - with the
+ ** revision's execution counts from the workflowStepStats table (if any) for
+ ** overlaying on the graph: visits per step (by workflowStepId), and times
+ ** each link was followed (by fromStepNo, then toStepNo).
  *******************************************************************************/
 public class WorkflowRevisionViewerWidget extends BaseQSequentialWorkflowWidgetRenderer
 {
@@ -63,15 +74,58 @@ public class WorkflowRevisionViewerWidget extends BaseQSequentialWorkflowWidgetR
    @Override
    protected OutputData getOutputData(RenderWidgetInput input) throws QException
    {
+      Integer workflowRevisionId = ValueUtils.getValueAsInteger(input.getQueryParams().get("id"));
+
+      Map<Integer, Long>               stepVisitCountMap  = new HashMap<>();
+      Map<Integer, Map<Integer, Long>> linkFollowCountMap = new HashMap<>();
+      if(workflowRevisionId != null)
+      {
+         for(QRecord record : QueryAction.execute(WorkflowStepStats.TABLE_NAME, new QQueryFilter(new QFilterCriteria("workflowRevisionId", QCriteriaOperator.EQUALS, workflowRevisionId))))
+         {
+            WorkflowStepStats workflowStepStats = new WorkflowStepStats(record);
+            if(workflowStepStats.getToStepNo() == null)
+            {
+               if(workflowStepStats.getWorkflowStepId() != null)
+               {
+                  stepVisitCountMap.merge(workflowStepStats.getWorkflowStepId(), workflowStepStats.getVisitCount(), Long::sum);
+               }
+            }
+            else
+            {
+               linkFollowCountMap.computeIfAbsent(workflowStepStats.getStepNo(), k -> new HashMap<>()).merge(workflowStepStats.getToStepNo(), workflowStepStats.getVisitCount(), Long::sum);
+            }
+         }
+      }
+
       return new OutputData()
       {
 
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         public Map<Integer, Long> getStepVisitCountMap()
+         {
+            return (stepVisitCountMap);
+         }
+
+
+
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         public Map<Integer, Map<Integer, Long>> getLinkFollowCountMap()
+         {
+            return (linkFollowCountMap);
+         }
+
+
+
          /***************************************************************************
           **
           ***************************************************************************/
          public Integer getWorkflowRevisionId()
          {
-            return (ValueUtils.getValueAsInteger(input.getQueryParams().get("id")));
+            return (workflowRevisionId);
          }
 
       };
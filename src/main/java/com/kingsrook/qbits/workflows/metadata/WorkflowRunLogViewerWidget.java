@@ -22,24 +22,27 @@
 package com.kingsrook.qbits.workflows.metadata;
 
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
-import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogSegmentStore;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogStepSummarizer;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogStepSummary;
 import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
-import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.exceptions.QNotFoundException;
 import com.kingsrook.qqq.backend.core.model.actions.widgets.RenderWidgetInput;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
-import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
 /*******************************************************************************
  ** widget for viewing a workflow run log on the workflow revision table.
+ ** The run log is given by its id in the workflowRunLog table (query param
+ ** id), or in the WorkflowRunLogSegmentStore (query param
+ ** segmentStoreRunLogId).
  *******************************************************************************/
 public class WorkflowRunLogViewerWidget extends BaseQSequentialWorkflowWidgetRenderer
 {
@@ -74,12 +77,56 @@ public class WorkflowRunLogViewerWidget extends BaseQSequentialWorkflowWidgetRen
    @Override
    protected OutputData getOutputData(RenderWidgetInput input) throws QException
    {
-      Integer              workflowRunLogId    = ValueUtils.getValueAsInteger(input.getQueryParams().get("id"));
-      QRecord              workflowRunLog      = GetAction.execute(WorkflowRunLog.TABLE_NAME, workflowRunLogId);
-      List<QRecord>        workflowRunLogSteps = QueryAction.execute(WorkflowRunLogStep.TABLE_NAME, new QQueryFilter(new QFilterCriteria("workflowRunLogId", QCriteriaOperator.EQUALS, workflowRunLogId)));
-      List<Integer>        executedStepIds     = workflowRunLogSteps.stream().map(wrls -> wrls.getValueInteger("workflowStepId")).toList();
-      Map<Integer, String> stepOutputMap       = CollectionUtils.listToMap(workflowRunLogSteps, e -> e.getValueInteger("workflowStepId"), e -> e.getValueString("outputData"));
-      Map<Integer, String> stepLogMessageMap   = CollectionUtils.listToMap(workflowRunLogSteps, e -> e.getValueInteger("workflowStepId"), e -> e.getValueString("message"));
+      QRecord                         workflowRunLog;
+      List<WorkflowRunLogStepSummary> stepSummaries;
+      List<Integer>                   executedStepIds;
+
+      Long segmentStoreRunLogId = ValueUtils.getValueAsLong(input.getQueryParams().get("segmentStoreRunLogId"));
+      if(segmentStoreRunLogId != null)
+      {
+         ///////////////////////////////////////////////////////////////////////
+         // run logs written by the SegmentStoreWorkflowRunLogTracer are read //
+         // from the segment store, rather than the run log tables            //
+         ///////////////////////////////////////////////////////////////////////
+         WorkflowRunLog segmentStoreRunLog = WorkflowRunLogSegmentStore.of(QContext.getQInstance()).get(segmentStoreRunLogId);
+         if(segmentStoreRunLog == null)
+         {
+            throw (new QNotFoundException("Workflow run log " + segmentStoreRunLogId + " was not found in the segment store"));
+         }
+         workflowRunLog = segmentStoreRunLog.toQRecord();
+         stepSummaries = WorkflowRunLogStepSummarizer.summarize(segmentStoreRunLog);
+         executedStepIds = WorkflowRunLogStepSummarizer.getVisitedStepIds(segmentStoreRunLog);
+      }
+      else
+      {
+         /////////////////////////////////////////////////////////////////////////
+         // summarize the steps by aggregate query, rather than loading every   //
+         // step row - a run that loops can have very many of them.  a step's   //
+         // individual visits are paged in by the GetWorkflowRunLogStepsProcess //
+         /////////////////////////////////////////////////////////////////////////
+         Long workflowRunLogId = ValueUtils.getValueAsLong(input.getQueryParams().get("id"));
+         workflowRunLog = GetAction.execute(WorkflowRunLog.TABLE_NAME, workflowRunLogId);
+         stepSummaries = WorkflowRunLogStepSummarizer.withOutputs(workflowRunLogId, WorkflowRunLogStepSummarizer.aggregate(workflowRunLogId));
+         executedStepIds = WorkflowRunLogStepSummarizer.getVisitedStepIds(workflowRunLogId);
+      }
+
+      //////////////////////////////////////////////////////////////////////
+      // executedStepIds has one entry per visit, in order.  the distinct //
+      // steps are listed in order of first visit; outputs & messages are //
+      // from each step's last visit                                      //
+      //////////////////////////////////////////////////////////////////////
+      List<Integer>         distinctExecutedStepIds    = stepSummaries.stream().map(s -> s.workflowStepId()).toList();
+      Map<Integer, String>  stepOutputMap              = new HashMap<>();
+      Map<Integer, String>  stepLogMessageMap          = new HashMap<>();
+      Map<Integer, Integer> stepVisitCountMap          = new HashMap<>();
+      Map<Integer, Long>    stepTotalDurationMillisMap = new HashMap<>();
+      for(WorkflowRunLogStepSummary stepSummary : stepSummaries)
+      {
+         stepOutputMap.put(stepSummary.workflowStepId(), stepSummary.lastOutputData());
+         stepLogMessageMap.put(stepSummary.workflowStepId(), stepSummary.lastMessage());
+         stepVisitCountMap.put(stepSummary.workflowStepId(), stepSummary.visitCount());
+         stepTotalDurationMillisMap.put(stepSummary.workflowStepId(), stepSummary.totalDurationMillis());
+      }
 
       return new OutputData()
       {
@@ -94,6 +141,16 @@ public class WorkflowRunLogViewerWidget extends BaseQSequentialWorkflowWidgetRen
 
 
 
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         public List<Integer> getDistinctExecutedStepIds()
+         {
+            return (distinctExecutedStepIds);
+         }
+
+
+
          /***************************************************************************
           **
           ***************************************************************************/
@@ -114,6 +171,26 @@ public class WorkflowRunLogViewerWidget extends BaseQSequentialWorkflowWidgetRen
 
 
 
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         public Map<Integer, Integer> getStepVisitCountMap()
+         {
+            return (stepVisitCountMap);
+         }
+
+
+
+         /***************************************************************************
+          **
+          ***************************************************************************/
+         public Map<Integer, Long> getStepTotalDurationMillisMap()
+         {
+            return (stepTotalDurationMillisMap);
+         }
+
+
+
          /***************************************************************************
           **
           ***************************************************************************/
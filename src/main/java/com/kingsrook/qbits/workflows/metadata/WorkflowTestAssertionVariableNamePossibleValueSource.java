@@ -30,7 +30,6 @@ import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
 import com.kingsrook.qbits.workflows.execution.WorkflowTypeTesterInterface;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowTestScenario;
-import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
 import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.actions.values.QCustomPossibleValueProvider;
 import com.kingsrook.qqq.backend.core.context.QContext;
@@ -131,7 +130,7 @@ public class WorkflowTestAssertionVariableNamePossibleValueSource implements QCu
          return Collections.emptyList();
       }
 
-      WorkflowTypeTesterInterface workflowTypeTester = QCodeLoader.getAdHoc(WorkflowTypeTesterInterface.class, workflowType.getTester());
+      WorkflowTypeTesterInterface workflowTypeTester = workflowsRegistry.getWorkflowTypeTester(workflowType);
       return (workflowTypeTester.searchTestAssertionVariableNamePossibleValues(workflow, input));
    }
 }
@@ -0,0 +1,161 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*******************************************************************************
+ * default implementation of workflow metrics - keeping a
+ * {@link WorkflowLatencyHistogram} per workflow (for runs) and per step type
+ * (for steps), and LongAdder counters, in memory.
+ *
+ * Recording only allocates the first time a workflow, step type or branch
+ * outcome is seen - after that, it's map lookups and atomic increments.  Note
+ * that runs are only counted once they're kept: e.g., if a failure in a batch
+ * (see WorkflowExecutor.executeBatch) causes its inputs to be re-run, the
+ * WorkflowExecutor holds back what the rolled-back attempts would record, and
+ * drops it - so only the re-runs are counted.
+ *******************************************************************************/
+public class InMemoryWorkflowMetrics implements WorkflowMetricsInterface
+{
+   private final LongAdder runCount           = new LongAdder();
+   private final LongAdder errorCount         = new LongAdder();
+   private final LongAdder stepsExecutedCount = new LongAdder();
+
+   private final Map<Integer, WorkflowLatencyHistogram> workflowRunLatencies = new ConcurrentHashMap<>();
+   private final Map<String, WorkflowLatencyHistogram>  stepTypeLatencies    = new ConcurrentHashMap<>();
+   private final Map<Integer, Map<String, LongAdder>>   branchOutcomeCounts  = new ConcurrentHashMap<>();
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void recordRun(Integer workflowId, long durationNanos, boolean hadError)
+   {
+      runCount.increment();
+      if(hadError)
+      {
+         errorCount.increment();
+      }
+
+      if(workflowId != null)
+      {
+         getHistogram(workflowRunLatencies, workflowId).record(durationNanos);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void recordStep(String workflowStepTypeName, long durationNanos)
+   {
+      stepsExecutedCount.increment();
+      if(workflowStepTypeName != null)
+      {
+         getHistogram(stepTypeLatencies, workflowStepTypeName).record(durationNanos);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void recordBranchOutcome(Integer workflowStepId, String outcome)
+   {
+      if(workflowStepId == null)
+      {
+         return;
+      }
+
+      Map<String, LongAdder> outcomeCounts = branchOutcomeCounts.get(workflowStepId);
+      if(outcomeCounts == null)
+      {
+         outcomeCounts = branchOutcomeCounts.computeIfAbsent(workflowStepId, k -> new ConcurrentHashMap<>());
+      }
+
+      ///////////////////////////////////////////////////////////////////////
+      // ConcurrentHashMap doesn't allow null keys - so store a null output //
+      // (e.g., from a step that failed to produce one) as a string        //
+      ///////////////////////////////////////////////////////////////////////
+      String    key     = outcome == null ? "null" : outcome;
+      LongAdder counter = outcomeCounts.get(key);
+      if(counter == null)
+      {
+         counter = outcomeCounts.computeIfAbsent(key, k -> new LongAdder());
+      }
+      counter.increment();
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public WorkflowMetricsSnapshot getSnapshot()
+   {
+      Map<Integer, WorkflowLatencySummary> runLatencySummaries = new TreeMap<>();
+      workflowRunLatencies.forEach((workflowId, histogram) -> runLatencySummaries.put(workflowId, histogram.getSummary()));
+
+      Map<String, WorkflowLatencySummary> stepLatencySummaries = new TreeMap<>();
+      stepTypeLatencies.forEach((workflowStepTypeName, histogram) -> stepLatencySummaries.put(workflowStepTypeName, histogram.getSummary()));
+
+      Map<Integer, Map<String, Long>> outcomeCounts = new TreeMap<>();
+      branchOutcomeCounts.forEach((workflowStepId, counters) ->
+      {
+         Map<String, Long> counts = new TreeMap<>();
+         counters.forEach((outcome, counter) -> counts.put(outcome, counter.sum()));
+         outcomeCounts.put(workflowStepId, counts);
+      });
+
+      return (new WorkflowMetricsSnapshot(runCount.sum(), errorCount.sum(), stepsExecutedCount.sum(), runLatencySummaries, stepLatencySummaries, outcomeCounts));
+   }
+
+
+
+   /***************************************************************************
+    * look up a histogram in a map, only creating (via computeIfAbsent) when
+    * it isn't there yet.
+    ***************************************************************************/
+   private static <K> WorkflowLatencyHistogram getHistogram(Map<K, WorkflowLatencyHistogram> histograms, K key)
+   {
+      WorkflowLatencyHistogram histogram = histograms.get(key);
+      if(histogram == null)
+      {
+         histogram = histograms.computeIfAbsent(key, k -> new WorkflowLatencyHistogram());
+      }
+      return (histogram);
+   }
+
+}
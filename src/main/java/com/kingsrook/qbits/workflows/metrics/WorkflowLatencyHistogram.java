@@ -0,0 +1,169 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/*******************************************************************************
+ * lock-free histogram of durations (in nanoseconds), for reporting latency
+ * percentiles.
+ *
+ * Values are counted in log-linear buckets (as in an HDR histogram): each
+ * power of two is split into 8 sub-buckets, so any recorded value is reported
+ * within 12.5% of its actual value, over the whole range of a long.  Buckets
+ * are a fixed AtomicLongArray - so recording a value is a few arithmetic ops
+ * and an atomic increment, with no locking and no allocation.  Percentiles are
+ * computed by walking the buckets when read (which isn't an atomic snapshot,
+ * but is close enough, for metrics).
+ *******************************************************************************/
+public class WorkflowLatencyHistogram
+{
+   private static final int SUB_BUCKET_BITS  = 3;
+   private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+   private static final int BUCKET_COUNT     = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+   private final AtomicLongArray buckets  = new AtomicLongArray(BUCKET_COUNT);
+   private final AtomicLong      maxValue = new AtomicLong();
+
+
+
+   /***************************************************************************
+    * record a duration.  negative values (e.g., from a misbehaving clock) are
+    * recorded as 0.
+    ***************************************************************************/
+   public void record(long nanos)
+   {
+      long value = Math.max(nanos, 0);
+      buckets.incrementAndGet(getBucketIndex(value));
+
+      long currentMax = maxValue.get();
+      while(value > currentMax && !maxValue.compareAndSet(currentMax, value))
+      {
+         currentMax = maxValue.get();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the number of values recorded.
+    ***************************************************************************/
+   public long getCount()
+   {
+      long count = 0;
+      for(int i = 0; i < BUCKET_COUNT; i++)
+      {
+         count += buckets.get(i);
+      }
+      return (count);
+   }
+
+
+
+   /***************************************************************************
+    * get the largest value recorded (exactly - not bucketed).
+    ***************************************************************************/
+   public long getMax()
+   {
+      return (maxValue.get());
+   }
+
+
+
+   /***************************************************************************
+    * get the value at a percentile (e.g., 0.99), as the highest value in the
+    * bucket holding it (but never more than the max).  0 if nothing recorded.
+    ***************************************************************************/
+   public long getValueAtPercentile(double percentile)
+   {
+      long count = getCount();
+      if(count == 0)
+      {
+         return (0);
+      }
+
+      long target     = Math.max(1, (long) Math.ceil(percentile * count));
+      long cumulative = 0;
+      for(int i = 0; i < BUCKET_COUNT; i++)
+      {
+         cumulative += buckets.get(i);
+         if(cumulative >= target)
+         {
+            return (Math.min(getBucketHighestValue(i), getMax()));
+         }
+      }
+
+      return (getMax());
+   }
+
+
+
+   /***************************************************************************
+    * summarize the histogram's count, common percentiles and max.
+    ***************************************************************************/
+   public WorkflowLatencySummary getSummary()
+   {
+      return (new WorkflowLatencySummary(getCount(), getValueAtPercentile(0.50), getValueAtPercentile(0.95), getValueAtPercentile(0.99), getMax()));
+   }
+
+
+
+   /***************************************************************************
+    * values below SUB_BUCKET_COUNT get a bucket each; above that, the index is
+    * from the value's highest set bit (its power of two), plus the next
+    * SUB_BUCKET_BITS bits below it.
+    ***************************************************************************/
+   static int getBucketIndex(long value)
+   {
+      if(value < SUB_BUCKET_COUNT)
+      {
+         return ((int) value);
+      }
+
+      int magnitude = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+      int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+      return ((magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket);
+   }
+
+
+
+   /***************************************************************************
+    * inverse of getBucketIndex - the highest value that falls in a bucket.
+    ***************************************************************************/
+   static long getBucketHighestValue(int bucketIndex)
+   {
+      if(bucketIndex < SUB_BUCKET_COUNT)
+      {
+         return (bucketIndex);
+      }
+
+      int  magnitude = bucketIndex / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+      int  subBucket = bucketIndex % SUB_BUCKET_COUNT;
+      int  shift     = magnitude - SUB_BUCKET_BITS;
+      long lowest    = ((long) (SUB_BUCKET_COUNT + subBucket)) << shift;
+      return (lowest + (1L << shift) - 1);
+   }
+
+}
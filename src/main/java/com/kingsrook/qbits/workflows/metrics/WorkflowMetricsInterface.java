@@ -0,0 +1,109 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+
+
+/*******************************************************************************
+ * interface for the registry that the WorkflowExecutor reports metrics to -
+ * run & step latencies, and run, error, step and branch-outcome counts.  These
+ * are recorded for every run, whether or not it is traced (e.g., by a
+ * WorkflowRunLogTracer).
+ *
+ * Methods are called on the executing thread (from any number of threads at
+ * once), inside the step loop - so implementations must be thread-safe, and
+ * should be cheap.  The default implementation, {@link InMemoryWorkflowMetrics},
+ * keeps histograms & counters in memory; an application could instead bind
+ * these calls to its own metrics library (and return null from getSnapshot).
+ *
+ * The implementation to use is set by the qbit config's
+ * workflowMetricsCodeReference, and one instance of it is created on demand in
+ * the {@link WorkflowsRegistry} of each QInstance - see {@link #of(QInstance)}.
+ *******************************************************************************/
+public interface WorkflowMetricsInterface
+{
+
+   /***************************************************************************
+    * record a finished workflow run.
+    ***************************************************************************/
+   void recordRun(Integer workflowId, long durationNanos, boolean hadError);
+
+
+   /***************************************************************************
+    * record a step having been executed.
+    ***************************************************************************/
+   void recordStep(String workflowStepTypeName, long durationNanos);
+
+
+   /***************************************************************************
+    * record the outcome of a branching step (one whose outbound links have
+    * conditions) - that is, its output, as matched against the conditions.
+    ***************************************************************************/
+   void recordBranchOutcome(Integer workflowStepId, String outcome);
+
+
+   /***************************************************************************
+    * get a copy of the metrics recorded so far, if this implementation keeps
+    * them (e.g., for the WorkflowMetricsWidget, or JMX) - else null.
+    ***************************************************************************/
+   default WorkflowMetricsSnapshot getSnapshot()
+   {
+      return (null);
+   }
+
+
+   /***************************************************************************
+    * get the metrics registry for a QInstance - creating it (from the qbit's
+    * config, or its defaults) on first use.
+    ***************************************************************************/
+   static WorkflowMetricsInterface of(QInstance qInstance)
+   {
+      WorkflowsRegistry        workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      WorkflowMetricsInterface workflowMetrics   = workflowsRegistry.getWorkflowMetrics();
+      if(workflowMetrics != null)
+      {
+         return (workflowMetrics);
+      }
+
+      synchronized(workflowsRegistry)
+      {
+         if(workflowsRegistry.getWorkflowMetrics() == null)
+         {
+            WorkflowsQBitConfig config = WorkflowsQBitConfig.of(qInstance);
+            workflowMetrics = config.getWorkflowMetricsCodeReference() == null ? new NoopWorkflowMetrics() : QCodeLoader.getAdHoc(WorkflowMetricsInterface.class, config.getWorkflowMetricsCodeReference());
+            if(config.getWorkflowMetricsJmxEnabled())
+            {
+               WorkflowMetricsJmxBinding.register(workflowMetrics);
+            }
+            workflowsRegistry.setWorkflowMetrics(workflowMetrics);
+         }
+
+         return (workflowsRegistry.getWorkflowMetrics());
+      }
+   }
+
+}
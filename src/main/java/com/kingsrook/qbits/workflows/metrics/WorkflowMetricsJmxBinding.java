@@ -0,0 +1,198 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * binding of a {@link WorkflowMetricsInterface} to JMX - registered (when the
+ * qbit config's workflowMetricsJmxEnabled is set) in the platform MBean server
+ * under OBJECT_NAME.  Attributes are read from the metrics' snapshot, so only
+ * implementations that keep one (e.g., InMemoryWorkflowMetrics) show values.
+ *******************************************************************************/
+public class WorkflowMetricsJmxBinding implements WorkflowMetricsMXBean
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowMetricsJmxBinding.class);
+
+   public static final String OBJECT_NAME = "com.kingsrook.qbits.workflows:type=WorkflowMetrics";
+
+   private final WorkflowMetricsInterface workflowMetrics;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowMetricsJmxBinding(WorkflowMetricsInterface workflowMetrics)
+   {
+      this.workflowMetrics = workflowMetrics;
+   }
+
+
+
+   /***************************************************************************
+    * register a binding for the given metrics - replacing any previously
+    * registered one (e.g., from an earlier QInstance).  Failures are logged,
+    * not thrown, as metrics shouldn't stop workflows from running.
+    ***************************************************************************/
+   public static void register(WorkflowMetricsInterface workflowMetrics)
+   {
+      try
+      {
+         MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+         ObjectName  objectName  = new ObjectName(OBJECT_NAME);
+         synchronized(WorkflowMetricsJmxBinding.class)
+         {
+            if(mBeanServer.isRegistered(objectName))
+            {
+               mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(new WorkflowMetricsJmxBinding(workflowMetrics), objectName);
+         }
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error registering workflow metrics with JMX", e, logPair("objectName", OBJECT_NAME));
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public long getRunCount()
+   {
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      return (snapshot == null ? 0 : snapshot.runCount());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public long getErrorCount()
+   {
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      return (snapshot == null ? 0 : snapshot.errorCount());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public long getStepsExecutedCount()
+   {
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      return (snapshot == null ? 0 : snapshot.stepsExecutedCount());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Map<String, String> getStepTypeLatencies()
+   {
+      Map<String, String>     rs       = new LinkedHashMap<>();
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      if(snapshot != null)
+      {
+         snapshot.stepTypeLatencies().forEach((workflowStepTypeName, summary) -> rs.put(workflowStepTypeName, formatSummary(summary)));
+      }
+      return (rs);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Map<String, String> getWorkflowRunLatencies()
+   {
+      Map<String, String>     rs       = new LinkedHashMap<>();
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      if(snapshot != null)
+      {
+         snapshot.workflowRunLatencies().forEach((workflowId, summary) -> rs.put(String.valueOf(workflowId), formatSummary(summary)));
+      }
+      return (rs);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Map<String, Long> getBranchOutcomeCounts()
+   {
+      Map<String, Long>       rs       = new LinkedHashMap<>();
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      if(snapshot != null)
+      {
+         snapshot.branchOutcomeCounts().forEach((workflowStepId, counts) -> counts.forEach((outcome, count) -> rs.put(workflowStepId + ":" + outcome, count)));
+      }
+      return (rs);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   static String formatSummary(WorkflowLatencySummary summary)
+   {
+      return ("count=" + summary.count()
+         + " p50=" + formatMillis(summary.p50Nanos())
+         + " p95=" + formatMillis(summary.p95Nanos())
+         + " p99=" + formatMillis(summary.p99Nanos())
+         + " max=" + formatMillis(summary.maxNanos()));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   static String formatMillis(long nanos)
+   {
+      return (String.format("%.3fms", nanos / 1_000_000.0));
+   }
+
+}
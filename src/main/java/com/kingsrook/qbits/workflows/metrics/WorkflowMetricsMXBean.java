@@ -0,0 +1,66 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.Map;
+
+
+/*******************************************************************************
+ * JMX view of workflow metrics - see {@link WorkflowMetricsJmxBinding}.
+ * Latencies are given as summary strings (count, p50, p95, p99 and max, in
+ * milliseconds), so they read well in a generic JMX console.
+ *******************************************************************************/
+public interface WorkflowMetricsMXBean
+{
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   long getRunCount();
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   long getErrorCount();
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   long getStepsExecutedCount();
+
+   /***************************************************************************
+    * latency summary by workflow step type name.
+    ***************************************************************************/
+   Map<String, String> getStepTypeLatencies();
+
+   /***************************************************************************
+    * run latency summary by workflow id.
+    ***************************************************************************/
+   Map<String, String> getWorkflowRunLatencies();
+
+   /***************************************************************************
+    * branch outcome counts, keyed by "workflowStepId:outcome".
+    ***************************************************************************/
+   Map<String, Long> getBranchOutcomeCounts();
+
+}
@@ -0,0 +1,47 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.Map;
+
+
+/*******************************************************************************
+ * point-in-time copy of the metrics kept by a {@link WorkflowMetricsInterface}.
+ *
+ * @param runCount              number of workflow runs (including failures)
+ * @param errorCount            number of workflow runs that failed
+ * @param stepsExecutedCount    number of steps executed, over all runs
+ * @param workflowRunLatencies  run latency, by workflow id
+ * @param stepTypeLatencies     step latency, by workflow step type name
+ * @param branchOutcomeCounts   for each branching step (by workflow step id),
+ *                              the number of times each outcome (the value
+ *                              matched against its links' conditions) occurred
+ *******************************************************************************/
+public record WorkflowMetricsSnapshot(long runCount,
+                                      long errorCount,
+                                      long stepsExecutedCount,
+                                      Map<Integer, WorkflowLatencySummary> workflowRunLatencies,
+                                      Map<String, WorkflowLatencySummary> stepTypeLatencies,
+                                      Map<Integer, Map<String, Long>> branchOutcomeCounts)
+{
+}
@@ -0,0 +1,404 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutionPlan;
+import com.kingsrook.qbits.workflows.model.WorkflowStepStats;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.session.QSystemUserSession;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * holds the {@link WorkflowStepStatsCounters} for each workflow revision that
+ * has been executed (when the qbit config's workflowStepStatsEnabled is set),
+ * and runs a background flusher thread that adds what they've counted to the
+ * workflowStepStats table (see {@link WorkflowStepStats}) every
+ * flushIntervalMillis - giving a per-revision heatmap of which steps & links
+ * are hot, and which are dead, without querying workflowRunLogStep rows.
+ *
+ * Counters are kept (one small set per revision) for the life of the
+ * aggregator.  As they're indexed by the revision's execution plan, if the
+ * plan is recompiled (e.g., after the plan cache evicts it), its counters are
+ * replaced - the old ones are retired, and drained at each flush until one
+ * finds nothing left in them (from runs that started with the old plan).  Rows are upserted by reading them and then inserting or
+ * updating; counts that fail to store are put back, to be retried at the
+ * next flush.
+ *
+ * The flusher runs as the system user, in the QInstance that the aggregator
+ * was created in.  shutdown stops it, after it flushes whatever is left - and
+ * is called from a JVM shutdown hook (and by the {@link WorkflowsRegistry},
+ * when the aggregator is replaced).  One of these is created on demand in the
+ * {@link WorkflowsRegistry} of each QInstance - see {@link #of(QInstance)}.
+ *******************************************************************************/
+public class WorkflowStepStatsAggregator
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowStepStatsAggregator.class);
+
+   private final Map<Integer, WorkflowStepStatsCounters> countersByRevisionId = new ConcurrentHashMap<>();
+   private final Queue<WorkflowStepStatsCounters>        retiredCounters      = new ConcurrentLinkedQueue<>();
+   private final long                                    flushIntervalMillis;
+   private final QInstance                               qInstance;
+
+   private final Object flushLock  = new Object();
+   private final Object flushAlarm = new Object();
+
+   private final    Thread  flusherThread;
+   private final    Thread  shutdownHook;
+   private volatile boolean running = true;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowStepStatsAggregator(long flushIntervalMillis)
+   {
+      this.flushIntervalMillis = flushIntervalMillis;
+      this.qInstance = QContext.getQInstance();
+
+      this.flusherThread = new Thread(this::runFlusher, "workflow-step-stats-flusher");
+      this.flusherThread.setDaemon(true);
+      this.flusherThread.start();
+
+      this.shutdownHook = new Thread(this::shutdown, "workflow-step-stats-shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+   }
+
+
+
+   /***************************************************************************
+    * get the aggregator for a QInstance - creating it (from the qbit's
+    * config, or its defaults) on first use.
+    ***************************************************************************/
+   public static WorkflowStepStatsAggregator of(QInstance qInstance) throws QException
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      if(workflowsRegistry == null)
+      {
+         throw (new QException("The Workflows QBit has not been set up in this QInstance (it has no WorkflowsRegistry)"));
+      }
+
+      WorkflowStepStatsAggregator workflowStepStatsAggregator = workflowsRegistry.getWorkflowStepStatsAggregator();
+      if(workflowStepStatsAggregator != null)
+      {
+         return (workflowStepStatsAggregator);
+      }
+
+      synchronized(workflowsRegistry)
+      {
+         if(workflowsRegistry.getWorkflowStepStatsAggregator() == null)
+         {
+            workflowsRegistry.setWorkflowStepStatsAggregator(new WorkflowStepStatsAggregator(WorkflowsQBitConfig.of(qInstance).getWorkflowStepStatsFlushIntervalMillis()));
+         }
+
+         return (workflowsRegistry.getWorkflowStepStatsAggregator());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the counters for a plan's revision, for the executor to count into -
+    * or null if step stats aren't enabled in the qbit config.  If the revision
+    * has counters for a different plan, they're replaced (and retired).
+    ***************************************************************************/
+   public static WorkflowStepStatsCounters getCounters(QInstance qInstance, Integer workflowId, WorkflowExecutionPlan plan) throws QException
+   {
+      Integer workflowRevisionId = plan.getWorkflowRevision().getId();
+      if(!WorkflowsQBitConfig.of(qInstance).getWorkflowStepStatsEnabled() || workflowRevisionId == null)
+      {
+         return (null);
+      }
+
+      WorkflowStepStatsAggregator aggregator = of(qInstance);
+      WorkflowStepStatsCounters   counters   = aggregator.countersByRevisionId.get(workflowRevisionId);
+      if(counters != null && counters.getPlan() == plan)
+      {
+         return (counters);
+      }
+
+      return (aggregator.countersByRevisionId.compute(workflowRevisionId, (id, existing) ->
+      {
+         if(existing != null && existing.getPlan() == plan)
+         {
+            return (existing);
+         }
+
+         if(existing != null)
+         {
+            aggregator.retiredCounters.add(existing);
+         }
+         return (new WorkflowStepStatsCounters(workflowId, plan));
+      }));
+   }
+
+
+
+   /***************************************************************************
+    * synchronously upsert everything counted since the last flush, on the
+    * calling thread (using its QContext).
+    ***************************************************************************/
+   public void flush()
+   {
+      synchronized(flushLock)
+      {
+         List<WorkflowStepStatsCounters.Delta> deltas = new ArrayList<>();
+         countersByRevisionId.values().forEach(counters -> deltas.addAll(counters.drain()));
+
+         for(Iterator<WorkflowStepStatsCounters> iterator = retiredCounters.iterator(); iterator.hasNext(); )
+         {
+            List<WorkflowStepStatsCounters.Delta> retiredDeltas = iterator.next().drain();
+            if(retiredDeltas.isEmpty())
+            {
+               iterator.remove();
+            }
+            deltas.addAll(retiredDeltas);
+         }
+
+         if(deltas.isEmpty())
+         {
+            return;
+         }
+
+         try
+         {
+            upsert(deltas);
+         }
+         catch(Exception e)
+         {
+            LOG.warn("Error flushing workflow step stats - will retry at next flush", e, logPair("count", deltas.size()));
+            deltas.forEach(WorkflowStepStatsCounters.Delta::restore);
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * stop the flusher - waiting for it to flush everything that's counted.
+    ***************************************************************************/
+   public void shutdown()
+   {
+      //////////////////////////////////////////////////////////////////////
+      // (unless this is the shutdown hook running) the hook is no longer //
+      // needed - so remove it, for this to be garbage collected          //
+      //////////////////////////////////////////////////////////////////////
+      if(Thread.currentThread() != shutdownHook)
+      {
+         try
+         {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+         }
+         catch(IllegalStateException e)
+         {
+            ////////////////////////////////////////////////////
+            // the JVM is already shutting down - leave it be //
+            ////////////////////////////////////////////////////
+         }
+      }
+
+      running = false;
+      synchronized(flushAlarm)
+      {
+         flushAlarm.notifyAll();
+      }
+
+      try
+      {
+         flusherThread.join();
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         LOG.warn("Interrupted while waiting for workflow step stats flusher to finish", logPair("revisionCount", countersByRevisionId.size()));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * the flusher thread's loop - flushing every flush interval, until
+    * shutdown (when it flushes once more).
+    ***************************************************************************/
+   private void runFlusher()
+   {
+      QContext.init(qInstance, new QSystemUserSession());
+      try
+      {
+         while(running)
+         {
+            awaitFlush();
+            flush();
+         }
+         flush();
+      }
+      catch(Throwable t)
+      {
+         LOG.warn("Error in workflow step stats flusher", t);
+      }
+      finally
+      {
+         QContext.clear();
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void awaitFlush()
+   {
+      long deadline = System.currentTimeMillis() + flushIntervalMillis;
+      synchronized(flushAlarm)
+      {
+         long remaining = flushIntervalMillis;
+         while(running && remaining > 0)
+         {
+            try
+            {
+               flushAlarm.wait(remaining);
+            }
+            catch(InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               return;
+            }
+            remaining = deadline - System.currentTimeMillis();
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * add deltas to their rows - updating the ones that exist, and inserting
+    * the rest.  Deltas whose insert or update fail are put back.
+    ***************************************************************************/
+   private void upsert(List<WorkflowStepStatsCounters.Delta> deltas) throws QException
+   {
+      List<Integer> workflowRevisionIds = deltas.stream().map(d -> d.counters().getWorkflowRevisionId()).distinct().toList();
+
+      Map<RowKey, WorkflowStepStats> existingRows = new HashMap<>();
+      for(QRecord record : QueryAction.execute(WorkflowStepStats.TABLE_NAME, new QQueryFilter(new QFilterCriteria("workflowRevisionId", QCriteriaOperator.IN, workflowRevisionIds))))
+      {
+         WorkflowStepStats row = new WorkflowStepStats(record);
+         existingRows.put(new RowKey(row.getWorkflowRevisionId(), row.getStepNo(), row.getToStepNo()), row);
+      }
+
+      List<WorkflowStepStatsCounters.Delta> insertDeltas = new ArrayList<>();
+      List<QRecord>                         insertRows   = new ArrayList<>();
+      List<WorkflowStepStatsCounters.Delta> updateDeltas = new ArrayList<>();
+      List<QRecord>                         updateRows   = new ArrayList<>();
+      for(WorkflowStepStatsCounters.Delta delta : deltas)
+      {
+         WorkflowStepStats existingRow = existingRows.get(new RowKey(delta.counters().getWorkflowRevisionId(), delta.stepNo(), delta.toStepNo()));
+         if(existingRow == null)
+         {
+            insertDeltas.add(delta);
+            insertRows.add(new WorkflowStepStats()
+               .withWorkflowId(delta.counters().getWorkflowId())
+               .withWorkflowRevisionId(delta.counters().getWorkflowRevisionId())
+               .withWorkflowStepId(delta.counters().getWorkflowStepId(delta.stepNo()))
+               .withStepNo(delta.stepNo())
+               .withToStepNo(delta.toStepNo())
+               .withVisitCount(delta.count())
+               .toQRecord());
+         }
+         else
+         {
+            updateDeltas.add(delta);
+            updateRows.add(existingRow.withVisitCount(Objects.requireNonNullElse(existingRow.getVisitCount(), 0L) + delta.count()).toQRecord());
+         }
+      }
+
+      if(!insertRows.isEmpty())
+      {
+         restoreFailures(insertDeltas, new InsertAction().execute(new InsertInput(WorkflowStepStats.TABLE_NAME).withRecords(insertRows)).getRecords());
+      }
+
+      if(!updateRows.isEmpty())
+      {
+         restoreFailures(updateDeltas, new UpdateAction().execute(new UpdateInput(WorkflowStepStats.TABLE_NAME).withRecords(updateRows)).getRecords());
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void restoreFailures(List<WorkflowStepStatsCounters.Delta> deltas, List<QRecord> outputRecords)
+   {
+      int errorCount = 0;
+      for(int i = 0; i < deltas.size() && i < outputRecords.size(); i++)
+      {
+         if(CollectionUtils.nullSafeHasContents(outputRecords.get(i).getErrors()))
+         {
+            deltas.get(i).restore();
+            errorCount++;
+         }
+      }
+
+      if(errorCount > 0)
+      {
+         LOG.warn("Errors storing workflow step stats - will retry at next flush", logPair("count", deltas.size()), logPair("errorCount", errorCount));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * identity of a row in the workflowStepStats table.
+    ***************************************************************************/
+   private record RowKey(Integer workflowRevisionId, Integer stepNo, Integer toStepNo)
+   {
+   }
+
+}
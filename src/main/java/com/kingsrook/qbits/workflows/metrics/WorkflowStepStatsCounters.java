@@ -0,0 +1,232 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutionPlan;
+import com.kingsrook.qbits.workflows.model.WorkflowLink;
+import com.kingsrook.qbits.workflows.model.WorkflowStep;
+
+
+/*******************************************************************************
+ * lock-free visit & link counters for the steps of one workflow revision,
+ * indexed by the revision's (compiled) execution plan: one slot per step
+ * index, and one per outbound link of each step.  The WorkflowExecutor
+ * increments these as it runs (from any number of threads at once), and the
+ * {@link WorkflowStepStatsAggregator} drains them into the workflowStepStats
+ * table.
+ *******************************************************************************/
+public class WorkflowStepStatsCounters
+{
+   private final Integer               workflowId;
+   private final WorkflowExecutionPlan plan;
+
+   private final AtomicLongArray visitCounts;
+   private final int[]           linkOffsets;
+   private final AtomicLongArray linkCounts;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowStepStatsCounters(Integer workflowId, WorkflowExecutionPlan plan)
+   {
+      this.workflowId = workflowId;
+      this.plan = plan;
+
+      int stepCount = plan.getStepCount();
+      this.visitCounts = new AtomicLongArray(stepCount);
+      this.linkOffsets = new int[stepCount + 1];
+      for(int i = 0; i < stepCount; i++)
+      {
+         linkOffsets[i + 1] = linkOffsets[i] + (plan.getStep(i) == null ? 0 : plan.getOutboundLinkTargets(i).length);
+      }
+      this.linkCounts = new AtomicLongArray(linkOffsets[stepCount]);
+   }
+
+
+
+   /***************************************************************************
+    * count a visit to the step at an index.
+    ***************************************************************************/
+   public void recordVisit(int stepIndex)
+   {
+      visitCounts.incrementAndGet(stepIndex);
+   }
+
+
+
+   /***************************************************************************
+    * count the move from one step to the next - if the next step is the
+    * target of one of the from-step's own outbound links (rather than, e.g.,
+    * reached by popping out of a container).
+    ***************************************************************************/
+   public void recordLink(int fromStepIndex, int toStepIndex)
+   {
+      if(toStepIndex == WorkflowExecutionPlan.NO_STEP || plan.getStep(fromStepIndex) == null)
+      {
+         return;
+      }
+
+      int[] targets = plan.getOutboundLinkTargets(fromStepIndex);
+      for(int i = 0; i < targets.length; i++)
+      {
+         if(targets[i] == toStepIndex)
+         {
+            linkCounts.incrementAndGet(linkOffsets[fromStepIndex] + i);
+            return;
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * add the counts recorded here to another set of counters for the same
+    * revision (e.g., counts that were held back until the transaction that the
+    * runs shared had committed).
+    ***************************************************************************/
+   public void addTo(WorkflowStepStatsCounters target)
+   {
+      for(int i = 0; i < Math.min(visitCounts.length(), target.visitCounts.length()); i++)
+      {
+         long count = visitCounts.get(i);
+         if(count != 0)
+         {
+            target.visitCounts.addAndGet(i, count);
+         }
+      }
+
+      for(int i = 0; i < Math.min(linkCounts.length(), target.linkCounts.length()); i++)
+      {
+         long count = linkCounts.get(i);
+         if(count != 0)
+         {
+            target.linkCounts.addAndGet(i, count);
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * take (and reset) the counts recorded since the last drain.
+    ***************************************************************************/
+   List<Delta> drain()
+   {
+      List<Delta> deltas = new ArrayList<>();
+      for(int i = 0; i < visitCounts.length(); i++)
+      {
+         long count = visitCounts.getAndSet(i, 0);
+         if(count != 0)
+         {
+            deltas.add(new Delta(this, false, i, plan.getStepNo(i), null, count));
+         }
+      }
+
+      for(int i = 0; i < visitCounts.length(); i++)
+      {
+         WorkflowLink[] links = plan.getStep(i) == null ? new WorkflowLink[0] : plan.getOutboundLinks(i);
+         for(int j = 0; j < links.length; j++)
+         {
+            long count = linkCounts.getAndSet(linkOffsets[i] + j, 0);
+            if(count != 0)
+            {
+               deltas.add(new Delta(this, true, linkOffsets[i] + j, plan.getStepNo(i), links[j].getToStepNo(), count));
+            }
+         }
+      }
+
+      return (deltas);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   WorkflowExecutionPlan getPlan()
+   {
+      return (plan);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   Integer getWorkflowId()
+   {
+      return (workflowId);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   Integer getWorkflowRevisionId()
+   {
+      return (plan.getWorkflowRevision().getId());
+   }
+
+
+
+   /***************************************************************************
+    * get the id of the step with a stepNo (null if it isn't in the revision).
+    ***************************************************************************/
+   Integer getWorkflowStepId(int stepNo)
+   {
+      for(int i = 0; i < plan.getStepCount(); i++)
+      {
+         WorkflowStep step = plan.getStep(i);
+         if(step != null && plan.getStepNo(i) == stepNo)
+         {
+            return (step.getId());
+         }
+      }
+      return (null);
+   }
+
+
+
+   /***************************************************************************
+    * counts drained from one slot - to be added to the row for
+    * (revision, stepNo, toStepNo), or put back if that fails.
+    ***************************************************************************/
+   record Delta(WorkflowStepStatsCounters counters, boolean isLink, int slot, int stepNo, Integer toStepNo, long count)
+   {
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      void restore()
+      {
+         (isLink ? counters.linkCounts : counters.visitCounts).addAndGet(slot, count);
+      }
+   }
+
+}
@@ -120,6 +120,8 @@ public class Workflow extends QRecordEntity implements Serializable
             .withSection(SectionFactory.defaultT3("createDate", "modifyDate"));
 
          table.withCustomizer(TableCustomizers.PRE_INSERT_RECORD, new QCodeReference(WorkflowTableCustomizer.class));
+         table.withCustomizer(TableCustomizers.POST_UPDATE_RECORD, new QCodeReference(WorkflowTableCustomizer.class));
+         table.withCustomizer(TableCustomizers.POST_DELETE_RECORD, new QCodeReference(WorkflowTableCustomizer.class));
 
          return (table);
       }
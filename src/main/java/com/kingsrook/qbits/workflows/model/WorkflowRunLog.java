@@ -22,6 +22,7 @@
 package com.kingsrook.qbits.workflows.model;
 
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -72,6 +73,9 @@ import static com.kingsrook.qqq.backend.core.model.metadata.fields.AdornmentType
 )
 public class WorkflowRunLog extends QRecordEntity implements Serializable
 {
+   @Serial
+   private static final long serialVersionUID = 1L;
+
    public static final String TABLE_NAME = "workflowRunLog";
 
    public static final String STEPS_ASSOCIATION_NAME = "workflowRunLogSteps";
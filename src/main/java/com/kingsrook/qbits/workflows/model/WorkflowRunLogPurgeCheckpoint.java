@@ -0,0 +1,343 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.model;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.data.QField;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.ValueTooLongBehavior;
+import com.kingsrook.qqq.backend.core.model.metadata.layout.QIcon;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.annotations.QMetaDataProducingEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.UniqueKey;
+
+
+/*******************************************************************************
+ ** QRecord Entity for WorkflowRunLogPurgeCheckpoint table - the progress of the
+ ** PurgeWorkflowRunLogsProcess, for each of its retention rules: the
+ ** startTimestamp up to which run logs have been purged (so the next run of
+ ** the process resumes from there), a hash of the workflows the rule covered
+ ** (so the process can tell when that changes), and when the rule was last
+ ** purged from the start of the table.
+ *******************************************************************************/
+@QMetaDataProducingEntity(
+   produceTableMetaData = true,
+   tableMetaDataCustomizer = WorkflowRunLogPurgeCheckpoint.TableMetaDataCustomizer.class
+)
+public class WorkflowRunLogPurgeCheckpoint extends QRecordEntity implements Serializable
+{
+   public static final String TABLE_NAME = "workflowRunLogPurgeCheckpoint";
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public static class TableMetaDataCustomizer implements MetaDataCustomizerInterface<QTableMetaData>
+   {
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QTableMetaData customizeMetaData(QInstance qInstance, QTableMetaData table) throws QException
+      {
+         table
+            .withIcon(new QIcon().withName("auto_delete"))
+            .withRecordLabelFormat("%s")
+            .withRecordLabelFields("ruleKey")
+            .withUniqueKey(new UniqueKey("ruleKey"))
+            .withSection(SectionFactory.defaultT1("id", "ruleKey"))
+            .withSection(SectionFactory.defaultT2("purgedThroughTimestamp", "ruleScopeHash", "lastFullScanTimestamp"))
+            .withSection(SectionFactory.defaultT3("createDate", "modifyDate"));
+
+         return (table);
+      }
+   }
+
+
+
+   @QField(isEditable = false, isPrimaryKey = true)
+   private Integer id;
+
+   @QField(isEditable = false)
+   private Instant createDate;
+
+   @QField(isEditable = false)
+   private Instant modifyDate;
+
+   @QField(maxLength = 100, valueTooLongBehavior = ValueTooLongBehavior.ERROR, isRequired = true)
+   private String ruleKey;
+
+   @QField()
+   private Instant purgedThroughTimestamp;
+
+   @QField()
+   private Integer ruleScopeHash;
+
+   @QField()
+   private Instant lastFullScanTimestamp;
+
+
+
+   /*******************************************************************************
+    ** Default constructor
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint()
+   {
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor that takes a QRecord
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint(QRecord record)
+   {
+      populateFromQRecord(record);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for id
+    *******************************************************************************/
+   public Integer getId()
+   {
+      return (id);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for id
+    *******************************************************************************/
+   public void setId(Integer id)
+   {
+      this.id = id;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for id
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withId(Integer id)
+   {
+      setId(id);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for createDate
+    *******************************************************************************/
+   public Instant getCreateDate()
+   {
+      return (createDate);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for createDate
+    *******************************************************************************/
+   public void setCreateDate(Instant createDate)
+   {
+      this.createDate = createDate;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for createDate
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withCreateDate(Instant createDate)
+   {
+      setCreateDate(createDate);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for modifyDate
+    *******************************************************************************/
+   public Instant getModifyDate()
+   {
+      return (modifyDate);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for modifyDate
+    *******************************************************************************/
+   public void setModifyDate(Instant modifyDate)
+   {
+      this.modifyDate = modifyDate;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for modifyDate
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withModifyDate(Instant modifyDate)
+   {
+      setModifyDate(modifyDate);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for ruleKey
+    *******************************************************************************/
+   public String getRuleKey()
+   {
+      return (ruleKey);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for ruleKey
+    *******************************************************************************/
+   public void setRuleKey(String ruleKey)
+   {
+      this.ruleKey = ruleKey;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for ruleKey
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withRuleKey(String ruleKey)
+   {
+      setRuleKey(ruleKey);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for purgedThroughTimestamp
+    *******************************************************************************/
+   public Instant getPurgedThroughTimestamp()
+   {
+      return (purgedThroughTimestamp);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for purgedThroughTimestamp
+    *******************************************************************************/
+   public void setPurgedThroughTimestamp(Instant purgedThroughTimestamp)
+   {
+      this.purgedThroughTimestamp = purgedThroughTimestamp;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for purgedThroughTimestamp
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withPurgedThroughTimestamp(Instant purgedThroughTimestamp)
+   {
+      setPurgedThroughTimestamp(purgedThroughTimestamp);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for ruleScopeHash
+    *******************************************************************************/
+   public Integer getRuleScopeHash()
+   {
+      return (ruleScopeHash);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for ruleScopeHash
+    *******************************************************************************/
+   public void setRuleScopeHash(Integer ruleScopeHash)
+   {
+      this.ruleScopeHash = ruleScopeHash;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for ruleScopeHash
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withRuleScopeHash(Integer ruleScopeHash)
+   {
+      setRuleScopeHash(ruleScopeHash);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for lastFullScanTimestamp
+    *******************************************************************************/
+   public Instant getLastFullScanTimestamp()
+   {
+      return (lastFullScanTimestamp);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for lastFullScanTimestamp
+    *******************************************************************************/
+   public void setLastFullScanTimestamp(Instant lastFullScanTimestamp)
+   {
+      this.lastFullScanTimestamp = lastFullScanTimestamp;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for lastFullScanTimestamp
+    *******************************************************************************/
+   public WorkflowRunLogPurgeCheckpoint withLastFullScanTimestamp(Instant lastFullScanTimestamp)
+   {
+      setLastFullScanTimestamp(lastFullScanTimestamp);
+      return (this);
+   }
+
+}
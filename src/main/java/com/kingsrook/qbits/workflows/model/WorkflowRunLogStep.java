@@ -22,6 +22,7 @@
 package com.kingsrook.qbits.workflows.model;
 
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -51,6 +52,9 @@ import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
 )
 public class WorkflowRunLogStep extends QRecordEntity implements Serializable
 {
+   @Serial
+   private static final long serialVersionUID = 1L;
+
    public static final String TABLE_NAME = "workflowRunLogStep";
 
 
@@ -73,7 +77,7 @@ public class WorkflowRunLogStep extends QRecordEntity implements Serializable
             .withRecordLabelFields("seqNo", "workflowRunLogId")
             .withSection(SectionFactory.defaultT1("id", "workflowRunLogId", "seqNo"))
             .withSection(SectionFactory.defaultT2("workflowStepId", "message", "outputData"))
-            .withSection(SectionFactory.defaultT3("startTimestamp", "endTimestamp"));
+            .withSection(SectionFactory.defaultT3("startTimestamp", "endTimestamp", "durationMillis"));
 
          table.getField("id").withFieldAdornment(AdornmentType.Size.SMALL.toAdornment());
          table.getField("seqNo").withFieldAdornment(AdornmentType.Size.XSMALL.toAdornment());
@@ -129,6 +133,9 @@ public class WorkflowRunLogStep extends QRecordEntity implements Serializable
    @QField(isEditable = false)
    private Instant endTimestamp;
 
+   @QField(isEditable = false)
+   private Long durationMillis;
+
 
 
    /*******************************************************************************
@@ -396,4 +403,35 @@ public class WorkflowRunLogStep extends QRecordEntity implements Serializable
       return (this);
    }
 
+
+
+   /*******************************************************************************
+    ** Getter for durationMillis
+    *******************************************************************************/
+   public Long getDurationMillis()
+   {
+      return (this.durationMillis);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for durationMillis
+    *******************************************************************************/
+   public void setDurationMillis(Long durationMillis)
+   {
+      this.durationMillis = durationMillis;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for durationMillis
+    *******************************************************************************/
+   public WorkflowRunLogStep withDurationMillis(Long durationMillis)
+   {
+      this.durationMillis = durationMillis;
+      return (this);
+   }
+
 }
@@ -0,0 +1,552 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.model;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunStatsTracer;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.data.QField;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.ValueTooLongBehavior;
+import com.kingsrook.qqq.backend.core.model.metadata.layout.QIcon;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.annotations.QMetaDataProducingEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.UniqueKey;
+
+
+/*******************************************************************************
+ ** QRecord Entity for WorkflowRunStats table - rollups of workflow runs, per
+ ** workflow, revision and hour (by the runs' start timestamps): how many ran,
+ ** how many had errors, their total, min & max durations, and how many steps
+ ** they executed.  Maintained incrementally by the {@link WorkflowRunStatsTracer},
+ ** so questions like "how is workflow X doing this week" can be answered
+ ** without scanning the workflowRunLog table.
+ **
+ ** Each server (nodeId) keeps its own row per workflow, revision and hour - so
+ ** servers never update the same row - and readers sum the rows across nodes.
+ *******************************************************************************/
+@QMetaDataProducingEntity(
+   produceTableMetaData = true,
+   tableMetaDataCustomizer = WorkflowRunStats.TableMetaDataCustomizer.class
+)
+public class WorkflowRunStats extends QRecordEntity implements Serializable
+{
+   public static final String TABLE_NAME = "workflowRunStats";
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public static class TableMetaDataCustomizer implements MetaDataCustomizerInterface<QTableMetaData>
+   {
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QTableMetaData customizeMetaData(QInstance qInstance, QTableMetaData table) throws QException
+      {
+         table
+            .withIcon(new QIcon().withName("query_stats"))
+            .withRecordLabelFormat("%s (%s) %s")
+            .withRecordLabelFields("workflowId", "workflowRevisionId", "hourStartTimestamp")
+            .withUniqueKey(new UniqueKey("workflowId", "workflowRevisionId", "hourStartTimestamp", "nodeId"))
+            .withSection(SectionFactory.defaultT1("id", "workflowId", "workflowRevisionId", "hourStartTimestamp", "nodeId"))
+            .withSection(SectionFactory.defaultT2("runCount", "errorCount", "stepCount").withName("counts").withGridColumns(6))
+            .withSection(SectionFactory.defaultT2("totalDurationMillis", "minDurationMillis", "maxDurationMillis").withName("durations").withGridColumns(6))
+            .withSection(SectionFactory.defaultT3("createDate", "modifyDate"));
+
+         return (table);
+      }
+   }
+
+
+
+   @QField(isEditable = false, isPrimaryKey = true)
+   private Integer id;
+
+   @QField(isEditable = false)
+   private Instant createDate;
+
+   @QField(isEditable = false)
+   private Instant modifyDate;
+
+   @QField(possibleValueSourceName = Workflow.TABLE_NAME, isEditable = false)
+   private Integer workflowId;
+
+   @QField(possibleValueSourceName = WorkflowRevision.TABLE_NAME, isEditable = false)
+   private Integer workflowRevisionId;
+
+   @QField(isEditable = false)
+   private Instant hourStartTimestamp;
+
+   @QField(isEditable = false, maxLength = 100, valueTooLongBehavior = ValueTooLongBehavior.ERROR)
+   private String nodeId;
+
+   @QField(isEditable = false)
+   private Integer runCount;
+
+   @QField(isEditable = false)
+   private Integer errorCount;
+
+   @QField(isEditable = false)
+   private Long totalDurationMillis;
+
+   @QField(isEditable = false)
+   private Long minDurationMillis;
+
+   @QField(isEditable = false)
+   private Long maxDurationMillis;
+
+   @QField(isEditable = false)
+   private Long stepCount;
+
+
+
+   /*******************************************************************************
+    ** Default constructor
+    *******************************************************************************/
+   public WorkflowRunStats()
+   {
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor that takes a QRecord
+    *******************************************************************************/
+   public WorkflowRunStats(QRecord record)
+   {
+      populateFromQRecord(record);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for id
+    *******************************************************************************/
+   public Integer getId()
+   {
+      return (id);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for id
+    *******************************************************************************/
+   public void setId(Integer id)
+   {
+      this.id = id;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for id
+    *******************************************************************************/
+   public WorkflowRunStats withId(Integer id)
+   {
+      setId(id);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for createDate
+    *******************************************************************************/
+   public Instant getCreateDate()
+   {
+      return (createDate);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for createDate
+    *******************************************************************************/
+   public void setCreateDate(Instant createDate)
+   {
+      this.createDate = createDate;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for createDate
+    *******************************************************************************/
+   public WorkflowRunStats withCreateDate(Instant createDate)
+   {
+      setCreateDate(createDate);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for modifyDate
+    *******************************************************************************/
+   public Instant getModifyDate()
+   {
+      return (modifyDate);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for modifyDate
+    *******************************************************************************/
+   public void setModifyDate(Instant modifyDate)
+   {
+      this.modifyDate = modifyDate;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for modifyDate
+    *******************************************************************************/
+   public WorkflowRunStats withModifyDate(Instant modifyDate)
+   {
+      setModifyDate(modifyDate);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for workflowId
+    *******************************************************************************/
+   public Integer getWorkflowId()
+   {
+      return (workflowId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for workflowId
+    *******************************************************************************/
+   public void setWorkflowId(Integer workflowId)
+   {
+      this.workflowId = workflowId;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for workflowId
+    *******************************************************************************/
+   public WorkflowRunStats withWorkflowId(Integer workflowId)
+   {
+      setWorkflowId(workflowId);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for workflowRevisionId
+    *******************************************************************************/
+   public Integer getWorkflowRevisionId()
+   {
+      return (workflowRevisionId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for workflowRevisionId
+    *******************************************************************************/
+   public void setWorkflowRevisionId(Integer workflowRevisionId)
+   {
+      this.workflowRevisionId = workflowRevisionId;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for workflowRevisionId
+    *******************************************************************************/
+   public WorkflowRunStats withWorkflowRevisionId(Integer workflowRevisionId)
+   {
+      setWorkflowRevisionId(workflowRevisionId);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for hourStartTimestamp
+    *******************************************************************************/
+   public Instant getHourStartTimestamp()
+   {
+      return (hourStartTimestamp);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for hourStartTimestamp
+    *******************************************************************************/
+   public void setHourStartTimestamp(Instant hourStartTimestamp)
+   {
+      this.hourStartTimestamp = hourStartTimestamp;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for hourStartTimestamp
+    *******************************************************************************/
+   public WorkflowRunStats withHourStartTimestamp(Instant hourStartTimestamp)
+   {
+      setHourStartTimestamp(hourStartTimestamp);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for nodeId
+    *******************************************************************************/
+   public String getNodeId()
+   {
+      return (nodeId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for nodeId
+    *******************************************************************************/
+   public void setNodeId(String nodeId)
+   {
+      this.nodeId = nodeId;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for nodeId
+    *******************************************************************************/
+   public WorkflowRunStats withNodeId(String nodeId)
+   {
+      setNodeId(nodeId);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for runCount
+    *******************************************************************************/
+   public Integer getRunCount()
+   {
+      return (runCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for runCount
+    *******************************************************************************/
+   public void setRunCount(Integer runCount)
+   {
+      this.runCount = runCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for runCount
+    *******************************************************************************/
+   public WorkflowRunStats withRunCount(Integer runCount)
+   {
+      setRunCount(runCount);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for errorCount
+    *******************************************************************************/
+   public Integer getErrorCount()
+   {
+      return (errorCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for errorCount
+    *******************************************************************************/
+   public void setErrorCount(Integer errorCount)
+   {
+      this.errorCount = errorCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for errorCount
+    *******************************************************************************/
+   public WorkflowRunStats withErrorCount(Integer errorCount)
+   {
+      setErrorCount(errorCount);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for totalDurationMillis
+    *******************************************************************************/
+   public Long getTotalDurationMillis()
+   {
+      return (totalDurationMillis);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for totalDurationMillis
+    *******************************************************************************/
+   public void setTotalDurationMillis(Long totalDurationMillis)
+   {
+      this.totalDurationMillis = totalDurationMillis;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for totalDurationMillis
+    *******************************************************************************/
+   public WorkflowRunStats withTotalDurationMillis(Long totalDurationMillis)
+   {
+      setTotalDurationMillis(totalDurationMillis);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for minDurationMillis
+    *******************************************************************************/
+   public Long getMinDurationMillis()
+   {
+      return (minDurationMillis);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for minDurationMillis
+    *******************************************************************************/
+   public void setMinDurationMillis(Long minDurationMillis)
+   {
+      this.minDurationMillis = minDurationMillis;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for minDurationMillis
+    *******************************************************************************/
+   public WorkflowRunStats withMinDurationMillis(Long minDurationMillis)
+   {
+      setMinDurationMillis(minDurationMillis);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for maxDurationMillis
+    *******************************************************************************/
+   public Long getMaxDurationMillis()
+   {
+      return (maxDurationMillis);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for maxDurationMillis
+    *******************************************************************************/
+   public void setMaxDurationMillis(Long maxDurationMillis)
+   {
+      this.maxDurationMillis = maxDurationMillis;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for maxDurationMillis
+    *******************************************************************************/
+   public WorkflowRunStats withMaxDurationMillis(Long maxDurationMillis)
+   {
+      setMaxDurationMillis(maxDurationMillis);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for stepCount
+    *******************************************************************************/
+   public Long getStepCount()
+   {
+      return (stepCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for stepCount
+    *******************************************************************************/
+   public void setStepCount(Long stepCount)
+   {
+      this.stepCount = stepCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for stepCount
+    *******************************************************************************/
+   public WorkflowRunStats withStepCount(Long stepCount)
+   {
+      setStepCount(stepCount);
+      return (this);
+   }
+
+}
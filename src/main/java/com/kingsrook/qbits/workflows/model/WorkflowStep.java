@@ -23,11 +23,14 @@ package com.kingsrook.qbits.workflows.model;
 
 
 import com.kingsrook.qbits.workflows.metadata.WorkflowStepTypePossibleValueSource;
+import com.kingsrook.qbits.workflows.tables.WorkflowRevisionContentsTableCustomizer;
+import com.kingsrook.qqq.backend.core.actions.customizers.TableCustomizers;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.data.QField;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
 import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.ValueTooLongBehavior;
 import com.kingsrook.qqq.backend.core.model.metadata.layout.QIcon;
 import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
@@ -71,6 +74,10 @@ public class WorkflowStep extends QRecordEntity
             .withSection(SectionFactory.defaultT1("id", "workflowRevisionId", "stepNo"))
             .withSection(SectionFactory.defaultT2("workflowStepTypeName", "summary", "description", "inputValuesJson"));
 
+         table.withCustomizer(TableCustomizers.POST_INSERT_RECORD, new QCodeReference(WorkflowRevisionContentsTableCustomizer.class));
+         table.withCustomizer(TableCustomizers.POST_UPDATE_RECORD, new QCodeReference(WorkflowRevisionContentsTableCustomizer.class));
+         table.withCustomizer(TableCustomizers.POST_DELETE_RECORD, new QCodeReference(WorkflowRevisionContentsTableCustomizer.class));
+
          return (table);
       }
    }
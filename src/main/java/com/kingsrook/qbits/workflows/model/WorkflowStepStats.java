@@ -0,0 +1,410 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.model;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+import com.kingsrook.qbits.workflows.metrics.WorkflowStepStatsAggregator;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.data.QField;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.layout.QIcon;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.annotations.QMetaDataProducingEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.UniqueKey;
+
+
+/*******************************************************************************
+ ** QRecord Entity for WorkflowStepStats table - execution counts for the steps
+ ** of a workflow revision, maintained by the {@link WorkflowStepStatsAggregator}.
+ ** Rows without a toStepNo count how many times the step (stepNo) was visited;
+ ** rows with a toStepNo count how many times the outbound link from stepNo to
+ ** toStepNo was followed - e.g., which way a branching step went.
+ *******************************************************************************/
+@QMetaDataProducingEntity(
+   produceTableMetaData = true,
+   tableMetaDataCustomizer = WorkflowStepStats.TableMetaDataCustomizer.class
+)
+public class WorkflowStepStats extends QRecordEntity implements Serializable
+{
+   public static final String TABLE_NAME = "workflowStepStats";
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public static class TableMetaDataCustomizer implements MetaDataCustomizerInterface<QTableMetaData>
+   {
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QTableMetaData customizeMetaData(QInstance qInstance, QTableMetaData table) throws QException
+      {
+         table
+            .withIcon(new QIcon().withName("local_fire_department"))
+            .withRecordLabelFormat("%s (%s)")
+            .withRecordLabelFields("workflowRevisionId", "stepNo")
+            .withUniqueKey(new UniqueKey("workflowRevisionId", "stepNo", "toStepNo"))
+            .withSection(SectionFactory.defaultT1("id", "workflowId", "workflowRevisionId", "workflowStepId"))
+            .withSection(SectionFactory.defaultT2("stepNo", "toStepNo", "visitCount"))
+            .withSection(SectionFactory.defaultT3("createDate", "modifyDate"));
+
+         return (table);
+      }
+   }
+
+
+
+   @QField(isEditable = false, isPrimaryKey = true)
+   private Integer id;
+
+   @QField(isEditable = false)
+   private Instant createDate;
+
+   @QField(isEditable = false)
+   private Instant modifyDate;
+
+   @QField(possibleValueSourceName = Workflow.TABLE_NAME, isEditable = false)
+   private Integer workflowId;
+
+   @QField(possibleValueSourceName = WorkflowRevision.TABLE_NAME, isEditable = false)
+   private Integer workflowRevisionId;
+
+   @QField(possibleValueSourceName = WorkflowStep.TABLE_NAME, isEditable = false)
+   private Integer workflowStepId;
+
+   @QField(isEditable = false)
+   private Integer stepNo;
+
+   @QField(isEditable = false)
+   private Integer toStepNo;
+
+   @QField(isEditable = false)
+   private Long visitCount;
+
+
+
+   /*******************************************************************************
+    ** Default constructor
+    *******************************************************************************/
+   public WorkflowStepStats()
+   {
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor that takes a QRecord
+    *******************************************************************************/
+   public WorkflowStepStats(QRecord record)
+   {
+      populateFromQRecord(record);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for id
+    *******************************************************************************/
+   public Integer getId()
+   {
+      return (id);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for id
+    *******************************************************************************/
+   public void setId(Integer id)
+   {
+      this.id = id;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for id
+    *******************************************************************************/
+   public WorkflowStepStats withId(Integer id)
+   {
+      setId(id);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for createDate
+    *******************************************************************************/
+   public Instant getCreateDate()
+   {
+      return (createDate);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for createDate
+    *******************************************************************************/
+   public void setCreateDate(Instant createDate)
+   {
+      this.createDate = createDate;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for createDate
+    *******************************************************************************/
+   public WorkflowStepStats withCreateDate(Instant createDate)
+   {
+      setCreateDate(createDate);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for modifyDate
+    *******************************************************************************/
+   public Instant getModifyDate()
+   {
+      return (modifyDate);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for modifyDate
+    *******************************************************************************/
+   public void setModifyDate(Instant modifyDate)
+   {
+      this.modifyDate = modifyDate;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for modifyDate
+    *******************************************************************************/
+   public WorkflowStepStats withModifyDate(Instant modifyDate)
+   {
+      setModifyDate(modifyDate);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for workflowId
+    *******************************************************************************/
+   public Integer getWorkflowId()
+   {
+      return (workflowId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for workflowId
+    *******************************************************************************/
+   public void setWorkflowId(Integer workflowId)
+   {
+      this.workflowId = workflowId;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for workflowId
+    *******************************************************************************/
+   public WorkflowStepStats withWorkflowId(Integer workflowId)
+   {
+      setWorkflowId(workflowId);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for workflowRevisionId
+    *******************************************************************************/
+   public Integer getWorkflowRevisionId()
+   {
+      return (workflowRevisionId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for workflowRevisionId
+    *******************************************************************************/
+   public void setWorkflowRevisionId(Integer workflowRevisionId)
+   {
+      this.workflowRevisionId = workflowRevisionId;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for workflowRevisionId
+    *******************************************************************************/
+   public WorkflowStepStats withWorkflowRevisionId(Integer workflowRevisionId)
+   {
+      setWorkflowRevisionId(workflowRevisionId);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for workflowStepId
+    *******************************************************************************/
+   public Integer getWorkflowStepId()
+   {
+      return (workflowStepId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for workflowStepId
+    *******************************************************************************/
+   public void setWorkflowStepId(Integer workflowStepId)
+   {
+      this.workflowStepId = workflowStepId;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for workflowStepId
+    *******************************************************************************/
+   public WorkflowStepStats withWorkflowStepId(Integer workflowStepId)
+   {
+      setWorkflowStepId(workflowStepId);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for stepNo
+    *******************************************************************************/
+   public Integer getStepNo()
+   {
+      return (stepNo);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for stepNo
+    *******************************************************************************/
+   public void setStepNo(Integer stepNo)
+   {
+      this.stepNo = stepNo;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for stepNo
+    *******************************************************************************/
+   public WorkflowStepStats withStepNo(Integer stepNo)
+   {
+      setStepNo(stepNo);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for toStepNo
+    *******************************************************************************/
+   public Integer getToStepNo()
+   {
+      return (toStepNo);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for toStepNo
+    *******************************************************************************/
+   public void setToStepNo(Integer toStepNo)
+   {
+      this.toStepNo = toStepNo;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for toStepNo
+    *******************************************************************************/
+   public WorkflowStepStats withToStepNo(Integer toStepNo)
+   {
+      setToStepNo(toStepNo);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for visitCount
+    *******************************************************************************/
+   public Long getVisitCount()
+   {
+      return (visitCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for visitCount
+    *******************************************************************************/
+   public void setVisitCount(Long visitCount)
+   {
+      this.visitCount = visitCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for visitCount
+    *******************************************************************************/
+   public WorkflowStepStats withVisitCount(Long visitCount)
+   {
+      setVisitCount(visitCount);
+      return (this);
+   }
+
+}
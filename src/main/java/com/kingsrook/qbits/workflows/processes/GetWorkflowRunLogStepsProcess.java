@@ -0,0 +1,175 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.processes;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import com.google.gson.reflect.TypeToken;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogSegmentStore;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogStepSummarizer;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogStepSummary;
+import com.kingsrook.qqq.backend.core.actions.processes.BackendStep;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.exceptions.QNotFoundException;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.MetaDataProducerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.permissions.PermissionLevel;
+import com.kingsrook.qqq.backend.core.model.metadata.permissions.QPermissionRules;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QBackendStepMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QFunctionInputMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QProcessMetaData;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.ValueUtils;
+
+
+/*******************************************************************************
+ ** process that pages through a workflow run log's steps, for the run log
+ ** viewer.  Without a workflowStepId, returns a page of step summaries (one per
+ ** workflow step visited - see WorkflowRunLogStepSummarizer), and the total
+ ** number of them.  With a workflowStepId, returns a page of that step's
+ ** visits (run log step rows), in seqNo order.
+ **
+ ** The run log is given by its workflowRunLogId, or by segmentStoreRunLogId for
+ ** run logs in the WorkflowRunLogSegmentStore.
+ *******************************************************************************/
+public class GetWorkflowRunLogStepsProcess implements BackendStep, MetaDataProducerInterface<QProcessMetaData>
+{
+   public static final String NAME = "getWorkflowRunLogSteps";
+
+   private static final int DEFAULT_LIMIT = 50;
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public QProcessMetaData produce(QInstance qInstance) throws QException
+   {
+      return new QProcessMetaData()
+         .withName(NAME)
+         .withPermissionRules(new QPermissionRules().withLevel(PermissionLevel.NOT_PROTECTED))
+         .withStep(new QBackendStepMetaData()
+            .withName("execute")
+            .withCode(new QCodeReference(getClass()))
+            .withInputData(new QFunctionInputMetaData()
+               .withField(new QFieldMetaData("workflowRunLogId", QFieldType.LONG))
+               .withField(new QFieldMetaData("segmentStoreRunLogId", QFieldType.LONG))
+               .withField(new QFieldMetaData("workflowStepId", QFieldType.INTEGER))
+               .withField(new QFieldMetaData("skip", QFieldType.INTEGER))
+               .withField(new QFieldMetaData("limit", QFieldType.INTEGER))
+            ));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void run(RunBackendStepInput runBackendStepInput, RunBackendStepOutput runBackendStepOutput) throws QException
+   {
+      Long    workflowRunLogId     = ValueUtils.getValueAsLong(runBackendStepInput.getValue("workflowRunLogId"));
+      Long    segmentStoreRunLogId = ValueUtils.getValueAsLong(runBackendStepInput.getValue("segmentStoreRunLogId"));
+      Integer workflowStepId       = runBackendStepInput.getValueInteger("workflowStepId");
+      Integer skipInput            = runBackendStepInput.getValueInteger("skip");
+      Integer limitInput           = runBackendStepInput.getValueInteger("limit");
+      int     skip                 = skipInput == null ? 0 : Math.max(0, skipInput);
+      int     limit                = limitInput == null ? DEFAULT_LIMIT : Math.max(0, limitInput);
+
+      WorkflowRunLog segmentStoreRunLog = null;
+      if(segmentStoreRunLogId != null)
+      {
+         segmentStoreRunLog = WorkflowRunLogSegmentStore.of(QContext.getQInstance()).get(segmentStoreRunLogId);
+         if(segmentStoreRunLog == null)
+         {
+            throw (new QNotFoundException("Workflow run log " + segmentStoreRunLogId + " was not found in the segment store"));
+         }
+      }
+      else if(workflowRunLogId == null)
+      {
+         throw (new QException("Either workflowRunLogId or segmentStoreRunLogId is required"));
+      }
+
+      if(workflowStepId != null)
+      {
+         //////////////////////////////////////////////
+         // one step's visits, loaded when requested //
+         //////////////////////////////////////////////
+         List<QRecord> stepRows = segmentStoreRunLog != null
+            ? WorkflowRunLogStepSummarizer.getStepRows(segmentStoreRunLog, workflowStepId, skip, limit)
+            : WorkflowRunLogStepSummarizer.getStepRows(workflowRunLogId, workflowStepId, skip, limit);
+
+         ArrayList<LinkedHashMap<String, Serializable>> stepRowsForResult = new ArrayList<>();
+         for(QRecord stepRow : stepRows)
+         {
+            stepRowsForResult.add(CollectionUtils.useOrWrap(stepRow.getValues(), new TypeToken<>() {}));
+         }
+         runBackendStepOutput.addValue("stepRows", stepRowsForResult);
+         return;
+      }
+
+      ///////////////////////////////////////////////////////////////////////////
+      // summaries are aggregated for all steps (one row per workflow step, so //
+      // a short list), then paged - and only the page's outputs are loaded    //
+      ///////////////////////////////////////////////////////////////////////////
+      List<WorkflowRunLogStepSummary> summaries = segmentStoreRunLog != null
+         ? WorkflowRunLogStepSummarizer.summarize(segmentStoreRunLog)
+         : WorkflowRunLogStepSummarizer.aggregate(workflowRunLogId);
+
+      List<WorkflowRunLogStepSummary> page = summaries.subList(Math.min(skip, summaries.size()), (int) Math.min((long) skip + limit, summaries.size()));
+      if(segmentStoreRunLog == null)
+      {
+         page = WorkflowRunLogStepSummarizer.withOutputs(workflowRunLogId, page);
+      }
+
+      ArrayList<LinkedHashMap<String, Serializable>> summariesForResult = new ArrayList<>();
+      for(WorkflowRunLogStepSummary summary : page)
+      {
+         LinkedHashMap<String, Serializable> summaryForResult = new LinkedHashMap<>();
+         summaryForResult.put("workflowStepId", summary.workflowStepId());
+         summaryForResult.put("visitCount", summary.visitCount());
+         summaryForResult.put("firstSeqNo", summary.firstSeqNo());
+         summaryForResult.put("lastSeqNo", summary.lastSeqNo());
+         summaryForResult.put("firstOutputData", summary.firstOutputData());
+         summaryForResult.put("lastOutputData", summary.lastOutputData());
+         summaryForResult.put("lastMessage", summary.lastMessage());
+         summaryForResult.put("totalDurationMillis", summary.totalDurationMillis());
+         summariesForResult.add(summaryForResult);
+      }
+
+      runBackendStepOutput.addValue("totalStepCount", summaries.size());
+      runBackendStepOutput.addValue("stepSummaries", summariesForResult);
+   }
+
+}
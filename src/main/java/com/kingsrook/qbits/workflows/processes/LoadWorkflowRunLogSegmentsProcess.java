@@ -0,0 +1,187 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.processes;
+
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogSegmentStore;
+import com.kingsrook.qqq.backend.core.actions.processes.BackendStep;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertOutput;
+import com.kingsrook.qqq.backend.core.model.metadata.MetaDataProducerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QBackendStepMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QFunctionInputMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QProcessMetaData;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.StringUtils;
+import com.kingsrook.qqq.backend.core.utils.ValueUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ ** process to load run logs from the WorkflowRunLogSegmentStore into the
+ ** workflowRunLog and workflowRunLogStep tables - e.g., to investigate runs
+ ** (with the tables' usual query & viewing tools) from a period of time.
+ **
+ ** The run logs to load are selected by segment numbers (a comma-separated
+ ** list), workflowId, and/or a range of start timestamps - any of which may
+ ** be left out (but at least one must be given).  They are inserted in
+ ** batches, so this can be run in the background (e.g., scheduled, or async
+ ** from a UI) for large selections.  Run logs aren't marked as loaded - so
+ ** loading the same selection twice will insert them twice.
+ *******************************************************************************/
+public class LoadWorkflowRunLogSegmentsProcess implements BackendStep, MetaDataProducerInterface<QProcessMetaData>
+{
+   public static final String NAME = "loadWorkflowRunLogSegments";
+
+   private static final QLogger LOG = QLogger.getLogger(LoadWorkflowRunLogSegmentsProcess.class);
+
+   private static final int BATCH_SIZE = 500;
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public QProcessMetaData produce(QInstance qInstance) throws QException
+   {
+      return new QProcessMetaData()
+         .withName(NAME)
+         .withLabel("Load Workflow Run Log Segments")
+         .withStep(new QBackendStepMetaData()
+            .withName("execute")
+            .withCode(new QCodeReference(getClass()))
+            .withInputData(new QFunctionInputMetaData()
+               .withField(new QFieldMetaData("segmentNos", QFieldType.STRING))
+               .withField(new QFieldMetaData("workflowId", QFieldType.INTEGER))
+               .withField(new QFieldMetaData("startTimestampFrom", QFieldType.DATE_TIME))
+               .withField(new QFieldMetaData("startTimestampTo", QFieldType.DATE_TIME))
+            ));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void run(RunBackendStepInput runBackendStepInput, RunBackendStepOutput runBackendStepOutput) throws QException
+   {
+      String  segmentNosString   = runBackendStepInput.getValueString("segmentNos");
+      Integer workflowId         = runBackendStepInput.getValueInteger("workflowId");
+      Instant startTimestampFrom = ValueUtils.getValueAsInstant(runBackendStepInput.getValue("startTimestampFrom"));
+      Instant startTimestampTo   = ValueUtils.getValueAsInstant(runBackendStepInput.getValue("startTimestampTo"));
+
+      Set<Integer> segmentNos = null;
+      if(StringUtils.hasContent(segmentNosString))
+      {
+         segmentNos = new HashSet<>();
+         for(String segmentNo : segmentNosString.split(","))
+         {
+            segmentNos.add(ValueUtils.getValueAsInteger(segmentNo.trim()));
+         }
+      }
+
+      if(segmentNos == null && workflowId == null && startTimestampFrom == null && startTimestampTo == null)
+      {
+         throw (new QException("At least one of segmentNos, workflowId, startTimestampFrom, or startTimestampTo must be given."));
+      }
+
+      WorkflowRunLogSegmentStore segmentStore = WorkflowRunLogSegmentStore.of(QContext.getQInstance());
+      List<Long>                 ids          = segmentStore.findRunLogIds(segmentNos, workflowId, startTimestampFrom, startTimestampTo, null);
+
+      ///////////////////////////////////////////////////////////////////
+      // ids are found newest first - so load in reverse, oldest first //
+      ///////////////////////////////////////////////////////////////////
+      int                  loadedCount = 0;
+      int                  errorCount  = 0;
+      List<WorkflowRunLog> batch       = new ArrayList<>();
+      for(int i = ids.size() - 1; i >= 0; i--)
+      {
+         WorkflowRunLog workflowRunLog = segmentStore.get(ids.get(i));
+         if(workflowRunLog == null)
+         {
+            continue;
+         }
+
+         ///////////////////////////////////////////////////////////////////
+         // clear ids from the store, so the tables assign their own ones //
+         ///////////////////////////////////////////////////////////////////
+         workflowRunLog.setId(null);
+         for(WorkflowRunLogStep workflowRunLogStep : CollectionUtils.nonNullList(workflowRunLog.getSteps()))
+         {
+            workflowRunLogStep.setId(null);
+            workflowRunLogStep.setWorkflowRunLogId(null);
+         }
+         batch.add(workflowRunLog);
+
+         if(batch.size() >= BATCH_SIZE)
+         {
+            int batchErrorCount = insertBatch(batch);
+            loadedCount += batch.size() - batchErrorCount;
+            errorCount += batchErrorCount;
+            batch.clear();
+         }
+      }
+
+      if(!batch.isEmpty())
+      {
+         int batchErrorCount = insertBatch(batch);
+         loadedCount += batch.size() - batchErrorCount;
+         errorCount += batchErrorCount;
+      }
+
+      LOG.info("Loaded workflow run logs from segment store", logPair("loadedCount", loadedCount), logPair("errorCount", errorCount), logPair("segmentNos", segmentNosString), logPair("workflowId", workflowId));
+      runBackendStepOutput.addValue("loadedCount", loadedCount);
+      runBackendStepOutput.addValue("errorCount", errorCount);
+   }
+
+
+
+   /***************************************************************************
+    * insert a batch of run logs (with their steps) - returning how many of
+    * them had errors.
+    ***************************************************************************/
+   private static int insertBatch(List<WorkflowRunLog> batch) throws QException
+   {
+      InsertOutput insertOutput = new InsertAction().execute(new InsertInput(WorkflowRunLog.TABLE_NAME).withRecordEntities(batch));
+      return ((int) insertOutput.getRecords().stream().filter(r -> CollectionUtils.nullSafeHasContents(r.getErrors())).count());
+   }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.processes;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogPurgeCheckpoint;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogRetentionPolicy;
+import com.kingsrook.qqq.backend.core.actions.QBackendTransaction;
+import com.kingsrook.qqq.backend.core.actions.processes.BackendStep;
+import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterOrderBy;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.MetaDataProducerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QBackendStepMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.processes.QProcessMetaData;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.SleepUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ ** process to delete expired rows from the workflowRunLog and
+ ** workflowRunLogStep tables, per the qbit config's retention policies (see
+ ** {@link WorkflowRunLogRetentionPolicy}) - by workflow, and by whether the run
+ ** had an error.  Meant to be run on a schedule (see the qbit config's
+ ** workflowRunLogPurgeSchedule).
+ **
+ ** Each retention rule (a workflow's - or the default's - errors or successes)
+ ** is purged oldest-first, in chunks of workflowRunLogPurgeChunkSize run logs
+ ** selected by startTimestamp range, sleeping workflowRunLogPurgeThrottleMillis
+ ** between chunks.  Each chunk's steps are deleted before its run logs, in one
+ ** transaction.  After each chunk, the startTimestamp it reached is stored in
+ ** the workflowRunLogPurgeCheckpoint table - and later runs only look from
+ ** there on (so an interrupted run resumes where it left off, and a table
+ ** partitioned by startTimestamp only has its newer partitions scanned).
+ **
+ ** A checkpoint only covers the workflows its rule covered when it was stored,
+ ** and not run logs inserted since with an older startTimestamp (e.g., replayed
+ ** from a spill file, or from a run that started before the checkpoint).  So a
+ ** rule is purged from the start of the table instead when the workflows it
+ ** covers change (e.g., when a workflow's own policy is removed, and the
+ ** default's applies to it), and every workflowRunLogPurgeFullScanIntervalDays.
+ ** The rule's ruleScopeHash and lastFullScanTimestamp are only stored once
+ ** such a full scan completes - so an interrupted one is repeated.
+ *******************************************************************************/
+public class PurgeWorkflowRunLogsProcess implements BackendStep, MetaDataProducerInterface<QProcessMetaData>
+{
+   public static final String NAME = "purgeWorkflowRunLogs";
+
+   private static final QLogger LOG = QLogger.getLogger(PurgeWorkflowRunLogsProcess.class);
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public QProcessMetaData produce(QInstance qInstance) throws QException
+   {
+      return new QProcessMetaData()
+         .withName(NAME)
+         .withLabel("Purge Workflow Run Logs")
+         .withStep(new QBackendStepMetaData()
+            .withName("execute")
+            .withCode(new QCodeReference(getClass())));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public void run(RunBackendStepInput runBackendStepInput, RunBackendStepOutput runBackendStepOutput) throws QException
+   {
+      WorkflowsQBitConfig                         config       = WorkflowsQBitConfig.of(QContext.getQInstance());
+      Map<Integer, WorkflowRunLogRetentionPolicy> policiesById = CollectionUtils.nonNullMap(config.getWorkflowRunLogRetentionPoliciesByWorkflowId());
+      Instant                                     now          = Instant.now();
+      int                                         deletedCount = 0;
+
+      for(Map.Entry<Integer, WorkflowRunLogRetentionPolicy> entry : policiesById.entrySet())
+      {
+         QFilterCriteria workflowCriteria = new QFilterCriteria("workflowId", QCriteriaOperator.EQUALS, entry.getKey());
+         for(boolean hadError : new boolean[] { true, false })
+         {
+            String ruleKey = "workflowId=" + entry.getKey() + ",hadError=" + hadError;
+            deletedCount += purgeRule(config, ruleKey, null, workflowCriteria, hadError, entry.getValue().getRetentionDays(hadError), now);
+         }
+      }
+
+      //////////////////////////////////////////////////////////////////////////
+      // the default policy applies to the workflows without their own policy //
+      // - so its scope is the (sorted) list of those that have one           //
+      //////////////////////////////////////////////////////////////////////////
+      WorkflowRunLogRetentionPolicy defaultPolicy = config.getDefaultWorkflowRunLogRetentionPolicy();
+      if(defaultPolicy != null)
+      {
+         List<Integer>   excludedWorkflowIds = policiesById.keySet().stream().sorted().toList();
+         QFilterCriteria workflowCriteria    = policiesById.isEmpty() ? null : new QFilterCriteria("workflowId", QCriteriaOperator.NOT_IN, new ArrayList<>(excludedWorkflowIds));
+         for(boolean hadError : new boolean[] { true, false })
+         {
+            String ruleKey = "default,hadError=" + hadError;
+            deletedCount += purgeRule(config, ruleKey, excludedWorkflowIds.hashCode(), workflowCriteria, hadError, defaultPolicy.getRetentionDays(hadError), now);
+         }
+      }
+
+      runBackendStepOutput.addValue("deletedCount", deletedCount);
+   }
+
+
+
+   /***************************************************************************
+    * delete the run logs (and their steps) for one retention rule, that are
+    * older than its retention days, in chunks - returning how many were
+    * deleted.  ruleScopeHash identifies the workflows the rule covers (null
+    * for a rule that always covers the same one).
+    ***************************************************************************/
+   private int purgeRule(WorkflowsQBitConfig config, String ruleKey, Integer ruleScopeHash, QFilterCriteria workflowCriteria, boolean hadError, Integer retentionDays, Instant now) throws QException
+   {
+      if(retentionDays == null)
+      {
+         return (0);
+      }
+
+      Instant                       cutoff       = now.minus(retentionDays, ChronoUnit.DAYS);
+      WorkflowRunLogPurgeCheckpoint checkpoint   = getCheckpoint(ruleKey);
+      int                           chunkSize    = config.getWorkflowRunLogPurgeChunkSize();
+      int                           deletedCount = 0;
+
+      ////////////////////////////////////////////////////////////////////////////
+      // start from the checkpoint - unless the rule's scope has changed, or it //
+      // is due a full scan                                                     //
+      ////////////////////////////////////////////////////////////////////////////
+      Integer fullScanIntervalDays   = config.getWorkflowRunLogPurgeFullScanIntervalDays();
+      Instant lastFullScanTimestamp  = checkpoint.getLastFullScanTimestamp();
+      Instant purgedThroughTimestamp = checkpoint.getPurgedThroughTimestamp();
+      boolean fullScan               = purgedThroughTimestamp == null
+         || !Objects.equals(checkpoint.getRuleScopeHash(), ruleScopeHash)
+         || (fullScanIntervalDays != null && (lastFullScanTimestamp == null || lastFullScanTimestamp.isBefore(now.minus(fullScanIntervalDays, ChronoUnit.DAYS))));
+      if(fullScan)
+      {
+         purgedThroughTimestamp = null;
+      }
+
+      while(true)
+      {
+         QQueryFilter filter = new QQueryFilter()
+            .withCriteria(new QFilterCriteria("hadError", QCriteriaOperator.EQUALS, hadError))
+            .withCriteria(new QFilterCriteria("startTimestamp", QCriteriaOperator.LESS_THAN, cutoff))
+            .withOrderBy(new QFilterOrderBy("startTimestamp"))
+            .withOrderBy(new QFilterOrderBy("id"))
+            .withLimit(chunkSize);
+
+         if(purgedThroughTimestamp != null)
+         {
+            filter.addCriteria(new QFilterCriteria("startTimestamp", QCriteriaOperator.GREATER_THAN_OR_EQUALS, purgedThroughTimestamp));
+         }
+
+         if(workflowCriteria != null)
+         {
+            filter.addCriteria(workflowCriteria);
+         }
+
+         List<QRecord> chunk = QueryAction.execute(WorkflowRunLog.TABLE_NAME, filter);
+         if(chunk.isEmpty())
+         {
+            break;
+         }
+
+         deleteChunk(chunk.stream().map(r -> r.getValue("id")).toList());
+         deletedCount += chunk.size();
+
+         purgedThroughTimestamp = chunk.get(chunk.size() - 1).getValueInstant("startTimestamp");
+         checkpoint.setPurgedThroughTimestamp(purgedThroughTimestamp);
+         storeCheckpoint(checkpoint);
+
+         if(chunk.size() < chunkSize)
+         {
+            break;
+         }
+
+         SleepUtils.sleep(config.getWorkflowRunLogPurgeThrottleMillis(), TimeUnit.MILLISECONDS);
+      }
+
+      ////////////////////////////////////////////////////////////////////////
+      // a completed full scan is recorded - on a stored checkpoint (a rule //
+      // without one is always fully scanned)                               //
+      ////////////////////////////////////////////////////////////////////////
+      if(fullScan && checkpoint.getId() != null)
+      {
+         checkpoint.setRuleScopeHash(ruleScopeHash);
+         checkpoint.setLastFullScanTimestamp(now);
+         storeCheckpoint(checkpoint);
+      }
+
+      if(deletedCount > 0)
+      {
+         LOG.info("Purged workflow run logs", logPair("ruleKey", ruleKey), logPair("deletedCount", deletedCount), logPair("cutoff", cutoff));
+      }
+
+      return (deletedCount);
+   }
+
+
+
+   /***************************************************************************
+    * delete a chunk of run logs - their steps first - in one transaction.
+    ***************************************************************************/
+   private void deleteChunk(List<Serializable> workflowRunLogIds) throws QException
+   {
+      QBackendTransaction transaction = null;
+      try
+      {
+         transaction = QBackendTransaction.openFor(new DeleteInput(WorkflowRunLog.TABLE_NAME));
+
+         DeleteOutput stepDeleteOutput = new DeleteAction().execute(new DeleteInput(WorkflowRunLogStep.TABLE_NAME)
+            .withQueryFilter(new QQueryFilter(new QFilterCriteria("workflowRunLogId", QCriteriaOperator.IN, workflowRunLogIds)))
+            .withTransaction(transaction));
+         checkDeleteErrors(stepDeleteOutput, WorkflowRunLogStep.TABLE_NAME);
+
+         DeleteOutput runLogDeleteOutput = new DeleteAction().execute(new DeleteInput(WorkflowRunLog.TABLE_NAME)
+            .withPrimaryKeys(workflowRunLogIds)
+            .withTransaction(transaction));
+         checkDeleteErrors(runLogDeleteOutput, WorkflowRunLog.TABLE_NAME);
+
+         transaction.commit();
+      }
+      catch(Exception e)
+      {
+         if(transaction != null)
+         {
+            transaction.rollback();
+         }
+         throw (e instanceof QException qe ? qe : new QException("Error purging workflow run logs", e));
+      }
+      finally
+      {
+         if(transaction != null)
+         {
+            transaction.close();
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static void checkDeleteErrors(DeleteOutput deleteOutput, String tableName) throws QException
+   {
+      if(CollectionUtils.nullSafeHasContents(deleteOutput.getRecordsWithErrors()))
+      {
+         throw (new QException("Error deleting from " + tableName + " table: " + deleteOutput.getRecordsWithErrors().get(0).getErrors()));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the checkpoint for a rule - or a new (unstored) one, if it has none.
+    ***************************************************************************/
+   private static WorkflowRunLogPurgeCheckpoint getCheckpoint(String ruleKey) throws QException
+   {
+      List<QRecord> records = QueryAction.execute(WorkflowRunLogPurgeCheckpoint.TABLE_NAME, new QQueryFilter(new QFilterCriteria("ruleKey", QCriteriaOperator.EQUALS, ruleKey)));
+      if(records.isEmpty())
+      {
+         return (new WorkflowRunLogPurgeCheckpoint().withRuleKey(ruleKey));
+      }
+      return (new WorkflowRunLogPurgeCheckpoint(records.get(0)));
+   }
+
+
+
+   /***************************************************************************
+    * insert or update a checkpoint.
+    ***************************************************************************/
+   private static void storeCheckpoint(WorkflowRunLogPurgeCheckpoint checkpoint) throws QException
+   {
+      if(checkpoint.getId() == null)
+      {
+         InsertOutput insertOutput = new InsertAction().execute(new InsertInput(WorkflowRunLogPurgeCheckpoint.TABLE_NAME).withRecordEntity(checkpoint));
+         checkpoint.setId(insertOutput.getRecords().get(0).getValueInteger("id"));
+      }
+      else
+      {
+         new UpdateAction().execute(new UpdateInput(WorkflowRunLogPurgeCheckpoint.TABLE_NAME).withRecord(checkpoint.toQRecord()));
+      }
+   }
+
+}
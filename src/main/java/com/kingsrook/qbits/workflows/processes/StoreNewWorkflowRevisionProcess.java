@@ -30,6 +30,8 @@ import java.util.Objects;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.kingsrook.qbits.workflows.definition.WorkflowStepType;
 import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutionPlanCache;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepValidatorInterface;
 import com.kingsrook.qbits.workflows.model.Workflow;
 import com.kingsrook.qbits.workflows.model.WorkflowLink;
@@ -272,6 +274,14 @@ public class StoreNewWorkflowRevisionProcess implements BackendStep, MetaDataPro
 
          transaction.commit();
 
+         //////////////////////////////////////////////////////////////////////////////////
+         // make sure no stale execution plan is cached under the new revision's id, and //
+         // that the workflow (with its new currentWorkflowRevisionId) is re-read, now   //
+         // that the transaction is committed.                                           //
+         //////////////////////////////////////////////////////////////////////////////////
+         WorkflowExecutionPlanCache.evict(QContext.getQInstance(), insertedRevisionId);
+         WorkflowCache.invalidate(QContext.getQInstance(), workflowId);
+
          runBackendStepOutput.addValue("workflowId", workflowId);
          runBackendStepOutput.addValue("workflowRevisionId", insertedRevisionId);
          runBackendStepOutput.addValue("versionNo", versionNo);
@@ -0,0 +1,114 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tables;
+
+
+import java.util.List;
+import java.util.Optional;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutionPlanCache;
+import com.kingsrook.qqq.backend.core.actions.customizers.TableCustomizerInterface;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ * customizer for the tables that make up the contents of a workflow revision
+ * (workflowStep and workflowLink) - evicts compiled execution plans for any
+ * revision whose steps or links get written.
+ *******************************************************************************/
+public class WorkflowRevisionContentsTableCustomizer implements TableCustomizerInterface
+{
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public List<QRecord> postInsert(InsertInput insertInput, List<QRecord> records) throws QException
+   {
+      evictPlans(records);
+      return (records);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public List<QRecord> postUpdate(UpdateInput updateInput, List<QRecord> records, Optional<List<QRecord>> oldRecordList) throws QException
+   {
+      evictPlans(records);
+      oldRecordList.ifPresent(this::evictPlans);
+      return (records);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public List<QRecord> postDelete(DeleteInput deleteInput, List<QRecord> records) throws QException
+   {
+      //////////////////////////////////////////////////////////////////////////
+      // deleted records may only have primary keys in them - so clear it all //
+      //////////////////////////////////////////////////////////////////////////
+      WorkflowExecutionPlanCache cache = WorkflowExecutionPlanCache.of(QContext.getQInstance());
+      if(cache != null)
+      {
+         cache.clear();
+      }
+      return (records);
+   }
+
+
+
+   /***************************************************************************
+    * evict the plan for each revision referenced by the records - or, if any
+    * record doesn't say what revision it's for, the whole cache.
+    ***************************************************************************/
+   private void evictPlans(List<QRecord> records)
+   {
+      WorkflowExecutionPlanCache cache = WorkflowExecutionPlanCache.of(QContext.getQInstance());
+      if(cache == null)
+      {
+         return;
+      }
+
+      for(QRecord record : CollectionUtils.nonNullList(records))
+      {
+         Integer workflowRevisionId = record.getValueInteger("workflowRevisionId");
+         if(workflowRevisionId == null)
+         {
+            cache.clear();
+            return;
+         }
+         cache.evict(workflowRevisionId);
+      }
+   }
+
+}
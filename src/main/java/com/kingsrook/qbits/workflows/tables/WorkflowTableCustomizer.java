@@ -23,9 +23,14 @@ package com.kingsrook.qbits.workflows.tables;
 
 
 import java.util.List;
+import java.util.Optional;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
 import com.kingsrook.qqq.backend.core.actions.customizers.TableCustomizerInterface;
+import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteInput;
 import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
 
@@ -52,4 +57,54 @@ public class WorkflowTableCustomizer implements TableCustomizerInterface
       return records;
    }
 
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public List<QRecord> postUpdate(UpdateInput updateInput, List<QRecord> records, Optional<List<QRecord>> oldRecordList) throws QException
+   {
+      invalidateCachedWorkflows(records);
+      return (records);
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public List<QRecord> postDelete(DeleteInput deleteInput, List<QRecord> records) throws QException
+   {
+      invalidateCachedWorkflows(records);
+      return (records);
+   }
+
+
+
+   /***************************************************************************
+    * drop the written workflows from the workflow cache - or, if any record
+    * doesn't have an id, clear the whole cache.
+    ***************************************************************************/
+   private void invalidateCachedWorkflows(List<QRecord> records)
+   {
+      WorkflowCache cache = WorkflowCache.of(QContext.getQInstance());
+      if(cache == null)
+      {
+         return;
+      }
+
+      for(QRecord record : CollectionUtils.nonNullList(records))
+      {
+         Integer workflowId = record.getValueInteger("id");
+         if(workflowId == null)
+         {
+            cache.clear();
+            return;
+         }
+         cache.invalidate(workflowId);
+      }
+   }
+
 }
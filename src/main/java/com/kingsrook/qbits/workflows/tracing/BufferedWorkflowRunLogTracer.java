@@ -0,0 +1,65 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.Serializable;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ ** implementation of a workflow run log tracer that, instead of inserting into
+ ** the workflowRunLog and workflowRunLogStep tables itself (as
+ ** WorkflowRunLogTracer does), queues run logs in the QInstance's
+ ** WorkflowRunLogBuffer, to be bulk-inserted in the background.
+ **
+ ** As the run log isn't inserted yet when this returns, it doesn't get an id -
+ ** so callers that need to link to the run log (e.g., the WorkflowTester) use
+ ** a WorkflowRunLogTracer instead.
+ *******************************************************************************/
+public class BufferedWorkflowRunLogTracer implements WorkflowTracerInterface
+{
+   private static final QLogger LOG = QLogger.getLogger(BufferedWorkflowRunLogTracer.class);
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable handleWorkflowFinish(WorkflowRunLog workflowRunLog)
+   {
+      try
+      {
+         WorkflowRunLogBuffer.of(QContext.getQInstance()).enqueue(workflowRunLog);
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error queueing workflow run log", e, logPair("workflowId", workflowRunLog.getWorkflowId()));
+      }
+      return (null);
+   }
+
+}
@@ -41,4 +41,15 @@ public class NoopWorkflowTracer implements WorkflowTracerInterface
       return (false);
    }
 
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public WorkflowTraceDetail getTraceDetail()
+   {
+      return (WorkflowTraceDetail.NONE);
+   }
+
 }
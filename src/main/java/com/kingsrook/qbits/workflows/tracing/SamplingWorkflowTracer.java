@@ -0,0 +1,170 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.execution.WorkflowCache;
+import com.kingsrook.qbits.workflows.model.Workflow;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ ** workflow tracer that only passes some run logs on to another tracer (by
+ ** default, a WorkflowRunLogTracer) - per a {@link WorkflowTracerSamplingPolicy}:
+ ** e.g., to keep all errors and slow runs, but only a few percent of the rest.
+ **
+ ** The policy & delegate tracer are set in the WorkflowsQBitConfig: a policy
+ ** for the run's workflow (by id) is used if there is one, else one for its
+ ** workflow type (by name), else the default policy.
+ *******************************************************************************/
+public class SamplingWorkflowTracer implements WorkflowTracerInterface
+{
+   private static final QLogger LOG = QLogger.getLogger(SamplingWorkflowTracer.class);
+
+   private WorkflowTracerInterface delegateTracer;
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable handleWorkflowFinish(WorkflowRunLog workflowRunLog)
+   {
+      WorkflowsQBitConfig config = WorkflowsQBitConfig.of(QContext.getQInstance());
+      if(!shouldTrace(getPolicy(config, workflowRunLog.getWorkflowId()), workflowRunLog))
+      {
+         return (null);
+      }
+
+      WorkflowTracerInterface delegateTracer = getDelegateTracer();
+      if(delegateTracer == null)
+      {
+         return (null);
+      }
+
+      return (delegateTracer.handleWorkflowFinish(workflowRunLog));
+   }
+
+
+
+   /***************************************************************************
+    * as this tracer doesn't know which runs it'll keep until they finish, it
+    * needs whatever detail its delegate does.
+    ***************************************************************************/
+   @Override
+   public WorkflowTraceDetail getTraceDetail()
+   {
+      WorkflowTracerInterface delegateTracer = getDelegateTracer();
+      return (delegateTracer == null ? WorkflowTraceDetail.NONE : delegateTracer.getTraceDetail());
+   }
+
+
+
+   /***************************************************************************
+    * get the delegate tracer from the config - loading it on first use.
+    ***************************************************************************/
+   private WorkflowTracerInterface getDelegateTracer()
+   {
+      if(delegateTracer == null)
+      {
+         QCodeReference delegateCodeReference = WorkflowsQBitConfig.of(QContext.getQInstance()).getWorkflowTracerSamplingDelegateCodeReference();
+         if(delegateCodeReference != null)
+         {
+            delegateTracer = QCodeLoader.getAdHoc(WorkflowTracerInterface.class, delegateCodeReference);
+         }
+      }
+      return (delegateTracer);
+   }
+
+
+
+   /***************************************************************************
+    * decide if a run log should be kept, per a policy.
+    ***************************************************************************/
+   static boolean shouldTrace(WorkflowTracerSamplingPolicy policy, WorkflowRunLog workflowRunLog)
+   {
+      if(BooleanUtils.isTrue(workflowRunLog.getHadError()))
+      {
+         return (policy.getKeepErrors());
+      }
+
+      if(policy.getSlowRunThresholdMillis() != null && workflowRunLog.getStartTimestamp() != null && workflowRunLog.getEndTimestamp() != null)
+      {
+         long durationMillis = Duration.between(workflowRunLog.getStartTimestamp(), workflowRunLog.getEndTimestamp()).toMillis();
+         if(durationMillis >= policy.getSlowRunThresholdMillis())
+         {
+            return (true);
+         }
+      }
+
+      return (policy.getSuccessSamplePercent() >= 100 || ThreadLocalRandom.current().nextDouble(100) < policy.getSuccessSamplePercent());
+   }
+
+
+
+   /***************************************************************************
+    * get the policy for a workflow - by its id, else its type, else default.
+    ***************************************************************************/
+   private static WorkflowTracerSamplingPolicy getPolicy(WorkflowsQBitConfig config, Integer workflowId)
+   {
+      WorkflowTracerSamplingPolicy policy = CollectionUtils.nonNullMap(config.getWorkflowTracerSamplingPoliciesByWorkflowId()).get(workflowId);
+      if(policy != null)
+      {
+         return (policy);
+      }
+
+      if(CollectionUtils.nullSafeHasContents(config.getWorkflowTracerSamplingPoliciesByWorkflowType()) && workflowId != null)
+      {
+         try
+         {
+            Workflow workflow = WorkflowCache.getWorkflow(workflowId);
+            if(workflow != null)
+            {
+               policy = config.getWorkflowTracerSamplingPoliciesByWorkflowType().get(workflow.getWorkflowTypeName());
+               if(policy != null)
+               {
+                  return (policy);
+               }
+            }
+         }
+         catch(Exception e)
+         {
+            LOG.info("Error looking up workflow type for sampling policy - using default", e, logPair("workflowId", workflowId));
+         }
+      }
+
+      return (config.getDefaultWorkflowTracerSamplingPolicy() != null ? config.getDefaultWorkflowTracerSamplingPolicy() : new WorkflowTracerSamplingPolicy());
+   }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.Serializable;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ ** implementation of a workflow run log tracer that, instead of inserting into
+ ** the workflowRunLog and workflowRunLogStep tables, appends run logs to the
+ ** QInstance's WorkflowRunLogSegmentStore, on local disk.
+ **
+ ** The id returned is the run log's id in the store (not in the workflowRunLog
+ ** table) - so callers that need to link to the run log (e.g., the
+ ** WorkflowTester) use a WorkflowRunLogTracer instead.
+ *******************************************************************************/
+public class SegmentStoreWorkflowRunLogTracer implements WorkflowTracerInterface
+{
+   private static final QLogger LOG = QLogger.getLogger(SegmentStoreWorkflowRunLogTracer.class);
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable handleWorkflowFinish(WorkflowRunLog workflowRunLog)
+   {
+      try
+      {
+         return (WorkflowRunLogSegmentStore.of(QContext.getQInstance()).append(workflowRunLog));
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error writing workflow run log to segment store", e, logPair("workflowId", workflowRunLog.getWorkflowId()));
+         return (null);
+      }
+   }
+
+}
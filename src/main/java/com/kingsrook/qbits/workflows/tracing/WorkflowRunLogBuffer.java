@@ -0,0 +1,518 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertOutput;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.session.QSystemUserSession;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import org.apache.commons.lang3.SerializationUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * bounded queue of finished workflow run logs, which a background flusher
+ * thread bulk-inserts (with their steps) into the workflowRunLog tables - so
+ * that finishing a workflow (see {@link BufferedWorkflowRunLogTracer}) doesn't
+ * wait on the inserts.
+ *
+ * The flusher inserts up to batchSize run logs per InsertAction.  It runs
+ * whenever a full batch is queued, or flushIntervalMillis after its last run,
+ * as the system user, in the QInstance that the buffer was created in.  When
+ * the queue is full, the overflowPolicy applies.  Spilled run logs are
+ * written, one serialized (base64) run log per line, to the spillFile (which
+ * must be given for that policy, and be unique to the process) - which is
+ * replayed (and deleted) by the flusher once the queue has been drained.  (If
+ * the process dies while replaying, the remainder of the file is replayed at
+ * the next start - so those run logs may be inserted twice.)
+ *
+ * shutdown stops the flusher, after it synchronously inserts whatever is
+ * left - and is called from a JVM shutdown hook, so queued run logs aren't
+ * lost when the application exits normally (and by the
+ * {@link WorkflowsRegistry}, when the buffer is replaced).
+ *
+ * One of these (configured from the {@link WorkflowsQBitConfig}) is created
+ * on demand in the {@link WorkflowsRegistry} of each QInstance - see
+ * {@link #of(QInstance)}.
+ *******************************************************************************/
+public class WorkflowRunLogBuffer
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowRunLogBuffer.class);
+
+   private final BlockingQueue<WorkflowRunLog>      queue;
+   private final int                                batchSize;
+   private final long                               flushIntervalMillis;
+   private final WorkflowRunLogBufferOverflowPolicy overflowPolicy;
+   private final Path                               spillFile;
+   private final QInstance                          qInstance;
+
+   private final Object flushLock  = new Object();
+   private final Object spillLock  = new Object();
+   private final Object flushAlarm = new Object();
+
+   private final    Thread  flusherThread;
+   private final    Thread  shutdownHook;
+   private volatile boolean running = true;
+
+   private final AtomicLong insertedCount = new AtomicLong();
+   private final AtomicLong droppedCount  = new AtomicLong();
+   private final AtomicLong spilledCount  = new AtomicLong();
+   private final AtomicLong failedCount   = new AtomicLong();
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowRunLogBuffer(int capacity, int batchSize, long flushIntervalMillis, WorkflowRunLogBufferOverflowPolicy overflowPolicy, Path spillFile)
+   {
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.batchSize = batchSize;
+      this.flushIntervalMillis = flushIntervalMillis;
+      this.overflowPolicy = overflowPolicy;
+      this.spillFile = spillFile;
+      this.qInstance = QContext.getQInstance();
+
+      this.flusherThread = new Thread(this::runFlusher, "workflow-run-log-flusher");
+      this.flusherThread.setDaemon(true);
+      this.flusherThread.start();
+
+      this.shutdownHook = new Thread(this::shutdown, "workflow-run-log-buffer-shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+   }
+
+
+
+   /***************************************************************************
+    * get the buffer for a QInstance - creating it (from the qbit's config, or
+    * its defaults) on first use.
+    ***************************************************************************/
+   public static WorkflowRunLogBuffer of(QInstance qInstance) throws QException
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      if(workflowsRegistry == null)
+      {
+         throw (new QException("The Workflows QBit has not been set up in this QInstance (it has no WorkflowsRegistry)"));
+      }
+
+      WorkflowRunLogBuffer workflowRunLogBuffer = workflowsRegistry.getWorkflowRunLogBuffer();
+      if(workflowRunLogBuffer != null)
+      {
+         return (workflowRunLogBuffer);
+      }
+
+      synchronized(workflowsRegistry)
+      {
+         if(workflowsRegistry.getWorkflowRunLogBuffer() == null)
+         {
+            WorkflowsQBitConfig config    = WorkflowsQBitConfig.of(qInstance);
+            Path                spillFile = config.getWorkflowRunLogBufferSpillFile() != null ? Path.of(config.getWorkflowRunLogBufferSpillFile()) : null;
+            workflowsRegistry.setWorkflowRunLogBuffer(new WorkflowRunLogBuffer(config.getWorkflowRunLogBufferCapacity(), config.getWorkflowRunLogBufferBatchSize(), config.getWorkflowRunLogBufferFlushIntervalMillis(), config.getWorkflowRunLogBufferOverflowPolicy(), spillFile));
+         }
+
+         return (workflowsRegistry.getWorkflowRunLogBuffer());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * add a finished run log to the queue (applying the overflow policy if it
+    * is full).  The run log must not be changed after this.  Once the buffer
+    * has been shut down, run logs are inserted immediately instead.
+    ***************************************************************************/
+   public void enqueue(WorkflowRunLog workflowRunLog)
+   {
+      if(!running)
+      {
+         insertRunLogs(List.of(workflowRunLog));
+         return;
+      }
+
+      switch(overflowPolicy)
+      {
+         case BLOCK ->
+         {
+            try
+            {
+               queue.put(workflowRunLog);
+            }
+            catch(InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               droppedCount.incrementAndGet();
+               LOG.warn("Interrupted while waiting to queue a workflow run log - it has been dropped", logPair("workflowId", workflowRunLog.getWorkflowId()));
+               return;
+            }
+         }
+         case DROP_OLDEST ->
+         {
+            while(!queue.offer(workflowRunLog))
+            {
+               if(queue.poll() != null)
+               {
+                  droppedCount.incrementAndGet();
+               }
+            }
+         }
+         case SPILL_TO_FILE ->
+         {
+            if(!queue.offer(workflowRunLog))
+            {
+               spill(workflowRunLog);
+            }
+         }
+         default -> throw (new IllegalStateException("Unexpected overflowPolicy: " + overflowPolicy));
+      }
+
+      if(queue.size() >= batchSize)
+      {
+         synchronized(flushAlarm)
+         {
+            flushAlarm.notifyAll();
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * synchronously insert everything that's queued (and any spill file), on
+    * the calling thread (using its QContext).
+    ***************************************************************************/
+   public void flush()
+   {
+      synchronized(flushLock)
+      {
+         List<WorkflowRunLog> batch = new ArrayList<>();
+         while(queue.drainTo(batch, batchSize) > 0)
+         {
+            insertRunLogs(batch);
+            batch.clear();
+         }
+
+         replaySpillFile();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * stop the flusher - waiting for it to insert everything that's queued.
+    ***************************************************************************/
+   public void shutdown()
+   {
+      //////////////////////////////////////////////////////////////////////
+      // (unless this is the shutdown hook running) the hook is no longer //
+      // needed - so remove it, for this to be garbage collected          //
+      //////////////////////////////////////////////////////////////////////
+      if(Thread.currentThread() != shutdownHook)
+      {
+         try
+         {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+         }
+         catch(IllegalStateException e)
+         {
+            ////////////////////////////////////////////////////
+            // the JVM is already shutting down - leave it be //
+            ////////////////////////////////////////////////////
+         }
+      }
+
+      running = false;
+      synchronized(flushAlarm)
+      {
+         flushAlarm.notifyAll();
+      }
+
+      try
+      {
+         flusherThread.join();
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         LOG.warn("Interrupted while waiting for workflow run log flusher to finish", logPair("queueDepth", queue.size()));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * the flusher thread's loop - waiting for a full batch, or the flush
+    * interval, then flushing, until shutdown (when it flushes once more).
+    ***************************************************************************/
+   private void runFlusher()
+   {
+      QContext.init(qInstance, new QSystemUserSession());
+      try
+      {
+         while(running)
+         {
+            awaitFlush();
+            flush();
+         }
+         flush();
+      }
+      catch(Throwable t)
+      {
+         LOG.warn("Error in workflow run log flusher", t);
+      }
+      finally
+      {
+         QContext.clear();
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void awaitFlush()
+   {
+      long deadline = System.currentTimeMillis() + flushIntervalMillis;
+      synchronized(flushAlarm)
+      {
+         long remaining = flushIntervalMillis;
+         while(running && queue.size() < batchSize && remaining > 0)
+         {
+            try
+            {
+               flushAlarm.wait(remaining);
+            }
+            catch(InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               return;
+            }
+            remaining = deadline - System.currentTimeMillis();
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * insert run logs (with their steps) - counting (and logging, but not
+    * throwing) failures, as there's no caller left to report them to.
+    ***************************************************************************/
+   private void insertRunLogs(List<WorkflowRunLog> workflowRunLogs)
+   {
+      int count = workflowRunLogs.size();
+      try
+      {
+         InsertOutput insertOutput = new InsertAction().execute(new InsertInput(WorkflowRunLog.TABLE_NAME).withRecordEntities(workflowRunLogs));
+         long         errorCount   = insertOutput.getRecords().stream().filter(r -> CollectionUtils.nullSafeHasContents(r.getErrors())).count();
+         insertedCount.addAndGet(count - errorCount);
+         if(errorCount > 0)
+         {
+            failedCount.addAndGet(errorCount);
+            LOG.warn("Errors inserting buffered workflow run logs", logPair("count", count), logPair("errorCount", errorCount));
+         }
+      }
+      catch(Exception e)
+      {
+         failedCount.addAndGet(count);
+         LOG.warn("Error inserting buffered workflow run logs", e, logPair("count", count));
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void spill(WorkflowRunLog workflowRunLog)
+   {
+      if(spillFile == null)
+      {
+         droppedCount.incrementAndGet();
+         LOG.warn("No spill file is configured for workflow run logs - it has been dropped", logPair("workflowId", workflowRunLog.getWorkflowId()));
+         return;
+      }
+
+      synchronized(spillLock)
+      {
+         try(BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND))
+         {
+            writer.write(Base64.getEncoder().encodeToString(SerializationUtils.serialize(workflowRunLog)));
+            writer.newLine();
+            spilledCount.incrementAndGet();
+         }
+         catch(Exception e)
+         {
+            droppedCount.incrementAndGet();
+            LOG.warn("Error spilling workflow run log to file - it has been dropped", e, logPair("spillFile", spillFile), logPair("workflowId", workflowRunLog.getWorkflowId()));
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * insert the run logs from the spill file (if there is one).  The file is
+    * first moved aside, so new spills can start a new one.
+    ***************************************************************************/
+   private void replaySpillFile()
+   {
+      if(spillFile == null)
+      {
+         return;
+      }
+
+      Path replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+      try
+      {
+         synchronized(spillLock)
+         {
+            if(!Files.exists(replayFile))
+            {
+               if(!Files.exists(spillFile))
+               {
+                  return;
+               }
+               Files.move(spillFile, replayFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+         }
+
+         try(BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8))
+         {
+            List<WorkflowRunLog> batch = new ArrayList<>();
+            String               line;
+            while((line = reader.readLine()) != null)
+            {
+               if(line.isBlank())
+               {
+                  continue;
+               }
+
+               try
+               {
+                  batch.add(SerializationUtils.deserialize(Base64.getDecoder().decode(line)));
+               }
+               catch(Exception e)
+               {
+                  ////////////////////////////////////////////////////////////////
+                  // skip (rather than retry forever) a line that can't be read //
+                  ////////////////////////////////////////////////////////////////
+                  failedCount.incrementAndGet();
+                  LOG.warn("Error reading workflow run log from spill file", e, logPair("spillFile", replayFile));
+               }
+
+               if(batch.size() >= batchSize)
+               {
+                  insertRunLogs(batch);
+                  batch.clear();
+               }
+            }
+
+            if(!batch.isEmpty())
+            {
+               insertRunLogs(batch);
+            }
+         }
+
+         Files.delete(replayFile);
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error replaying workflow run log spill file", e, logPair("spillFile", replayFile));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the number of run logs waiting in the queue.
+    ***************************************************************************/
+   public int getQueueDepth()
+   {
+      return (queue.size());
+   }
+
+
+
+   /***************************************************************************
+    * get the number of run logs inserted by this buffer.
+    ***************************************************************************/
+   public long getInsertedCount()
+   {
+      return (insertedCount.get());
+   }
+
+
+
+   /***************************************************************************
+    * get the number of run logs dropped (by the DROP_OLDEST policy, or for
+    * failing to queue or spill).
+    ***************************************************************************/
+   public long getDroppedCount()
+   {
+      return (droppedCount.get());
+   }
+
+
+
+   /***************************************************************************
+    * get the number of run logs written to the spill file.
+    ***************************************************************************/
+   public long getSpilledCount()
+   {
+      return (spilledCount.get());
+   }
+
+
+
+   /***************************************************************************
+    * get the number of run logs whose insert failed.
+    ***************************************************************************/
+   public long getFailedCount()
+   {
+      return (failedCount.get());
+   }
+
+}
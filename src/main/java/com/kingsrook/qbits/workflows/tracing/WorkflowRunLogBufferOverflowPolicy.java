@@ -0,0 +1,38 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+/*******************************************************************************
+ * what a {@link WorkflowRunLogBuffer} does with a run log when its queue is
+ * full:
+ * BLOCK makes the finishing workflow's thread wait until there is room.
+ * DROP_OLDEST discards the oldest queued run log, to make room for the new one.
+ * SPILL_TO_FILE writes the run log to a local spill file, to be inserted once
+ * the queue has been drained.
+ *******************************************************************************/
+public enum WorkflowRunLogBufferOverflowPolicy
+{
+   BLOCK,
+   DROP_OLDEST,
+   SPILL_TO_FILE
+}
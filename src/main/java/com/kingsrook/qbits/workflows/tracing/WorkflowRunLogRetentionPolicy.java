@@ -0,0 +1,148 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.util.List;
+
+
+/*******************************************************************************
+ * rules for how long run logs are kept in the workflowRunLog tables, before
+ * the PurgeWorkflowRunLogsProcess deletes them - a number of days (by their
+ * startTimestamp) for runs that had errors, and for runs that didn't.  A null
+ * number of days keeps those run logs forever.
+ *
+ * The default policy keeps every run log forever.
+ *******************************************************************************/
+public class WorkflowRunLogRetentionPolicy
+{
+   private Integer errorRetentionDays   = null;
+   private Integer successRetentionDays = null;
+
+
+
+   /***************************************************************************
+    * add any errors in this policy's settings to a list (prefixing each with
+    * a description of where the policy is from).
+    ***************************************************************************/
+   public void validate(String prefix, List<String> errors)
+   {
+      if(errorRetentionDays != null && errorRetentionDays < 0)
+      {
+         errors.add(prefix + " has a negative errorRetentionDays.");
+      }
+
+      if(successRetentionDays != null && successRetentionDays < 0)
+      {
+         errors.add(prefix + " has a negative successRetentionDays.");
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the retention days for run logs with or without errors.
+    ***************************************************************************/
+   public Integer getRetentionDays(boolean hadError)
+   {
+      return (hadError ? errorRetentionDays : successRetentionDays);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for errorRetentionDays
+    * @see #withErrorRetentionDays(Integer)
+    *******************************************************************************/
+   public Integer getErrorRetentionDays()
+   {
+      return (this.errorRetentionDays);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for errorRetentionDays
+    * @see #withErrorRetentionDays(Integer)
+    *******************************************************************************/
+   public void setErrorRetentionDays(Integer errorRetentionDays)
+   {
+      this.errorRetentionDays = errorRetentionDays;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for errorRetentionDays
+    *
+    * @param errorRetentionDays
+    * Number of days (by startTimestamp) to keep the run logs of runs that had an
+    * error.  Default value is null - meaning to keep them forever.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowRunLogRetentionPolicy withErrorRetentionDays(Integer errorRetentionDays)
+   {
+      this.errorRetentionDays = errorRetentionDays;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for successRetentionDays
+    * @see #withSuccessRetentionDays(Integer)
+    *******************************************************************************/
+   public Integer getSuccessRetentionDays()
+   {
+      return (this.successRetentionDays);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for successRetentionDays
+    * @see #withSuccessRetentionDays(Integer)
+    *******************************************************************************/
+   public void setSuccessRetentionDays(Integer successRetentionDays)
+   {
+      this.successRetentionDays = successRetentionDays;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for successRetentionDays
+    *
+    * @param successRetentionDays
+    * Number of days (by startTimestamp) to keep the run logs of runs that didn't
+    * have an error.  Default value is null - meaning to keep them forever.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowRunLogRetentionPolicy withSuccessRetentionDays(Integer successRetentionDays)
+   {
+      this.successRetentionDays = successRetentionDays;
+      return (this);
+   }
+
+}
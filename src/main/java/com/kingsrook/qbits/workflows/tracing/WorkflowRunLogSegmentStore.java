@@ -0,0 +1,720 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import org.apache.commons.lang3.SerializationUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * append-only store of workflow run logs in rolling segment files on local
+ * disk - so that high-volume run logs (see
+ * {@link SegmentStoreWorkflowRunLogTracer}) don't have to be written to the
+ * workflowRunLog tables, yet can still be read back (e.g., by the
+ * WorkflowRunLogViewerWidget), or loaded into those tables on demand (see
+ * LoadWorkflowRunLogSegmentsProcess).
+ *
+ * Each segment is a pair of files in the directory:
+ * - runlogs-NNNNNNNNNN.seg: the run logs, each one serialized and deflated,
+ *   after an int of its length, and a byte of its record format version (so
+ *   that a later format can still tell, and read, records written before).
+ * - runlogs-NNNNNNNNNN.idx: a fixed-size entry per run log (its workflowId,
+ *   startTimestamp millis, and offset in the .seg file) - written after the
+ *   run log itself, so that the index only ever refers to complete records.
+ *
+ * A new segment is started once the current one reaches maxSegmentBytes, and
+ * at each start of the process (existing segments are never appended to).
+ * The id of a run log in the store is its segment number in the high 32 bits,
+ * and its record number within the segment in the low 32 bits - so reading
+ * one by id is a direct lookup of its index entry.  Reads are done through
+ * memory-mapped files (cached for segments that are no longer being written).
+ *
+ * Searches by workflow and start time scan the index files - skipping
+ * segments whose range of start times (kept in memory) doesn't overlap the
+ * search's.
+ *
+ * Whenever a new segment is started, sealed segments whose run logs all
+ * started more than retentionDays ago (if set) are deleted.
+ *
+ * The directory is locked (by a lock file in it) while the store is open, so
+ * that two processes can't write to the same segments - each server needs a
+ * directory of its own.
+ *
+ * One of these (configured from the {@link WorkflowsQBitConfig}) is created
+ * on demand in the {@link WorkflowsRegistry} of each QInstance - see
+ * {@link #of(QInstance)}.
+ *******************************************************************************/
+public class WorkflowRunLogSegmentStore
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowRunLogSegmentStore.class);
+
+   static final int INDEX_ENTRY_BYTES = 20;
+
+   private static final byte RECORD_FORMAT_VERSION = 1;
+
+   private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("runlogs-(\\d+)\\.idx");
+   private static final String  LOCK_FILE_NAME       = "runlogs.lock";
+
+   private final Path    directory;
+   private final long    maxSegmentBytes;
+   private final Integer retentionDays;
+
+   private final FileChannel lockChannel;
+   private final FileLock    directoryLock;
+   private boolean           closed = false;
+
+   private final Object writeLock = new Object();
+
+   private final NavigableMap<Integer, SegmentBounds> segmentBounds        = new ConcurrentSkipListMap<>();
+   private final Map<Integer, MappedByteBuffer>       sealedSegmentBuffers = new ConcurrentHashMap<>();
+   private final Map<Integer, MappedByteBuffer>       sealedIndexBuffers   = new ConcurrentHashMap<>();
+
+   private FileChannel segmentChannel;
+   private FileChannel indexChannel;
+   private int         nextSegmentNo;
+
+   private volatile ActiveSegment activeSegment;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowRunLogSegmentStore(Path directory, long maxSegmentBytes) throws QException
+   {
+      this(directory, maxSegmentBytes, null);
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowRunLogSegmentStore(Path directory, long maxSegmentBytes, Integer retentionDays) throws QException
+   {
+      this.directory = directory;
+      this.maxSegmentBytes = maxSegmentBytes;
+      this.retentionDays = retentionDays;
+
+      try
+      {
+         Files.createDirectories(directory);
+         this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         this.directoryLock = tryLock(lockChannel);
+         if(directoryLock == null)
+         {
+            lockChannel.close();
+            throw (new QException("Workflow run log segment store directory " + directory + " is in use by another store (each process needs a directory of its own)"));
+         }
+      }
+      catch(IOException e)
+      {
+         throw (new QException("Error locking workflow run log segment store directory " + directory, e));
+      }
+
+      try
+      {
+         try(Stream<Path> files = Files.list(directory))
+         {
+            for(Path file : files.toList())
+            {
+               Matcher matcher = SEGMENT_FILE_PATTERN.matcher(file.getFileName().toString());
+               if(matcher.matches())
+               {
+                  int segmentNo = Integer.parseInt(matcher.group(1));
+                  segmentBounds.put(segmentNo, readSegmentBounds(segmentNo));
+               }
+            }
+         }
+      }
+      catch(IOException e)
+      {
+         releaseDirectoryLock();
+         throw (new QException("Error opening workflow run log segment store in " + directory, e));
+      }
+
+      this.nextSegmentNo = segmentBounds.isEmpty() ? 1 : segmentBounds.lastKey() + 1;
+   }
+
+
+
+   /***************************************************************************
+    * get the store for a QInstance - creating it (from the qbit's config) on
+    * first use.  The config's workflowRunLogSegmentStoreDirectory is required.
+    ***************************************************************************/
+   public static WorkflowRunLogSegmentStore of(QInstance qInstance) throws QException
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      if(workflowsRegistry == null)
+      {
+         throw (new QException("The Workflows QBit has not been set up in this QInstance (it has no WorkflowsRegistry)"));
+      }
+
+      WorkflowRunLogSegmentStore workflowRunLogSegmentStore = workflowsRegistry.getWorkflowRunLogSegmentStore();
+      if(workflowRunLogSegmentStore != null)
+      {
+         return (workflowRunLogSegmentStore);
+      }
+
+      synchronized(workflowsRegistry)
+      {
+         if(workflowsRegistry.getWorkflowRunLogSegmentStore() == null)
+         {
+            WorkflowsQBitConfig config = WorkflowsQBitConfig.of(qInstance);
+            if(config.getWorkflowRunLogSegmentStoreDirectory() == null)
+            {
+               throw (new QException("Workflows QBit workflowRunLogSegmentStoreDirectory must be set to use the workflow run log segment store"));
+            }
+
+            Path directory = Path.of(config.getWorkflowRunLogSegmentStoreDirectory());
+            workflowsRegistry.setWorkflowRunLogSegmentStore(new WorkflowRunLogSegmentStore(directory, config.getWorkflowRunLogSegmentMaxBytes(), config.getWorkflowRunLogSegmentRetentionDays()));
+         }
+
+         return (workflowsRegistry.getWorkflowRunLogSegmentStore());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the segment number from a run log's id in the store.
+    ***************************************************************************/
+   public static int getSegmentNo(long id)
+   {
+      return ((int) (id >>> 32));
+   }
+
+
+
+   /***************************************************************************
+    * get the record number (within its segment) from a run log's id in the
+    * store.
+    ***************************************************************************/
+   public static int getRecordNo(long id)
+   {
+      return ((int) id);
+   }
+
+
+
+   /***************************************************************************
+    * write a finished run log (with its steps) to the current segment -
+    * returning its id in the store.
+    ***************************************************************************/
+   public long append(WorkflowRunLog workflowRunLog) throws QException
+   {
+      byte[] record = compress(SerializationUtils.serialize(workflowRunLog));
+      int    length = Byte.BYTES + record.length;
+
+      long startMillis = workflowRunLog.getStartTimestamp() == null ? 0 : workflowRunLog.getStartTimestamp().toEpochMilli();
+      int  workflowId  = workflowRunLog.getWorkflowId() == null ? 0 : workflowRunLog.getWorkflowId();
+
+      synchronized(writeLock)
+      {
+         if(closed)
+         {
+            throw (new QException("Workflow run log segment store is closed"));
+         }
+
+         try
+         {
+            ActiveSegment segment = activeSegment;
+            if(segment == null || (segment.recordCount() > 0 && segment.bytes() + Integer.BYTES + length > maxSegmentBytes))
+            {
+               segment = roll();
+            }
+
+            ByteBuffer recordBuffer = ByteBuffer.allocate(Integer.BYTES + length).putInt(length).put(RECORD_FORMAT_VERSION).put(record).flip();
+            writeFully(segmentChannel, recordBuffer);
+
+            ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_ENTRY_BYTES).putInt(workflowId).putLong(startMillis).putLong(segment.bytes()).flip();
+            writeFully(indexChannel, indexBuffer);
+
+            segmentBounds.merge(segment.segmentNo(), new SegmentBounds(startMillis, startMillis), SegmentBounds::union);
+            activeSegment = new ActiveSegment(segment.segmentNo(), segment.recordCount() + 1, segment.bytes() + Integer.BYTES + length);
+
+            return (((long) segment.segmentNo() << 32) | segment.recordCount());
+         }
+         catch(IOException e)
+         {
+            throw (new QException("Error writing workflow run log to segment store", e));
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * read a run log (with its steps) by its id in the store - or null if
+    * there's no such run log.  The returned run log's id is its id in the
+    * store.
+    ***************************************************************************/
+   public WorkflowRunLog get(long id) throws QException
+   {
+      int segmentNo = getSegmentNo(id);
+      int recordNo  = getRecordNo(id);
+      if(recordNo < 0 || !segmentBounds.containsKey(segmentNo))
+      {
+         return (null);
+      }
+
+      try
+      {
+         ByteBuffer indexBuffer = getIndexBuffer(segmentNo);
+         if((long) (recordNo + 1) * INDEX_ENTRY_BYTES > indexBuffer.limit())
+         {
+            return (null);
+         }
+
+         int        offset        = (int) indexBuffer.getLong(recordNo * INDEX_ENTRY_BYTES + Integer.BYTES + Long.BYTES);
+         ByteBuffer segmentBuffer = getSegmentBuffer(segmentNo);
+         byte       version       = segmentBuffer.get(offset + Integer.BYTES);
+         if(version != RECORD_FORMAT_VERSION)
+         {
+            throw (new QException("Unsupported record format version " + version));
+         }
+
+         byte[] record = new byte[segmentBuffer.getInt(offset) - Byte.BYTES];
+         segmentBuffer.get(offset + Integer.BYTES + Byte.BYTES, record);
+
+         WorkflowRunLog workflowRunLog = SerializationUtils.deserialize(decompress(record));
+         workflowRunLog.setId(id);
+         return (workflowRunLog);
+      }
+      catch(Exception e)
+      {
+         throw (new QException("Error reading workflow run log " + id + " from segment store", e));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * find the ids of run logs in the store - newest first, up to a limit (if
+    * given) - optionally only in some segments, for a workflow, and/or with a
+    * start timestamp in a range (from inclusive, to exclusive).
+    ***************************************************************************/
+   public List<Long> findRunLogIds(Collection<Integer> segmentNos, Integer workflowId, Instant startTimestampFrom, Instant startTimestampTo, Integer limit) throws QException
+   {
+      long fromMillis = startTimestampFrom == null ? Long.MIN_VALUE : startTimestampFrom.toEpochMilli();
+      long toMillis   = startTimestampTo == null ? Long.MAX_VALUE : startTimestampTo.toEpochMilli();
+
+      List<Long> ids = new ArrayList<>();
+      for(Map.Entry<Integer, SegmentBounds> entry : segmentBounds.descendingMap().entrySet())
+      {
+         int           segmentNo = entry.getKey();
+         SegmentBounds bounds    = entry.getValue();
+         if((segmentNos != null && !segmentNos.contains(segmentNo)) || bounds.maxStartMillis() < fromMillis || bounds.minStartMillis() >= toMillis)
+         {
+            continue;
+         }
+
+         try
+         {
+            ByteBuffer indexBuffer = getIndexBuffer(segmentNo);
+            for(int recordNo = indexBuffer.limit() / INDEX_ENTRY_BYTES - 1; recordNo >= 0; recordNo--)
+            {
+               int  position    = recordNo * INDEX_ENTRY_BYTES;
+               long startMillis = indexBuffer.getLong(position + Integer.BYTES);
+               if((workflowId == null || workflowId == indexBuffer.getInt(position)) && startMillis >= fromMillis && startMillis < toMillis)
+               {
+                  ids.add(((long) segmentNo << 32) | recordNo);
+                  if(limit != null && ids.size() >= limit)
+                  {
+                     return (ids);
+                  }
+               }
+            }
+         }
+         catch(IOException e)
+         {
+            throw (new QException("Error reading workflow run log segment index " + segmentNo, e));
+         }
+      }
+
+      return (ids);
+   }
+
+
+
+   /***************************************************************************
+    * get the numbers of the segments in the store, oldest first.
+    ***************************************************************************/
+   public List<Integer> getSegmentNos()
+   {
+      return (new ArrayList<>(segmentBounds.keySet()));
+   }
+
+
+
+   /***************************************************************************
+    * close the files of the segment being written, and unlock the directory -
+    * after which run logs can still be read, but not appended.
+    ***************************************************************************/
+   public void close()
+   {
+      synchronized(writeLock)
+      {
+         closeActiveSegment();
+         if(!closed)
+         {
+            closed = true;
+            releaseDirectoryLock();
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * close the current segment (if any), and start the next one.
+    ***************************************************************************/
+   private ActiveSegment roll() throws IOException
+   {
+      closeActiveSegment();
+
+      int segmentNo = nextSegmentNo++;
+      segmentChannel = FileChannel.open(getSegmentFile(segmentNo), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      indexChannel = FileChannel.open(getIndexFile(segmentNo), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+      activeSegment = new ActiveSegment(segmentNo, 0, 0);
+      LOG.debug("Started workflow run log segment", logPair("segmentNo", segmentNo), logPair("directory", directory));
+
+      deleteExpiredSegments();
+      return (activeSegment);
+   }
+
+
+
+   /***************************************************************************
+    * delete the sealed segments whose run logs all started before the
+    * retention period (if there is one).
+    ***************************************************************************/
+   private void deleteExpiredSegments()
+   {
+      if(retentionDays == null)
+      {
+         return;
+      }
+
+      long expiredBeforeMillis = Instant.now().minus(retentionDays, ChronoUnit.DAYS).toEpochMilli();
+      for(Map.Entry<Integer, SegmentBounds> entry : segmentBounds.entrySet())
+      {
+         int segmentNo = entry.getKey();
+         if(segmentNo == activeSegment.segmentNo() || entry.getValue().maxStartMillis() >= expiredBeforeMillis)
+         {
+            continue;
+         }
+
+         segmentBounds.remove(segmentNo);
+         sealedSegmentBuffers.remove(segmentNo);
+         sealedIndexBuffers.remove(segmentNo);
+         try
+         {
+            Files.deleteIfExists(getIndexFile(segmentNo));
+            Files.deleteIfExists(getSegmentFile(segmentNo));
+            LOG.debug("Deleted expired workflow run log segment", logPair("segmentNo", segmentNo), logPair("directory", directory));
+         }
+         catch(IOException e)
+         {
+            LOG.warn("Error deleting expired workflow run log segment", e, logPair("segmentNo", segmentNo), logPair("directory", directory));
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * lock a store's lock file - or null if it's locked by another store (in
+    * this process, or another).
+    ***************************************************************************/
+   private static FileLock tryLock(FileChannel lockChannel) throws IOException
+   {
+      try
+      {
+         return (lockChannel.tryLock());
+      }
+      catch(OverlappingFileLockException e)
+      {
+         return (null);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void releaseDirectoryLock()
+   {
+      try
+      {
+         directoryLock.release();
+         lockChannel.close();
+      }
+      catch(IOException e)
+      {
+         LOG.warn("Error unlocking workflow run log segment store directory", e, logPair("directory", directory));
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void closeActiveSegment()
+   {
+      if(activeSegment == null)
+      {
+         return;
+      }
+
+      try
+      {
+         segmentChannel.force(false);
+         indexChannel.force(false);
+         segmentChannel.close();
+         indexChannel.close();
+      }
+      catch(IOException e)
+      {
+         LOG.warn("Error closing workflow run log segment", e, logPair("segmentNo", activeSegment.segmentNo()));
+      }
+
+      segmentChannel = null;
+      indexChannel = null;
+      activeSegment = null;
+   }
+
+
+
+   /***************************************************************************
+    * get the index entries of a segment - only as far as the last complete
+    * entry, for the segment being written.
+    ***************************************************************************/
+   private ByteBuffer getIndexBuffer(int segmentNo) throws IOException
+   {
+      ActiveSegment segment = activeSegment;
+      if(segment != null && segment.segmentNo() == segmentNo)
+      {
+         return (map(getIndexFile(segmentNo), (long) segment.recordCount() * INDEX_ENTRY_BYTES));
+      }
+
+      MappedByteBuffer buffer = sealedIndexBuffers.get(segmentNo);
+      if(buffer == null)
+      {
+         buffer = map(getIndexFile(segmentNo), -1);
+         sealedIndexBuffers.put(segmentNo, buffer);
+      }
+      return (buffer.duplicate());
+   }
+
+
+
+   /***************************************************************************
+    * get the records of a segment - only as far as the last complete record,
+    * for the segment being written.
+    ***************************************************************************/
+   private ByteBuffer getSegmentBuffer(int segmentNo) throws IOException
+   {
+      ActiveSegment segment = activeSegment;
+      if(segment != null && segment.segmentNo() == segmentNo)
+      {
+         return (map(getSegmentFile(segmentNo), segment.bytes()));
+      }
+
+      MappedByteBuffer buffer = sealedSegmentBuffers.get(segmentNo);
+      if(buffer == null)
+      {
+         buffer = map(getSegmentFile(segmentNo), -1);
+         sealedSegmentBuffers.put(segmentNo, buffer);
+      }
+      return (buffer.duplicate());
+   }
+
+
+
+   /***************************************************************************
+    * memory-map a file (read-only) - up to a size, else all of it.
+    ***************************************************************************/
+   private static MappedByteBuffer map(Path file, long size) throws IOException
+   {
+      try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+      {
+         return (channel.map(FileChannel.MapMode.READ_ONLY, 0, size < 0 ? channel.size() : size));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * read the range of start timestamps in an existing segment's index.
+    ***************************************************************************/
+   private SegmentBounds readSegmentBounds(int segmentNo) throws IOException
+   {
+      ByteBuffer indexBuffer    = map(getIndexFile(segmentNo), -1);
+      long       minStartMillis = Long.MAX_VALUE;
+      long       maxStartMillis = Long.MIN_VALUE;
+      for(int position = 0; position + INDEX_ENTRY_BYTES <= indexBuffer.limit(); position += INDEX_ENTRY_BYTES)
+      {
+         long startMillis = indexBuffer.getLong(position + Integer.BYTES);
+         minStartMillis = Math.min(minStartMillis, startMillis);
+         maxStartMillis = Math.max(maxStartMillis, startMillis);
+      }
+      return (new SegmentBounds(minStartMillis, maxStartMillis));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+   {
+      while(buffer.hasRemaining())
+      {
+         channel.write(buffer);
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static byte[] compress(byte[] bytes) throws QException
+   {
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length / 4);
+      Deflater              deflater              = new Deflater(Deflater.BEST_SPEED);
+      try(DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(byteArrayOutputStream, deflater))
+      {
+         deflaterOutputStream.write(bytes);
+      }
+      catch(IOException e)
+      {
+         throw (new QException("Error compressing workflow run log", e));
+      }
+      finally
+      {
+         deflater.end();
+      }
+      return (byteArrayOutputStream.toByteArray());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static byte[] decompress(byte[] bytes) throws IOException
+   {
+      try(InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(bytes)))
+      {
+         return (inputStream.readAllBytes());
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private Path getSegmentFile(int segmentNo)
+   {
+      return (directory.resolve(String.format("runlogs-%010d.seg", segmentNo)));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private Path getIndexFile(int segmentNo)
+   {
+      return (directory.resolve(String.format("runlogs-%010d.idx", segmentNo)));
+   }
+
+
+
+   /***************************************************************************
+    * the segment being written: its number, and how many records & bytes are
+    * completely written to it.
+    ***************************************************************************/
+   private record ActiveSegment(int segmentNo, int recordCount, long bytes)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * the range of start timestamps (as epoch millis) of the run logs in a
+    * segment.
+    ***************************************************************************/
+   private record SegmentBounds(long minStartMillis, long maxStartMillis)
+   {
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      SegmentBounds union(SegmentBounds other)
+      {
+         return (new SegmentBounds(Math.min(minStartMillis, other.minStartMillis), Math.max(maxStartMillis, other.maxStartMillis)));
+      }
+   }
+
+}
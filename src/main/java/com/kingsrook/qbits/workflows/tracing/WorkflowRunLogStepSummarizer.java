@@ -0,0 +1,254 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qqq.backend.core.actions.tables.AggregateAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.aggregate.Aggregate;
+import com.kingsrook.qqq.backend.core.model.actions.tables.aggregate.AggregateInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.aggregate.AggregateOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.aggregate.AggregateOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.aggregate.AggregateResult;
+import com.kingsrook.qqq.backend.core.model.actions.tables.aggregate.GroupBy;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterOrderBy;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.ValueUtils;
+
+
+/*******************************************************************************
+ * builds {@link WorkflowRunLogStepSummary}s for a run - one per workflow step
+ * it visited, in order of first visit - without loading all of the run's
+ * workflowRunLogStep rows: counts, first & last seqNos and total durations
+ * come from an aggregate query (grouped by workflowStepId), and then only the
+ * first & last rows of the steps being summarized are queried, for their
+ * outputs.  So a caller showing a page of summaries can aggregate, take its
+ * page, and then load outputs for just that page.
+ *
+ * Run logs that aren't in the tables (e.g., from the segment store) are
+ * summarized from their in-memory steps.
+ *
+ * getVisitedStepIds gives the workflowStepId of every visit, in order - which
+ * for a stored run queries only the workflowStepId & seqNo columns of its
+ * rows.
+ *******************************************************************************/
+public class WorkflowRunLogStepSummarizer
+{
+
+   /***************************************************************************
+    * aggregate a stored run's steps - without their outputs (see
+    * withOutputs).
+    ***************************************************************************/
+   public static List<WorkflowRunLogStepSummary> aggregate(Long workflowRunLogId) throws QException
+   {
+      Aggregate count         = new Aggregate("id", AggregateOperator.COUNT);
+      Aggregate minSeqNo      = new Aggregate("seqNo", AggregateOperator.MIN);
+      Aggregate maxSeqNo      = new Aggregate("seqNo", AggregateOperator.MAX);
+      Aggregate totalDuration = new Aggregate("durationMillis", AggregateOperator.SUM);
+      GroupBy   groupBy       = new GroupBy(QFieldType.INTEGER, "workflowStepId");
+
+      AggregateInput aggregateInput = new AggregateInput();
+      aggregateInput.setTableName(WorkflowRunLogStep.TABLE_NAME);
+      aggregateInput.setFilter(new QQueryFilter(new QFilterCriteria("workflowRunLogId", QCriteriaOperator.EQUALS, workflowRunLogId)));
+      aggregateInput.withAggregate(count);
+      aggregateInput.withAggregate(minSeqNo);
+      aggregateInput.withAggregate(maxSeqNo);
+      aggregateInput.withAggregate(totalDuration);
+      aggregateInput.withGroupBy(groupBy);
+      AggregateOutput aggregateOutput = new AggregateAction().execute(aggregateInput);
+
+      List<WorkflowRunLogStepSummary> summaries = new ArrayList<>();
+      for(AggregateResult result : aggregateOutput.getResults())
+      {
+         summaries.add(new WorkflowRunLogStepSummary(
+            ValueUtils.getValueAsInteger(result.getGroupByValue(groupBy)),
+            ValueUtils.getValueAsInteger(result.getAggregateValue(count)),
+            ValueUtils.getValueAsInteger(result.getAggregateValue(minSeqNo)),
+            ValueUtils.getValueAsInteger(result.getAggregateValue(maxSeqNo)),
+            null,
+            null,
+            null,
+            ValueUtils.getValueAsLong(result.getAggregateValue(totalDuration))));
+      }
+
+      summaries.sort(Comparator.comparing(WorkflowRunLogStepSummary::firstSeqNo, Comparator.nullsLast(Comparator.naturalOrder())));
+      return (summaries);
+   }
+
+
+
+   /***************************************************************************
+    * add the first & last visits' outputs to summaries from aggregate - with
+    * one query, for just those visits' rows.
+    ***************************************************************************/
+   public static List<WorkflowRunLogStepSummary> withOutputs(Long workflowRunLogId, List<WorkflowRunLogStepSummary> summaries) throws QException
+   {
+      List<Integer> seqNos = new ArrayList<>();
+      for(WorkflowRunLogStepSummary summary : summaries)
+      {
+         seqNos.add(summary.firstSeqNo());
+         seqNos.add(summary.lastSeqNo());
+      }
+      seqNos.removeIf(seqNo -> seqNo == null);
+      if(seqNos.isEmpty())
+      {
+         return (summaries);
+      }
+
+      Map<Integer, QRecord> rowsBySeqNo = new HashMap<>();
+      for(QRecord record : QueryAction.execute(WorkflowRunLogStep.TABLE_NAME, new QQueryFilter()
+         .withCriteria(new QFilterCriteria("workflowRunLogId", QCriteriaOperator.EQUALS, workflowRunLogId))
+         .withCriteria(new QFilterCriteria("seqNo", QCriteriaOperator.IN, seqNos))))
+      {
+         rowsBySeqNo.put(record.getValueInteger("seqNo"), record);
+      }
+
+      List<WorkflowRunLogStepSummary> rs = new ArrayList<>();
+      for(WorkflowRunLogStepSummary summary : summaries)
+      {
+         QRecord firstRow = rowsBySeqNo.get(summary.firstSeqNo());
+         QRecord lastRow  = rowsBySeqNo.get(summary.lastSeqNo());
+         rs.add(summary.withOutputs(
+            firstRow == null ? null : firstRow.getValueString("outputData"),
+            lastRow == null ? null : lastRow.getValueString("outputData"),
+            lastRow == null ? null : lastRow.getValueString("message")));
+      }
+      return (rs);
+   }
+
+
+
+   /***************************************************************************
+    * summarize a run log's in-memory steps (e.g., one from the segment store).
+    ***************************************************************************/
+   public static List<WorkflowRunLogStepSummary> summarize(WorkflowRunLog workflowRunLog)
+   {
+      Map<Integer, List<WorkflowRunLogStep>> stepsByWorkflowStepId = new LinkedHashMap<>();
+      List<WorkflowRunLogStep>               steps                 = new ArrayList<>(CollectionUtils.nonNullList(workflowRunLog.getSteps()));
+      steps.sort(Comparator.comparing(WorkflowRunLogStep::getSeqNo, Comparator.nullsLast(Comparator.naturalOrder())));
+      for(WorkflowRunLogStep step : steps)
+      {
+         stepsByWorkflowStepId.computeIfAbsent(step.getWorkflowStepId(), k -> new ArrayList<>()).add(step);
+      }
+
+      List<WorkflowRunLogStepSummary> summaries = new ArrayList<>();
+      for(Map.Entry<Integer, List<WorkflowRunLogStep>> entry : stepsByWorkflowStepId.entrySet())
+      {
+         List<WorkflowRunLogStep> visits = entry.getValue();
+         WorkflowRunLogStep       first  = visits.get(0);
+         WorkflowRunLogStep       last   = visits.get(visits.size() - 1);
+
+         Long totalDurationMillis = null;
+         for(WorkflowRunLogStep visit : visits)
+         {
+            if(visit.getDurationMillis() != null)
+            {
+               totalDurationMillis = (totalDurationMillis == null ? 0 : totalDurationMillis) + visit.getDurationMillis();
+            }
+         }
+
+         summaries.add(new WorkflowRunLogStepSummary(entry.getKey(), visits.size(), first.getSeqNo(), last.getSeqNo(), first.getOutputData(), last.getOutputData(), last.getMessage(), totalDurationMillis));
+      }
+      return (summaries);
+   }
+
+
+
+   /***************************************************************************
+    * get the workflowStepId of each of a stored run's visits, in seqNo order.
+    ***************************************************************************/
+   public static List<Integer> getVisitedStepIds(Long workflowRunLogId) throws QException
+   {
+      QueryInput queryInput = new QueryInput(WorkflowRunLogStep.TABLE_NAME)
+         .withFilter(new QQueryFilter(new QFilterCriteria("workflowRunLogId", QCriteriaOperator.EQUALS, workflowRunLogId))
+            .withOrderBy(new QFilterOrderBy("seqNo")))
+         .withFieldNamesToInclude(Set.of("workflowStepId", "seqNo"));
+
+      return (new QueryAction().execute(queryInput).getRecords().stream()
+         .map(record -> record.getValueInteger("workflowStepId"))
+         .toList());
+   }
+
+
+
+   /***************************************************************************
+    * get the workflowStepId of each of a run log's in-memory visits, in seqNo
+    * order.
+    ***************************************************************************/
+   public static List<Integer> getVisitedStepIds(WorkflowRunLog workflowRunLog)
+   {
+      return (CollectionUtils.nonNullList(workflowRunLog.getSteps()).stream()
+         .sorted(Comparator.comparing(WorkflowRunLogStep::getSeqNo, Comparator.nullsLast(Comparator.naturalOrder())))
+         .map(step -> step.getWorkflowStepId())
+         .toList());
+   }
+
+
+
+   /***************************************************************************
+    * get a page of a stored run's step rows for one workflow step, in seqNo
+    * order - for loading a step's visits on demand.
+    ***************************************************************************/
+   public static List<QRecord> getStepRows(Long workflowRunLogId, Integer workflowStepId, int skip, int limit) throws QException
+   {
+      return (QueryAction.execute(WorkflowRunLogStep.TABLE_NAME, new QQueryFilter()
+         .withCriteria(new QFilterCriteria("workflowRunLogId", QCriteriaOperator.EQUALS, workflowRunLogId))
+         .withCriteria(new QFilterCriteria("workflowStepId", QCriteriaOperator.EQUALS, workflowStepId))
+         .withOrderBy(new QFilterOrderBy("seqNo"))
+         .withSkip(skip)
+         .withLimit(limit)));
+   }
+
+
+
+   /***************************************************************************
+    * get a page of a run log's in-memory step rows for one workflow step, in
+    * seqNo order.
+    ***************************************************************************/
+   public static List<QRecord> getStepRows(WorkflowRunLog workflowRunLog, Integer workflowStepId, int skip, int limit)
+   {
+      return (CollectionUtils.nonNullList(workflowRunLog.getSteps()).stream()
+         .filter(step -> workflowStepId.equals(step.getWorkflowStepId()))
+         .sorted(Comparator.comparing(WorkflowRunLogStep::getSeqNo, Comparator.nullsLast(Comparator.naturalOrder())))
+         .skip(skip)
+         .limit(limit)
+         .map(step -> step.toQRecord())
+         .toList());
+   }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.Serializable;
+
+
+/*******************************************************************************
+ * summary of the run log steps for one workflow step, in one run - which may
+ * have visited the step any number of times (e.g., in a loop container):
+ * how many times, the seqNos & outputs of its first and last visits, and the
+ * total time spent in it (null if the steps have no durations).  Built by
+ * {@link WorkflowRunLogStepSummarizer}.
+ *******************************************************************************/
+public record WorkflowRunLogStepSummary(Integer workflowStepId, int visitCount, Integer firstSeqNo, Integer lastSeqNo, String firstOutputData, String lastOutputData, String lastMessage, Long totalDurationMillis) implements Serializable
+{
+
+   /***************************************************************************
+    * copy of this summary, with the first & last visits' outputs.
+    ***************************************************************************/
+   public WorkflowRunLogStepSummary withOutputs(String firstOutputData, String lastOutputData, String lastMessage)
+   {
+      return (new WorkflowRunLogStepSummary(workflowStepId, visitCount, firstSeqNo, lastSeqNo, firstOutputData, lastOutputData, lastMessage, totalDurationMillis));
+   }
+
+}
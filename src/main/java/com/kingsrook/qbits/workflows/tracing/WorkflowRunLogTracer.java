@@ -60,4 +60,15 @@ public class WorkflowRunLogTracer implements WorkflowTracerInterface
       }
    }
 
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public boolean storesRunLogsInTable()
+   {
+      return (true);
+   }
+
 }
@@ -0,0 +1,524 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunStats;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateOutput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.session.QSystemUserSession;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * in-memory aggregation of finished workflow runs into per-workflow,
+ * per-revision, per-hour buckets, which a background flusher thread upserts
+ * into the workflowRunStats table (see {@link WorkflowRunStats}) every
+ * flushIntervalMillis - adding each bucket's counts & durations since the
+ * previous flush to the bucket's row.
+ *
+ * A run is recorded into its bucket inside the bucket map's compute, and the
+ * flusher only evicts an idle bucket inside computeIfPresent - so a run can't
+ * be added to a bucket that has just been evicted.  The flusher drains each
+ * bucket with sumThenReset/getThenReset, so nothing recorded is lost - though
+ * a run recorded while a flush is reading its bucket may be split between
+ * that flush and the next.  If a flush fails, what it drained is added back,
+ * to be retried by the next one.
+ *
+ * Rows are upserted by reading them and then inserting or updating - which
+ * is safe, as each aggregator writes only its own rows (by its nodeId, random
+ * per JVM), and its flushes don't overlap.  So servers sharing the table never
+ * update the same row, and readers sum the rows of all nodes.
+ *
+ * The flusher runs as the system user, in the QInstance that the aggregator
+ * was created in.  shutdown stops it, after it flushes whatever is left - and
+ * is called from a JVM shutdown hook (and by the {@link WorkflowsRegistry},
+ * when the aggregator is replaced).  One of these (configured from the
+ * {@link WorkflowsQBitConfig}) is created on demand in the
+ * {@link WorkflowsRegistry} of each QInstance - see {@link #of(QInstance)}.
+ *******************************************************************************/
+public class WorkflowRunStatsAggregator
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowRunStatsAggregator.class);
+
+   private static final String NODE_ID = UUID.randomUUID().toString();
+
+   private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+   private final long                   flushIntervalMillis;
+   private final QInstance              qInstance;
+
+   private final Object flushLock  = new Object();
+   private final Object flushAlarm = new Object();
+
+   private final    Thread  flusherThread;
+   private final    Thread  shutdownHook;
+   private volatile boolean running = true;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public WorkflowRunStatsAggregator(long flushIntervalMillis)
+   {
+      this.flushIntervalMillis = flushIntervalMillis;
+      this.qInstance = QContext.getQInstance();
+
+      this.flusherThread = new Thread(this::runFlusher, "workflow-run-stats-flusher");
+      this.flusherThread.setDaemon(true);
+      this.flusherThread.start();
+
+      this.shutdownHook = new Thread(this::shutdown, "workflow-run-stats-shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+   }
+
+
+
+   /***************************************************************************
+    * get the aggregator for a QInstance - creating it (from the qbit's
+    * config, or its defaults) on first use.
+    ***************************************************************************/
+   public static WorkflowRunStatsAggregator of(QInstance qInstance) throws QException
+   {
+      WorkflowsRegistry workflowsRegistry = WorkflowsRegistry.of(qInstance);
+      if(workflowsRegistry == null)
+      {
+         throw (new QException("The Workflows QBit has not been set up in this QInstance (it has no WorkflowsRegistry)"));
+      }
+
+      WorkflowRunStatsAggregator workflowRunStatsAggregator = workflowsRegistry.getWorkflowRunStatsAggregator();
+      if(workflowRunStatsAggregator != null)
+      {
+         return (workflowRunStatsAggregator);
+      }
+
+      synchronized(workflowsRegistry)
+      {
+         if(workflowsRegistry.getWorkflowRunStatsAggregator() == null)
+         {
+            workflowsRegistry.setWorkflowRunStatsAggregator(new WorkflowRunStatsAggregator(WorkflowsQBitConfig.of(qInstance).getWorkflowRunStatsFlushIntervalMillis()));
+         }
+
+         return (workflowsRegistry.getWorkflowRunStatsAggregator());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * add a finished run to its bucket.  Run logs without a workflowId or a
+    * startTimestamp are ignored; ones without an endTimestamp are counted,
+    * but don't contribute to durations.
+    ***************************************************************************/
+   public void record(WorkflowRunLog workflowRunLog)
+   {
+      if(workflowRunLog.getWorkflowId() == null || workflowRunLog.getStartTimestamp() == null)
+      {
+         return;
+      }
+
+      BucketKey bucketKey = new BucketKey(workflowRunLog.getWorkflowId(), workflowRunLog.getWorkflowRevisionId(), workflowRunLog.getStartTimestamp().truncatedTo(ChronoUnit.HOURS));
+      buckets.compute(bucketKey, (k, bucket) ->
+      {
+         bucket = Objects.requireNonNullElseGet(bucket, () -> new Bucket());
+
+         bucket.runCount.increment();
+         if(BooleanUtils.isTrue(workflowRunLog.getHadError()))
+         {
+            bucket.errorCount.increment();
+         }
+
+         if(workflowRunLog.getEndTimestamp() != null)
+         {
+            long durationMillis = Duration.between(workflowRunLog.getStartTimestamp(), workflowRunLog.getEndTimestamp()).toMillis();
+            bucket.totalDurationMillis.add(durationMillis);
+            bucket.minDurationMillis.accumulate(durationMillis);
+            bucket.maxDurationMillis.accumulate(durationMillis);
+         }
+
+         if(workflowRunLog.getSteps() != null)
+         {
+            bucket.stepCount.add(workflowRunLog.getSteps().size());
+         }
+
+         return (bucket);
+      });
+   }
+
+
+
+   /***************************************************************************
+    * synchronously upsert everything recorded since the last flush, on the
+    * calling thread (using its QContext).
+    ***************************************************************************/
+   public void flush()
+   {
+      synchronized(flushLock)
+      {
+         Instant           evictBefore = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(1, ChronoUnit.HOURS);
+         List<BucketDelta> deltas      = new ArrayList<>();
+         for(Map.Entry<BucketKey, Bucket> entry : buckets.entrySet())
+         {
+            BucketDelta delta = entry.getValue().drain(entry.getKey());
+            if(delta != null)
+            {
+               deltas.add(delta);
+            }
+            else if(entry.getKey().hourStartTimestamp().isBefore(evictBefore))
+            {
+               ///////////////////////////////////////////////////////////////////
+               // a bucket that was idle for a whole flush interval, and is for //
+               // an hour that's over, is done with - so remove it from the map //
+               // (unless a run was recorded into it since it was drained)      //
+               ///////////////////////////////////////////////////////////////////
+               buckets.computeIfPresent(entry.getKey(), (k, bucket) -> bucket.runCount.sum() == 0 ? null : bucket);
+            }
+         }
+
+         if(deltas.isEmpty())
+         {
+            return;
+         }
+
+         try
+         {
+            upsert(deltas);
+         }
+         catch(Exception e)
+         {
+            LOG.warn("Error flushing workflow run stats - will retry at next flush", e, logPair("bucketCount", deltas.size()));
+            deltas.forEach(this::restore);
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * stop the flusher - waiting for it to flush everything that's recorded.
+    ***************************************************************************/
+   public void shutdown()
+   {
+      //////////////////////////////////////////////////////////////////////
+      // (unless this is the shutdown hook running) the hook is no longer //
+      // needed - so remove it, for this to be garbage collected          //
+      //////////////////////////////////////////////////////////////////////
+      if(Thread.currentThread() != shutdownHook)
+      {
+         try
+         {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+         }
+         catch(IllegalStateException e)
+         {
+            ////////////////////////////////////////////////////
+            // the JVM is already shutting down - leave it be //
+            ////////////////////////////////////////////////////
+         }
+      }
+
+      running = false;
+      synchronized(flushAlarm)
+      {
+         flushAlarm.notifyAll();
+      }
+
+      try
+      {
+         flusherThread.join();
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         LOG.warn("Interrupted while waiting for workflow run stats flusher to finish", logPair("bucketCount", buckets.size()));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * the flusher thread's loop - flushing every flush interval, until
+    * shutdown (when it flushes once more).
+    ***************************************************************************/
+   private void runFlusher()
+   {
+      QContext.init(qInstance, new QSystemUserSession());
+      try
+      {
+         while(running)
+         {
+            awaitFlush();
+            flush();
+         }
+         flush();
+      }
+      catch(Throwable t)
+      {
+         LOG.warn("Error in workflow run stats flusher", t);
+      }
+      finally
+      {
+         QContext.clear();
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void awaitFlush()
+   {
+      long deadline = System.currentTimeMillis() + flushIntervalMillis;
+      synchronized(flushAlarm)
+      {
+         long remaining = flushIntervalMillis;
+         while(running && remaining > 0)
+         {
+            try
+            {
+               flushAlarm.wait(remaining);
+            }
+            catch(InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               return;
+            }
+            remaining = deadline - System.currentTimeMillis();
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * add deltas to their rows - updating the ones that exist, and inserting
+    * the rest.  Deltas whose insert or update fail are restored to their
+    * buckets.
+    ***************************************************************************/
+   private void upsert(List<BucketDelta> deltas) throws QException
+   {
+      //////////////////////////////////////////////////////////////////////
+      // fetch existing rows for all the deltas' workflows & hours in one //
+      // query, then match them up with the deltas by their full key      //
+      //////////////////////////////////////////////////////////////////////
+      List<Integer> workflowIds = deltas.stream().map(d -> d.key().workflowId()).distinct().toList();
+      List<Instant> hours       = deltas.stream().map(d -> d.key().hourStartTimestamp()).distinct().toList();
+
+      Map<BucketKey, QRecord> existingRows = new HashMap<>();
+      for(QRecord record : QueryAction.execute(WorkflowRunStats.TABLE_NAME, new QQueryFilter()
+         .withCriteria(new QFilterCriteria("workflowId", QCriteriaOperator.IN, workflowIds))
+         .withCriteria(new QFilterCriteria("hourStartTimestamp", QCriteriaOperator.IN, hours))
+         .withCriteria(new QFilterCriteria("nodeId", QCriteriaOperator.EQUALS, NODE_ID))))
+      {
+         existingRows.put(new BucketKey(record.getValueInteger("workflowId"), record.getValueInteger("workflowRevisionId"), record.getValueInstant("hourStartTimestamp")), record);
+      }
+
+      List<BucketDelta> insertDeltas = new ArrayList<>();
+      List<QRecord>     insertRows   = new ArrayList<>();
+      List<BucketDelta> updateDeltas = new ArrayList<>();
+      List<QRecord>     updateRows   = new ArrayList<>();
+      for(BucketDelta delta : deltas)
+      {
+         QRecord existingRow = existingRows.get(delta.key());
+         if(existingRow == null)
+         {
+            insertDeltas.add(delta);
+            insertRows.add(delta.toNewRow());
+         }
+         else
+         {
+            updateDeltas.add(delta);
+            updateRows.add(delta.addToRow(new WorkflowRunStats(existingRow)));
+         }
+      }
+
+      if(!insertRows.isEmpty())
+      {
+         InsertOutput insertOutput = new InsertAction().execute(new InsertInput(WorkflowRunStats.TABLE_NAME).withRecords(insertRows));
+         restoreFailures(insertDeltas, insertOutput.getRecords());
+      }
+
+      if(!updateRows.isEmpty())
+      {
+         UpdateOutput updateOutput = new UpdateAction().execute(new UpdateInput(WorkflowRunStats.TABLE_NAME).withRecords(updateRows));
+         restoreFailures(updateDeltas, updateOutput.getRecords());
+      }
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private void restoreFailures(List<BucketDelta> deltas, List<QRecord> outputRecords)
+   {
+      int errorCount = 0;
+      for(int i = 0; i < deltas.size() && i < outputRecords.size(); i++)
+      {
+         if(CollectionUtils.nullSafeHasContents(outputRecords.get(i).getErrors()))
+         {
+            restore(deltas.get(i));
+            errorCount++;
+         }
+      }
+
+      if(errorCount > 0)
+      {
+         LOG.warn("Errors storing workflow run stats - will retry at next flush", logPair("count", deltas.size()), logPair("errorCount", errorCount));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * add a delta that couldn't be stored back into its bucket.
+    ***************************************************************************/
+   private void restore(BucketDelta delta)
+   {
+      buckets.compute(delta.key(), (k, bucket) ->
+      {
+         bucket = Objects.requireNonNullElseGet(bucket, () -> new Bucket());
+         bucket.runCount.add(delta.runCount());
+         bucket.errorCount.add(delta.errorCount());
+         bucket.totalDurationMillis.add(delta.totalDurationMillis());
+         bucket.minDurationMillis.accumulate(delta.minDurationMillis());
+         bucket.maxDurationMillis.accumulate(delta.maxDurationMillis());
+         bucket.stepCount.add(delta.stepCount());
+         return (bucket);
+      });
+   }
+
+
+
+   /***************************************************************************
+    * identity of a bucket (and of its row in the workflowRunStats table).
+    ***************************************************************************/
+   private record BucketKey(Integer workflowId, Integer workflowRevisionId, Instant hourStartTimestamp)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * what's been recorded in a bucket since its last flush.
+    ***************************************************************************/
+   private static class Bucket
+   {
+      private final LongAdder       runCount            = new LongAdder();
+      private final LongAdder       errorCount          = new LongAdder();
+      private final LongAdder       totalDurationMillis = new LongAdder();
+      private final LongAccumulator minDurationMillis   = new LongAccumulator(Math::min, Long.MAX_VALUE);
+      private final LongAccumulator maxDurationMillis   = new LongAccumulator(Math::max, Long.MIN_VALUE);
+      private final LongAdder       stepCount           = new LongAdder();
+
+
+
+      /***************************************************************************
+       * take (and reset) the bucket's values - or null if nothing was recorded.
+       ***************************************************************************/
+      private BucketDelta drain(BucketKey bucketKey)
+      {
+         long runCount = this.runCount.sumThenReset();
+         if(runCount == 0)
+         {
+            return (null);
+         }
+
+         return (new BucketDelta(bucketKey, runCount, errorCount.sumThenReset(), totalDurationMillis.sumThenReset(), minDurationMillis.getThenReset(), maxDurationMillis.getThenReset(), stepCount.sumThenReset()));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * values drained from a bucket, to be added to its row.  min & max are
+    * Long.MAX_VALUE & MIN_VALUE if no durations were recorded.
+    ***************************************************************************/
+   private record BucketDelta(BucketKey key, long runCount, long errorCount, long totalDurationMillis, long minDurationMillis, long maxDurationMillis, long stepCount)
+   {
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      private QRecord toNewRow()
+      {
+         return (addToRow(new WorkflowRunStats()
+            .withWorkflowId(key.workflowId())
+            .withWorkflowRevisionId(key.workflowRevisionId())
+            .withHourStartTimestamp(key.hourStartTimestamp())
+            .withNodeId(NODE_ID)));
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      private QRecord addToRow(WorkflowRunStats row)
+      {
+         row.setRunCount((int) (Objects.requireNonNullElse(row.getRunCount(), 0) + runCount));
+         row.setErrorCount((int) (Objects.requireNonNullElse(row.getErrorCount(), 0) + errorCount));
+         row.setTotalDurationMillis(Objects.requireNonNullElse(row.getTotalDurationMillis(), 0L) + totalDurationMillis);
+         row.setStepCount(Objects.requireNonNullElse(row.getStepCount(), 0L) + stepCount);
+
+         if(minDurationMillis != Long.MAX_VALUE)
+         {
+            row.setMinDurationMillis(row.getMinDurationMillis() == null ? minDurationMillis : Math.min(row.getMinDurationMillis(), minDurationMillis));
+            row.setMaxDurationMillis(row.getMaxDurationMillis() == null ? maxDurationMillis : Math.max(row.getMaxDurationMillis(), maxDurationMillis));
+         }
+
+         return (row.toQRecord());
+      }
+   }
+
+}
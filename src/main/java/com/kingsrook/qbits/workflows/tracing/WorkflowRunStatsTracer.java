@@ -0,0 +1,113 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.io.Serializable;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunStats;
+import com.kingsrook.qqq.backend.core.actions.customizers.QCodeLoader;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ ** workflow tracer that adds each finished run to the {@link WorkflowRunStats}
+ ** rollups (via the QInstance's WorkflowRunStatsAggregator), and then passes
+ ** the run log on to another tracer (by default, a WorkflowRunLogTracer) - set
+ ** in the WorkflowsQBitConfig's workflowRunStatsDelegateCodeReference.
+ **
+ ** Step counts in the rollups come from the run logs' steps - so they are
+ ** only recorded if the delegate tracer needs STEPS detail.
+ *******************************************************************************/
+public class WorkflowRunStatsTracer implements WorkflowTracerInterface
+{
+   private static final QLogger LOG = QLogger.getLogger(WorkflowRunStatsTracer.class);
+
+   private WorkflowTracerInterface delegateTracer;
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   @Override
+   public Serializable handleWorkflowFinish(WorkflowRunLog workflowRunLog)
+   {
+      try
+      {
+         WorkflowRunStatsAggregator.of(QContext.getQInstance()).record(workflowRunLog);
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error recording workflow run stats", e, logPair("workflowId", workflowRunLog.getWorkflowId()));
+      }
+
+      WorkflowTracerInterface delegateTracer = getDelegateTracer();
+      if(delegateTracer == null)
+      {
+         return (null);
+      }
+
+      return (delegateTracer.handleWorkflowFinish(workflowRunLog));
+   }
+
+
+
+   /***************************************************************************
+    * whatever detail the delegate needs - but at least a SUMMARY, for the
+    * rollups.
+    ***************************************************************************/
+   @Override
+   public WorkflowTraceDetail getTraceDetail()
+   {
+      WorkflowTracerInterface delegateTracer = getDelegateTracer();
+      if(delegateTracer == null || delegateTracer.getTraceDetail() == null || delegateTracer.getTraceDetail().compareTo(WorkflowTraceDetail.SUMMARY) < 0)
+      {
+         return (WorkflowTraceDetail.SUMMARY);
+      }
+
+      return (delegateTracer.getTraceDetail());
+   }
+
+
+
+   /***************************************************************************
+    * get the delegate tracer from the config - loading it on first use.
+    ***************************************************************************/
+   private WorkflowTracerInterface getDelegateTracer()
+   {
+      if(delegateTracer == null)
+      {
+         QCodeReference delegateCodeReference = WorkflowsQBitConfig.of(QContext.getQInstance()).getWorkflowRunStatsDelegateCodeReference();
+         if(delegateCodeReference != null)
+         {
+            delegateTracer = QCodeLoader.getAdHoc(WorkflowTracerInterface.class, delegateCodeReference);
+         }
+      }
+      return (delegateTracer);
+   }
+
+}
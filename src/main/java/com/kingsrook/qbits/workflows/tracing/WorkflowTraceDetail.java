@@ -0,0 +1,39 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+/*******************************************************************************
+ * how much detail a workflow tracer needs about each run - so the executor
+ * (and step executors) can skip building what won't be used:
+ * NONE - nothing is traced (e.g., NoopWorkflowTracer).
+ * SUMMARY - only the run log itself (its workflow, revision, timestamps and
+ * error) - no run log steps, nor their output data & messages.
+ * STEPS - the run log, with a run log step (with timestamps, output data and
+ * message) for each step executed.
+ *******************************************************************************/
+public enum WorkflowTraceDetail
+{
+   NONE,
+   SUMMARY,
+   STEPS
+}
@@ -32,4 +32,27 @@ import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
 public interface WorkflowTracerInterface
 {
    Serializable handleWorkflowFinish(WorkflowRunLog workflowRunLog);
+
+
+   /***************************************************************************
+    * how much detail this tracer needs in the run logs it is given - see
+    * WorkflowTraceDetail.  Default is STEPS (everything).
+    ***************************************************************************/
+   default WorkflowTraceDetail getTraceDetail()
+   {
+      return (WorkflowTraceDetail.STEPS);
+   }
+
+
+
+   /***************************************************************************
+    * whether handleWorkflowFinish stores every run log it is given in the
+    * workflowRunLog table right away (setting the run log's id) - as the
+    * WorkflowTester needs, to link test run scenarios to their run logs.
+    * Default is false.
+    ***************************************************************************/
+   default boolean storesRunLogsInTable()
+   {
+      return (false);
+   }
 }
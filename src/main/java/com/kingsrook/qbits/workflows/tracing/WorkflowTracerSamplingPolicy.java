@@ -0,0 +1,179 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.util.List;
+
+
+/*******************************************************************************
+ * rules for which run logs a {@link SamplingWorkflowTracer} keeps - runs that
+ * match any of them are passed on to its delegate tracer:
+ * - errors, if keepErrors;
+ * - runs taking at least slowRunThresholdMillis (if set);
+ * - a random successSamplePercent of the other (successful) runs.
+ *
+ * The default policy keeps every run.
+ *******************************************************************************/
+public class WorkflowTracerSamplingPolicy
+{
+   private boolean keepErrors             = true;
+   private double  successSamplePercent   = 100;
+   private Long    slowRunThresholdMillis = null;
+
+
+
+   /***************************************************************************
+    * add any errors in this policy's settings to a list (prefixing each with
+    * a description of where the policy is from).
+    ***************************************************************************/
+   public void validate(String prefix, List<String> errors)
+   {
+      if(successSamplePercent < 0 || successSamplePercent > 100)
+      {
+         errors.add(prefix + " has a successSamplePercent that is not between 0 and 100.");
+      }
+
+      if(slowRunThresholdMillis != null && slowRunThresholdMillis < 0)
+      {
+         errors.add(prefix + " has a negative slowRunThresholdMillis.");
+      }
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for keepErrors
+    * @see #withKeepErrors(boolean)
+    *******************************************************************************/
+   public boolean getKeepErrors()
+   {
+      return (this.keepErrors);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for keepErrors
+    * @see #withKeepErrors(boolean)
+    *******************************************************************************/
+   public void setKeepErrors(boolean keepErrors)
+   {
+      this.keepErrors = keepErrors;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for keepErrors
+    *
+    * @param keepErrors
+    * Whether to keep the run log of every run that had an error.  Default value
+    * is true.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowTracerSamplingPolicy withKeepErrors(boolean keepErrors)
+   {
+      this.keepErrors = keepErrors;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for successSamplePercent
+    * @see #withSuccessSamplePercent(double)
+    *******************************************************************************/
+   public double getSuccessSamplePercent()
+   {
+      return (this.successSamplePercent);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for successSamplePercent
+    * @see #withSuccessSamplePercent(double)
+    *******************************************************************************/
+   public void setSuccessSamplePercent(double successSamplePercent)
+   {
+      this.successSamplePercent = successSamplePercent;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for successSamplePercent
+    *
+    * @param successSamplePercent
+    * Percentage (0 to 100) of successful runs (that aren't kept for being slow)
+    * to keep the run logs of, chosen at random.  Default value is 100.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowTracerSamplingPolicy withSuccessSamplePercent(double successSamplePercent)
+   {
+      this.successSamplePercent = successSamplePercent;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for slowRunThresholdMillis
+    * @see #withSlowRunThresholdMillis(Long)
+    *******************************************************************************/
+   public Long getSlowRunThresholdMillis()
+   {
+      return (this.slowRunThresholdMillis);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for slowRunThresholdMillis
+    * @see #withSlowRunThresholdMillis(Long)
+    *******************************************************************************/
+   public void setSlowRunThresholdMillis(Long slowRunThresholdMillis)
+   {
+      this.slowRunThresholdMillis = slowRunThresholdMillis;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for slowRunThresholdMillis
+    *
+    * @param slowRunThresholdMillis
+    * If set, the run log of every run that takes at least this many milliseconds
+    * (from its start to end timestamps) is kept.  Default value is null.
+    *
+    * @return this
+    *******************************************************************************/
+   public WorkflowTracerSamplingPolicy withSlowRunThresholdMillis(Long slowRunThresholdMillis)
+   {
+      this.slowRunThresholdMillis = slowRunThresholdMillis;
+      return (this);
+   }
+
+}
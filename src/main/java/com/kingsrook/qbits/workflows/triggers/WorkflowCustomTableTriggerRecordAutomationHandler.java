@@ -22,19 +22,27 @@
 package com.kingsrook.qbits.workflows.triggers;
 
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import com.kingsrook.qbits.workflows.implementations.recordworkflows.RunRecordWorkflowProcessMetaDataProducer;
 import com.kingsrook.qqq.backend.core.actions.automation.CustomTableTriggerRecordAutomationHandler;
 import com.kingsrook.qqq.backend.core.actions.automation.RunCustomTableTriggerRecordAutomationHandler;
 import com.kingsrook.qqq.backend.core.actions.processes.QProcessCallbackFactory;
 import com.kingsrook.qqq.backend.core.actions.processes.RunProcessAction;
 import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunProcessInput;
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunProcessOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
 import com.kingsrook.qqq.backend.core.model.automation.RecordAutomationInput;
 import com.kingsrook.qqq.backend.core.model.automation.TableTrigger;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
@@ -46,6 +54,9 @@ import com.kingsrook.qqq.backend.core.utils.ValueUtils;
  *******************************************************************************/
 public class WorkflowCustomTableTriggerRecordAutomationHandler implements CustomTableTriggerRecordAutomationHandler
 {
+   private static final int PRIMARY_KEY_CHUNK_SIZE = 500;
+
+
 
    /***************************************************************************
     ** make the RunCustomTableTriggerRecordAutomationHandler aware of this
@@ -104,11 +115,27 @@ public class WorkflowCustomTableTriggerRecordAutomationHandler implements Custom
       String  tableName  = recordAutomationInput.getTableName();
       Integer workflowId = getWorkflowId(recordAutomationInput);
 
-      for(QRecord record : recordAutomationInput.getRecordList())
+      if(CollectionUtils.nullSafeIsEmpty(recordAutomationInput.getRecordList()))
       {
+         return;
+      }
+
+      ///////////////////////////////////////////////////////////////////////////////////
+      // run the process once per chunk of records (rather than once per record), so   //
+      // that its load step can run them through the workflow in batches.  the process //
+      // extracts its records by query (with associations) either way - so it gets     //
+      // them by primary key, in bounded IN lists.                                     //
+      ///////////////////////////////////////////////////////////////////////////////////
+      String             primaryKeyField = QContext.getQInstance().getTable(tableName).getPrimaryKeyField();
+      List<Serializable> primaryKeys     = recordAutomationInput.getRecordList().stream().map(r -> r.getValue(primaryKeyField)).toList();
+
+      for(int start = 0; start < primaryKeys.size(); start += PRIMARY_KEY_CHUNK_SIZE)
+      {
+         List<Serializable> chunk = primaryKeys.subList(start, Math.min(start + PRIMARY_KEY_CHUNK_SIZE, primaryKeys.size()));
+
          RunProcessInput input = new RunProcessInput();
          input.setProcessName(RunRecordWorkflowProcessMetaDataProducer.NAME);
-         input.setCallback(QProcessCallbackFactory.forRecord(record));
+         input.setCallback(QProcessCallbackFactory.forFilter(new QQueryFilter(new QFilterCriteria(primaryKeyField, QCriteriaOperator.IN, new ArrayList<>(chunk)))));
          input.addValue("workflowId", workflowId);
          input.addValue("tableName", tableName);
          input.setFrontendStepBehavior(RunProcessInput.FrontendStepBehavior.SKIP);
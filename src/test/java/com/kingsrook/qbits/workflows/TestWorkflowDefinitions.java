@@ -23,6 +23,7 @@ package com.kingsrook.qbits.workflows;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import com.kingsrook.qbits.workflows.definition.OutboundLinkMode;
@@ -30,6 +31,7 @@ import com.kingsrook.qbits.workflows.definition.OutboundLinkOption;
 import com.kingsrook.qbits.workflows.definition.WorkflowStepType;
 import com.kingsrook.qbits.workflows.definition.WorkflowType;
 import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.execution.StatefulWorkflowCodeInterface;
 import com.kingsrook.qbits.workflows.execution.WorkflowExecutionContext;
 import com.kingsrook.qbits.workflows.execution.WorkflowInput;
 import com.kingsrook.qbits.workflows.execution.WorkflowStepExecutorInterface;
@@ -55,6 +57,7 @@ public class TestWorkflowDefinitions
    public static final String ADD_X_TO_SUM_ACTION = "addXToSumAction";
    public static final String BOOLEAN_CONDITIONAL = "booleanConditional";
    public static final String CONTAINER           = "container";
+   public static final String STATEFUL_STEP       = "statefulStep";
 
 
 
@@ -97,6 +100,21 @@ public class TestWorkflowDefinitions
 
 
 
+   /***************************************************************************
+    * register the step type whose executor keeps state in its instance (not
+    * done by registerTestWorkflowTypes - only tests of such executors need it).
+    ***************************************************************************/
+   public static void registerStatefulStepType() throws QException
+   {
+      WorkflowsRegistry.of(QContext.getQInstance()).registerWorkflowStepType(new WorkflowStepType()
+         .withName(STATEFUL_STEP)
+         .withLabel("Stateful")
+         .withOutboundLinkMode(OutboundLinkMode.ONE)
+         .withExecutor(new QCodeReference(StatefulStepExecutor.class)));
+   }
+
+
+
    /*******************************************************************************
     **
     *******************************************************************************/
@@ -225,4 +243,31 @@ public class TestWorkflowDefinitions
       }
    }
 
+
+
+   /***************************************************************************
+    * step executor that counts its executions in an instance field (so must
+    * not be shared) - noting each instance that it's executed by.
+    ***************************************************************************/
+   public static class StatefulStepExecutor implements WorkflowStepExecutorInterface, StatefulWorkflowCodeInterface
+   {
+      public static List<StatefulStepExecutor> instancesUsed = new ArrayList<>();
+
+      private int timesExecuted = 0;
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public WorkflowStepOutput execute(WorkflowStep step, Map<String, Serializable> inputValues, WorkflowExecutionContext context)
+      {
+         instancesUsed.add(this);
+         timesExecuted++;
+         context.getValues().put("timesExecuted", timesExecuted);
+         return (new WorkflowStepOutput(timesExecuted));
+      }
+   }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.definition;
+
+
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.execution.WorkflowStepExecutorInterface;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowsRegistry
+ *******************************************************************************/
+class WorkflowsRegistryTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testCodeInstancesAreShared() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      WorkflowsRegistry registry = WorkflowsRegistry.of(QContext.getQInstance());
+
+      WorkflowStepType              stepType     = registry.getWorkflowStepType(TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION);
+      WorkflowStepExecutorInterface stepExecutor = registry.getWorkflowStepExecutor(stepType);
+      assertInstanceOf(TestWorkflowDefinitions.AddXToSumStepExecutor.class, stepExecutor);
+      assertSame(stepExecutor, registry.getWorkflowStepExecutor(stepType));
+
+      WorkflowType workflowType = registry.getWorkflowType(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE);
+      assertNotNull(registry.getWorkflowTypeExecutor(workflowType));
+      assertSame(registry.getWorkflowTypeExecutor(workflowType), registry.getWorkflowTypeExecutor(workflowType));
+      assertNotNull(registry.getWorkflowTypeTester(workflowType));
+      assertSame(registry.getWorkflowTypeTester(workflowType), registry.getWorkflowTypeTester(workflowType));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testStatefulCodeIsNotShared() throws QException
+   {
+      TestWorkflowDefinitions.registerStatefulStepType();
+      WorkflowsRegistry registry = WorkflowsRegistry.of(QContext.getQInstance());
+
+      WorkflowStepType stepType = registry.getWorkflowStepType(TestWorkflowDefinitions.STATEFUL_STEP);
+      assertInstanceOf(TestWorkflowDefinitions.StatefulStepExecutor.class, registry.getWorkflowStepExecutor(stepType));
+      assertNotSame(registry.getWorkflowStepExecutor(stepType), registry.getWorkflowStepExecutor(stepType));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testReRegisteringTypeEvictsInstances() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      WorkflowsRegistry registry = WorkflowsRegistry.of(QContext.getQInstance());
+
+      WorkflowStepType              stepType             = registry.getWorkflowStepType(TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION);
+      WorkflowStepExecutorInterface stepExecutor         = registry.getWorkflowStepExecutor(stepType);
+      WorkflowType                  workflowType         = registry.getWorkflowType(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE);
+      Object                        workflowTypeExecutor = registry.getWorkflowTypeExecutor(workflowType);
+      Object                        workflowTypeTester   = registry.getWorkflowTypeTester(workflowType);
+
+      //////////////////////////////////////////////////////////////////
+      // registering the types again should drop the shared instances //
+      //////////////////////////////////////////////////////////////////
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      stepType = registry.getWorkflowStepType(TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION);
+      workflowType = registry.getWorkflowType(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE);
+
+      assertNotSame(stepExecutor, registry.getWorkflowStepExecutor(stepType));
+      assertNotSame(workflowTypeExecutor, registry.getWorkflowTypeExecutor(workflowType));
+      assertNotSame(workflowTypeTester, registry.getWorkflowTypeTester(workflowType));
+   }
+
+}
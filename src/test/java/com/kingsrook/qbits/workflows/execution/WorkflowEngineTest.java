@@ -0,0 +1,93 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowEngine
+ *******************************************************************************/
+class WorkflowEngineTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testSubmit() throws Exception
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      WorkflowEngine workflowEngine = WorkflowEngine.of(QContext.getQInstance());
+      assertSame(workflowEngine, WorkflowEngine.of(QContext.getQInstance()));
+
+      ////////////////////////////////////////////////////////////////////////
+      // (one at a time, as the memory backend isn't meant for concurrency) //
+      ////////////////////////////////////////////////////////////////////////
+      WorkflowOutput trueOutput = workflowEngine.submit(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", true, "seedValue", 0))).get();
+      assertNull(trueOutput.getException());
+      assertEquals(11, trueOutput.getContext().getValues().get("sum"));
+
+      WorkflowOutput falseOutput = workflowEngine.submit(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", false, "seedValue", 0))).get();
+      assertNull(falseOutput.getException());
+      assertEquals(12, falseOutput.getContext().getValues().get("sum"));
+
+      WorkflowEngineMetrics metrics = workflowEngine.getMetrics();
+      assertEquals(2, metrics.completedRuns());
+      assertEquals(0, metrics.activeRuns());
+      assertEquals(0, metrics.queueDepth());
+      assertEquals(0, metrics.rejectedRuns());
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testShutdown()
+   {
+      WorkflowEngine workflowEngine = new WorkflowEngine(1, 0, false, null);
+      workflowEngine.shutdown();
+
+      CompletableFuture<WorkflowOutput> future = workflowEngine.submit(new WorkflowInput().withWorkflowId(1));
+      ExecutionException                e      = assertThrows(ExecutionException.class, future::get);
+      assertThat(e.getCause()).isInstanceOf(QException.class).hasMessageContaining("shut down");
+   }
+
+}
@@ -23,18 +23,44 @@ package com.kingsrook.qbits.workflows.execution;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import com.kingsrook.qbits.workflows.BaseTest;
 import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
 import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qbits.workflows.definition.WorkflowType;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsInterface;
+import com.kingsrook.qbits.workflows.metrics.WorkflowMetricsSnapshot;
+import com.kingsrook.qbits.workflows.metrics.WorkflowStepStatsAggregator;
 import com.kingsrook.qbits.workflows.model.Workflow;
+import com.kingsrook.qbits.workflows.model.WorkflowRevision;
+import com.kingsrook.qbits.workflows.model.WorkflowStepStats;
+import com.kingsrook.qbits.workflows.tracing.NoopWorkflowTracer;
+import com.kingsrook.qbits.workflows.tracing.WorkflowTraceDetail;
+import com.kingsrook.qqq.backend.core.actions.QBackendTransaction;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.utils.collections.MapBuilder;
 import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 /*******************************************************************************
@@ -301,6 +327,524 @@ class WorkflowExecutorTest extends BaseTest
 
 
 
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testExecutionPlanCache() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Workflow workflow = WorkflowsTestDataSource.insertWorkflowAndInitialRevision(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE, null);
+      WorkflowsTestDataSource.insertSteps(workflow, List.of(WorkflowsTestDataSource.newStep(1, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 1))));
+
+      WorkflowExecutionPlanCache planCache = WorkflowExecutionPlanCache.of(QContext.getQInstance());
+      assertNull(planCache.get(workflow.getCurrentWorkflowRevisionId()));
+
+      /////////////////////////////////////////////////////////////////
+      // running the workflow should compile & cache a plan; running //
+      // it again should re-use that same plan                       //
+      /////////////////////////////////////////////////////////////////
+      assertEquals(1, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("sum"));
+      WorkflowExecutionPlan plan = planCache.get(workflow.getCurrentWorkflowRevisionId());
+      assertNotNull(plan);
+
+      assertEquals(1, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("sum"));
+      assertSame(plan, planCache.get(workflow.getCurrentWorkflowRevisionId()));
+
+      ///////////////////////////////////////////////////////////////////
+      // step input values are parsed into the plan, and are read-only //
+      ///////////////////////////////////////////////////////////////////
+      WorkflowStepInputValues inputValues = plan.getStepInputValues(plan.getStartStepIndex());
+      assertEquals(1, inputValues.get("x"));
+      assertThrows(UnsupportedOperationException.class, () -> inputValues.put("x", 2));
+
+      //////////////////////////////////////////////////////////////////////
+      // but runs get a copy-on-write view - whose changes are only seen  //
+      // by it, and which then stops sharing values derived from the plan //
+      //////////////////////////////////////////////////////////////////////
+      inputValues.putDerivedValue("derived", "yes");
+      WorkflowStepInputValues runInputValues = inputValues.forRun();
+      assertEquals("yes", runInputValues.getDerivedValue("derived"));
+      runInputValues.put("x", 2);
+      assertEquals(2, runInputValues.get("x"));
+      assertEquals(1, inputValues.get("x"));
+      assertNull(runInputValues.getDerivedValue("derived"));
+      assertEquals(1, inputValues.forRun().get("x"));
+
+      ////////////////////////////////////////////////////////////////////////////
+      // writing links (or steps) for the revision should evict its cached plan //
+      ////////////////////////////////////////////////////////////////////////////
+      WorkflowsTestDataSource.insertSteps(workflow, List.of(WorkflowsTestDataSource.newStep(2, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 2))));
+      WorkflowsTestDataSource.insertLinks(workflow, List.of(WorkflowsTestDataSource.newLink(1, 2)));
+      assertNull(planCache.get(workflow.getCurrentWorkflowRevisionId()));
+
+      assertEquals(3, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("sum"));
+   }
+
+
+
+   /*******************************************************************************
+    ** a stateful step executor must get a new instance for each run - even
+    ** though the plan (which holds shared executors) is cached.
+    *******************************************************************************/
+   @Test
+   void testStatefulStepExecutorNewInstancePerRun() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      TestWorkflowDefinitions.registerStatefulStepType();
+
+      Workflow workflow = WorkflowsTestDataSource.insertWorkflowAndInitialRevision(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE, null);
+      WorkflowsTestDataSource.insertSteps(workflow, List.of(WorkflowsTestDataSource.newStep(1, TestWorkflowDefinitions.STATEFUL_STEP, Map.of())));
+
+      TestWorkflowDefinitions.StatefulStepExecutor.instancesUsed.clear();
+      assertEquals(1, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("timesExecuted"));
+      assertEquals(1, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("timesExecuted"));
+      assertNotNull(WorkflowExecutionPlanCache.of(QContext.getQInstance()).get(workflow.getCurrentWorkflowRevisionId()));
+
+      assertEquals(2, TestWorkflowDefinitions.StatefulStepExecutor.instancesUsed.size());
+      assertNotSame(TestWorkflowDefinitions.StatefulStepExecutor.instancesUsed.get(0), TestWorkflowDefinitions.StatefulStepExecutor.instancesUsed.get(1));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testWorkflowCacheInvalidatedWhenCurrentRevisionChanges() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Workflow workflow = WorkflowsTestDataSource.insertWorkflowAndInitialRevision(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE, null);
+      WorkflowsTestDataSource.insertSteps(workflow, List.of(WorkflowsTestDataSource.newStep(1, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 1))));
+
+      assertEquals(1, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("sum"));
+      assertSame(WorkflowCache.getWorkflow(workflow.getId()), WorkflowCache.getWorkflow(workflow.getId()));
+
+      ////////////////////////////////////////////////////////////////////////
+      // point the workflow at a new revision - the cached workflow must be //
+      // dropped, so that the next run uses the new revision                //
+      ////////////////////////////////////////////////////////////////////////
+      Integer newRevisionId = new InsertAction().execute(new InsertInput(WorkflowRevision.TABLE_NAME).withRecordEntity(new WorkflowRevision()
+         .withWorkflowId(workflow.getId())
+         .withStartStepNo(1))).getRecords().get(0).getValueInteger("id");
+      workflow.setCurrentWorkflowRevisionId(newRevisionId);
+      WorkflowsTestDataSource.insertSteps(workflow, List.of(WorkflowsTestDataSource.newStep(1, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 5))));
+
+      new UpdateAction().execute(new UpdateInput(Workflow.TABLE_NAME).withRecord(new QRecord()
+         .withValue("id", workflow.getId())
+         .withValue("currentWorkflowRevisionId", newRevisionId)));
+
+      assertEquals(newRevisionId, WorkflowCache.getWorkflow(workflow.getId()).getCurrentWorkflowRevisionId());
+      assertEquals(5, executeWorkflow(workflow.getId(), Map.of("seedValue", 0)).getContext().getValues().get("sum"));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testExecuteBatch() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      /////////////////////////////////////////////////////////////////////
+      // one output per input, in order - with the failure of the middle //
+      // input (null seed value) isolated from the inputs around it      //
+      /////////////////////////////////////////////////////////////////////
+      List<WorkflowOutput> outputs = new WorkflowExecutor().executeBatch(List.of(
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", null)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", false, "seedValue", 0))));
+
+      assertEquals(3, outputs.size());
+      assertNull(outputs.get(0).getException());
+      assertEquals(11, outputs.get(0).getContext().getValues().get("sum"));
+      assertThat(outputs.get(1).getException()).isInstanceOf(NullPointerException.class);
+      assertNull(outputs.get(2).getException());
+      assertEquals(12, outputs.get(2).getContext().getValues().get("sum"));
+
+      ////////////////////////////////////////////////////
+      // all inputs in a batch must be for one workflow //
+      ////////////////////////////////////////////////////
+      assertThrows(QException.class, () -> new WorkflowExecutor().executeBatch(List.of(
+         new WorkflowInput().withWorkflowId(workflowId),
+         new WorkflowInput().withWorkflowId(workflowId + 1))));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testExecuteSet() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+
+      //////////////////////////////////////////
+      // .     1                              //
+      // .     |                              //
+      // .     2   (conditional)              //
+      // .   /   \                            //
+      // .  3   /-4-\  (container: push, pop) //
+      // .  |   | | |                         //
+      // .  |   | 5 |                         //
+      // .   \  \---/                         //
+      // .    \  /                            //
+      // .     6                              //
+      //////////////////////////////////////////
+      Workflow workflow = WorkflowsTestDataSource.insertWorkflowAndInitialRevision(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE, null);
+      WorkflowsTestDataSource.insertSteps(workflow, List.of(
+         WorkflowsTestDataSource.newStep(1, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 1)),
+         WorkflowsTestDataSource.newStep(2, TestWorkflowDefinitions.BOOLEAN_CONDITIONAL, Map.of()),
+         WorkflowsTestDataSource.newStep(3, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 10)),
+         WorkflowsTestDataSource.newStep(4, TestWorkflowDefinitions.CONTAINER, Map.of()),
+         WorkflowsTestDataSource.newStep(5, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 100)),
+         WorkflowsTestDataSource.newStep(6, TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, Map.of("x", 1000))
+      ));
+      WorkflowsTestDataSource.insertLinks(workflow, List.of(
+         WorkflowsTestDataSource.newLink(1, 2),
+         WorkflowsTestDataSource.newLink(2, 3, "true"),
+         WorkflowsTestDataSource.newLink(2, 4, "false"),
+         WorkflowsTestDataSource.newLink(3, 6),
+         WorkflowsTestDataSource.newLink(4, 5, "push"),
+         WorkflowsTestDataSource.newLink(4, 6, "pop")
+      ));
+
+      ////////////////////////////////////////////////////////////////////////
+      // the set splits at the conditional, and re-joins at the last step - //
+      // each output matching what the input would give run alone           //
+      ////////////////////////////////////////////////////////////////////////
+      List<WorkflowOutput> outputs = new WorkflowExecutor().executeSet(List.of(
+         new WorkflowInput().withWorkflowId(workflow.getId()).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflow.getId()).withValues(MapBuilder.of("condition", false, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflow.getId()).withValues(MapBuilder.of("condition", true, "seedValue", 5))));
+
+      assertEquals(3, outputs.size());
+      assertEquals(1011, outputs.get(0).getContext().getValues().get("sum"));
+      assertEquals(1101, outputs.get(1).getContext().getValues().get("sum"));
+      assertEquals(1016, outputs.get(2).getContext().getValues().get("sum"));
+      assertEquals(4, outputs.get(0).getWorkflowRunLog().getSteps().size());
+      assertEquals(5, outputs.get(1).getWorkflowRunLog().getSteps().size());
+      outputs.forEach(output -> assertNull(output.getException()));
+
+      ////////////////////////////////////////////////////////////////////
+      // a failure in one member of the set is isolated from the others //
+      ////////////////////////////////////////////////////////////////////
+      outputs = new WorkflowExecutor().executeSet(List.of(
+         new WorkflowInput().withWorkflowId(workflow.getId()).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflow.getId()).withValues(MapBuilder.of("condition", false, "seedValue", null)),
+         new WorkflowInput().withWorkflowId(workflow.getId()).withValues(MapBuilder.of("condition", false, "seedValue", 0))));
+
+      assertNull(outputs.get(0).getException());
+      assertEquals(1011, outputs.get(0).getContext().getValues().get("sum"));
+      assertThat(outputs.get(1).getException()).isInstanceOf(NullPointerException.class);
+      assertNull(outputs.get(2).getException());
+      assertEquals(1101, outputs.get(2).getContext().getValues().get("sum"));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testExecuteSetReRunsOnlyRunsFailedInPostRunSet() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      WorkflowsRegistry.of(QContext.getQInstance()).registerWorkflowType(new WorkflowType()
+         .withName(PostRunSetFailingWorkflowTypeExecutor.TYPE)
+         .withLabel("Post-Run-Set Failing")
+         .withExecutor(new QCodeReference(PostRunSetFailingWorkflowTypeExecutor.class)));
+
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+      new UpdateAction().execute(new UpdateInput(Workflow.TABLE_NAME).withRecord(new QRecord()
+         .withValue("id", workflowId)
+         .withValue("workflowTypeName", PostRunSetFailingWorkflowTypeExecutor.TYPE)));
+
+      /////////////////////////////////////////////////////////////////////////
+      // postRunSet fails the middle run only - so it's re-run individually  //
+      // (failing in its postRun), and the other 2 re-run as a set, together //
+      /////////////////////////////////////////////////////////////////////////
+      PostRunSetFailingWorkflowTypeExecutor.postRunSetSizes.clear();
+      List<WorkflowOutput> outputs = new WorkflowExecutor().executeSet(List.of(
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0, "failInPostRun", true)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", false, "seedValue", 0))));
+
+      assertEquals(List.of(3, 2), PostRunSetFailingWorkflowTypeExecutor.postRunSetSizes);
+      assertNull(outputs.get(0).getException());
+      assertEquals(11, outputs.get(0).getContext().getValues().get("sum"));
+      assertThat(outputs.get(1).getException()).hasMessage("postRun failed");
+      assertNull(outputs.get(2).getException());
+      assertEquals(12, outputs.get(2).getContext().getValues().get("sum"));
+   }
+
+
+
+   /*******************************************************************************
+    ** without a transaction, the runs that postRunSet didn't fail have stored
+    ** their changes - so they're kept (not re-run), and only the failed run is.
+    *******************************************************************************/
+   @Test
+   void testExecuteSetWithoutTransactionReRunsOnlyFailedRuns() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      WorkflowsRegistry.of(QContext.getQInstance()).registerWorkflowType(new WorkflowType()
+         .withName(NoTransactionPostRunSetFailingWorkflowTypeExecutor.TYPE)
+         .withLabel("No-Transaction Post-Run-Set Failing")
+         .withExecutor(new QCodeReference(NoTransactionPostRunSetFailingWorkflowTypeExecutor.class)));
+
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+      new UpdateAction().execute(new UpdateInput(Workflow.TABLE_NAME).withRecord(new QRecord()
+         .withValue("id", workflowId)
+         .withValue("workflowTypeName", NoTransactionPostRunSetFailingWorkflowTypeExecutor.TYPE)));
+
+      PostRunSetFailingWorkflowTypeExecutor.postRunSetSizes.clear();
+      List<WorkflowOutput> outputs = new WorkflowExecutor().executeSet(List.of(
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0, "failInPostRun", true)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", false, "seedValue", 0))));
+
+      assertEquals(List.of(3), PostRunSetFailingWorkflowTypeExecutor.postRunSetSizes);
+      assertNull(outputs.get(0).getException());
+      assertEquals(11, outputs.get(0).getContext().getValues().get("sum"));
+      assertThat(outputs.get(1).getException()).hasMessage("postRun failed");
+      assertNull(outputs.get(2).getException());
+      assertEquals(12, outputs.get(2).getContext().getValues().get("sum"));
+
+      WorkflowMetricsSnapshot snapshot = WorkflowMetricsInterface.of(QContext.getQInstance()).getSnapshot();
+      assertEquals(3, snapshot.runCount());
+      assertEquals(1, snapshot.errorCount());
+   }
+
+
+
+   /*******************************************************************************
+    ** when a set's shared transaction fails and its runs are re-run, only the
+    ** re-runs (whose results are kept) are counted in the metrics & step stats.
+    *******************************************************************************/
+   @Test
+   void testExecuteSetReRunsAreOnlyCountedOnce() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      WorkflowsRegistry.of(QContext.getQInstance()).registerWorkflowType(new WorkflowType()
+         .withName(PostRunSetFailingWorkflowTypeExecutor.TYPE)
+         .withLabel("Post-Run-Set Failing")
+         .withExecutor(new QCodeReference(PostRunSetFailingWorkflowTypeExecutor.class)));
+
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+      new UpdateAction().execute(new UpdateInput(Workflow.TABLE_NAME).withRecord(new QRecord()
+         .withValue("id", workflowId)
+         .withValue("workflowTypeName", PostRunSetFailingWorkflowTypeExecutor.TYPE)));
+
+      WorkflowStepStatsAggregator workflowStepStatsAggregator = new WorkflowStepStatsAggregator(60_000);
+      WorkflowsRegistry.of(QContext.getQInstance()).setWorkflowStepStatsAggregator(workflowStepStatsAggregator);
+      WorkflowsQBitConfig.of(QContext.getQInstance()).withWorkflowStepStatsEnabled(true);
+
+      ////////////////////////////////////////////////////////////////////////
+      // the set of 3 runs fails (in postRunSet), then is re-run - as 1 run //
+      // individually, and the other 2 as a set - so there are 3 kept runs  //
+      ////////////////////////////////////////////////////////////////////////
+      new WorkflowExecutor().executeSet(List.of(
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0, "failInPostRun", true)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", false, "seedValue", 0))));
+
+      WorkflowMetricsSnapshot snapshot = WorkflowMetricsInterface.of(QContext.getQInstance()).getSnapshot();
+      assertEquals(3, snapshot.runCount());
+      assertEquals(1, snapshot.errorCount());
+      assertEquals(3, snapshot.workflowRunLatencies().get(workflowId).count());
+      assertEquals(Map.of("true", 2L, "false", 1L), snapshot.branchOutcomeCounts().values().iterator().next());
+
+      workflowStepStatsAggregator.flush();
+      List<WorkflowStepStats> stepStats = QueryAction.execute(WorkflowStepStats.TABLE_NAME, new QQueryFilter()).stream().map(WorkflowStepStats::new).toList();
+      assertThat(stepStats).filteredOn(s -> s.getStepNo() == 1 && s.getToStepNo() == null).singleElement()
+         .extracting(WorkflowStepStats::getVisitCount).isEqualTo(3L);
+      workflowStepStatsAggregator.shutdown();
+   }
+
+
+
+   /*******************************************************************************
+    ** type executor (with a transaction that can "roll back") whose postRunSet
+    ** fails the runs with failInPostRun set, by WorkflowSetRunException (and
+    ** whose postRun fails them too).
+    *******************************************************************************/
+   public static class PostRunSetFailingWorkflowTypeExecutor implements WorkflowTypeExecutorInterface
+   {
+      public static final String TYPE = "postRunSetFailing";
+
+      static List<Integer> postRunSetSizes = new ArrayList<>();
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public void preRun(WorkflowExecutionContext context, Workflow workflow, WorkflowRevision workflowRevision)
+      {
+         new TestWorkflowDefinitions.TestWorkflowTypeExecutor().preRun(context, workflow, workflowRevision);
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QBackendTransaction openTransaction(Workflow workflow, WorkflowRevision workflowRevision)
+      {
+         return (new QBackendTransaction()
+         {
+         });
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public void postRun(WorkflowExecutionContext context) throws QException
+      {
+         if(context.getValues().get("failInPostRun") != null)
+         {
+            throw (new QException("postRun failed"));
+         }
+      }
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public void postRunSet(List<WorkflowExecutionContext> contexts) throws QException
+      {
+         postRunSetSizes.add(contexts.size());
+
+         Map<WorkflowExecutionContext, String> errorsByContext = new IdentityHashMap<>();
+         for(WorkflowExecutionContext context : contexts)
+         {
+            if(context.getValues().get("failInPostRun") != null)
+            {
+               errorsByContext.put(context, "postRunSet failed");
+            }
+         }
+
+         if(!errorsByContext.isEmpty())
+         {
+            throw (new WorkflowSetRunException(errorsByContext));
+         }
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** as PostRunSetFailingWorkflowTypeExecutor, but without a transaction.
+    *******************************************************************************/
+   public static class NoTransactionPostRunSetFailingWorkflowTypeExecutor extends PostRunSetFailingWorkflowTypeExecutor
+   {
+      public static final String TYPE = "noTransactionPostRunSetFailing";
+
+
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QBackendTransaction openTransaction(Workflow workflow, WorkflowRevision workflowRevision)
+      {
+         return (null);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testRunLogStepsSkippedForTracerThatDoesNotNeedThem() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      WorkflowInput  input  = new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0));
+      WorkflowOutput output = new WorkflowOutput();
+      new WorkflowExecutor().withWorkflowTracer(new NoopWorkflowTracer()).execute(input, output);
+
+      assertNull(output.getException());
+      assertEquals(11, output.getContext().getValues().get("sum"));
+      assertEquals(WorkflowTraceDetail.NONE, output.getContext().getTraceDetail());
+      assertThat(output.getWorkflowRunLog().getSteps()).isEmpty();
+
+      //////////////////////////////////////////////////////////////////////////
+      // versus with no tracer, where the caller gets steps - with timestamps //
+      //////////////////////////////////////////////////////////////////////////
+      output = executeWorkflow(workflowId, MapBuilder.of("condition", true, "seedValue", 0));
+      assertThat(output.getWorkflowRunLog().getSteps()).isNotEmpty();
+      assertThat(output.getWorkflowRunLog().getSteps()).allSatisfy(step ->
+      {
+         assertNotNull(step.getStartTimestamp());
+         assertNotNull(step.getEndTimestamp());
+      });
+   }
+
+
+
+   /*******************************************************************************
+    ** with no tracer, every mode of execution builds run log steps, with their
+    ** durations - and without failing the runs.
+    *******************************************************************************/
+   @Test
+   void testRunLogStepDurationsWithNoTracer() throws QException
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      List<WorkflowOutput> outputs = new ArrayList<>();
+      outputs.add(executeWorkflow(workflowId, MapBuilder.of("condition", true, "seedValue", 0)));
+      outputs.addAll(new WorkflowExecutor().executeBatch(List.of(
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", false, "seedValue", 0)))));
+      outputs.addAll(new WorkflowExecutor().executeSet(List.of(
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", true, "seedValue", 0)),
+         new WorkflowInput().withWorkflowId(workflowId).withValues(MapBuilder.of("condition", false, "seedValue", 0)))));
+
+      for(WorkflowOutput output : outputs)
+      {
+         assertNull(output.getException());
+         assertThat(output.getWorkflowRunLog().getSteps()).isNotEmpty();
+         assertThat(output.getWorkflowRunLog().getSteps()).allSatisfy(step -> assertNotNull(step.getDurationMillis()));
+      }
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testLazyStepOutputMessage()
+   {
+      int[]              calls  = new int[1];
+      WorkflowStepOutput output = WorkflowStepOutput.withLazyMessage(true, () -> "message " + (++calls[0]));
+      assertEquals(0, calls[0]);
+
+      assertEquals("message 1", output.message());
+      assertEquals("message 1", output.message());
+      assertEquals(1, calls[0]);
+      assertEquals(true, output.outputData());
+   }
+
+
+
    /***************************************************************************
     **
     ***************************************************************************/
@@ -0,0 +1,140 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.execution;
+
+
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.model.WorkflowLink;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowLinkDispatchTable
+ *******************************************************************************/
+class WorkflowLinkDispatchTableTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testConditionValuesMatchInOrder()
+   {
+      WorkflowLinkDispatchTable table = makeTable(new String[] { "true", "false" }, new int[] { 1, 2 });
+      assertEquals(1, table.getTarget(true));
+      assertEquals(2, table.getTarget(false));
+      assertEquals(1, table.getTarget("true"));
+      assertEquals(WorkflowExecutionPlan.NO_STEP, table.getTarget("maybe"));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testRepeatedConditionValueFirstOneWins()
+   {
+      WorkflowLinkDispatchTable table = makeTable(new String[] { "a", "b", "a" }, new int[] { 1, 2, 3 });
+      assertEquals(1, table.getTarget("a"));
+      assertEquals(2, table.getTarget("b"));
+
+      ///////////////////////////////////////////////////////////////////
+      // also when the values only repeat once converted to the output //
+      ///////////////////////////////////////////////////////////////////
+      table = makeTable(new String[] { "1", "01" }, new int[] { 1, 2 });
+      assertEquals(1, table.getTarget(1));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testUnconvertibleConditionValuesAreSkipped()
+   {
+      WorkflowLinkDispatchTable table = makeTable(new String[] { "not-a-number", "5" }, new int[] { 1, 2 });
+      assertEquals(2, table.getTarget(5));
+      assertEquals(WorkflowExecutionPlan.NO_STEP, table.getTarget(7));
+
+      ///////////////////////////////////////////////////////////////////////
+      // the skipped value still matches outputs of a class it converts to //
+      ///////////////////////////////////////////////////////////////////////
+      assertEquals(1, table.getTarget("not-a-number"));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testNullOutput()
+   {
+      assertEquals(WorkflowExecutionPlan.NO_STEP, makeTable(new String[] { "a" }, new int[] { 1 }).getTarget(null));
+      assertEquals(2, makeTable(new String[] { "a", null }, new int[] { 1, 2 }).getTarget(null));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testUnconditionalFallbackAndLinksAfterItIgnored()
+   {
+      WorkflowLinkDispatchTable table = makeTable(new String[] { "a", null, "b", null }, new int[] { 1, 2, 3, 4 });
+      assertEquals(1, table.getTarget("a"));
+      assertEquals(2, table.getTarget("b"));
+      assertEquals(2, table.getTarget("c"));
+
+      ///////////////////////////////////////////////
+      // only an unconditional link - always taken //
+      ///////////////////////////////////////////////
+      table = makeTable(new String[] { null }, new int[] { 3 });
+      assertEquals(3, table.getTarget("anything"));
+      assertEquals(3, table.getTarget(null));
+
+      ///////////////////////////////////
+      // no links - nowhere to go next //
+      ///////////////////////////////////
+      assertEquals(WorkflowExecutionPlan.NO_STEP, makeTable(new String[0], new int[0]).getTarget("a"));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static WorkflowLinkDispatchTable makeTable(String[] conditionValues, int[] targets)
+   {
+      WorkflowLink[] links = new WorkflowLink[conditionValues.length];
+      for(int i = 0; i < conditionValues.length; i++)
+      {
+         links[i] = new WorkflowLink().withFromStepNo(1).withToStepNo(targets[i] + 1).withConditionValue(conditionValues[i]);
+      }
+      return (new WorkflowLinkDispatchTable(1, links, targets));
+   }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.implementations;
+
+
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowApiFieldMappingCache
+ *******************************************************************************/
+class WorkflowApiFieldMappingCacheTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void test() throws QException
+   {
+      WorkflowApiFieldMappingCache.ApiFieldMapping mapping = WorkflowApiFieldMappingCache.getMapping(API_NAME, V2, TABLE_NAME_PERSON);
+      assertSame(mapping, WorkflowApiFieldMappingCache.getMapping(API_NAME, V2, TABLE_NAME_PERSON));
+
+      ///////////////////////////////////////////////////////////////////
+      // birthDate is birthDay in the api; salary isn't in it until v3 //
+      ///////////////////////////////////////////////////////////////////
+      assertTrue(mapping.getApiField("birthDay").isPresent());
+      assertTrue(mapping.getApiField(TABLE_NAME_PERSON + ".birthDay").isPresent());
+      assertFalse(mapping.getApiField("birthDate").isPresent());
+      assertFalse(mapping.getApiField("salary").isPresent());
+      assertEquals("birthDate", mapping.getFieldName(TABLE_NAME_PERSON + ".birthDay", "2001-01-01"));
+      assertEquals("birthDate", mapping.getFieldName("birthDay", null));
+
+      assertThatThrownBy(() -> mapping.getFieldName("notAField", "x"))
+         .isInstanceOf(QException.class);
+
+      WorkflowApiFieldMappingCache.of(QContext.getQInstance()).clear();
+      assertNotSame(mapping, WorkflowApiFieldMappingCache.getMapping(API_NAME, V2, TABLE_NAME_PERSON));
+   }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.implementations.recordworkflows;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.CriteriaOption;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.modules.backend.implementations.utils.BackendQueryFilterUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for CompiledRecordFilter
+ *******************************************************************************/
+class CompiledRecordFilterTest extends BaseTest
+{
+
+   /*******************************************************************************
+    ** compiled filters must give the same results as BackendQueryFilterUtils.
+    *******************************************************************************/
+   @Test
+   void testMatchesSameAsBackendQueryFilterUtils()
+   {
+      List<QRecord> records = List.of(
+         new QRecord().withValue("id", 1).withValue("firstName", "Darin"),
+         new QRecord().withValue("id", 2).withValue("firstName", "darin"),
+         new QRecord().withValue("id", 3).withValue("firstName", "Tim"),
+         new QRecord().withValue("id", 4).withValue("firstName", null),
+         new QRecord().withValue("id", 5L).withValue("firstName", "Five"));
+
+      List<QQueryFilter> filters = new ArrayList<>(List.of(
+         new QQueryFilter(),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Darin")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.NOT_EQUALS, "Darin")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.IN, "Darin", "Tim")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.NOT_IN, "Darin", "Tim")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.STARTS_WITH, "Da")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.CONTAINS, "ri")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.NOT_ENDS_WITH, "in")),
+         new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.IS_BLANK)),
+         new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.IN, 1, 3)),
+         new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.GREATER_THAN, 2)),
+         new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.EQUALS, 1)).withCriteria(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Darin")),
+         new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.EQUALS, 3)).withCriteria(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Darin")).withBooleanOperator(QQueryFilter.BooleanOperator.OR),
+         new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.LESS_THAN, 5)).withSubFilters(List.of(
+            new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Tim")).withCriteria(new QFilterCriteria("id", QCriteriaOperator.EQUALS, 1)).withBooleanOperator(QQueryFilter.BooleanOperator.OR)))));
+
+      ////////////////////////////////////////////////
+      // and all of those again, case-insensitively //
+      ////////////////////////////////////////////////
+      for(QQueryFilter filter : new ArrayList<>(filters))
+      {
+         QQueryFilter caseInsensitiveFilter = filter.clone();
+         caseInsensitiveFilter.applyCriteriaOptionToAllCriteria(CriteriaOption.CASE_INSENSITIVE);
+         filters.add(caseInsensitiveFilter);
+      }
+
+      for(QQueryFilter filter : filters)
+      {
+         CompiledRecordFilter compiledFilter = CompiledRecordFilter.compile(TABLE_NAME_PERSON, filter);
+         for(QRecord record : records)
+         {
+            assertEquals(BackendQueryFilterUtils.doesRecordMatch(filter, record), compiledFilter.matches(record), () -> "Filter: " + filter + ", record: " + record);
+         }
+      }
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testMatchesCriteriaAtLevel()
+   {
+      QQueryFilter filter = new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Darin"))
+         .withCriteria(new QFilterCriteria(TABLE_NAME_PET + ".name", QCriteriaOperator.EQUALS, "Fido"));
+
+      CompiledRecordFilter compiledFilter = CompiledRecordFilter.compile(TABLE_NAME_PERSON, filter);
+      assertEquals(1, compiledFilter.getJoins().size());
+      assertTrue(compiledFilter.matchesCriteriaAtLevel(0, new QRecord().withValue("firstName", "Darin")));
+      assertFalse(compiledFilter.matchesCriteriaAtLevel(0, new QRecord().withValue("firstName", "Tim")));
+
+      /////////////////////////////////////////////////////////////
+      // an OR filter can't be checked a table at a time, so its //
+      // per-level criteria always pass                          //
+      /////////////////////////////////////////////////////////////
+      compiledFilter = CompiledRecordFilter.compile(TABLE_NAME_PERSON, filter.withBooleanOperator(QQueryFilter.BooleanOperator.OR));
+      assertTrue(compiledFilter.matchesCriteriaAtLevel(0, new QRecord().withValue("firstName", "Tim")));
+   }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.implementations.recordworkflows;
+
+
+import java.util.List;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.model.Workflow;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for InputRecordFilterStep
+ *******************************************************************************/
+class InputRecordFilterStepTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testDoesRecordMatchWithJoins() throws QException
+   {
+      new InsertAction().execute(new InsertInput(TABLE_NAME_PET).withRecords(List.of(
+         new QRecord().withValue("name", "Fido").withValue("species", "dog").withValue("ownerPersonId", 1),
+         new QRecord().withValue("name", "Tom").withValue("species", "cat").withValue("ownerPersonId", 1))));
+
+      InputRecordFilterStep step   = new InputRecordFilterStep();
+      QRecord               person = new QRecord().withTableName(TABLE_NAME_PERSON).withValue("id", 1).withValue("firstName", "Darin");
+
+      ///////////////////////////////////////////////////////////////
+      // criteria on one join table must all match the same record //
+      ///////////////////////////////////////////////////////////////
+      assertTrue(step.doesRecordMatch(person, petFilter("Tom", "cat"), newContext()));
+      assertFalse(step.doesRecordMatch(person, petFilter("Fido", "cat"), newContext()));
+
+      /////////////////////////////////////////////////////////////
+      // a failing criteria on the record's own table - no match //
+      /////////////////////////////////////////////////////////////
+      assertFalse(step.doesRecordMatch(person, petFilter("Tom", "cat").withCriteria(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Tim")), newContext()));
+
+      //////////////////////////////////////////////////////////////////
+      // OR filters aren't pruned by criteria - but still match right //
+      //////////////////////////////////////////////////////////////////
+      assertTrue(step.doesRecordMatch(person, petFilter("Fido", "cat").withBooleanOperator(QQueryFilter.BooleanOperator.OR), newContext()));
+
+      /////////////////////////////////////////////////////////////////////
+      // records queued for insert & delete are included & excluded, and //
+      // a person with no pets leaves the join out of the combinations   //
+      /////////////////////////////////////////////////////////////////////
+      RecordWorkflowContext context = newContext();
+      context.addRecordToInsert(TABLE_NAME_PET, new QRecord().withValue("name", "Fido").withValue("species", "cat").withValue("ownerPersonId", 1));
+      assertTrue(step.doesRecordMatch(person, petFilter("Fido", "cat"), context));
+
+      QRecord lonelyPerson = new QRecord().withTableName(TABLE_NAME_PERSON).withValue("id", 2).withValue("firstName", "Jim");
+      assertTrue(step.doesRecordMatch(lonelyPerson, new QQueryFilter(new QFilterCriteria("firstName", QCriteriaOperator.EQUALS, "Jim")).withCriteria(new QFilterCriteria(TABLE_NAME_PET + ".name", QCriteriaOperator.IS_BLANK)), newContext()));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static QQueryFilter petFilter(String name, String species)
+   {
+      return (new QQueryFilter()
+         .withCriteria(new QFilterCriteria(TABLE_NAME_PET + ".name", QCriteriaOperator.EQUALS, name))
+         .withCriteria(new QFilterCriteria(TABLE_NAME_PET + ".species", QCriteriaOperator.EQUALS, species)));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static RecordWorkflowContext newContext()
+   {
+      RecordWorkflowContext context = new RecordWorkflowContext();
+      context.setWorkflow(new Workflow().withTableName(TABLE_NAME_PERSON));
+      return (context);
+   }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.implementations.recordworkflows;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.model.Workflow;
+import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.joins.QJoinMetaData;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*******************************************************************************
+ ** Unit test for RecordWorkflowContext
+ *******************************************************************************/
+class RecordWorkflowContextTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testPrefetchJoinRecords() throws QException
+   {
+      new InsertAction().execute(new InsertInput(TABLE_NAME_PET).withRecords(List.of(
+         new QRecord().withValue("name", "Fido").withValue("ownerPersonId", 1),
+         new QRecord().withValue("name", "Rex").withValue("ownerPersonId", 1),
+         new QRecord().withValue("name", "Tom").withValue("ownerPersonId", 2),
+         new QRecord().withValue("name", "Stray").withValue("ownerPersonId", 99))));
+
+      ////////////////////////////////////////////////////////////////////////
+      // contexts for persons with 2 pets, 1 pet, no pets, and no id - plus //
+      // a second context for the person with 2                             //
+      ////////////////////////////////////////////////////////////////////////
+      List<RecordWorkflowContext> contexts = new ArrayList<>();
+      for(Integer personId : new Integer[] { 1, 2, 3, null, 1 })
+      {
+         RecordWorkflowContext context = new RecordWorkflowContext();
+         context.setWorkflow(new Workflow().withTableName(TABLE_NAME_PERSON));
+         context.record.set(new QRecord().withTableName(TABLE_NAME_PERSON).withValue("id", personId));
+         contexts.add(context);
+      }
+
+      QueryJoin queryJoin = new QueryJoin(QContext.getQInstance().getJoin(QJoinMetaData.makeInferredJoinName(TABLE_NAME_PERSON, TABLE_NAME_PET)));
+      RecordWorkflowContext.prefetchJoinRecords(queryJoin, contexts);
+
+      /////////////////////////////////////////////////////////////////////
+      // with the pets deleted, the contexts still give their prefetched //
+      // records - showing getJoinRecords didn't need to query           //
+      /////////////////////////////////////////////////////////////////////
+      new DeleteAction().execute(new DeleteInput(TABLE_NAME_PET).withQueryFilter(new QQueryFilter()));
+
+      assertEquals(List.of("Fido", "Rex"), contexts.get(0).getJoinRecords(queryJoin).stream().map(r -> r.getValueString("name")).sorted().toList());
+      assertEquals(List.of("Tom"), contexts.get(1).getJoinRecords(queryJoin).stream().map(r -> r.getValueString("name")).toList());
+      assertEquals(0, contexts.get(2).getJoinRecords(queryJoin).size());
+      assertEquals(0, contexts.get(3).getJoinRecords(queryJoin).size());
+      assertEquals(2, contexts.get(4).getJoinRecords(queryJoin).size());
+   }
+
+}
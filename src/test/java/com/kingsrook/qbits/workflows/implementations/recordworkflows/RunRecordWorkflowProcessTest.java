@@ -23,11 +23,14 @@ package com.kingsrook.qbits.workflows.implementations.recordworkflows;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 import com.kingsrook.qbits.workflows.BaseTest;
 import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
 import com.kingsrook.qbits.workflows.model.Workflow;
@@ -40,6 +43,7 @@ import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
 import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
 import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
 import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.processes.ProcessSummaryLineInterface;
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunProcessInput;
@@ -52,6 +56,7 @@ import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterOrderBy;
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.audits.AuditsMetaDataProvider;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.utils.JsonUtils;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
@@ -209,6 +214,121 @@ class RunRecordWorkflowProcessTest extends BaseTest
 
 
 
+   /*******************************************************************************
+    ** running with more than 1 thread should tally & audit the same as running
+    ** on just the process's thread.
+    *******************************************************************************/
+   @Test
+   void testMaxParallelismMatchesSingleThreaded() throws QException
+   {
+      new AuditsMetaDataProvider().defineAll(QContext.getQInstance(), MEMORY_BACKEND_NAME, null);
+
+      Workflow workflow   = WorkflowsTestDataSource.insertWorkflowAndInitialRevision(RecordWorkflowsDefinition.WORKFLOW_TYPE, TABLE_NAME_PERSON);
+      Integer  workflowId = workflow.getId();
+
+      new InsertAction().execute(new InsertInput(WorkflowStep.TABLE_NAME).withRecordEntities(List.of(new WorkflowStep()
+         .withWorkflowRevisionId(workflow.getCurrentWorkflowRevisionId())
+         .withStepNo(1)
+         .withInputValuesJson(JsonUtils.toJson(Map.of("fieldName", "firstName", "value", "Workflowed")))
+         .withWorkflowStepTypeName(UpdateInputRecordFieldStep.NAME)
+      )));
+
+      List<QRecord> people = new ArrayList<>();
+      for(int i = 0; i < 10; i++)
+      {
+         people.add(new QRecord().withValue("firstName", "Person " + i));
+      }
+      List<Serializable> personIds = new InsertAction().execute(new InsertInput(TABLE_NAME_PERSON).withRecords(people)).getRecords().stream()
+         .map(r -> r.getValue("id"))
+         .toList();
+
+      for(int maxParallelism : List.of(1, 3))
+      {
+         new DeleteAction().execute(new DeleteInput(AuditsMetaDataProvider.TABLE_NAME_AUDIT).withQueryFilter(new QQueryFilter()));
+
+         RunProcessInput input = new RunProcessInput();
+         input.setProcessName(RunRecordWorkflowProcessMetaDataProducer.NAME);
+         input.setCallback(QProcessCallbackFactory.forFilter(new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.IN, personIds))));
+         input.addValue("tableName", TABLE_NAME_PERSON);
+         input.addValue("workflowId", workflowId);
+         input.addValue(RunRecordWorkflowLoadStep.FIELD_MAX_PARALLELISM, maxParallelism);
+         input.setFrontendStepBehavior(RunProcessInput.FrontendStepBehavior.SKIP);
+         RunProcessOutput runProcessOutput = new RunProcessAction().execute(input);
+
+         List<ProcessSummaryLineInterface> processSummaryLines = (List<ProcessSummaryLineInterface>) runProcessOutput.getValue("processResults");
+         assertEquals(2, processSummaryLines.size(), "maxParallelism: " + maxParallelism);
+         assertThat(processSummaryLines.get(0))
+            .hasFieldOrPropertyWithValue("status", Status.OK)
+            .hasFieldOrPropertyWithValue("count", 10)
+            .hasFieldOrPropertyWithValue("message", "had the workflow ran against them.");
+         assertThat(processSummaryLines.get(1))
+            .hasFieldOrPropertyWithValue("status", Status.OK)
+            .hasFieldOrPropertyWithValue("message", "Created 10 Successful Workflow Run Logs");
+
+         List<QRecord> audits = new QueryAction().execute(new QueryInput(AuditsMetaDataProvider.TABLE_NAME_AUDIT)).getRecords();
+         assertEquals(10, audits.size(), "maxParallelism: " + maxParallelism);
+         assertEquals(Set.copyOf(personIds), audits.stream().map(r -> r.getValue("recordId")).collect(Collectors.toSet()));
+
+         for(Serializable personId : personIds)
+         {
+            assertEquals("Workflowed", GetAction.execute(TABLE_NAME_PERSON, personId).getValue("firstName"));
+         }
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** the update-field step's summary is rendered by the first run of a set, and
+    ** re-used by the others (and by later runs of the same plan) - so changing
+    ** the field's label after it was rendered doesn't change later summaries.
+    *******************************************************************************/
+   @Test
+   void testUpdateInputRecordFieldSummaryRenderedOnce() throws QException
+   {
+      Workflow workflow   = WorkflowsTestDataSource.insertWorkflowAndInitialRevision(RecordWorkflowsDefinition.WORKFLOW_TYPE, TABLE_NAME_PERSON);
+      Integer  workflowId = workflow.getId();
+
+      new InsertAction().execute(new InsertInput(WorkflowStep.TABLE_NAME).withRecordEntities(List.of(new WorkflowStep()
+         .withWorkflowRevisionId(workflow.getCurrentWorkflowRevisionId())
+         .withStepNo(1)
+         .withInputValuesJson(JsonUtils.toJson(Map.of("fieldName", "firstName", "value", "Workflowed")))
+         .withWorkflowStepTypeName(UpdateInputRecordFieldStep.NAME)
+      )));
+
+      List<Serializable> personIds = new InsertAction().execute(new InsertInput(TABLE_NAME_PERSON).withRecords(List.of(
+         new QRecord().withValue("firstName", "Tim"),
+         new QRecord().withValue("firstName", "Tom"),
+         new QRecord().withValue("firstName", "Tam")
+      ))).getRecords().stream().map(r -> r.getValue("id")).toList();
+
+      for(String label : List.of("First Name", "Given Name"))
+      {
+         QContext.getQInstance().getTable(TABLE_NAME_PERSON).getField("firstName").setLabel(label);
+         new DeleteAction().execute(new DeleteInput(WorkflowRunLog.TABLE_NAME).withQueryFilter(new QQueryFilter()));
+
+         RunProcessInput input = new RunProcessInput();
+         input.setProcessName(RunRecordWorkflowProcessMetaDataProducer.NAME);
+         input.setCallback(QProcessCallbackFactory.forFilter(new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.IN, personIds))));
+         input.addValue("tableName", TABLE_NAME_PERSON);
+         input.addValue("workflowId", workflowId);
+         input.setFrontendStepBehavior(RunProcessInput.FrontendStepBehavior.SKIP);
+         new RunProcessAction().execute(input);
+
+         List<WorkflowRunLog> workflowRunLogs = new QueryAction().execute(new QueryInput(WorkflowRunLog.TABLE_NAME)
+               .withFilter(new QQueryFilter(new QFilterCriteria("workflowId", QCriteriaOperator.EQUALS, workflowId)))
+               .withIncludeAssociations(true))
+            .getRecordEntities(WorkflowRunLog.class);
+         assertEquals(3, workflowRunLogs.size());
+         for(WorkflowRunLog workflowRunLog : workflowRunLogs)
+         {
+            assertEquals("First Name was set to 'Workflowed'", workflowRunLog.getSteps().get(0).getMessage(), "label: " + label);
+         }
+      }
+   }
+
+
+
    /***************************************************************************
     **
     ***************************************************************************/
@@ -0,0 +1,112 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutor;
+import com.kingsrook.qbits.workflows.execution.WorkflowInput;
+import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*******************************************************************************
+ ** Unit test for InMemoryWorkflowMetrics (and WorkflowLatencyHistogram)
+ *******************************************************************************/
+class InMemoryWorkflowMetricsTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testHistogram()
+   {
+      WorkflowLatencyHistogram histogram = new WorkflowLatencyHistogram();
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.getValueAtPercentile(0.99));
+
+      for(long millis = 1; millis <= 100; millis++)
+      {
+         histogram.record(millis * 1_000_000);
+      }
+
+      WorkflowLatencySummary summary = histogram.getSummary();
+      assertEquals(100, summary.count());
+      assertEquals(100_000_000, summary.maxNanos());
+
+      //////////////////////////////////////////////////////////////
+      // percentiles are bucketed - within 12.5% of actual values //
+      //////////////////////////////////////////////////////////////
+      assertThat(summary.p50Nanos()).isBetween(50_000_000L, 56_250_000L);
+      assertThat(summary.p95Nanos()).isBetween(95_000_000L, 100_000_000L);
+      assertThat(summary.p99Nanos()).isBetween(99_000_000L, 100_000_000L);
+
+      for(long value : new long[] { 0, 1, 7, 8, 9, 15, 16, 1000, 123_456_789, Long.MAX_VALUE })
+      {
+         int bucketIndex = WorkflowLatencyHistogram.getBucketIndex(value);
+         assertThat(WorkflowLatencyHistogram.getBucketHighestValue(bucketIndex)).isGreaterThanOrEqualTo(value);
+         if(bucketIndex > 0)
+         {
+            assertThat(WorkflowLatencyHistogram.getBucketHighestValue(bucketIndex - 1)).isLessThan(value);
+         }
+      }
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testExecutorRecordsMetrics() throws Exception
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      for(boolean condition : new boolean[] { true, false, true })
+      {
+         WorkflowOutput workflowOutput = new WorkflowOutput();
+         new WorkflowExecutor().execute(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", condition, "seedValue", 0)), workflowOutput);
+      }
+
+      WorkflowMetricsInterface workflowMetrics = WorkflowMetricsInterface.of(QContext.getQInstance());
+      assertThat(workflowMetrics).isInstanceOf(InMemoryWorkflowMetrics.class);
+
+      WorkflowMetricsSnapshot snapshot = workflowMetrics.getSnapshot();
+      assertEquals(3, snapshot.runCount());
+      assertEquals(0, snapshot.errorCount());
+      assertThat(snapshot.stepsExecutedCount()).isGreaterThanOrEqualTo(9);
+      assertEquals(3, snapshot.workflowRunLatencies().get(workflowId).count());
+      assertThat(snapshot.stepTypeLatencies()).containsKeys(TestWorkflowDefinitions.ADD_X_TO_SUM_ACTION, TestWorkflowDefinitions.BOOLEAN_CONDITIONAL);
+
+      assertEquals(1, snapshot.branchOutcomeCounts().size());
+      assertEquals(Map.of("true", 2L, "false", 1L), snapshot.branchOutcomeCounts().values().iterator().next());
+   }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.metrics;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutionPlanCache;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutor;
+import com.kingsrook.qbits.workflows.execution.WorkflowInput;
+import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
+import com.kingsrook.qbits.workflows.model.WorkflowStepStats;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowStepStatsAggregator (and WorkflowStepStatsCounters)
+ *******************************************************************************/
+class WorkflowStepStatsAggregatorTest extends BaseTest
+{
+
+   /*******************************************************************************
+    ** (a long flush interval is used, so the flusher thread never runs during
+    ** this test - the memory backend isn't for concurrency)
+    *******************************************************************************/
+   @Test
+   void test() throws Exception
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      WorkflowStepStatsAggregator workflowStepStatsAggregator = new WorkflowStepStatsAggregator(60_000);
+      WorkflowsRegistry.of(QContext.getQInstance()).setWorkflowStepStatsAggregator(workflowStepStatsAggregator);
+
+      ///////////////////////////////////////////
+      // nothing is counted until it's enabled //
+      ///////////////////////////////////////////
+      runWorkflow(workflowId, true);
+      workflowStepStatsAggregator.flush();
+      assertTrue(queryCounts().isEmpty());
+
+      WorkflowsQBitConfig.of(QContext.getQInstance()).withWorkflowStepStatsEnabled(true);
+      for(boolean condition : new boolean[] { true, false, true })
+      {
+         runWorkflow(workflowId, condition);
+      }
+      workflowStepStatsAggregator.flush();
+
+      ///////////////////////////////////////////////////////////////////
+      // steps 1-3 ran every time; the branch at step 3 went to step 4 //
+      // (condition true) twice, and to step 5 once; step 6 always ran //
+      ///////////////////////////////////////////////////////////////////
+      Map<String, Long> counts = queryCounts();
+      assertEquals(3, counts.get("1"));
+      assertEquals(3, counts.get("3"));
+      assertEquals(2, counts.get("4"));
+      assertEquals(1, counts.get("5"));
+      assertEquals(3, counts.get("6"));
+      assertEquals(3, counts.get("1->2"));
+      assertEquals(2, counts.get("3->4"));
+      assertEquals(1, counts.get("3->5"));
+      assertEquals(1, counts.get("5->6"));
+
+      /////////////////////////////////////////////
+      // a later flush adds to the existing rows //
+      /////////////////////////////////////////////
+      runWorkflow(workflowId, false);
+      workflowStepStatsAggregator.flush();
+      counts = queryCounts();
+      assertEquals(4, counts.get("1"));
+      assertEquals(2, counts.get("3->5"));
+      assertEquals(2, counts.get("4"));
+
+      ////////////////////////////////////////////////////////////////////
+      // a run with a recompiled plan (after the plan cache is cleared) //
+      // counts into new counters - and both sets are flushed           //
+      ////////////////////////////////////////////////////////////////////
+      runWorkflow(workflowId, true);
+      WorkflowExecutionPlanCache.of(QContext.getQInstance()).clear();
+      runWorkflow(workflowId, true);
+      workflowStepStatsAggregator.flush();
+      counts = queryCounts();
+      assertEquals(6, counts.get("1"));
+      assertEquals(4, counts.get("3->4"));
+
+      workflowStepStatsAggregator.shutdown();
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static void runWorkflow(Integer workflowId, boolean condition) throws QException
+   {
+      WorkflowOutput workflowOutput = new WorkflowOutput();
+      new WorkflowExecutor().execute(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", condition, "seedValue", 0)), workflowOutput);
+      assertNull(workflowOutput.getException());
+   }
+
+
+
+   /***************************************************************************
+    * get the stats rows' counts - keyed by stepNo for visits, and by
+    * "fromStepNo->toStepNo" for links.
+    ***************************************************************************/
+   private static Map<String, Long> queryCounts() throws QException
+   {
+      Map<String, Long> counts = new HashMap<>();
+      for(QRecord record : QueryAction.execute(WorkflowStepStats.TABLE_NAME, new QQueryFilter()))
+      {
+         WorkflowStepStats workflowStepStats = new WorkflowStepStats(record);
+         String            key               = workflowStepStats.getStepNo() + (workflowStepStats.getToStepNo() == null ? "" : "->" + workflowStepStats.getToStepNo());
+         counts.put(key, workflowStepStats.getVisitCount());
+      }
+      return (counts);
+   }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.processes;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*******************************************************************************
+ ** Unit test for GetWorkflowRunLogStepsProcess
+ *******************************************************************************/
+class GetWorkflowRunLogStepsProcessTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   @SuppressWarnings("unchecked")
+   void test() throws QException
+   {
+      ////////////////////////////////////////////////////////////////////////
+      // a run that visits step 1, then loops over steps 2 & 3 three times, //
+      // then visits step 4 - with durations on all but step 4              //
+      ////////////////////////////////////////////////////////////////////////
+      List<WorkflowRunLogStep> steps = new ArrayList<>();
+      steps.add(step(1, 1, 10L));
+      for(int i = 0; i < 3; i++)
+      {
+         steps.add(step(2, steps.size() + 1, 5L));
+         steps.add(step(3, steps.size() + 1, 7L));
+      }
+      steps.add(step(4, steps.size() + 1, null));
+
+      Long workflowRunLogId = new InsertAction().execute(new InsertInput(WorkflowRunLog.TABLE_NAME).withRecordEntities(List.of(new WorkflowRunLog()
+         .withWorkflowId(1)
+         .withStartTimestamp(Instant.now())
+         .withSteps(steps)))).getRecords().get(0).getValueLong("id");
+
+      ///////////////////////////////////////////////////////////////////
+      // first page of summaries: steps 1 & 2, in order of first visit //
+      ///////////////////////////////////////////////////////////////////
+      RunBackendStepOutput output = run(workflowRunLogId, null, 0, 2);
+      assertEquals(4, output.getValue("totalStepCount"));
+      List<Map<String, Serializable>> summaries = (List<Map<String, Serializable>>) output.getValue("stepSummaries");
+      assertEquals(2, summaries.size());
+      assertEquals(1, summaries.get(0).get("workflowStepId"));
+      assertEquals(1, summaries.get(0).get("visitCount"));
+      assertEquals(10L, ((Number) summaries.get(0).get("totalDurationMillis")).longValue());
+      assertEquals(2, summaries.get(1).get("workflowStepId"));
+      assertEquals(3, summaries.get(1).get("visitCount"));
+      assertEquals(15L, ((Number) summaries.get(1).get("totalDurationMillis")).longValue());
+      assertEquals("output 2", summaries.get(1).get("firstOutputData"));
+      assertEquals("output 6", summaries.get(1).get("lastOutputData"));
+
+      //////////////////////////////
+      // second page: steps 3 & 4 //
+      //////////////////////////////
+      output = run(workflowRunLogId, null, 2, 2);
+      summaries = (List<Map<String, Serializable>>) output.getValue("stepSummaries");
+      assertEquals(List.of(3, 4), summaries.stream().map(s -> s.get("workflowStepId")).toList());
+      assertEquals("output 7", summaries.get(0).get("lastOutputData"));
+      assertEquals("output 8", summaries.get(1).get("lastOutputData"));
+
+      //////////////////////////////////////////////
+      // one step's visits, paged, in seqNo order //
+      //////////////////////////////////////////////
+      output = run(workflowRunLogId, 3, 1, 5);
+      List<Map<String, Serializable>> stepRows = (List<Map<String, Serializable>>) output.getValue("stepRows");
+      assertEquals(List.of(5, 7), stepRows.stream().map(r -> r.get("seqNo")).toList());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static WorkflowRunLogStep step(Integer workflowStepId, Integer seqNo, Long durationMillis)
+   {
+      return (new WorkflowRunLogStep()
+         .withWorkflowStepId(workflowStepId)
+         .withSeqNo(seqNo)
+         .withOutputData("output " + seqNo)
+         .withDurationMillis(durationMillis));
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static RunBackendStepOutput run(Long workflowRunLogId, Integer workflowStepId, int skip, int limit) throws QException
+   {
+      RunBackendStepInput input = new RunBackendStepInput();
+      input.addValue("workflowRunLogId", workflowRunLogId);
+      input.addValue("workflowStepId", workflowStepId);
+      input.addValue("skip", skip);
+      input.addValue("limit", limit);
+
+      RunBackendStepOutput output = new RunBackendStepOutput();
+      new GetWorkflowRunLogStepsProcess().run(input, output);
+      return (output);
+   }
+
+}
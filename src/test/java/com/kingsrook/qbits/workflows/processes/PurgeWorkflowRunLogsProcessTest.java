@@ -0,0 +1,133 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.processes;
+
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogPurgeCheckpoint;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qbits.workflows.tracing.WorkflowRunLogRetentionPolicy;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*******************************************************************************
+ ** Unit test for PurgeWorkflowRunLogsProcess
+ *******************************************************************************/
+class PurgeWorkflowRunLogsProcessTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void test() throws QException
+   {
+      ////////////////////////////////////////////////////////////////////////
+      // by default, errors are kept 90 days & successes 7 - but workflow 2 //
+      // keeps its successes forever                                        //
+      ////////////////////////////////////////////////////////////////////////
+      WorkflowsQBitConfig.of(QContext.getQInstance())
+         .withDefaultWorkflowRunLogRetentionPolicy(new WorkflowRunLogRetentionPolicy().withErrorRetentionDays(90).withSuccessRetentionDays(7))
+         .withWorkflowRunLogRetentionPoliciesByWorkflowId(Map.of(2, new WorkflowRunLogRetentionPolicy().withErrorRetentionDays(90)))
+         .withWorkflowRunLogPurgeChunkSize(2)
+         .withWorkflowRunLogPurgeThrottleMillis(0);
+
+      List<WorkflowRunLog> workflowRunLogs = new ArrayList<>();
+      for(int daysAgo : new int[] { 1, 10, 20, 30, 100 })
+      {
+         for(int workflowId : new int[] { 1, 2 })
+         {
+            for(boolean hadError : new boolean[] { true, false })
+            {
+               workflowRunLogs.add(new WorkflowRunLog()
+                  .withWorkflowId(workflowId)
+                  .withHadError(hadError)
+                  .withStartTimestamp(Instant.now().minus(daysAgo, ChronoUnit.DAYS))
+                  .withSteps(new ArrayList<>(List.of(new WorkflowRunLogStep().withWorkflowStepId(1).withSeqNo(1)))));
+            }
+         }
+      }
+      new InsertAction().execute(new InsertInput(WorkflowRunLog.TABLE_NAME).withRecordEntities(workflowRunLogs));
+      assertEquals(20, QueryAction.execute(WorkflowRunLogStep.TABLE_NAME, new QQueryFilter()).size());
+
+      //////////////////////////////////////////////////////////////////////////
+      // deleted: the 100-day-old errors (2), and workflow 1's successes older //
+      // than 7 days (4)                                                      //
+      //////////////////////////////////////////////////////////////////////////
+      assertEquals(6, runPurge());
+
+      List<QRecord> remaining = QueryAction.execute(WorkflowRunLog.TABLE_NAME, new QQueryFilter());
+      assertEquals(14, remaining.size());
+      assertThat(remaining).noneMatch(r -> r.getValueInteger("workflowId") == 1 && !r.getValueBoolean("hadError") && r.getValueInstant("startTimestamp").isBefore(Instant.now().minus(7, ChronoUnit.DAYS)));
+      assertThat(remaining).noneMatch(r -> r.getValueBoolean("hadError") && r.getValueInstant("startTimestamp").isBefore(Instant.now().minus(90, ChronoUnit.DAYS)));
+      assertEquals(14, QueryAction.execute(WorkflowRunLogStep.TABLE_NAME, new QQueryFilter()).size());
+
+      /////////////////////////////////////////////////////////////////
+      // checkpoints are stored for the rules that deleted anything, //
+      // and a second run has nothing left to delete                 //
+      /////////////////////////////////////////////////////////////////
+      List<String> ruleKeys = QueryAction.execute(WorkflowRunLogPurgeCheckpoint.TABLE_NAME, new QQueryFilter()).stream().map(r -> r.getValueString("ruleKey")).sorted().toList();
+      assertEquals(List.of("default,hadError=false", "default,hadError=true", "workflowId=2,hadError=true"), ruleKeys);
+      assertEquals(0, runPurge());
+
+      //////////////////////////////////////////////////////////////////////
+      // once workflow 2's policy is removed, the default applies to it - //
+      // and its successes older than 7 days (4) are deleted, even though //
+      // they're older than the default rule's checkpoint                 //
+      //////////////////////////////////////////////////////////////////////
+      WorkflowsQBitConfig.of(QContext.getQInstance()).withWorkflowRunLogRetentionPoliciesByWorkflowId(Map.of());
+      assertEquals(4, runPurge());
+      assertEquals(10, QueryAction.execute(WorkflowRunLog.TABLE_NAME, new QQueryFilter()).size());
+      assertEquals(0, runPurge());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static int runPurge() throws QException
+   {
+      RunBackendStepOutput output = new RunBackendStepOutput();
+      new PurgeWorkflowRunLogsProcess().run(new RunBackendStepInput(), output);
+      return ((Integer) output.getValue("deletedCount"));
+   }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.time.Instant;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsQBitConfig;
+import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutor;
+import com.kingsrook.qbits.workflows.execution.WorkflowInput;
+import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for SamplingWorkflowTracer
+ *******************************************************************************/
+class SamplingWorkflowTracerTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testShouldTrace()
+   {
+      Instant        start   = Instant.parse("2025-01-01T00:00:00Z");
+      WorkflowRunLog error   = new WorkflowRunLog().withHadError(true).withStartTimestamp(start).withEndTimestamp(start.plusMillis(10));
+      WorkflowRunLog fast    = new WorkflowRunLog().withHadError(false).withStartTimestamp(start).withEndTimestamp(start.plusMillis(10));
+      WorkflowRunLog slow    = new WorkflowRunLog().withHadError(false).withStartTimestamp(start).withEndTimestamp(start.plusMillis(5000));
+      WorkflowRunLog unknown = new WorkflowRunLog().withHadError(false);
+
+      WorkflowTracerSamplingPolicy keepAll = new WorkflowTracerSamplingPolicy();
+      assertTrue(SamplingWorkflowTracer.shouldTrace(keepAll, error));
+      assertTrue(SamplingWorkflowTracer.shouldTrace(keepAll, fast));
+      assertTrue(SamplingWorkflowTracer.shouldTrace(keepAll, unknown));
+
+      WorkflowTracerSamplingPolicy errorsAndSlow = new WorkflowTracerSamplingPolicy().withSuccessSamplePercent(0).withSlowRunThresholdMillis(1000L);
+      assertTrue(SamplingWorkflowTracer.shouldTrace(errorsAndSlow, error));
+      assertFalse(SamplingWorkflowTracer.shouldTrace(errorsAndSlow, fast));
+      assertTrue(SamplingWorkflowTracer.shouldTrace(errorsAndSlow, slow));
+      assertFalse(SamplingWorkflowTracer.shouldTrace(errorsAndSlow, unknown));
+
+      WorkflowTracerSamplingPolicy nothing = new WorkflowTracerSamplingPolicy().withKeepErrors(false).withSuccessSamplePercent(0);
+      assertFalse(SamplingWorkflowTracer.shouldTrace(nothing, error));
+      assertFalse(SamplingWorkflowTracer.shouldTrace(nothing, slow));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testPoliciesFromConfig() throws Exception
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      ///////////////////////////////////////////////////////////////////
+      // a policy for the workflow's type that keeps nothing - no logs //
+      ///////////////////////////////////////////////////////////////////
+      WorkflowsQBitConfig config = WorkflowsQBitConfig.of(QContext.getQInstance());
+      config.setWorkflowTracerSamplingPoliciesByWorkflowType(Map.of(TestWorkflowDefinitions.TEST_WORKFLOW_TYPE, new WorkflowTracerSamplingPolicy().withSuccessSamplePercent(0)));
+      runWorkflow(workflowId);
+      assertEquals(0, QueryAction.execute(WorkflowRunLog.TABLE_NAME, new QQueryFilter()).size());
+
+      ////////////////////////////////////////////////////////////
+      // a policy for the workflow's id takes precedence - logs //
+      ////////////////////////////////////////////////////////////
+      config.setWorkflowTracerSamplingPoliciesByWorkflowId(Map.of(workflowId, new WorkflowTracerSamplingPolicy()));
+      runWorkflow(workflowId);
+      assertEquals(1, QueryAction.execute(WorkflowRunLog.TABLE_NAME, new QQueryFilter()).size());
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static void runWorkflow(Integer workflowId) throws Exception
+   {
+      WorkflowOutput workflowOutput = new WorkflowOutput();
+      new WorkflowExecutor()
+         .withWorkflowTracer(new SamplingWorkflowTracer())
+         .execute(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", true, "seedValue", 0)), workflowOutput);
+   }
+
+}
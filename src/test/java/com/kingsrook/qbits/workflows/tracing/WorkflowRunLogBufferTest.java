@@ -0,0 +1,157 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutor;
+import com.kingsrook.qbits.workflows.execution.WorkflowInput;
+import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowRunLogBuffer (and BufferedWorkflowRunLogTracer)
+ *******************************************************************************/
+class WorkflowRunLogBufferTest extends BaseTest
+{
+   @TempDir
+   Path tempDir;
+
+
+
+   /*******************************************************************************
+    ** (a long flush interval & large batches are used, so the flusher thread
+    ** never runs during these tests - the memory backend isn't for concurrency)
+    *******************************************************************************/
+   @Test
+   void testBufferedTracer() throws Exception
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      WorkflowRunLogBuffer workflowRunLogBuffer = new WorkflowRunLogBuffer(100, 100, 60_000, WorkflowRunLogBufferOverflowPolicy.BLOCK, tempDir.resolve("spill"));
+      WorkflowsRegistry.of(QContext.getQInstance()).setWorkflowRunLogBuffer(workflowRunLogBuffer);
+      assertEquals(workflowRunLogBuffer, WorkflowRunLogBuffer.of(QContext.getQInstance()));
+
+      for(boolean condition : new boolean[] { true, false })
+      {
+         WorkflowOutput workflowOutput = new WorkflowOutput();
+         new WorkflowExecutor()
+            .withWorkflowTracer(new BufferedWorkflowRunLogTracer())
+            .execute(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", condition, "seedValue", 0)), workflowOutput);
+         assertNull(workflowOutput.getException());
+      }
+
+      assertEquals(2, workflowRunLogBuffer.getQueueDepth());
+      assertEquals(0, queryRunLogs().size());
+
+      workflowRunLogBuffer.flush();
+      assertEquals(0, workflowRunLogBuffer.getQueueDepth());
+      assertEquals(2, workflowRunLogBuffer.getInsertedCount());
+
+      List<WorkflowRunLog> workflowRunLogs = queryRunLogs();
+      assertEquals(2, workflowRunLogs.size());
+      assertThat(workflowRunLogs).allMatch(workflowRunLog -> !workflowRunLog.getSteps().isEmpty());
+
+      workflowRunLogBuffer.shutdown();
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testDropOldest() throws Exception
+   {
+      WorkflowRunLogBuffer workflowRunLogBuffer = new WorkflowRunLogBuffer(2, 100, 60_000, WorkflowRunLogBufferOverflowPolicy.DROP_OLDEST, tempDir.resolve("spill"));
+      for(int i = 1; i <= 3; i++)
+      {
+         workflowRunLogBuffer.enqueue(new WorkflowRunLog().withWorkflowId(i).withHadError(false));
+      }
+      assertEquals(1, workflowRunLogBuffer.getDroppedCount());
+
+      workflowRunLogBuffer.flush();
+      assertEquals(List.of(2, 3), queryRunLogs().stream().map(WorkflowRunLog::getWorkflowId).sorted().toList());
+
+      workflowRunLogBuffer.shutdown();
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testSpillToFile() throws Exception
+   {
+      Path                 spillFile            = tempDir.resolve("spill");
+      WorkflowRunLogBuffer workflowRunLogBuffer = new WorkflowRunLogBuffer(2, 100, 60_000, WorkflowRunLogBufferOverflowPolicy.SPILL_TO_FILE, spillFile);
+      for(int i = 1; i <= 3; i++)
+      {
+         workflowRunLogBuffer.enqueue(new WorkflowRunLog().withWorkflowId(i).withHadError(false));
+      }
+      assertEquals(1, workflowRunLogBuffer.getSpilledCount());
+      assertTrue(Files.exists(spillFile));
+
+      workflowRunLogBuffer.flush();
+      assertFalse(Files.exists(spillFile));
+      assertEquals(3, workflowRunLogBuffer.getInsertedCount());
+      assertEquals(List.of(1, 2, 3), queryRunLogs().stream().map(WorkflowRunLog::getWorkflowId).sorted().toList());
+
+      workflowRunLogBuffer.shutdown();
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static List<WorkflowRunLog> queryRunLogs() throws QException
+   {
+      return (new QueryAction().execute(new QueryInput(WorkflowRunLog.TABLE_NAME)
+            .withFilter(new QQueryFilter())
+            .withIncludeAssociations(true))
+         .getRecordEntities(WorkflowRunLog.class));
+   }
+
+}
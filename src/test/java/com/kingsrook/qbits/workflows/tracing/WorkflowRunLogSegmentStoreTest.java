@@ -0,0 +1,195 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLogStep;
+import com.kingsrook.qbits.workflows.processes.LoadWorkflowRunLogSegmentsProcess;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
+import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepOutput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowRunLogSegmentStore (and LoadWorkflowRunLogSegmentsProcess)
+ *******************************************************************************/
+class WorkflowRunLogSegmentStoreTest extends BaseTest
+{
+   private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+   @TempDir
+   Path tempDir;
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testAppendGetAndFind() throws Exception
+   {
+      ////////////////////////////////////////////////////////////////////////
+      // small segments, so that the run logs are spread over several files //
+      ////////////////////////////////////////////////////////////////////////
+      WorkflowRunLogSegmentStore segmentStore = new WorkflowRunLogSegmentStore(tempDir, 1000);
+
+      List<Long> ids = new ArrayList<>();
+      for(int i = 0; i < 20; i++)
+      {
+         ids.add(segmentStore.append(newRunLog(i % 2 == 0 ? 1 : 2, i)));
+      }
+      assertThat(segmentStore.getSegmentNos()).hasSizeGreaterThan(1);
+
+      WorkflowRunLog workflowRunLog = segmentStore.get(ids.get(5));
+      assertEquals(ids.get(5), workflowRunLog.getId());
+      assertEquals(2, workflowRunLog.getWorkflowId());
+      assertEquals(START.plusSeconds(5), workflowRunLog.getStartTimestamp());
+      assertEquals(2, workflowRunLog.getSteps().size());
+      assertEquals("message 5", workflowRunLog.getSteps().get(1).getMessage());
+
+      assertNull(segmentStore.get(ids.get(19) + 1));
+      assertNull(segmentStore.get((long) 99 << 32));
+
+      /////////////////////////////////////////////////////////
+      // find by workflow and start time range, newest first //
+      /////////////////////////////////////////////////////////
+      assertEquals(ids.size(), segmentStore.findRunLogIds(null, null, null, null, null).size());
+      assertEquals(List.of(ids.get(8), ids.get(6), ids.get(4)), segmentStore.findRunLogIds(null, 1, START.plusSeconds(4), START.plusSeconds(10), null));
+      assertEquals(List.of(ids.get(19), ids.get(17)), segmentStore.findRunLogIds(null, 2, null, null, 2));
+
+      int firstSegmentNo = segmentStore.getSegmentNos().get(0);
+      assertThat(segmentStore.findRunLogIds(List.of(firstSegmentNo), null, null, null, null)).allMatch(id -> WorkflowRunLogSegmentStore.getSegmentNo(id) == firstSegmentNo);
+
+      ////////////////////////////////////////////////////////////////////////
+      // a new store on the same directory reads the existing segments, and //
+      // appends to a new one                                               //
+      ////////////////////////////////////////////////////////////////////////
+      segmentStore.close();
+      WorkflowRunLogSegmentStore reopenedStore = new WorkflowRunLogSegmentStore(tempDir, 1000);
+      assertEquals(2, reopenedStore.get(ids.get(5)).getWorkflowId());
+      assertEquals(ids.size(), reopenedStore.findRunLogIds(null, null, null, null, null).size());
+
+      long newId = reopenedStore.append(newRunLog(3, 100));
+      assertThat(WorkflowRunLogSegmentStore.getSegmentNo(newId)).isGreaterThan(WorkflowRunLogSegmentStore.getSegmentNo(ids.get(19)));
+      assertEquals(3, reopenedStore.get(newId).getWorkflowId());
+      reopenedStore.close();
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testLoadProcess() throws Exception
+   {
+      WorkflowRunLogSegmentStore segmentStore = new WorkflowRunLogSegmentStore(tempDir, 1000);
+      WorkflowsRegistry.of(QContext.getQInstance()).setWorkflowRunLogSegmentStore(segmentStore);
+      for(int i = 0; i < 10; i++)
+      {
+         new SegmentStoreWorkflowRunLogTracer().handleWorkflowFinish(newRunLog(i < 3 ? 1 : 2, i));
+      }
+
+      RunBackendStepInput  input  = new RunBackendStepInput();
+      RunBackendStepOutput output = new RunBackendStepOutput();
+      input.addValue("workflowId", 1);
+      new LoadWorkflowRunLogSegmentsProcess().run(input, output);
+      assertEquals(3, output.getValue("loadedCount"));
+
+      List<WorkflowRunLog> workflowRunLogs = new QueryAction().execute(new QueryInput(WorkflowRunLog.TABLE_NAME)
+            .withFilter(new QQueryFilter())
+            .withIncludeAssociations(true))
+         .getRecordEntities(WorkflowRunLog.class);
+      assertEquals(List.of(START, START.plusSeconds(1), START.plusSeconds(2)), workflowRunLogs.stream().map(WorkflowRunLog::getStartTimestamp).sorted().toList());
+      assertThat(workflowRunLogs).allMatch(workflowRunLog -> workflowRunLog.getSteps().size() == 2);
+
+      segmentStore.close();
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testRetentionAndDirectoryLock() throws Exception
+   {
+      ///////////////////////////////////////////////////////////////////
+      // the run logs started long before the retention days - so each //
+      // segment is deleted once a newer one is started                //
+      ///////////////////////////////////////////////////////////////////
+      WorkflowRunLogSegmentStore segmentStore = new WorkflowRunLogSegmentStore(tempDir, 1000, 30);
+
+      List<Long> ids = new ArrayList<>();
+      for(int i = 0; i < 20; i++)
+      {
+         ids.add(segmentStore.append(newRunLog(1, i)));
+      }
+      assertEquals(1, segmentStore.getSegmentNos().size());
+      assertNull(segmentStore.get(ids.get(0)));
+      assertEquals(1, segmentStore.get(ids.get(19)).getWorkflowId());
+
+      ////////////////////////////////////////////////////////////////
+      // while it's open, no other store can use the same directory //
+      ////////////////////////////////////////////////////////////////
+      assertThatThrownBy(() -> new WorkflowRunLogSegmentStore(tempDir, 1000)).hasMessageContaining("in use by another store");
+      segmentStore.close();
+
+      WorkflowRunLogSegmentStore reopenedStore = new WorkflowRunLogSegmentStore(tempDir, 1000);
+      assertEquals(1, reopenedStore.get(ids.get(19)).getWorkflowId());
+      reopenedStore.close();
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static WorkflowRunLog newRunLog(Integer workflowId, int i)
+   {
+      return (new WorkflowRunLog()
+         .withWorkflowId(workflowId)
+         .withHadError(false)
+         .withStartTimestamp(START.plusSeconds(i))
+         .withEndTimestamp(START.plusSeconds(i).plusMillis(10))
+         .withSteps(new ArrayList<>(List.of(
+            new WorkflowRunLogStep().withWorkflowStepId(1).withSeqNo(1).withOutputData("true"),
+            new WorkflowRunLogStep().withWorkflowStepId(2).withSeqNo(2).withMessage("message " + i)))));
+   }
+
+}
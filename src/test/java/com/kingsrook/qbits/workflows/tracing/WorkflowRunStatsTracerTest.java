@@ -0,0 +1,148 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.workflows.tracing;
+
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.workflows.BaseTest;
+import com.kingsrook.qbits.workflows.TestWorkflowDefinitions;
+import com.kingsrook.qbits.workflows.WorkflowsTestDataSource;
+import com.kingsrook.qbits.workflows.definition.WorkflowsRegistry;
+import com.kingsrook.qbits.workflows.execution.WorkflowExecutor;
+import com.kingsrook.qbits.workflows.execution.WorkflowInput;
+import com.kingsrook.qbits.workflows.execution.WorkflowOutput;
+import com.kingsrook.qbits.workflows.model.WorkflowRunLog;
+import com.kingsrook.qbits.workflows.model.WorkflowRunStats;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+/*******************************************************************************
+ ** Unit test for WorkflowRunStatsTracer (and WorkflowRunStatsAggregator)
+ *******************************************************************************/
+class WorkflowRunStatsTracerTest extends BaseTest
+{
+
+   /*******************************************************************************
+    ** (a long flush interval is used, so the flusher thread never runs during
+    ** this test - the memory backend isn't for concurrency)
+    *******************************************************************************/
+   @Test
+   void test() throws Exception
+   {
+      TestWorkflowDefinitions.registerTestWorkflowTypes();
+      Integer workflowId = WorkflowsTestDataSource.insertTestWorkflow();
+
+      WorkflowRunStatsAggregator workflowRunStatsAggregator = new WorkflowRunStatsAggregator(60_000);
+      WorkflowsRegistry.of(QContext.getQInstance()).setWorkflowRunStatsAggregator(workflowRunStatsAggregator);
+
+      for(boolean condition : new boolean[] { true, false })
+      {
+         WorkflowOutput workflowOutput = new WorkflowOutput();
+         new WorkflowExecutor()
+            .withWorkflowTracer(new WorkflowRunStatsTracer())
+            .execute(new WorkflowInput().withWorkflowId(workflowId).withValues(Map.of("condition", condition, "seedValue", 0)), workflowOutput);
+         assertNull(workflowOutput.getException());
+      }
+
+      ///////////////////////////////////////////////////////////////////
+      // run logs go on to the delegate tracer (the table, by default) //
+      // right away, but the rollup isn't stored until a flush         //
+      ///////////////////////////////////////////////////////////////////
+      assertEquals(2, QueryAction.execute(WorkflowRunLog.TABLE_NAME, new QQueryFilter()).size());
+      assertEquals(0, queryStats().size());
+
+      workflowRunStatsAggregator.flush();
+      List<WorkflowRunStats> stats = queryStats();
+      assertEquals(1, stats.size());
+      assertEquals(workflowId, stats.get(0).getWorkflowId());
+      assertEquals(Instant.now().truncatedTo(ChronoUnit.HOURS), stats.get(0).getHourStartTimestamp());
+      assertEquals(2, stats.get(0).getRunCount());
+      assertEquals(0, stats.get(0).getErrorCount());
+      assertThat(stats.get(0).getStepCount()).isPositive();
+      Long stepCount = stats.get(0).getStepCount();
+
+      /////////////////////////////////////////////////////////
+      // a later flush adds to the existing row for the hour //
+      /////////////////////////////////////////////////////////
+      Instant startTimestamp = stats.get(0).getHourStartTimestamp();
+      workflowRunStatsAggregator.record(new WorkflowRunLog()
+         .withWorkflowId(workflowId)
+         .withWorkflowRevisionId(stats.get(0).getWorkflowRevisionId())
+         .withHadError(true)
+         .withStartTimestamp(startTimestamp)
+         .withEndTimestamp(startTimestamp.plusMillis(1_000_000)));
+      workflowRunStatsAggregator.flush();
+
+      stats = queryStats();
+      assertEquals(1, stats.size());
+      assertEquals(3, stats.get(0).getRunCount());
+      assertEquals(1, stats.get(0).getErrorCount());
+      assertEquals(1_000_000, stats.get(0).getMaxDurationMillis());
+      assertEquals(stepCount, stats.get(0).getStepCount());
+
+      ////////////////////////////////////////////////
+      // and a different hour gets a row of its own //
+      ////////////////////////////////////////////////
+      workflowRunStatsAggregator.record(new WorkflowRunLog().withWorkflowId(workflowId).withHadError(false).withStartTimestamp(startTimestamp.minus(1, ChronoUnit.DAYS)).withEndTimestamp(startTimestamp.minus(1, ChronoUnit.DAYS)));
+      workflowRunStatsAggregator.flush();
+      assertEquals(2, queryStats().size());
+
+      ///////////////////////////////////////////////////////////////////
+      // another node's row for the same hour is left alone - this one //
+      // only adds to its own rows                                     //
+      ///////////////////////////////////////////////////////////////////
+      new InsertAction().execute(new InsertInput(WorkflowRunStats.TABLE_NAME).withRecordEntity(new WorkflowRunStats()
+         .withWorkflowId(workflowId)
+         .withWorkflowRevisionId(stats.get(0).getWorkflowRevisionId())
+         .withHourStartTimestamp(startTimestamp)
+         .withNodeId("otherNode")
+         .withRunCount(5)));
+      workflowRunStatsAggregator.record(new WorkflowRunLog().withWorkflowId(workflowId).withWorkflowRevisionId(stats.get(0).getWorkflowRevisionId()).withHadError(false).withStartTimestamp(startTimestamp));
+      workflowRunStatsAggregator.flush();
+      assertThat(queryStats()).filteredOn(s -> startTimestamp.equals(s.getHourStartTimestamp()))
+         .extracting(WorkflowRunStats::getRunCount).containsExactlyInAnyOrder(4, 5);
+
+      workflowRunStatsAggregator.shutdown();
+   }
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   private static List<WorkflowRunStats> queryStats() throws Exception
+   {
+      return (QueryAction.execute(WorkflowRunStats.TABLE_NAME, new QQueryFilter()).stream().map(WorkflowRunStats::new).toList());
+   }
+
+}
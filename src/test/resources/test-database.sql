@@ -75,8 +75,58 @@ CREATE TABLE workflow_run_log_step
    input_data_json VARCHAR(250),
    output_data_json VARCHAR(250),
    start_timestamp TIMESTAMP,
-   end_timestamp TIMESTAMP
+   end_timestamp TIMESTAMP,
+   duration_millis BIGINT
 );
 
 ALTER TABLE workflow_run_log_step ADD INDEX i_workflow_run_log_id (workflow_run_log_id);
 
+DROP TABLE IF EXISTS workflow_run_log_purge_checkpoint;
+CREATE TABLE workflow_run_log_purge_checkpoint
+(
+   id INTEGER AUTO_INCREMENT PRIMARY KEY,
+   create_date TIMESTAMP DEFAULT now(),
+   modify_date TIMESTAMP DEFAULT now(),
+   rule_key VARCHAR(100) NOT NULL,
+   purged_through_timestamp TIMESTAMP,
+   rule_scope_hash INTEGER,
+   last_full_scan_timestamp TIMESTAMP
+);
+
+ALTER TABLE workflow_run_log_purge_checkpoint ADD UNIQUE INDEX u_rule_key (rule_key);
+
+DROP TABLE IF EXISTS workflow_run_stats;
+CREATE TABLE workflow_run_stats
+(
+   id INTEGER AUTO_INCREMENT PRIMARY KEY,
+   create_date TIMESTAMP DEFAULT now(),
+   modify_date TIMESTAMP DEFAULT now(),
+   workflow_id INTEGER,
+   workflow_revision_id INTEGER,
+   hour_start_timestamp TIMESTAMP,
+   node_id VARCHAR(100),
+   run_count INTEGER,
+   error_count INTEGER,
+   total_duration_millis BIGINT,
+   min_duration_millis BIGINT,
+   max_duration_millis BIGINT,
+   step_count BIGINT
+);
+
+ALTER TABLE workflow_run_stats ADD UNIQUE INDEX u_workflow_id_workflow_revision_id_hour_start_timestamp_node_id (workflow_id, workflow_revision_id, hour_start_timestamp, node_id);
+
+DROP TABLE IF EXISTS workflow_step_stats;
+CREATE TABLE workflow_step_stats
+(
+   id INTEGER AUTO_INCREMENT PRIMARY KEY,
+   create_date TIMESTAMP DEFAULT now(),
+   modify_date TIMESTAMP DEFAULT now(),
+   workflow_id INTEGER,
+   workflow_revision_id INTEGER,
+   workflow_step_id INTEGER,
+   step_no INTEGER,
+   to_step_no INTEGER,
+   visit_count BIGINT
+);
+
+ALTER TABLE workflow_step_stats ADD UNIQUE INDEX u_workflow_revision_id_step_no_to_step_no (workflow_revision_id, step_no, to_step_no);